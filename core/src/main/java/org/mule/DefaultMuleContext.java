@@ -35,6 +35,7 @@ import org.mule.api.registry.MuleRegistry;
 import org.mule.api.registry.RegistrationException;
 import org.mule.api.registry.Registry;
 import org.mule.api.security.SecurityManager;
+import org.mule.api.serialization.ObjectSerializer;
 import org.mule.api.store.ListableObjectStore;
 import org.mule.api.store.ObjectStoreManager;
 import org.mule.api.transaction.TransactionManagerFactory;
@@ -55,6 +56,7 @@ import org.mule.management.stats.AllStatistics;
 import org.mule.management.stats.ProcessingTimeWatcher;
 import org.mule.registry.DefaultRegistryBroker;
 import org.mule.registry.MuleRegistryHelper;
+import org.mule.serialization.JavaObjectSerializer;
 import org.mule.transport.DefaultPollingController;
 import org.mule.transport.PollingController;
 import org.mule.util.ApplicationShutdownSplashScreen;
@@ -160,6 +162,8 @@ public class DefaultMuleContext implements MuleContext
 
     private LockFactory lockFactory;
 
+    private ObjectSerializer objectSerializer;
+
     private ExpressionLanguage expressionLanguage;
 
     private ProcessingTimeWatcher processingTimeWatcher;
@@ -919,6 +923,24 @@ public class DefaultMuleContext implements MuleContext
         return this.lockFactory;
     }
 
+    @Override
+    public ObjectSerializer getObjectSerializer()
+    {
+        if (this.objectSerializer == null)
+        {
+            ObjectSerializer registeredSerializer = registryBroker.get(MuleProperties.OBJECT_SERIALIZER);
+            if (registeredSerializer == null)
+            {
+                // contexts configured without the defaults keep using Java serialization
+                JavaObjectSerializer defaultSerializer = new JavaObjectSerializer();
+                defaultSerializer.setMuleContext(this);
+                registeredSerializer = defaultSerializer;
+            }
+            this.objectSerializer = registeredSerializer;
+        }
+        return this.objectSerializer;
+    }
+
     @Override
     public ProcessingTimeWatcher getProcessorTimeWatcher()
     {
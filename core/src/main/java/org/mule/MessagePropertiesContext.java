@@ -15,9 +15,11 @@ import org.mule.util.CaseInsensitiveHashMap;
 import org.mule.util.CopyOnWriteCaseInsensitiveMap;
 import org.mule.util.MapUtils;
 import org.mule.util.ObjectUtils;
+import org.mule.util.PersistentCaseInsensitiveMap;
 
 import java.io.IOException;
 import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.AbstractMap;
 import java.util.Collections;
@@ -42,6 +44,10 @@ import org.apache.commons.logging.LogFactory;
  * used once a {@link MuleEvent} has been created as there is no {@link MuleSession} and therefore Session
  * scope properties before this time</li>
  * </ol>
+ * Inbound and outbound properties are kept in {@link PersistentCaseInsensitiveMap}s, so copying a context
+ * shares them with the original one and setting a property on either of them only copies the path to the
+ * property. They are serialized as plain {@link CopyOnWriteCaseInsensitiveMap}s, so the serialized form is
+ * the same as in previous versions.
  */
 public class MessagePropertiesContext implements Serializable
 {
@@ -58,8 +64,8 @@ public class MessagePropertiesContext implements Serializable
 
     public MessagePropertiesContext()
     {
-        inboundMap = new CopyOnWriteCaseInsensitiveMap<String, Object>();
-        outboundMap = new CopyOnWriteCaseInsensitiveMap<String, Object>();
+        inboundMap = new PersistentCaseInsensitiveMap<Object>();
+        outboundMap = new PersistentCaseInsensitiveMap<Object>();
     }
 
     public MessagePropertiesContext(MessagePropertiesContext previous)
@@ -310,7 +316,7 @@ public class MessagePropertiesContext implements Serializable
     /**
      * Check for properties that can't be serialized
      */
-    private void writeObject(java.io.ObjectOutputStream out) throws IOException
+    private void writeObject(ObjectOutputStream out) throws IOException
     {
         for (Map.Entry<String, Object> entry : inboundMap.entrySet())
         {
@@ -351,15 +357,45 @@ public class MessagePropertiesContext implements Serializable
                 }
             }
         }
-        out.defaultWriteObject();
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("inboundMap", toSerializableMap(inboundMap));
+        fields.put("outboundMap", toSerializableMap(outboundMap));
+        fields.put("invocationMap", invocationMap);
+        out.writeFields();
     }
 
     private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException
     {
         in.defaultReadObject();
+        inboundMap = toPersistentMap(inboundMap);
+        outboundMap = toPersistentMap(outboundMap);
         sessionMap = new UndefinedSessionPropertiesMap();
     }
 
+    private static CopyOnWriteCaseInsensitiveMap<String, Object> toSerializableMap(CopyOnWriteCaseInsensitiveMap<String, Object> map)
+    {
+        if (map == null || map.getClass() == CopyOnWriteCaseInsensitiveMap.class)
+        {
+            return map;
+        }
+        CopyOnWriteCaseInsensitiveMap<String, Object> serializableMap = new CopyOnWriteCaseInsensitiveMap<String, Object>();
+        serializableMap.putAll(map);
+        return serializableMap;
+    }
+
+    private static CopyOnWriteCaseInsensitiveMap<String, Object> toPersistentMap(CopyOnWriteCaseInsensitiveMap<String, Object> map)
+    {
+        if (map == null)
+        {
+            return new PersistentCaseInsensitiveMap<Object>();
+        }
+        if (map instanceof PersistentCaseInsensitiveMap)
+        {
+            return map;
+        }
+        return new PersistentCaseInsensitiveMap<Object>(map);
+    }
+
     private static class UndefinedSessionPropertiesMap extends AbstractMap<String, Object>
         implements Serializable
     {
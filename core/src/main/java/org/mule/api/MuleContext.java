@@ -26,6 +26,7 @@ import org.mule.api.registry.MuleRegistry;
 import org.mule.api.registry.RegistrationException;
 import org.mule.api.registry.Registry;
 import org.mule.api.security.SecurityManager;
+import org.mule.api.serialization.ObjectSerializer;
 import org.mule.api.store.ListableObjectStore;
 import org.mule.api.store.ObjectStoreManager;
 import org.mule.api.util.StreamCloserService;
@@ -321,6 +322,14 @@ public interface MuleContext extends Lifecycle
      */
     LockFactory getLockFactory();
 
+    /**
+     * Serializer used for sessions, wire formats, persistent queues and persistent object stores,
+     * so that all of them read what the others wrote.
+     *
+     * @return the serializer registered in the registry, {@link org.mule.serialization.JavaObjectSerializer} by default
+     */
+    ObjectSerializer getObjectSerializer();
+
     /**
      * @return {@link {ProcessingTimeWatcher} used to compute processing time of finalized events
      */
@@ -86,6 +86,12 @@ public interface MuleConfiguration
 
     boolean isDisableTimeouts();
 
+    /**
+     * @return the number of threads used to start objects that do not depend on each other, such
+     *         as connectors and flows. With 1 they are started one by one.
+     */
+    int getLifecycleThreads();
+
     /**
      * @param extensionType class instance of the extension type
      * @param <T> type of the extension
@@ -163,6 +163,7 @@ public class MuleProperties
     public static final String OBJECT_EXPRESSION_LANGUAGE = "_muleExpressionLanguage";
     public static final String OBJECT_LOCK_FACTORY = "_muleLockFactory";
     public static final String OBJECT_LOCK_PROVIDER = "_muleLockProvider";
+    public static final String OBJECT_SERIALIZER = "_muleObjectSerializer";
     public static final String OBJECT_DEFAULT_MESSAGE_PROCESSING_MANAGER = "_muleMessageProcessingManager";
     public static final String OBJECT_PROCESSING_TIME_WATCHER = "_muleProcessingTimeWatcher";
     public static final String OBJECT_POLLING_CONTROLLER = "_mulePollingController";
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.api.serialization;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Serializes the objects that Mule stores or sends as bytes: sessions, messages sent through
+ * wire formats, entries of persistent queues and of persistent object stores. The serializer in
+ * use is obtained through {@link org.mule.api.MuleContext#getObjectSerializer()}, so every one of
+ * those paths reads what the others wrote.
+ * <p/>
+ * Deserialized objects implementing
+ * {@link org.mule.util.store.DeserializationPostInitialisable} are initialised with the
+ * {@link org.mule.api.MuleContext} before they are returned. Failures are reported as
+ * {@link org.apache.commons.lang.SerializationException}, like
+ * {@link org.mule.util.SerializationUtils} does.
+ * <p/>
+ * Implementations must be thread safe.
+ */
+public interface ObjectSerializer
+{
+
+    /**
+     * @return the serialized form of <code>object</code>
+     */
+    byte[] serialize(Object object);
+
+    /**
+     * Serializes <code>object</code> into <code>out</code>, closing the stream once the object is
+     * written.
+     */
+    void serialize(Object object, OutputStream out);
+
+    /**
+     * Deserializes an object using the execution class loader of the Mule context.
+     */
+    <T> T deserialize(byte[] bytes);
+
+    /**
+     * Deserializes an object using the given class loader to load its classes.
+     */
+    <T> T deserialize(byte[] bytes, ClassLoader classLoader);
+
+    /**
+     * Deserializes an object using the execution class loader of the Mule context, closing the
+     * stream once the object is read.
+     */
+    <T> T deserialize(InputStream in);
+
+    /**
+     * Deserializes an object using the given class loader to load its classes, closing the stream
+     * once the object is read.
+     */
+    <T> T deserialize(InputStream in, ClassLoader classLoader);
+}
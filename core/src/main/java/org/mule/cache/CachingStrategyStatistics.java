@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.cache;
+
+import org.mule.api.management.stats.Statistics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Statistics about the requests processed by a {@link org.mule.api.cache.CachingStrategy}.
+ */
+public class CachingStrategyStatistics implements Statistics
+{
+
+    private static final long serialVersionUID = 6329784156390282113L;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong bypassed = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    @Override
+    public boolean isEnabled()
+    {
+        return true;
+    }
+
+    void incrementHits()
+    {
+        hits.incrementAndGet();
+    }
+
+    void incrementMisses()
+    {
+        misses.incrementAndGet();
+    }
+
+    void incrementBypassed()
+    {
+        bypassed.incrementAndGet();
+    }
+
+    void incrementEvictions()
+    {
+        evictions.incrementAndGet();
+    }
+
+    void incrementInvalidations()
+    {
+        invalidations.incrementAndGet();
+    }
+
+    /**
+     * @return number of requests answered with a cached response
+     */
+    public long getHits()
+    {
+        return hits.get();
+    }
+
+    /**
+     * @return number of requests that had to be processed because no response was cached for them
+     */
+    public long getMisses()
+    {
+        return misses.get();
+    }
+
+    /**
+     * @return number of requests processed without using the cache, as their request or response
+     *         could not be cached
+     */
+    public long getBypassed()
+    {
+        return bypassed.get();
+    }
+
+    /**
+     * @return number of responses removed from the cache because of its size or their expiration
+     */
+    public long getEvictions()
+    {
+        return evictions.get();
+    }
+
+    /**
+     * @return number of responses removed from the cache because they were invalidated
+     */
+    public long getInvalidations()
+    {
+        return invalidations.get();
+    }
+
+    /**
+     * @return ratio of requests answered with a cached response among the ones that used the cache
+     */
+    public double getHitRatio()
+    {
+        long hitCount = hits.get();
+        long requestCount = hitCount + misses.get();
+        return requestCount == 0 ? 0 : (double) hitCount / requestCount;
+    }
+
+    public void clear()
+    {
+        hits.set(0);
+        misses.set(0);
+        bypassed.set(0);
+        evictions.set(0);
+        invalidations.set(0);
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("CachingStrategyStatistics{hits=%s, misses=%s, bypassed=%s, evictions=%s, invalidations=%s}",
+                             getHits(), getMisses(), getBypassed(), getEvictions(), getInvalidations());
+    }
+}
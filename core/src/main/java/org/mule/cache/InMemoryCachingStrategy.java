@@ -0,0 +1,331 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.cache;
+
+import org.mule.DefaultMuleEvent;
+import org.mule.DefaultMuleMessage;
+import org.mule.VoidMuleEvent;
+import org.mule.api.MessagingException;
+import org.mule.api.MuleEvent;
+import org.mule.api.MuleEventKeyGenerator;
+import org.mule.api.MuleException;
+import org.mule.api.MuleMessage;
+import org.mule.api.cache.CachingStrategy;
+import org.mule.api.cache.InvalidatableCachingStrategy;
+import org.mule.api.cache.InvalidateCacheException;
+import org.mule.api.lifecycle.Initialisable;
+import org.mule.api.lifecycle.InitialisationException;
+import org.mule.api.processor.MessageProcessor;
+import org.mule.api.routing.filter.Filter;
+import org.mule.keygenerator.SHA256MuleEventKeyGenerator;
+import org.mule.routing.filters.ConsumableMuleMessageFilter;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import java.io.NotSerializableException;
+import java.io.Serializable;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * {@link CachingStrategy} that keeps the responses in memory, bounded by a maximum number of
+ * entries (least recently used responses are evicted first) and optionally by a time to live.
+ * <p/>
+ * Responses are cached using the key generated for the request by the configured
+ * {@link MuleEventKeyGenerator}. Concurrent requests that miss the cache with the same key are
+ * processed only once: the first one executes the message processor while the others wait for
+ * its response.
+ * <p/>
+ * Requests with a consumable payload, such as a stream, are processed without using the cache,
+ * as generating their key would consume them. Consumable responses are returned without being
+ * cached unless {@link #setCacheConsumableResponses(boolean)} is enabled, in which case their
+ * payload is read into memory first.
+ */
+public class InMemoryCachingStrategy implements CachingStrategy, InvalidatableCachingStrategy, Initialisable
+{
+
+    public static final long DEFAULT_MAX_ENTRIES = 1000;
+
+    protected transient Log logger = LogFactory.getLog(getClass());
+
+    private MuleEventKeyGenerator keyGenerator = new SHA256MuleEventKeyGenerator();
+    private Filter consumableFilter = new ConsumableMuleMessageFilter();
+    private long maxEntries = DEFAULT_MAX_ENTRIES;
+    private long entryTtl;
+    private boolean cacheConsumableResponses;
+    private final CachingStrategyStatistics statistics = new CachingStrategyStatistics();
+    private Cache<Serializable, CachedResponse> cache;
+
+    @Override
+    public void initialise() throws InitialisationException
+    {
+        CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder().maximumSize(maxEntries);
+        if (entryTtl > 0)
+        {
+            builder.expireAfterWrite(entryTtl, TimeUnit.MILLISECONDS);
+        }
+        cache = builder.removalListener(new RemovalListener<Serializable, CachedResponse>()
+        {
+            @Override
+            public void onRemoval(RemovalNotification<Serializable, CachedResponse> notification)
+            {
+                if (notification.wasEvicted())
+                {
+                    statistics.incrementEvictions();
+                }
+                else if (notification.getValue().isCacheable())
+                {
+                    statistics.incrementInvalidations();
+                }
+            }
+        }).build();
+    }
+
+    @Override
+    public MuleEvent process(final MuleEvent request, final MessageProcessor messageProcessor) throws MuleException
+    {
+        if (!consumableFilter.accept(request.getMessage()))
+        {
+            statistics.incrementBypassed();
+            return messageProcessor.process(request);
+        }
+
+        Serializable key;
+        try
+        {
+            key = keyGenerator.generateKey(request);
+        }
+        catch (NotSerializableException e)
+        {
+            logger.warn("Could not generate cache key for event, processing it without using the cache: " + e.getMessage());
+            statistics.incrementBypassed();
+            return messageProcessor.process(request);
+        }
+
+        final MuleEvent[] processedResponse = new MuleEvent[1];
+        final boolean[] processed = new boolean[1];
+        CachedResponse cachedResponse;
+        try
+        {
+            cachedResponse = cache.get(key, new Callable<CachedResponse>()
+            {
+                @Override
+                public CachedResponse call() throws Exception
+                {
+                    processed[0] = true;
+                    processedResponse[0] = messageProcessor.process(request);
+                    return createCachedResponse(processedResponse[0]);
+                }
+            });
+        }
+        catch (ExecutionException e)
+        {
+            throw unwrap(request, e.getCause());
+        }
+        catch (UncheckedExecutionException e)
+        {
+            throw unwrap(request, e.getCause());
+        }
+        catch (ExecutionError e)
+        {
+            throw unwrap(request, e.getCause());
+        }
+
+        if (processed[0])
+        {
+            statistics.incrementMisses();
+            if (!cachedResponse.isCacheable())
+            {
+                cache.asMap().remove(key, cachedResponse);
+            }
+            return processedResponse[0];
+        }
+        if (!cachedResponse.isCacheable())
+        {
+            // Waited for a concurrent request whose response could not be shared
+            statistics.incrementBypassed();
+            return messageProcessor.process(request);
+        }
+        statistics.incrementHits();
+        return createResponse(cachedResponse, request);
+    }
+
+    private CachedResponse createCachedResponse(MuleEvent response) throws Exception
+    {
+        if (response == null || VoidMuleEvent.getInstance().equals(response))
+        {
+            return CachedResponse.NOT_CACHEABLE;
+        }
+        MuleMessage message = response.getMessage();
+        if (!consumableFilter.accept(message))
+        {
+            if (!cacheConsumableResponses)
+            {
+                return CachedResponse.NOT_CACHEABLE;
+            }
+            message.setPayload(message.getPayloadAsBytes());
+        }
+        return new CachedResponse(new DefaultMuleMessage(message.getPayload(), message, response.getMuleContext()));
+    }
+
+    private MuleEvent createResponse(CachedResponse cachedResponse, MuleEvent request)
+    {
+        MuleMessage cachedMessage = cachedResponse.getMessage();
+        return new DefaultMuleEvent(new DefaultMuleMessage(cachedMessage.getPayload(), cachedMessage, request.getMuleContext()), request);
+    }
+
+    private MuleException unwrap(MuleEvent request, Throwable cause)
+    {
+        if (cause instanceof MuleException)
+        {
+            return (MuleException) cause;
+        }
+        if (cause instanceof Error)
+        {
+            throw (Error) cause;
+        }
+        return new MessagingException(request, cause);
+    }
+
+    @Override
+    public void invalidate()
+    {
+        checkInitialised();
+        cache.invalidateAll();
+    }
+
+    @Override
+    public void invalidate(Serializable key) throws InvalidateCacheException
+    {
+        if (key == null)
+        {
+            throw new IllegalArgumentException("Key to invalidate cannot be null");
+        }
+        checkInitialised();
+        cache.invalidate(key);
+    }
+
+    private void checkInitialised()
+    {
+        if (cache == null)
+        {
+            throw new InvalidateCacheException("Caching strategy has not been initialised");
+        }
+    }
+
+    /**
+     * @return number of responses currently cached
+     */
+    public long getSize()
+    {
+        return cache == null ? 0 : cache.size();
+    }
+
+    public CachingStrategyStatistics getStatistics()
+    {
+        return statistics;
+    }
+
+    public MuleEventKeyGenerator getKeyGenerator()
+    {
+        return keyGenerator;
+    }
+
+    public void setKeyGenerator(MuleEventKeyGenerator keyGenerator)
+    {
+        this.keyGenerator = keyGenerator;
+    }
+
+    public Filter getConsumableFilter()
+    {
+        return consumableFilter;
+    }
+
+    /**
+     * @param consumableFilter filter that accepts the messages whose payload can be read more than once
+     */
+    public void setConsumableFilter(Filter consumableFilter)
+    {
+        this.consumableFilter = consumableFilter;
+    }
+
+    public long getMaxEntries()
+    {
+        return maxEntries;
+    }
+
+    /**
+     * @param maxEntries maximum number of responses kept in the cache
+     */
+    public void setMaxEntries(long maxEntries)
+    {
+        this.maxEntries = maxEntries;
+    }
+
+    public long getEntryTtl()
+    {
+        return entryTtl;
+    }
+
+    /**
+     * @param entryTtl milliseconds a response is kept in the cache after being added, 0 to keep it
+     *        until evicted because of the cache size
+     */
+    public void setEntryTtl(long entryTtl)
+    {
+        this.entryTtl = entryTtl;
+    }
+
+    public boolean isCacheConsumableResponses()
+    {
+        return cacheConsumableResponses;
+    }
+
+    /**
+     * @param cacheConsumableResponses true to read consumable response payloads into memory so
+     *        they can be cached, false to return them without caching
+     */
+    public void setCacheConsumableResponses(boolean cacheConsumableResponses)
+    {
+        this.cacheConsumableResponses = cacheConsumableResponses;
+    }
+
+    /**
+     * Response stored in the cache for a key.
+     */
+    private static class CachedResponse
+    {
+
+        private static final CachedResponse NOT_CACHEABLE = new CachedResponse(null);
+
+        private final MuleMessage message;
+
+        private CachedResponse(MuleMessage message)
+        {
+            this.message = message;
+        }
+
+        private MuleMessage getMessage()
+        {
+            return message;
+        }
+
+        private boolean isCacheable()
+        {
+            return message != null;
+        }
+    }
+}
@@ -143,6 +143,12 @@ public class DefaultMuleConfiguration implements MuleConfiguration, MuleContextA
      */
     private boolean disableTimeouts = false;
 
+    /**
+     * How many threads are used to start objects that do not depend on each other, such as
+     * connectors and flows, concurrently. By default they are started one by one.
+     */
+    private int lifecycleThreads = 1;
+
     protected transient Log logger = LogFactory.getLog(DefaultMuleConfiguration.class);
 
     private MuleContext muleContext;
@@ -350,6 +356,12 @@ public class DefaultMuleConfiguration implements MuleConfiguration, MuleContextA
         {
             disableTimeouts = Boolean.valueOf(p);
         }
+
+        p = System.getProperty(MuleProperties.SYSTEM_PROPERTY_PREFIX + "lifecycle.threads");
+        if (p != null)
+        {
+            lifecycleThreads = NumberUtils.toInt(p, 1);
+        }
     }
 
     protected void validateEncoding() throws FatalException
@@ -723,6 +735,20 @@ public class DefaultMuleConfiguration implements MuleConfiguration, MuleContextA
         return disableTimeouts;
     }
 
+    @Override
+    public int getLifecycleThreads()
+    {
+        return lifecycleThreads;
+    }
+
+    public void setLifecycleThreads(int lifecycleThreads)
+    {
+        if (verifyContextNotStarted())
+        {
+            this.lifecycleThreads = lifecycleThreads;
+        }
+    }
+
     public void setExtensions(List<Object> extensions)
     {
         this.extensions = extensions;
@@ -15,6 +15,7 @@ import org.mule.api.store.ListableObjectStore;
 import org.mule.api.store.QueueStore;
 import org.mule.util.queue.DefaultQueueConfiguration;
 import org.mule.util.queue.DelegateQueueManager;
+import org.mule.util.queue.MappedSegmentQueueStore;
 import org.mule.util.queue.QueueConfiguration;
 import org.mule.util.queue.QueueManager;
 
@@ -103,6 +104,10 @@ public class QueueProfile
         {
             return new org.mule.util.queue.objectstore.QueueConfiguration(context, maxOutstandingMessages, objectStore);
         }
+        if (objectStore instanceof MappedSegmentQueueStore)
+        {
+            return ((MappedSegmentQueueStore) objectStore).toQueueConfiguration(maxOutstandingMessages);
+        }
         return new DefaultQueueConfiguration(maxOutstandingMessages, objectStore.isPersistent());
     }
 
@@ -0,0 +1,337 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.context.notification;
+
+import org.mule.api.context.WorkManager;
+import org.mule.api.context.notification.ServerNotification;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.resource.spi.work.Work;
+import javax.resource.spi.work.WorkException;
+import javax.resource.spi.work.WorkListener;
+
+import com.lmax.disruptor.AlertException;
+import com.lmax.disruptor.BatchEventProcessor;
+import com.lmax.disruptor.EventFactory;
+import com.lmax.disruptor.EventHandler;
+import com.lmax.disruptor.ExceptionHandler;
+import com.lmax.disruptor.InsufficientCapacityException;
+import com.lmax.disruptor.LifecycleAware;
+import com.lmax.disruptor.RingBuffer;
+import com.lmax.disruptor.Sequence;
+import com.lmax.disruptor.SequenceBarrier;
+import com.lmax.disruptor.WaitStrategy;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Delivers asynchronous notifications to the listeners through a ring buffer of pre-allocated
+ * slots. Any thread may fire notifications, and each dispatching lane consumes all of them on its
+ * own thread, delivering them to the listeners the {@link Policy} assigned to that lane. A slow
+ * listener therefore only delays the listeners sharing its lane.
+ * <p/>
+ * Each slot keeps the policy that was current when the notification was fired, so all the lanes
+ * agree on the listeners of a notification even if the configuration changes in the meantime.
+ */
+class NotificationDispatcher
+{
+
+    private static final Log logger = LogFactory.getLog(NotificationDispatcher.class);
+    private static final long WAIT_NANOS = 10000;
+
+    private final RingBuffer<NotificationSlot> ringBuffer;
+    private final BatchEventProcessor<NotificationSlot>[] lanes;
+    private final NotificationQueueFullPolicy queueFullPolicy;
+    private final AtomicLong discardedNotifications = new AtomicLong();
+    private final ThreadLocal<Boolean> dispatchingThread = new ThreadLocal<Boolean>();
+    private volatile boolean started;
+    private volatile boolean halted;
+
+    @SuppressWarnings("unchecked")
+    NotificationDispatcher(int queueSize, int laneCount, NotificationQueueFullPolicy queueFullPolicy)
+    {
+        this.queueFullPolicy = queueFullPolicy;
+        this.ringBuffer = RingBuffer.createMultiProducer(new EventFactory<NotificationSlot>()
+        {
+            @Override
+            public NotificationSlot newInstance()
+            {
+                return new NotificationSlot();
+            }
+        }, ceilingPowerOfTwo(queueSize), new LiteBlockingWaitStrategy());
+
+        SequenceBarrier barrier = ringBuffer.newBarrier();
+        lanes = new BatchEventProcessor[laneCount];
+        Sequence[] sequences = new Sequence[laneCount];
+        for (int i = 0; i < laneCount; i++)
+        {
+            lanes[i] = new BatchEventProcessor<NotificationSlot>(ringBuffer, barrier, new LaneHandler(i));
+            lanes[i].setExceptionHandler(new LaneExceptionHandler());
+            sequences[i] = lanes[i].getSequence();
+        }
+        // slots are not reused until every lane is done with them, even before the lanes start
+        ringBuffer.addGatingSequences(sequences);
+    }
+
+    private static int ceilingPowerOfTwo(int value)
+    {
+        return value <= 1 ? 1 : Integer.highestOneBit(value - 1) << 1;
+    }
+
+    void start(WorkManager workManager, WorkListener workListener) throws WorkException
+    {
+        for (BatchEventProcessor<NotificationSlot> lane : lanes)
+        {
+            workManager.scheduleWork(new LaneWork(lane), WorkManager.INDEFINITE, null, workListener);
+        }
+        started = true;
+    }
+
+    void halt()
+    {
+        halted = true;
+        for (BatchEventProcessor<NotificationSlot> lane : lanes)
+        {
+            lane.halt();
+        }
+    }
+
+    void dispatch(ServerNotification notification, Policy policy)
+    {
+        long sequence;
+        while (true)
+        {
+            try
+            {
+                sequence = ringBuffer.tryNext();
+                break;
+            }
+            catch (InsufficientCapacityException e)
+            {
+                if (halted)
+                {
+                    logger.warn("Notification not delivered after ServerNotificationManager disposal: " + notification);
+                    return;
+                }
+                if (queueFullPolicy == NotificationQueueFullPolicy.DISCARD)
+                {
+                    discardedNotifications.incrementAndGet();
+                    return;
+                }
+                // the lanes cannot make room if this thread is one of them or they are not running yet
+                if (queueFullPolicy == NotificationQueueFullPolicy.RUN || !started || dispatchingThread.get() != null)
+                {
+                    policy.dispatch(notification);
+                    return;
+                }
+                LockSupport.parkNanos(WAIT_NANOS);
+            }
+        }
+
+        NotificationSlot slot = ringBuffer.get(sequence);
+        slot.notification = notification;
+        slot.policy = policy;
+        slot.pendingLanes.set(lanes.length);
+        ringBuffer.publish(sequence);
+    }
+
+    /**
+     * @return the number of notifications waiting to be delivered by at least one lane
+     */
+    int getQueueDepth()
+    {
+        return (int) (ringBuffer.getCursor() - ringBuffer.getMinimumGatingSequence());
+    }
+
+    /**
+     * @return for each lane, the number of notifications it has yet to deliver
+     */
+    long[] getLaneLag()
+    {
+        long cursor = ringBuffer.getCursor();
+        long[] lag = new long[lanes.length];
+        for (int i = 0; i < lanes.length; i++)
+        {
+            lag[i] = cursor - lanes[i].getSequence().get();
+        }
+        return lag;
+    }
+
+    long getDiscardedNotifications()
+    {
+        return discardedNotifications.get();
+    }
+
+    private static class NotificationSlot
+    {
+
+        private final AtomicInteger pendingLanes = new AtomicInteger();
+        private ServerNotification notification;
+        private Policy policy;
+    }
+
+    private class LaneHandler implements EventHandler<NotificationSlot>, LifecycleAware
+    {
+
+        private final int lane;
+
+        LaneHandler(int lane)
+        {
+            this.lane = lane;
+        }
+
+        @Override
+        public void onEvent(NotificationSlot slot, long sequence, boolean endOfBatch)
+        {
+            ServerNotification notification = slot.notification;
+            Policy policy = slot.policy;
+            // the last lane releases the notification so the slot does not retain it
+            if (slot.pendingLanes.decrementAndGet() == 0)
+            {
+                slot.notification = null;
+                slot.policy = null;
+            }
+            if (!halted)
+            {
+                policy.dispatch(notification, lanes.length > 1 ? lane : Policy.ALL_LANES);
+            }
+        }
+
+        @Override
+        public void onStart()
+        {
+            dispatchingThread.set(Boolean.TRUE);
+        }
+
+        @Override
+        public void onShutdown()
+        {
+            dispatchingThread.remove();
+        }
+    }
+
+    private class LaneExceptionHandler implements ExceptionHandler
+    {
+
+        @Override
+        public void handleEventException(Throwable ex, long sequence, Object event)
+        {
+            logger.error("Failed to deliver notification", ex);
+        }
+
+        @Override
+        public void handleOnStartException(Throwable ex)
+        {
+            logger.error("Failed to start notification dispatching lane", ex);
+        }
+
+        @Override
+        public void handleOnShutdownException(Throwable ex)
+        {
+            logger.error("Failed to stop notification dispatching lane", ex);
+        }
+    }
+
+    private class LaneWork implements Work
+    {
+
+        private final BatchEventProcessor<NotificationSlot> lane;
+
+        LaneWork(BatchEventProcessor<NotificationSlot> lane)
+        {
+            this.lane = lane;
+        }
+
+        @Override
+        public void run()
+        {
+            if (!halted)
+            {
+                lane.run();
+            }
+        }
+
+        @Override
+        public void release()
+        {
+            lane.halt();
+        }
+    }
+
+    /**
+     * Blocks the lanes waiting for notifications on a condition, but unlike the disruptor's
+     * blocking strategy, threads firing notifications only take the lock when a lane is actually
+     * waiting.
+     */
+    private static class LiteBlockingWaitStrategy implements WaitStrategy
+    {
+
+        private final Lock lock = new ReentrantLock();
+        private final Condition notificationAvailable = lock.newCondition();
+        private final AtomicBoolean signalNeeded = new AtomicBoolean(false);
+
+        @Override
+        public long waitFor(long sequence, Sequence cursor, Sequence dependentSequence, SequenceBarrier barrier)
+            throws AlertException, InterruptedException
+        {
+            long availableSequence;
+            if (cursor.get() < sequence)
+            {
+                lock.lock();
+                try
+                {
+                    do
+                    {
+                        signalNeeded.set(true);
+                        if (cursor.get() >= sequence)
+                        {
+                            break;
+                        }
+                        barrier.checkAlert();
+                        notificationAvailable.await();
+                    }
+                    while (cursor.get() < sequence);
+                }
+                finally
+                {
+                    lock.unlock();
+                }
+            }
+
+            while ((availableSequence = dependentSequence.get()) < sequence)
+            {
+                barrier.checkAlert();
+            }
+            return availableSequence;
+        }
+
+        @Override
+        public void signalAllWhenBlocking()
+        {
+            if (signalNeeded.getAndSet(false))
+            {
+                lock.lock();
+                try
+                {
+                    notificationAvailable.signalAll();
+                }
+                finally
+                {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+}
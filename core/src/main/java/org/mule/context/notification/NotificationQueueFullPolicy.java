@@ -0,0 +1,30 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.context.notification;
+
+/**
+ * What {@link ServerNotificationManager} does with an asynchronous notification when its
+ * notification queue is full.
+ */
+public enum NotificationQueueFullPolicy
+{
+    /**
+     * The thread firing the notification waits until there is room in the queue.
+     */
+    WAIT,
+
+    /**
+     * The notification is discarded and counted in
+     * {@link ServerNotificationManager#getDiscardedNotifications()}.
+     */
+    DISCARD,
+
+    /**
+     * The notification is delivered to the listeners by the thread firing it.
+     */
+    RUN
+}
@@ -26,6 +26,8 @@ import java.util.concurrent.ConcurrentMap;
 class Policy
 {
 
+    static final int ALL_LANES = -1;
+
     // map from event to set of senders
     private Map<Class<? extends ServerNotification>, Collection<Sender>> eventToSenders = new HashMap<Class<? extends ServerNotification>, Collection<Sender>>();
 
@@ -41,10 +43,25 @@ class Policy
         Set<ListenerSubscriptionPair> listenerSubscriptionPairs, 
         Set<Class<? extends ServerNotificationListener>> disabledInterfaces, 
         Set<Class<? extends ServerNotification>> disabledEvents)
+    {
+        this(interfaceToEvents, listenerSubscriptionPairs, disabledInterfaces, disabledEvents, 1);
+    }
+
+    /**
+     * Same as above, but each listener is also assigned to one of <code>lanes</code> dispatching
+     * lanes. The lane only depends on the listener type, so all the notifications for a listener
+     * are delivered by the same lane, in the order they were fired, even when the policy is rebuilt.
+     */
+    Policy(Map<Class<? extends ServerNotificationListener>, Set<Class<? extends ServerNotification>>> interfaceToEvents,
+        Set<ListenerSubscriptionPair> listenerSubscriptionPairs,
+        Set<Class<? extends ServerNotificationListener>> disabledInterfaces,
+        Set<Class<? extends ServerNotification>> disabledEvents,
+        int lanes)
     {
         for (ListenerSubscriptionPair pair : listenerSubscriptionPairs)
         {
             ServerNotificationListener listener = pair.getListener();
+            int lane = laneFor(listener, lanes);
             for (Class<? extends ServerNotificationListener> iface : interfaceToEvents.keySet())
             {
                 if (notASubclassOfAnyClassInSet(disabledInterfaces, iface))
@@ -63,7 +80,7 @@ class Policy
                                     // use a collection with predictable iteration order
                                     eventToSenders.put(event, new ArrayList<Sender>());
                                 }
-                                eventToSenders.get(event).add(new Sender(pair));
+                                eventToSenders.get(event).add(new Sender(pair, lane));
                             }
                         }
                     }
@@ -72,6 +89,11 @@ class Policy
         }
     }
 
+    private static int laneFor(ServerNotificationListener listener, int lanes)
+    {
+        return lanes > 1 ? (listener.getClass().getName().hashCode() & Integer.MAX_VALUE) % lanes : 0;
+    }
+
     protected static boolean notASubclassOfAnyClassInSet(Set set,  Class clazz)
     {
         for (Iterator iterator = set.iterator(); iterator.hasNext();)
@@ -99,6 +121,15 @@ class Policy
     }
 
     void dispatch(ServerNotification notification)
+    {
+        dispatch(notification, ALL_LANES);
+    }
+
+    /**
+     * Delivers the notification to the listeners assigned to the given lane, or to all the
+     * listeners when the lane is {@link #ALL_LANES}.
+     */
+    void dispatch(ServerNotification notification, int lane)
     {
         if (null != notification)
         {
@@ -115,7 +146,11 @@ class Policy
                         found = true;
                         for (Iterator senders = ((Collection) eventToSenders.get(event)).iterator(); senders.hasNext();)
                         {
-                            ((Sender) senders.next()).dispatch(notification);
+                            Sender sender = (Sender) senders.next();
+                            if (lane == ALL_LANES || sender.getLane() == lane)
+                            {
+                                sender.dispatch(notification);
+                            }
                         }
                     }
                 }
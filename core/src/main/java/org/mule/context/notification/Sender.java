@@ -19,14 +19,29 @@ class Sender
 
     private ListenerSubscriptionPair pair;
     private WildcardFilter subscriptionFilter;
+    private int lane;
 
     Sender(ListenerSubscriptionPair pair)
+    {
+        this(pair, 0);
+    }
+
+    Sender(ListenerSubscriptionPair pair, int lane)
     {
         this.pair = pair;
+        this.lane = lane;
         subscriptionFilter = new WildcardFilter(pair.getSubscription());
         subscriptionFilter.setCaseSensitive(false);
     }
 
+    /**
+     * @return the dispatching lane that delivers notifications to the listener of this sender
+     */
+    int getLane()
+    {
+        return lane;
+    }
+
     public void dispatch(ServerNotification notification)
     {
         if (pair.isNullSubscription() ||
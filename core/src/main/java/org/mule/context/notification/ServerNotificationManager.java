@@ -7,6 +7,7 @@
 package org.mule.context.notification;
 
 import org.mule.api.MuleContext;
+import org.mule.api.config.MuleProperties;
 import org.mule.api.context.MuleContextAware;
 import org.mule.api.context.WorkManager;
 import org.mule.api.context.notification.BlockingServerEvent;
@@ -20,14 +21,9 @@ import org.mule.util.ClassUtils;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Map;
-import java.util.Queue;
 import java.util.Set;
-import java.util.concurrent.BlockingDeque;
-import java.util.concurrent.LinkedBlockingDeque;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
-import javax.resource.spi.work.Work;
 import javax.resource.spi.work.WorkException;
 import javax.resource.spi.work.WorkListener;
 
@@ -59,16 +55,30 @@ import org.apache.commons.logging.LogFactory;
  * <li>Disabling an event or interface disables all uses of that class or any subclass.</li>
  * <li>Enquiring whether an event is enabled returns true if any subclass is enabled.</li>
  * </ul>
+ *
+ * <p>Notifications that are not {@link BlockingServerEvent}s are delivered asynchronously by a
+ * {@link NotificationDispatcher}: a bounded queue of pre-allocated slots consumed by one or more
+ * dispatcher threads. Each listener type is bound to one of the threads, so a slow listener does
+ * not hold back the listeners bound to the others. What happens when the queue is full is decided
+ * by the {@link NotificationQueueFullPolicy}.</p>
  */
-public class ServerNotificationManager implements Work, Disposable, ServerNotificationHandler, MuleContextAware
+public class ServerNotificationManager implements Disposable, ServerNotificationHandler, MuleContextAware
 {
     public static final String NULL_SUBSCRIPTION = "NULL";
+    public static final String QUEUE_SIZE_PROPERTY = MuleProperties.SYSTEM_PROPERTY_PREFIX + "notifications.queueSize";
+    public static final String DISPATCHER_THREADS_PROPERTY = MuleProperties.SYSTEM_PROPERTY_PREFIX + "notifications.dispatcherThreads";
+    public static final String QUEUE_FULL_POLICY_PROPERTY = MuleProperties.SYSTEM_PROPERTY_PREFIX + "notifications.queueFullPolicy";
+    public static final int DEFAULT_QUEUE_SIZE = 8192;
+
     protected Log logger = LogFactory.getLog(getClass());
     private boolean dynamic = false;
     private Configuration configuration = new Configuration();
     private AtomicBoolean disposed = new AtomicBoolean(false);
-    private BlockingDeque<ServerNotification> eventQueue = new LinkedBlockingDeque<ServerNotification>();
     private MuleContext muleContext;
+    private int queueSize = Integer.getInteger(QUEUE_SIZE_PROPERTY, DEFAULT_QUEUE_SIZE);
+    private int dispatcherThreads = Integer.getInteger(DISPATCHER_THREADS_PROPERTY, 1);
+    private NotificationQueueFullPolicy queueFullPolicy = NotificationQueueFullPolicy.valueOf(System.getProperty(QUEUE_FULL_POLICY_PROPERTY, NotificationQueueFullPolicy.WAIT.name()));
+    private volatile NotificationDispatcher dispatcher;
 
     @Override
     public boolean isNotificationDynamic()
@@ -87,11 +97,34 @@ public class ServerNotificationManager implements Work, Disposable, ServerNotifi
         this.dynamic = dynamic;
     }
 
+    /**
+     * Sets the number of notifications that can be waiting to be delivered. It is rounded up to a
+     * power of two and only takes effect if set before the manager is started.
+     */
+    public void setNotificationQueueSize(int queueSize)
+    {
+        this.queueSize = queueSize;
+    }
+
+    /**
+     * Sets the number of threads delivering asynchronous notifications. It only takes effect if set
+     * before the manager is started.
+     */
+    public void setNotificationDispatcherThreads(int dispatcherThreads)
+    {
+        this.dispatcherThreads = dispatcherThreads;
+    }
+
+    public void setNotificationQueueFullPolicy(NotificationQueueFullPolicy queueFullPolicy)
+    {
+        this.queueFullPolicy = queueFullPolicy;
+    }
+
     public void start(WorkManager workManager, WorkListener workListener) throws LifecycleException
     {
         try
         {
-            workManager.scheduleWork(this, WorkManager.INDEFINITE, null, workListener);
+            getDispatcher().start(workManager, workListener);
         }
         catch (WorkException e)
         {
@@ -197,16 +230,10 @@ public class ServerNotificationManager implements Work, Disposable, ServerNotifi
             }
             else
             {
-                try
-                {
-                    eventQueue.put(notification);
-                }
-                catch (InterruptedException e)
+                Configuration currentConfiguration = configuration;
+                if (currentConfiguration != null)
                 {
-                    if (!disposed.get())
-                    {
-                        logger.error("Failed to queue notification: " + notification, e);
-                    }
+                    getDispatcher().dispatch(notification, currentConfiguration.getPolicy());
                 }
             }
         }
@@ -235,9 +262,34 @@ public class ServerNotificationManager implements Work, Disposable, ServerNotifi
     public void dispose()
     {
         disposed.set(true);
+        synchronized (this)
+        {
+            if (dispatcher != null)
+            {
+                dispatcher.halt();
+            }
+        }
         configuration = null;
     }
 
+    private NotificationDispatcher getDispatcher()
+    {
+        NotificationDispatcher current = dispatcher;
+        if (current == null)
+        {
+            synchronized (this)
+            {
+                if (dispatcher == null)
+                {
+                    configuration.setLanes(dispatcherThreads);
+                    dispatcher = new NotificationDispatcher(queueSize, dispatcherThreads, queueFullPolicy);
+                }
+                current = dispatcher;
+            }
+        }
+        return current;
+    }
+
     protected void notifyListeners(ServerNotification notification)
     {
         if (!disposed.get())
@@ -250,39 +302,32 @@ public class ServerNotificationManager implements Work, Disposable, ServerNotifi
         }
     }
 
-    @Override
-    public void release()
+    /**
+     * @return the number of asynchronous notifications waiting to be delivered
+     */
+    public int getNotificationQueueDepth()
     {
-        dispose();
+        NotificationDispatcher current = dispatcher;
+        return current != null ? current.getQueueDepth() : 0;
     }
 
-    @Override
-    public void run()
+    /**
+     * @return for each dispatcher thread, the number of queued notifications it has yet to deliver
+     */
+    public long[] getListenerLag()
     {
-        while (!disposed.get())
-        {
-            try
-            {
-                int timeout = muleContext.getConfiguration().getDefaultQueueTimeout();
-                ServerNotification notification = eventQueue.poll(timeout, TimeUnit.MILLISECONDS);
-                if (notification != null)
-                {
-                    notifyListeners(notification);
-                }
-            }
-            catch (InterruptedException e)
-            {
-                Thread.currentThread().interrupt();
-            }
-        }
+        NotificationDispatcher current = dispatcher;
+        return current != null ? current.getLaneLag() : new long[0];
     }
 
     /**
-     * @return DIRECT reference to an event queue
+     * @return the number of notifications discarded because the queue was full, when using
+     *         {@link NotificationQueueFullPolicy#DISCARD}
      */
-    public Queue<ServerNotification> getEventQueue()
+    public long getDiscardedNotifications()
     {
-        return eventQueue;
+        NotificationDispatcher current = dispatcher;
+        return current != null ? current.getDiscardedNotifications() : 0;
     }
 
     /**
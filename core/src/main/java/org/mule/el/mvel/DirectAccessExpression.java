@@ -0,0 +1,214 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.el.mvel;
+
+import org.mule.api.MuleMessage;
+import org.mule.api.transport.PropertyScope;
+import org.mule.el.context.MessagePropertyMapContext;
+import org.mule.transport.NullPayload;
+
+import java.beans.Introspector;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * An expression that only reads the payload or a property of the message, such as
+ * <code>payload</code>, <code>message.payload</code>, <code>flowVars.foo</code>,
+ * <code>sessionVars['foo']</code> or <code>message.inboundProperties['foo']</code>. Such expressions
+ * are evaluated directly against the message, giving the same result as MVEL without creating an
+ * evaluation context.
+ */
+abstract class DirectAccessExpression
+{
+
+    private static final String PAYLOAD = "payload";
+    private static final String MESSAGE = "message";
+    private static final String FLOW_VARS = "flowVars";
+    private static final String SESSION_VARS = "sessionVars";
+    private static final String INBOUND_PROPERTIES = "inboundProperties";
+    private static final String OUTBOUND_PROPERTIES = "outboundProperties";
+
+    /**
+     * Names that MVEL resolves as a bean property of the map instead of as a key when using the
+     * <code>map.name</code> syntax.
+     */
+    private static final Set<String> MAP_PROPERTY_NAMES = getPropertyNames(MessagePropertyMapContext.class);
+
+    private final String rootVariable;
+
+    private DirectAccessExpression(String rootVariable)
+    {
+        this.rootVariable = rootVariable;
+    }
+
+    /**
+     * @return the variable the expression starts with, which must not be shadowed by another
+     *         variable for the expression to be evaluated directly
+     */
+    String getRootVariable()
+    {
+        return rootVariable;
+    }
+
+    abstract Object evaluate(MuleMessage message);
+
+    /**
+     * @param expression an expression without the <code>#[</code> and <code>]</code> delimiters
+     * @return the expression to evaluate directly, or <code>null</code> if the expression does more
+     *         than reading the payload or a message property
+     */
+    static DirectAccessExpression parse(String expression)
+    {
+        expression = expression.trim();
+
+        if (PAYLOAD.equals(expression))
+        {
+            return new PayloadExpression(PAYLOAD, false);
+        }
+        else if (expression.equals(MESSAGE + "." + PAYLOAD))
+        {
+            return new PayloadExpression(MESSAGE, true);
+        }
+        else if (expression.startsWith(FLOW_VARS))
+        {
+            return parseProperty(FLOW_VARS, PropertyScope.INVOCATION, expression.substring(FLOW_VARS.length()));
+        }
+        else if (expression.startsWith(SESSION_VARS))
+        {
+            return parseProperty(SESSION_VARS, PropertyScope.SESSION, expression.substring(SESSION_VARS.length()));
+        }
+        else if (expression.startsWith(MESSAGE + "." + INBOUND_PROPERTIES))
+        {
+            return parseProperty(MESSAGE, PropertyScope.INBOUND,
+                expression.substring(MESSAGE.length() + INBOUND_PROPERTIES.length() + 1));
+        }
+        else if (expression.startsWith(MESSAGE + "." + OUTBOUND_PROPERTIES))
+        {
+            return parseProperty(MESSAGE, PropertyScope.OUTBOUND,
+                expression.substring(MESSAGE.length() + OUTBOUND_PROPERTIES.length() + 1));
+        }
+        return null;
+    }
+
+    /**
+     * Parses the <code>.name</code>, <code>['name']</code> or <code>["name"]</code> part of a
+     * property expression.
+     */
+    private static DirectAccessExpression parseProperty(String rootVariable, PropertyScope scope, String accessor)
+    {
+        String name = null;
+        if (accessor.length() > 1 && accessor.charAt(0) == '.')
+        {
+            name = accessor.substring(1);
+            if (!isIdentifier(name) || MAP_PROPERTY_NAMES.contains(name))
+            {
+                return null;
+            }
+        }
+        else if (accessor.length() > 4 && accessor.charAt(0) == '[' && accessor.charAt(accessor.length() - 1) == ']')
+        {
+            char quote = accessor.charAt(1);
+            if ((quote == '\'' || quote == '"') && accessor.charAt(accessor.length() - 2) == quote)
+            {
+                name = accessor.substring(2, accessor.length() - 2);
+                if (name.indexOf(quote) != -1 || name.indexOf('\\') != -1)
+                {
+                    return null;
+                }
+            }
+        }
+        return name != null ? new PropertyExpression(rootVariable, name, scope) : null;
+    }
+
+    private static boolean isIdentifier(String name)
+    {
+        if (!Character.isJavaIdentifierStart(name.charAt(0)))
+        {
+            return false;
+        }
+        for (int i = 1; i < name.length(); i++)
+        {
+            if (!Character.isJavaIdentifierPart(name.charAt(i)))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Set<String> getPropertyNames(Class<?> type)
+    {
+        Set<String> names = new HashSet<String>();
+        for (Method method : type.getMethods())
+        {
+            String name = method.getName();
+            names.add(name);
+            if (method.getParameterTypes().length == 0)
+            {
+                if (name.startsWith("get") && name.length() > 3)
+                {
+                    names.add(Introspector.decapitalize(name.substring(3)));
+                }
+                else if (name.startsWith("is") && name.length() > 2)
+                {
+                    names.add(Introspector.decapitalize(name.substring(2)));
+                }
+            }
+        }
+        for (Field field : type.getFields())
+        {
+            names.add(field.getName());
+        }
+        return names;
+    }
+
+    private static class PayloadExpression extends DirectAccessExpression
+    {
+
+        private final boolean nullPayloadAsNull;
+
+        PayloadExpression(String rootVariable, boolean nullPayloadAsNull)
+        {
+            super(rootVariable);
+            this.nullPayloadAsNull = nullPayloadAsNull;
+        }
+
+        @Override
+        Object evaluate(MuleMessage message)
+        {
+            Object payload = message.getPayload();
+            // same as MessageContext.getPayload()
+            if (nullPayloadAsNull && NullPayload.getInstance().equals(payload))
+            {
+                return null;
+            }
+            return payload;
+        }
+    }
+
+    private static class PropertyExpression extends DirectAccessExpression
+    {
+
+        private final String name;
+        private final PropertyScope scope;
+
+        PropertyExpression(String rootVariable, String name, PropertyScope scope)
+        {
+            super(rootVariable);
+            this.name = name;
+            this.scope = scope;
+        }
+
+        @Override
+        Object evaluate(MuleMessage message)
+        {
+            return message.getProperty(name, scope);
+        }
+    }
+}
@@ -28,6 +28,11 @@ import org.mule.transformer.types.DataTypeFactory;
 import org.mule.transport.NullPayload;
 import org.mule.util.IOUtils;
 
+import com.google.common.base.Optional;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.BigInteger;
@@ -44,6 +49,8 @@ import javax.activation.MimeType;
  */
 public class MVELExpressionLanguage implements ExpressionLanguage, Initialisable
 {
+    protected static final int DIRECT_ACCESS_EXPRESSION_MAX_CACHE_SIZE = 1000;
+
     protected ParserConfiguration parserConfiguration;
     protected MuleContext muleContext;
     protected MVELExpressionExecutor expressionExecutor;
@@ -51,6 +58,8 @@ public class MVELExpressionLanguage implements ExpressionLanguage, Initialisable
     protected VariableResolverFactory staticContext;
     protected VariableResolverFactory globalContext;
 
+    private LoadingCache<String, Optional<DirectAccessExpression>> directAccessExpressionsCache;
+
     // Configuration
     protected String globalFunctionsString;
     protected String globalFunctionsFile;
@@ -72,6 +81,7 @@ public class MVELExpressionLanguage implements ExpressionLanguage, Initialisable
 
         loadGlobalFunctions();
         createStaticContext();
+        createDirectAccessExpressionsCache();
     }
 
     protected void createStaticContext()
@@ -81,6 +91,38 @@ public class MVELExpressionLanguage implements ExpressionLanguage, Initialisable
             parserConfiguration, muleContext);
     }
 
+    /**
+     * Expressions that only read the payload or a message property are evaluated directly against the
+     * message, unless the static context defines a variable with the same name they start with.
+     */
+    private void createDirectAccessExpressionsCache()
+    {
+        directAccessExpressionsCache = CacheBuilder.newBuilder()
+            .maximumSize(DIRECT_ACCESS_EXPRESSION_MAX_CACHE_SIZE)
+            .build(new CacheLoader<String, Optional<DirectAccessExpression>>()
+            {
+                @Override
+                public Optional<DirectAccessExpression> load(String expression) throws Exception
+                {
+                    if (expression.startsWith(ExpressionManager.DEFAULT_EXPRESSION_PREFIX))
+                    {
+                        if (!expression.endsWith(ExpressionManager.DEFAULT_EXPRESSION_POSTFIX))
+                        {
+                            return Optional.absent();
+                        }
+                        expression = expression.substring(2, expression.length() - 1);
+                    }
+                    DirectAccessExpression directAccessExpression = DirectAccessExpression.parse(expression);
+                    if (directAccessExpression == null
+                        || staticContext.isResolveable(directAccessExpression.getRootVariable()))
+                    {
+                        return Optional.absent();
+                    }
+                    return Optional.of(directAccessExpression);
+                }
+            });
+    }
+
     protected void loadGlobalFunctions() throws InitialisationException
     {
         // Global functions defined in external file
@@ -136,6 +178,15 @@ public class MVELExpressionLanguage implements ExpressionLanguage, Initialisable
     @Override
     public <T> T evaluate(String expression, MuleEvent event, Map<String, Object> vars)
     {
+        if (vars == null && event != null && event.getMessage() != null)
+        {
+            DirectAccessExpression directAccessExpression = getDirectAccessExpression(expression);
+            if (directAccessExpression != null)
+            {
+                return evaluateDirectly(expression, directAccessExpression, event.getMessage());
+            }
+        }
+
         MVELExpressionLanguageContext context = createExpressionLanguageContext();
         if (vars != null)
         {
@@ -165,6 +216,15 @@ public class MVELExpressionLanguage implements ExpressionLanguage, Initialisable
     @Deprecated
     public <T> T evaluate(String expression, MuleMessage message, Map<String, Object> vars)
     {
+        if (vars == null && message != null)
+        {
+            DirectAccessExpression directAccessExpression = getDirectAccessExpression(expression);
+            if (directAccessExpression != null)
+            {
+                return evaluateDirectly(expression, directAccessExpression, message);
+            }
+        }
+
         MVELExpressionLanguageContext context = createExpressionLanguageContext();
         if (vars != null)
         {
@@ -203,6 +263,26 @@ public class MVELExpressionLanguage implements ExpressionLanguage, Initialisable
         }
     }
 
+    private DirectAccessExpression getDirectAccessExpression(String expression)
+    {
+        return directAccessExpressionsCache.getUnchecked(expression).orNull();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T evaluateDirectly(String expression,
+                                   DirectAccessExpression directAccessExpression,
+                                   MuleMessage message)
+    {
+        try
+        {
+            return (T) directAccessExpression.evaluate(message);
+        }
+        catch (Exception e)
+        {
+            throw new ExpressionRuntimeException(CoreMessages.expressionEvaluationFailed(expression), e);
+        }
+    }
+
     @Override
     public boolean isValid(String expression)
     {
@@ -16,6 +16,7 @@ public class LifecycleObject
     private Class type;
     private ServerNotification preNotification;
     private ServerNotification postNotification;
+    private boolean concurrent;
 
     public LifecycleObject(Class type)
     {
@@ -52,6 +53,20 @@ public class LifecycleObject
         this.type = type;
     }
 
+    /**
+     * @return true if the objects of this type do not depend on each other, so a lifecycle phase
+     *         can be applied to all of them concurrently
+     */
+    public boolean isConcurrent()
+    {
+        return concurrent;
+    }
+
+    public void setConcurrent(boolean concurrent)
+    {
+        this.concurrent = concurrent;
+    }
+
     public void firePreNotification(MuleContext context)
     {
         if(preNotification!=null)
@@ -25,16 +25,22 @@ import org.mule.lifecycle.phases.MuleContextStartPhase;
 import org.mule.lifecycle.phases.MuleContextStopPhase;
 import org.mule.lifecycle.phases.NotInLifecyclePhase;
 import org.mule.registry.AbstractRegistryBroker;
+import org.mule.util.concurrent.NamedThreadFactory;
+import org.mule.util.concurrent.ThreadNameHelper;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -220,6 +226,11 @@ public class RegistryLifecycleManager extends AbstractLifecycleManager<Registry>
         }
     }
 
+    protected int getLifecycleThreads()
+    {
+        return muleContext == null ? 1 : muleContext.getConfiguration().getLifecycleThreads();
+    }
+
     class RegistryLifecycleCallback implements LifecycleCallback<Object>
     {
         /**
@@ -249,34 +260,108 @@ public class RegistryLifecycleManager extends AbstractLifecycleManager<Registry>
             {
                 // TODO Collection -> List API refactoring
                 Collection<?> targetsObj = getLifecycleObject().lookupObjectsForLifecycle(lo.getType());
-                List<Object> targets = new LinkedList<Object>(targetsObj);
-                if (targets.size() == 0)
+                if (targetsObj.size() == 0)
                 {
                     continue;
                 }
 
+                List<Object> targets = new ArrayList<Object>(targetsObj.size());
+                for (Object o : targetsObj)
+                {
+                    if (duplicates.add(o))
+                    {
+                        targets.add(o);
+                    }
+                }
+
                 lo.firePreNotification(muleContext);
 
-                for (Iterator<Object> target = targets.iterator(); target.hasNext();)
+                int threads = Math.min(getLifecycleThreads(), targets.size());
+                if (lo.isConcurrent() && threads > 1)
+                {
+                    applyLifecycleConcurrently(phase, targets, threads);
+                }
+                else
                 {
-                    Object o = target.next();
-                    if (duplicates.contains(o))
+                    for (Object o : targets)
                     {
-                        target.remove();
+                        applyLifecycle(phase, o);
                     }
-                    else
+                }
+
+                lo.firePostNotification(muleContext);
+            }
+        }
+
+        private void applyLifecycle(LifecyclePhase phase, Object o) throws LifecycleException
+        {
+            if (logger.isDebugEnabled())
+            {
+                logger.debug("lifecycle phase: " + phase.getName() + " for object: " + o);
+            }
+            phase.applyLifecycle(o);
+        }
+
+        /**
+         * Applies the phase to all the objects, waiting for all of them to finish. If it fails for
+         * any of them, the failure of the first one in the list is thrown once the others are done.
+         */
+        private void applyLifecycleConcurrently(final LifecyclePhase phase, List<Object> targets, int threads) throws LifecycleException
+        {
+            ExecutorService executor = Executors.newFixedThreadPool(threads, new NamedThreadFactory(
+                ThreadNameHelper.lifecycle(muleContext, phase.getName()), Thread.currentThread().getContextClassLoader()));
+            try
+            {
+                List<Future<Object>> results = new ArrayList<Future<Object>>(targets.size());
+                for (final Object o : targets)
+                {
+                    results.add(executor.submit(new Callable<Object>()
                     {
-                        if (logger.isDebugEnabled())
+                        @Override
+                        public Object call() throws Exception
                         {
-                            logger.debug("lifecycle phase: " + phase.getName() + " for object: " + o);
+                            applyLifecycle(phase, o);
+                            return o;
                         }
-                        phase.applyLifecycle(o);
-                        target.remove();
-                        duplicates.add(o);
-                    }
+                    }));
                 }
 
-                lo.firePostNotification(muleContext);
+                LifecycleException failure = null;
+                for (Future<Object> result : results)
+                {
+                    try
+                    {
+                        result.get();
+                    }
+                    catch (ExecutionException e)
+                    {
+                        LifecycleException cause = e.getCause() instanceof LifecycleException
+                                                   ? (LifecycleException) e.getCause()
+                                                   : new LifecycleException(e.getCause(), phase);
+                        if (failure == null)
+                        {
+                            failure = cause;
+                        }
+                        else
+                        {
+                            logger.error("Failed to apply lifecycle phase: " + phase.getName(), cause);
+                        }
+                    }
+                }
+                if (failure != null)
+                {
+                    throw failure;
+                }
+            }
+            catch (InterruptedException e)
+            {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+                throw new LifecycleException(e, phase);
+            }
+            finally
+            {
+                executor.shutdown();
             }
         }
     }
@@ -40,6 +40,10 @@ import java.util.Set;
  * {@link org.mule.api.transport.Connector}, {@link org.mule.api.agent.Agent}, {@link org.mule.api.model.Model}, {@link org.mule.api.service.Service}, followed
  * by any other object that implements {@link org.mule.api.lifecycle.Startable}.
  *
+ * Connectors and flow constructs do not depend on others of the same type, so when
+ * {@link org.mule.api.config.MuleConfiguration#getLifecycleThreads()} is more than 1 each of those groups
+ * is started concurrently. The next group is only started once all the objects of the previous one are.
+ *
  * @see org.mule.api.MuleContext                                       N
  * @see org.mule.api.lifecycle.LifecycleManager
  * @see org.mule.api.lifecycle.Startable
@@ -59,10 +63,10 @@ public class MuleContextStartPhase extends DefaultLifecyclePhase
 
         Set<LifecycleObject> startOrderedObjects = new LinkedHashSet<LifecycleObject>();
         startOrderedObjects.add(new NotificationLifecycleObject(QueueManager.class));
-        startOrderedObjects.add(new NotificationLifecycleObject(Connector.class));
+        startOrderedObjects.add(createConcurrentLifecycleObject(Connector.class));
         startOrderedObjects.add(new NotificationLifecycleObject(Agent.class));
         startOrderedObjects.add(new NotificationLifecycleObject(Model.class));
-        startOrderedObjects.add(new NotificationLifecycleObject(FlowConstruct.class));
+        startOrderedObjects.add(createConcurrentLifecycleObject(FlowConstruct.class));
         startOrderedObjects.add(new NotificationLifecycleObject(Startable.class));
 
         setIgnoredObjectTypes(ignorredObjects);
@@ -71,4 +75,11 @@ public class MuleContextStartPhase extends DefaultLifecyclePhase
         //Start/Stop/Start 
         registerSupportedPhase(Stoppable.PHASE_NAME);
     }
+
+    private LifecycleObject createConcurrentLifecycleObject(Class<?> type)
+    {
+        LifecycleObject lifecycleObject = new NotificationLifecycleObject(type);
+        lifecycleObject.setConcurrent(true);
+        return lifecycleObject;
+    }
 }
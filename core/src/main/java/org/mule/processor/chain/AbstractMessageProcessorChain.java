@@ -25,6 +25,8 @@ import org.mule.api.processor.MessageProcessor;
 import org.mule.api.processor.MessageProcessorChain;
 import org.mule.api.processor.MessageProcessorContainer;
 import org.mule.api.processor.MessageProcessorPathElement;
+import org.mule.context.notification.MessageProcessorNotification;
+import org.mule.context.notification.ServerNotificationManager;
 import org.mule.endpoint.EndpointAware;
 import org.mule.util.NotificationUtils;
 import org.mule.util.StringUtils;
@@ -72,6 +74,22 @@ public abstract class AbstractMessageProcessorChain
 
     protected abstract MuleEvent doProcess(MuleEvent event) throws MuleException;
 
+    /**
+     * Decides once per invocation whether the processors of the chain have to be executed with the
+     * interceptor that fires {@link MessageProcessorNotification}s. When nobody listens for them
+     * the cheaper execution template, which only wraps exceptions, can be used for every step.
+     */
+    protected static boolean isMessageProcessorNotificationEnabled(MuleEvent event)
+    {
+        if (!event.isNotificationsEnabled() || event.getMuleContext() == null)
+        {
+            return false;
+        }
+        ServerNotificationManager notificationManager = event.getMuleContext().getNotificationManager();
+        return notificationManager != null
+               && notificationManager.isNotificationEnabled(MessageProcessorNotification.class);
+    }
+
     public void initialise() throws InitialisationException
     {
         for (MessageProcessor processor : processors)
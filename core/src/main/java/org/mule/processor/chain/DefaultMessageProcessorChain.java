@@ -17,6 +17,7 @@ import org.mule.api.component.Component;
 import org.mule.api.construct.FlowConstruct;
 import org.mule.api.construct.Pipeline;
 import org.mule.api.endpoint.OutboundEndpoint;
+import org.mule.api.lifecycle.InitialisationException;
 import org.mule.api.processor.MessageProcessor;
 import org.mule.api.processor.MessageProcessorChain;
 import org.mule.api.processor.RequestReplyReplierMessageProcessor;
@@ -34,6 +35,8 @@ import java.util.List;
 public class DefaultMessageProcessorChain extends AbstractMessageProcessorChain
 {
     protected MessageProcessorExecutionTemplate messageProcessorExecutionTemplate = MessageProcessorExecutionTemplate.createExecutionTemplate();
+    protected MessageProcessorExecutionTemplate exceptionTransformerExecutionTemplate = MessageProcessorExecutionTemplate.createExceptionTransformerExecutionTemplate();
+    private volatile ExecutionPlan executionPlan;
 
     protected DefaultMessageProcessorChain(List<MessageProcessor> processors)
     {
@@ -79,19 +82,19 @@ public class DefaultMessageProcessorChain extends AbstractMessageProcessorChain
         }
         else
         {
-            FlowConstruct flowConstruct = event.getFlowConstruct();
-            boolean flowConstructIsNotAService = !(flowConstruct instanceof Service);
+            ExecutionPlan plan = getExecutionPlan();
+            MessageProcessorExecutionTemplate executionTemplate = selectExecutionTemplate(event);
+            boolean flowConstructIsNotAService = !(event.getFlowConstruct() instanceof Service);
             MuleEvent copy = null;
-            
-            for (int i = 0; i < processors.size(); i++)
+
+            for (int i = 0; i < plan.processors.length; i++)
             {
-                MessageProcessor processor = processors.get(i);
-                if (flowConstructIsNotAService && processorMayReturnNull(processor))
+                if (flowConstructIsNotAService && plan.mayReturnNull[i])
                 {
                     copy = OptimizedRequestContext.criticalSetEvent(event);
                 }
 
-                event = messageProcessorExecutionTemplate.execute(processor, event);
+                event = executionTemplate.execute(plan.processors[i], event);
 
                 if (VoidMuleEvent.getInstance().equals(event))
                 {
@@ -114,6 +117,50 @@ public class DefaultMessageProcessorChain extends AbstractMessageProcessorChain
         }
     }
 
+    /**
+     * The template used to execute each processor for this invocation of the chain.
+     */
+    protected MessageProcessorExecutionTemplate selectExecutionTemplate(MuleEvent event)
+    {
+        return isMessageProcessorNotificationEnabled(event)
+               ? messageProcessorExecutionTemplate
+               : exceptionTransformerExecutionTemplate;
+    }
+
+    /**
+     * The processors of the chain, resolved once so invocations do not have to work out which of
+     * them may return null. It is rebuilt if processors are added to the chain afterwards.
+     */
+    protected ExecutionPlan getExecutionPlan()
+    {
+        ExecutionPlan plan = executionPlan;
+        if (plan == null || plan.processors.length != processors.size())
+        {
+            plan = new ExecutionPlan(processors.toArray(new MessageProcessor[processors.size()]));
+            for (int i = 0; i < plan.processors.length; i++)
+            {
+                plan.mayReturnNull[i] = processorMayReturnNull(plan.processors[i]);
+            }
+            executionPlan = plan;
+        }
+        return plan;
+    }
+
+    @Override
+    public void initialise() throws InitialisationException
+    {
+        super.initialise();
+        executionPlan = null;
+        getExecutionPlan();
+    }
+
+    @Override
+    public void dispose()
+    {
+        super.dispose();
+        executionPlan = null;
+    }
+
     /*
      * Using old implementation 100% as is.
      */
@@ -214,4 +261,17 @@ public class DefaultMessageProcessorChain extends AbstractMessageProcessorChain
     {
         super.setMuleContext(context);
     }
+
+    protected static final class ExecutionPlan
+    {
+
+        protected final MessageProcessor[] processors;
+        protected final boolean[] mayReturnNull;
+
+        private ExecutionPlan(MessageProcessor[] processors)
+        {
+            this.processors = processors;
+            this.mayReturnNull = new boolean[processors.length];
+        }
+    }
 }
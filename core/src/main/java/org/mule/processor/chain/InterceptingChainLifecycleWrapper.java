@@ -23,6 +23,15 @@ public class InterceptingChainLifecycleWrapper extends AbstractMessageProcessorC
 {
     private MessageProcessorChain chain;
     private MessageProcessorExecutionTemplate messageProcessorExecutionTemplate = MessageProcessorExecutionTemplate.createExecutionTemplate();
+    private MessageProcessorExecutionTemplate exceptionTransformerExecutionTemplate = MessageProcessorExecutionTemplate.createExceptionTransformerExecutionTemplate();
+    private final MessageProcessor chainProcessor = new MessageProcessor()
+    {
+        @Override
+        public MuleEvent process(MuleEvent event) throws MuleException
+        {
+            return InterceptingChainLifecycleWrapper.super.process(event);
+        }
+    };
 
     public InterceptingChainLifecycleWrapper(MessageProcessorChain chain,
                                              List<MessageProcessor> processors,
@@ -58,14 +67,11 @@ public class InterceptingChainLifecycleWrapper extends AbstractMessageProcessorC
             return null;
         }
 
-        return messageProcessorExecutionTemplate.execute(new MessageProcessor()
+        if (isMessageProcessorNotificationEnabled(event))
         {
-            @Override
-            public MuleEvent process(MuleEvent event) throws MuleException
-            {
-                return InterceptingChainLifecycleWrapper.super.process(event);
-            }
-        }, event);
+            return messageProcessorExecutionTemplate.execute(chainProcessor, event);
+        }
+        return exceptionTransformerExecutionTemplate.execute(chainProcessor, event);
     }
 
 }
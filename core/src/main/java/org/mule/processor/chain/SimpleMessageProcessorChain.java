@@ -10,6 +10,7 @@ import org.mule.VoidMuleEvent;
 import org.mule.api.MuleEvent;
 import org.mule.api.MuleException;
 import org.mule.api.processor.MessageProcessor;
+import org.mule.execution.MessageProcessorExecutionTemplate;
 
 import java.util.List;
 
@@ -37,10 +38,11 @@ public class SimpleMessageProcessorChain extends DefaultMessageProcessorChain
 
     protected MuleEvent doProcess(MuleEvent event) throws MuleException
     {
-        for (int i = 0; i < processors.size(); i++)
+        ExecutionPlan plan = getExecutionPlan();
+        MessageProcessorExecutionTemplate executionTemplate = selectExecutionTemplate(event);
+        for (int i = 0; i < plan.processors.length; i++)
         {
-            MessageProcessor processor = processors.get(i);
-            event = messageProcessorExecutionTemplate.execute(processor, event);
+            event = executionTemplate.execute(plan.processors[i], event);
             if (event == null)
             {
                 return null;
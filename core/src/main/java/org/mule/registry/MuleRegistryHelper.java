@@ -37,6 +37,7 @@ import org.mule.api.transformer.Transformer;
 import org.mule.api.transformer.TransformerException;
 import org.mule.api.transport.Connector;
 import org.mule.config.i18n.CoreMessages;
+import org.mule.transformer.types.DataTypePair;
 import org.mule.transformer.types.SimpleDataType;
 import org.mule.util.Predicate;
 import org.mule.util.SpiUtils;
@@ -76,8 +77,8 @@ public class MuleRegistryHelper implements MuleRegistry
     /**
      * We cache transformer searches so that we only search once
      */
-    protected ConcurrentHashMap/*<String, Transformer>*/ exactTransformerCache = new ConcurrentHashMap/*<String, Transformer>*/(8);
-    protected ConcurrentHashMap/*Map<String, List<Transformer>>*/ transformerListCache = new ConcurrentHashMap/*<String, List<Transformer>>*/(8);
+    protected ConcurrentHashMap/*<DataTypePair, Transformer>*/ exactTransformerCache = new ConcurrentHashMap/*<DataTypePair, Transformer>*/(8);
+    protected ConcurrentHashMap/*Map<DataTypePair, List<Transformer>>*/ transformerListCache = new ConcurrentHashMap/*<DataTypePair, List<Transformer>>*/(8);
 
     private MuleContext muleContext;
 
@@ -241,8 +242,8 @@ public class MuleRegistryHelper implements MuleRegistry
      */
     public Transformer lookupTransformer(DataType source, DataType result) throws TransformerException
     {
-        final String dataTypePairHash = getDataTypeSourceResultPairHash(source, result);
-        Transformer cachedTransformer = (Transformer) exactTransformerCache.get(dataTypePairHash);
+        final DataTypePair dataTypePair = new DataTypePair(source, result);
+        Transformer cachedTransformer = (Transformer) exactTransformerCache.get(dataTypePair);
         if (cachedTransformer != null)
         {
             return cachedTransformer;
@@ -253,7 +254,7 @@ public class MuleRegistryHelper implements MuleRegistry
         if (trans != null)
         {
             Transformer concurrentlyAddedTransformer = (Transformer) exactTransformerCache.putIfAbsent(
-                    dataTypePairHash, trans);
+                    dataTypePair.copy(), trans);
             if (concurrentlyAddedTransformer != null)
             {
                 return concurrentlyAddedTransformer;
@@ -305,9 +306,9 @@ public class MuleRegistryHelper implements MuleRegistry
      */
     public List<Transformer> lookupTransformers(DataType source, DataType result)
     {
-        final String dataTypePairHash = getDataTypeSourceResultPairHash(source, result);
+        final DataTypePair dataTypePair = new DataTypePair(source, result);
 
-        List<Transformer> results = (List<Transformer>) transformerListCache.get(dataTypePairHash);
+        List<Transformer> results = (List<Transformer>) transformerListCache.get(dataTypePair);
         if (results != null)
         {
             return results;
@@ -340,7 +341,7 @@ public class MuleRegistryHelper implements MuleRegistry
         }
 
         List<Transformer> concurrentlyAddedTransformers = (List<Transformer>) transformerListCache.putIfAbsent(
-                dataTypePairHash, results);
+                dataTypePair.copy(), results);
         if (concurrentlyAddedTransformers != null)
         {
             return concurrentlyAddedTransformers;
@@ -934,12 +935,6 @@ public class MuleRegistryHelper implements MuleRegistry
         return false;
     }
 
-    private String getDataTypeSourceResultPairHash(DataType<?> source, DataType<?> result)
-    {
-        return source.getClass().getName() + source.hashCode() + ":" + result.getClass().getName()
-               + result.hashCode();
-    }
-
     private class TransformerResolverComparator implements Comparator<TransformerResolver>
     {
 
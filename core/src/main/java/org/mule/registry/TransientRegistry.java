@@ -23,23 +23,22 @@ import org.mule.api.transformer.Transformer;
 import org.mule.api.transport.Connector;
 import org.mule.config.i18n.MessageFactory;
 import org.mule.lifecycle.phases.NotInLifecyclePhase;
-import org.mule.util.CollectionUtils;
 import org.mule.util.ExceptionUtils;
 import org.mule.util.StringUtils;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
-import org.apache.commons.collections.Predicate;
-import org.apache.commons.collections.functors.InstanceofPredicate;
 import org.apache.commons.logging.Log;
 
 /**
@@ -155,29 +154,9 @@ public class TransientRegistry extends AbstractRegistry
         }
     }
 
-    @SuppressWarnings("unchecked")
     public <T> Map<String, T> lookupByType(Class<T> type)
     {
-        final Map<String, T> results = new HashMap<String, T>();
-        try
-        {
-            registryMap.lockForReading();
-
-            for (Map.Entry<String, Object> entry : registryMap.entrySet())
-            {
-                final Class<?> clazz = entry.getValue().getClass();
-                if (type.isAssignableFrom(clazz))
-                {
-                    results.put(entry.getKey(), (T) entry.getValue());
-                }
-            }
-        }
-        finally
-        {
-            registryMap.unlockForReading();
-        }
-
-        return results;
+        return registryMap.lookupByType(type);
     }
 
     public <T> T lookupObject(String key)
@@ -185,10 +164,9 @@ public class TransientRegistry extends AbstractRegistry
         return registryMap.<T>get(key);
     }
 
-    @SuppressWarnings("unchecked")
     public <T> Collection<T> lookupObjects(Class<T> returntype)
     {
-        return (Collection<T>) registryMap.select(new InstanceofPredicate(returntype));
+        return registryMap.lookupByType(returntype).values();
     }
 
     @Override
@@ -365,12 +343,18 @@ public class TransientRegistry extends AbstractRegistry
      * This class encapsulates the {@link HashMap} that's used for storing the objects in the
      * transient registry and also shields client code from having to deal with locking the
      * {@link ReadWriteLock} for the exposed Map operations.
+     * <p/>
+     * Lookups by type are answered from an index of the objects of each type looked up so far,
+     * which is kept up to date as objects are added and removed, instead of checking every object
+     * in the registry.
      */
     private static class RegistryMap
     {
 
         private final Map<String, Object> registry = new HashMap<String, Object>();
         private final ReadWriteLock registryLock = new ReentrantReadWriteLock();
+        // weak keys so the index does not keep classes from other class loaders alive
+        private final Cache<Class<?>, Map<String, Object>> typeIndex = CacheBuilder.newBuilder().weakKeys().build();
         private final Set<Object> lostObjects = new TreeSet<Object>(new Comparator<Object>()
         {
             @Override
@@ -393,13 +377,28 @@ public class TransientRegistry extends AbstractRegistry
             logger = log;
         }
 
-        public Collection<?> select(Predicate predicate)
+        @SuppressWarnings("unchecked")
+        public <T> Map<String, T> lookupByType(Class<T> type)
         {
             Lock readLock = registryLock.readLock();
             try
             {
                 readLock.lock();
-                return CollectionUtils.select(registry.values(), predicate);
+                Map<String, Object> objects = typeIndex.getIfPresent(type);
+                if (objects == null)
+                {
+                    objects = new HashMap<String, Object>();
+                    for (Map.Entry<String, Object> entry : registry.entrySet())
+                    {
+                        if (type.isInstance(entry.getValue()))
+                        {
+                            objects.put(entry.getKey(), entry.getValue());
+                        }
+                    }
+                    // no writer can run while the read lock is held, so concurrent readers index the same objects
+                    typeIndex.put(type, objects);
+                }
+                return new HashMap<String, T>((Map) objects);
             }
             finally
             {
@@ -415,6 +414,7 @@ public class TransientRegistry extends AbstractRegistry
                 writeLock.lock();
                 registry.clear();
                 lostObjects.clear();
+                typeIndex.invalidateAll();
             }
             finally
             {
@@ -430,6 +430,7 @@ public class TransientRegistry extends AbstractRegistry
                 writeLock.lock();
 
                 final Object previousObject = registry.put(key, object);
+                index(key, object);
                 if (previousObject != null && previousObject != object)
                 {
                     lostObjects.add(previousObject);
@@ -452,6 +453,10 @@ public class TransientRegistry extends AbstractRegistry
             {
                 writeLock.lock();
                 registry.putAll(map);
+                for (Map.Entry<String, Object> entry : map.entrySet())
+                {
+                    index(entry.getKey(), entry.getValue());
+                }
             }
             finally
             {
@@ -480,6 +485,10 @@ public class TransientRegistry extends AbstractRegistry
             try
             {
                 writeLock.lock();
+                for (Map<String, Object> objects : typeIndex.asMap().values())
+                {
+                    objects.remove(key);
+                }
                 return registry.remove(key);
             }
             finally
@@ -488,24 +497,28 @@ public class TransientRegistry extends AbstractRegistry
             }
         }
 
-        public Set<Entry<String, Object>> entrySet()
-        {
-            return registry.entrySet();
-        }
-
         public Set<Object> getLostObjects()
         {
             return lostObjects;
         }
 
-        public void lockForReading()
+        /**
+         * Updates the index of the looked up types with an object added with the given key,
+         * replacing any previous object. Must be called holding the write lock.
+         */
+        private void index(String key, Object object)
         {
-            registryLock.readLock().lock();
-        }
-
-        public void unlockForReading()
-        {
-            registryLock.readLock().unlock();
+            for (Map.Entry<Class<?>, Map<String, Object>> entry : typeIndex.asMap().entrySet())
+            {
+                if (entry.getKey().isInstance(object))
+                {
+                    entry.getValue().put(key, object);
+                }
+                else
+                {
+                    entry.getValue().remove(key);
+                }
+            }
         }
     }
 }
@@ -23,6 +23,7 @@ import org.mule.transformer.TransformerWeighting;
 import org.mule.transformer.graph.GraphTransformerResolver;
 import org.mule.transformer.simple.ObjectToByteArray;
 import org.mule.transformer.simple.ObjectToString;
+import org.mule.transformer.types.DataTypePair;
 import org.mule.transformer.types.SimpleDataType;
 
 import java.util.ArrayList;
@@ -52,7 +53,7 @@ public class TypeBasedTransformerResolver implements TransformerResolver, MuleCo
 
     private MuleContext muleContext;
 
-    protected Map<String, Transformer> exactTransformerCache = new ConcurrentHashMap/*<String, Transformer>*/(8);
+    protected Map<DataTypePair, Transformer> exactTransformerCache = new ConcurrentHashMap<DataTypePair, Transformer>(8);
 
     protected TransformerResolver graphTransformerResolver = new GraphTransformerResolver();
 
@@ -78,7 +79,8 @@ public class TypeBasedTransformerResolver implements TransformerResolver, MuleCo
 
     public Transformer resolve(DataType source, DataType result) throws ResolverException
     {
-        Transformer transformer = exactTransformerCache.get(source.toString() + result.toString());
+        DataTypePair dataTypePair = new DataTypePair(source, result);
+        Transformer transformer = exactTransformerCache.get(dataTypePair);
         if (transformer != null)
         {
             return transformer;
@@ -138,7 +140,7 @@ public class TypeBasedTransformerResolver implements TransformerResolver, MuleCo
 
         if (transformer != null)
         {
-            exactTransformerCache.put(source.toString() + result.toString(), transformer);
+            exactTransformerCache.put(dataTypePair.copy(), transformer);
         }
         return transformer;
     }
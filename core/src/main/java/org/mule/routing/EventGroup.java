@@ -62,6 +62,19 @@ public class EventGroup implements Comparable<EventGroup>, Serializable, Deseria
     private int arrivalOrderCounter = 0;
     private Serializable lastStoredEventKey;
 
+    /**
+     * Number of events in the group, kept up to date as events are added and removed so the group
+     * completeness can be checked without listing the stored events.
+     */
+    transient private int eventCount;
+
+    /**
+     * Keys of the stored events in arrival order, so snapshots don't need to be sorted. It is not
+     * available after deserialization, in which case events are sorted by their arrival order
+     * property instead.
+     */
+    transient private List<Serializable> arrivalOrderKeys = new ArrayList<Serializable>();
+
     public static final String DEFAULT_STORE_PREFIX = "DEFAULT_STORE";
 
     public EventGroup(Object groupId, MuleContext muleContext)
@@ -195,7 +208,7 @@ public class EventGroup implements Comparable<EventGroup>, Serializable, Deseria
     {
         synchronized (events)
         {
-            if (events.allKeys().isEmpty())
+            if (eventCount == 0)
             {
                 return IteratorUtils.emptyIterator();
             }
@@ -228,10 +241,19 @@ public class EventGroup implements Comparable<EventGroup>, Serializable, Deseria
     {
         synchronized (events)
         {
-            if (events.allKeys().isEmpty())
+            if (eventCount == 0)
             {
                 return EMPTY_EVENTS_ARRAY;
             }
+            if (arrivalOrderKeys != null)
+            {
+                MuleEvent[] eventArray = new MuleEvent[arrivalOrderKeys.size()];
+                for (int i = 0; i < eventArray.length; i++)
+                {
+                    eventArray[i] = events.retrieve(arrivalOrderKeys.get(i));
+                }
+                return eventArray;
+            }
             List<Serializable> keys = events.allKeys();
             MuleEvent[] eventArray = new MuleEvent[keys.size()];
             for (int i = 0; i < keys.size(); i++)
@@ -256,12 +278,15 @@ public class EventGroup implements Comparable<EventGroup>, Serializable, Deseria
     {
         synchronized (events)
         {
-            //Using both event ID and CorrelationSequence since in certain instances
-            //when an event is split up, the same event IDs are used.
-            Serializable key=event.getId()+event.getMessage().getCorrelationSequence();
+            Serializable key = getEventKey(event);
             event.getMessage().setInvocationProperty(MULE_ARRIVAL_ORDER_PROPERTY, ++arrivalOrderCounter);
             lastStoredEventKey = key;
             events.store(key, event);
+            eventCount++;
+            if (arrivalOrderKeys != null)
+            {
+                arrivalOrderKeys.add(key);
+            }
 
             if (!hasNoCommonRootId)
             {
@@ -290,10 +315,23 @@ public class EventGroup implements Comparable<EventGroup>, Serializable, Deseria
     {
         synchronized (events)
         {
-            events.remove(event.getId());
+            Serializable key = getEventKey(event);
+            events.remove(key);
+            eventCount--;
+            if (arrivalOrderKeys != null)
+            {
+                arrivalOrderKeys.remove(key);
+            }
         }
     }
 
+    private Serializable getEventKey(MuleEvent event)
+    {
+        //Using both event ID and CorrelationSequence since in certain instances
+        //when an event is split up, the same event IDs are used.
+        return event.getId() + event.getMessage().getCorrelationSequence();
+    }
+
     /**
      * Return the creation timestamp of the current group in milliseconds.
      *
@@ -313,15 +351,7 @@ public class EventGroup implements Comparable<EventGroup>, Serializable, Deseria
     {
         synchronized (events)
         {
-            try
-            {
-                return events.allKeys().size();
-            }
-            catch (ObjectStoreException e)
-            {
-                // TODO Check if this is ok.
-                return -1;
-            }
+            return eventCount;
         }
     }
 
@@ -343,7 +373,15 @@ public class EventGroup implements Comparable<EventGroup>, Serializable, Deseria
      */
     public void clear() throws ObjectStoreException
     {
-        getObjectStoreManager().disposeStore(events);
+        synchronized (events)
+        {
+            getObjectStoreManager().disposeStore(events);
+            eventCount = 0;
+            if (arrivalOrderKeys != null)
+            {
+                arrivalOrderKeys.clear();
+            }
+        }
     }
 
     @Override
@@ -402,16 +440,18 @@ public class EventGroup implements Comparable<EventGroup>, Serializable, Deseria
         DefaultMessageCollection col = new DefaultMessageCollection(muleContext);
         List<MuleMessage> messages = new ArrayList<MuleMessage>();
 
+        boolean inArrivalOrder;
         synchronized (events)
         {
-            for (Serializable id : events.allKeys())
+            inArrivalOrder = arrivalOrderKeys != null;
+            for (Serializable id : inArrivalOrder ? arrivalOrderKeys : events.allKeys())
             {
                 MuleMessage message = events.retrieve(id).getMessage();
                 messages.add(message);
             }
         }
 
-        if (sortByArrival)
+        if (sortByArrival && !inArrivalOrder)
         {
             Collections.sort(messages, new ArrivalOrderMessageComparator());
         }
@@ -498,6 +538,7 @@ public class EventGroup implements Comparable<EventGroup>, Serializable, Deseria
 
         String storeKey = storePrefix + ".eventGroup." + groupId;
         this.events = getObjectStoreManager().getObjectStore(storeKey, true);
+        this.eventCount = events.allKeys().size();
     }
 
     public boolean isInitialised()
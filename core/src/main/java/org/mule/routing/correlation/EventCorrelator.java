@@ -34,15 +34,17 @@ import org.mule.execution.ErrorHandlingExecutionTemplate;
 import org.mule.routing.EventGroup;
 import org.mule.routing.EventProcessingThread;
 import org.mule.util.StringMessageUtils;
+import org.mule.util.StringUtils;
 import org.mule.util.concurrent.ThreadNameHelper;
 import org.mule.util.monitor.Expirable;
 import org.mule.util.monitor.ExpiryMonitor;
+import org.mule.util.monitor.TimingWheel;
 import org.mule.util.store.DeserializationPostInitialisable;
 
 import java.io.Serializable;
 import java.text.MessageFormat;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.logging.Log;
@@ -60,6 +62,18 @@ public class EventCorrelator implements Startable, Stoppable, Disposable
 
     public static final int MAX_PROCESSED_GROUPS = 50000;
 
+    public static final String LOCK_STRIPES_PROPERTY = MuleProperties.SYSTEM_PROPERTY_PREFIX + "correlator.lockStripes";
+
+    public static final int DEFAULT_LOCK_STRIPES = 64;
+
+    public static final String RECONCILIATION_INTERVAL_PROPERTY = MuleProperties.SYSTEM_PROPERTY_PREFIX + "correlator.reconciliationInterval";
+
+    /**
+     * Default milliseconds between the scans of the stored groups that register the groups created by
+     * other nodes of the cluster for expiry.
+     */
+    public static final long DEFAULT_RECONCILIATION_INTERVAL = 10000;
+
     private static final long ONE_DAY_IN_MILLI = 1000 * 60 * 60 * 24;
 
     protected long groupTimeToLive = ONE_DAY_IN_MILLI;
@@ -71,13 +85,24 @@ public class EventCorrelator implements Startable, Stoppable, Disposable
      */
     protected ListableObjectStore<EventGroup> eventGroups;
 
-    protected final Object groupsLock = new Object();
+    /**
+     * Locks serializing the processing of the events of a group. Groups are assigned to a lock
+     * by the hash of their id, so events of unrelated groups are correlated concurrently.
+     */
+    private final Object[] groupLocks;
+
+    /**
+     * Guards the access to the processed groups when they are kept in a persistent store, as
+     * persistent partitions are not safe for concurrent access.
+     */
+    private final Object processedGroupsLock = new Object();
 
-    // @GuardedBy groupsLock
     protected ObjectStore<Long> processedGroups = null;
 
     private long timeout = -1; // undefined
 
+    private volatile long reconciliationInterval = Long.getLong(RECONCILIATION_INTERVAL_PROPERTY, DEFAULT_RECONCILIATION_INTERVAL);
+
     private boolean failOnTimeout = true;
 
     private MessageInfoMapping messageInfoMapping;
@@ -93,7 +118,7 @@ public class EventCorrelator implements Startable, Stoppable, Disposable
      */
     private ListableObjectStore<Long> expiredAndDispatchedGroups = null;
 
-    private EventCorrelator.ExpiringGroupMonitoringThread expiringGroupMonitoringThread;
+    private volatile EventCorrelator.ExpiringGroupMonitoringThread expiringGroupMonitoringThread;
     private final String name;
 
     private final boolean persistentStores;
@@ -107,6 +132,23 @@ public class EventCorrelator implements Startable, Stoppable, Disposable
                            FlowConstruct flowConstruct,
                            boolean persistentStores,
                            String storePrefix)
+    {
+        this(callback, timeoutMessageProcessor, messageInfoMapping, muleContext, flowConstruct,
+             persistentStores, storePrefix, Integer.getInteger(LOCK_STRIPES_PROPERTY, DEFAULT_LOCK_STRIPES));
+    }
+
+    /**
+     * @param lockStripes number of locks the groups are distributed over. It is rounded up to a
+     *        power of two, 1 serializes the processing of every group.
+     */
+    public EventCorrelator(EventCorrelatorCallback callback,
+                           MessageProcessor timeoutMessageProcessor,
+                           MessageInfoMapping messageInfoMapping,
+                           MuleContext muleContext,
+                           FlowConstruct flowConstruct,
+                           boolean persistentStores,
+                           String storePrefix,
+                           int lockStripes)
     {
         if (callback == null)
         {
@@ -140,6 +182,32 @@ public class EventCorrelator implements Startable, Stoppable, Disposable
                                                                                           + ".eventGroups",
                                                                                           persistentStores);
         this.flowConstruct = flowConstruct;
+        groupLocks = new Object[lockStripesFor(lockStripes)];
+        for (int i = 0; i < groupLocks.length; i++)
+        {
+            groupLocks[i] = new Object();
+        }
+    }
+
+    private static int lockStripesFor(int lockStripes)
+    {
+        int stripes = 1;
+        while (stripes < lockStripes && stripes < (1 << 16))
+        {
+            stripes <<= 1;
+        }
+        return stripes;
+    }
+
+    /**
+     * @return the lock that serializes the processing of the events of the given group
+     */
+    protected Object getGroupLock(Object groupId)
+    {
+        int hash = groupId.hashCode();
+        // spread the hash so ids that only differ in their high bits use different locks
+        hash ^= (hash >>> 16);
+        return groupLocks[hash & (groupLocks.length - 1)];
     }
 
     public void forceGroupExpiry(String groupId) throws MessagingException
@@ -186,8 +254,8 @@ public class EventCorrelator implements Startable, Stoppable, Disposable
             throw new RoutingException(CoreMessages.noCorrelationId(), event, timeoutMessageProcessor);
         }
 
-        // spinloop for the EventGroup lookup
-        while (true)
+        // ensure that only one thread at a time evaluates this EventGroup
+        synchronized (getGroupLock(groupId))
         {
             try
             {
@@ -205,54 +273,24 @@ public class EventCorrelator implements Startable, Stoppable, Disposable
                                                                          RoutingNotification.MISSED_AGGREGATION_GROUP_EVENT));
                     return null;
                 }
-            }
-            catch (ObjectStoreException e)
-            {
-                throw new RoutingException(event, timeoutMessageProcessor, e);
-            }
 
-            // check for an existing group first
-            EventGroup group;
-            try
-            {
-                group = this.getEventGroup(groupId);
-            }
-            catch (ObjectStoreException e)
-            {
-                throw new RoutingException(event, timeoutMessageProcessor, e);
-            }
+                // check for an existing group first
+                EventGroup group = this.getEventGroup(groupId);
 
-            // does the group exist?
-            if (group == null)
-            {
-                // ..apparently not, so create a new one & add it
-                try
+                // does the group exist?
+                if (group == null)
                 {
+                    // ..apparently not, so create a new one & add it
                     group = this.addEventGroup(callback.createEventGroup(event, groupId));
                 }
-                catch (ObjectStoreException e)
-                {
-                    throw new RoutingException(event, timeoutMessageProcessor, e);
-                }
-            }
 
-            // ensure that only one thread at a time evaluates this EventGroup
-            synchronized (groupsLock)
-            {
                 if (logger.isDebugEnabled())
                 {
                     logger.debug("Adding event to aggregator group: " + groupId);
                 }
 
                 // add the incoming event to the group
-                try
-                {
-                    group.addEvent(event);
-                }
-                catch (ObjectStoreException e)
-                {
-                    throw new RoutingException(event, timeoutMessageProcessor, e);
-                }
+                group.addEvent(event);
 
                 // check to see if the event group is ready to be aggregated
                 if (callback.shouldAggregateEvents(group))
@@ -268,15 +306,8 @@ public class EventCorrelator implements Startable, Stoppable, Disposable
 
                     // remove the eventGroup as no further message will be received
                     // for this group once we aggregate
-                    try
-                    {
-                        this.removeEventGroup(group);
-                        group.clear();
-                    }
-                    catch (ObjectStoreException e)
-                    {
-                        throw new RoutingException(event, timeoutMessageProcessor, e);
-                    }
+                    this.removeEventGroup(group);
+                    group.clear();
 
                     return returnEvent;
                 }
@@ -285,6 +316,10 @@ public class EventCorrelator implements Startable, Stoppable, Disposable
                     return null;
                 }
             }
+            catch (ObjectStoreException e)
+            {
+                throw new RoutingException(event, timeoutMessageProcessor, e);
+            }
         }
     }
 
@@ -317,6 +352,7 @@ public class EventCorrelator implements Startable, Stoppable, Disposable
         try
         {
             eventGroups.store((Serializable) group.getGroupId(), group);
+            scheduleGroupExpiry(group);
             return group;
         }
         catch (ObjectAlreadyExistsException e)
@@ -325,16 +361,40 @@ public class EventCorrelator implements Startable, Stoppable, Disposable
         }
     }
 
+    private void scheduleGroupExpiry(EventGroup group)
+    {
+        ExpiringGroupMonitoringThread monitoringThread = expiringGroupMonitoringThread;
+        if (monitoringThread != null)
+        {
+            monitoringThread.scheduleExpiry(group);
+        }
+    }
+
     protected void removeEventGroup(EventGroup group) throws ObjectStoreException
     {
         final Object groupId = group.getGroupId();
-        eventGroups.remove((Serializable) groupId);
-        addProcessedGroup(groupId);
+        synchronized (getGroupLock(groupId))
+        {
+            eventGroups.remove((Serializable) groupId);
+            addProcessedGroup(groupId);
+        }
+        ExpiringGroupMonitoringThread monitoringThread = expiringGroupMonitoringThread;
+        if (monitoringThread != null)
+        {
+            monitoringThread.cancelExpiry(groupId);
+        }
     }
 
     protected void addProcessedGroup(Object id) throws ObjectStoreException
     {
-        synchronized (groupsLock)
+        if (persistentStores)
+        {
+            synchronized (processedGroupsLock)
+            {
+                processedGroups.store((Serializable) id, System.currentTimeMillis());
+            }
+        }
+        else
         {
             processedGroups.store((Serializable) id, System.currentTimeMillis());
         }
@@ -342,10 +402,14 @@ public class EventCorrelator implements Startable, Stoppable, Disposable
 
     protected boolean isGroupAlreadyProcessed(Object id) throws ObjectStoreException
     {
-        synchronized (groupsLock)
+        if (persistentStores)
         {
-            return processedGroups.contains((Serializable) id);
+            synchronized (processedGroupsLock)
+            {
+                return processedGroups.contains((Serializable) id);
+            }
         }
+        return processedGroups.contains((Serializable) id);
     }
 
     public boolean isFailOnTimeout()
@@ -368,6 +432,28 @@ public class EventCorrelator implements Startable, Stoppable, Disposable
         this.timeout = timeout;
     }
 
+    public long getReconciliationInterval()
+    {
+        return reconciliationInterval;
+    }
+
+    /**
+     * Sets how often the primary node of a cluster scans the ids of all the stored groups to register
+     * for expiry the groups created by the other nodes, which it is not notified about. Each scan
+     * lists every stored group id, so its cost grows with the number of groups: a longer interval
+     * scans less often, but the groups of other nodes may expire up to that much later than their
+     * timeout. Zero or a negative value disables the scans. Groups are never scanned again out of a
+     * cluster, as every group is registered by the node that creates it.
+     *
+     * @param reconciliationInterval milliseconds between scans, {@link #DEFAULT_RECONCILIATION_INTERVAL}
+     *            by default, or the value of the {@link #RECONCILIATION_INTERVAL_PROPERTY} system
+     *            property
+     */
+    public void setReconciliationInterval(long reconciliationInterval)
+    {
+        this.reconciliationInterval = reconciliationInterval;
+    }
+
     protected void handleGroupExpiry(EventGroup group) throws MessagingException
     {
         try
@@ -483,12 +569,25 @@ public class EventCorrelator implements Startable, Stoppable, Disposable
         }
     }
 
+    /**
+     * Expires the groups whose timeout elapses. Groups are registered in a {@link TimingWheel}
+     * when they are created, so each run only deals with the groups that actually time out
+     * instead of checking every group in the store. Groups created before this thread starts
+     * are registered when this node becomes the primary polling instance. In a cluster, groups may
+     * also be created by other nodes sharing the store, so the store is scanned again every
+     * {@link #getReconciliationInterval()} milliseconds to register them.
+     */
     private final class ExpiringGroupMonitoringThread extends EventProcessingThread implements Expirable, Disposable
     {
 
         private ExpiryMonitor expiryMonitor;
         public static final long DELAY_TIME = 10;
 
+        private final TimingWheel groupTimeouts = new TimingWheel(DELAY_TIME, TimeUnit.MILLISECONDS);
+        private final ConcurrentMap<Serializable, TimingWheel.Timeout> scheduledGroups = new ConcurrentHashMap<Serializable, TimingWheel.Timeout>();
+        private boolean primaryPollingInstance;
+        private long nextReconciliation;
+
         public ExpiringGroupMonitoringThread()
         {
             super(name, DELAY_TIME);
@@ -524,6 +623,30 @@ public class EventCorrelator implements Startable, Stoppable, Disposable
             }
         }
 
+        void scheduleExpiry(EventGroup group)
+        {
+            Serializable groupId = (Serializable) group.getGroupId();
+            if (scheduledGroups.containsKey(groupId))
+            {
+                return;
+            }
+            long delay = group.getCreated() + getTimeout() - System.currentTimeMillis();
+            TimingWheel.Timeout timeout = groupTimeouts.schedule(new ExpiringGroup(groupId), delay, TimeUnit.MILLISECONDS);
+            if (scheduledGroups.putIfAbsent(groupId, timeout) != null)
+            {
+                timeout.cancel();
+            }
+        }
+
+        void cancelExpiry(Object groupId)
+        {
+            TimingWheel.Timeout timeout = scheduledGroups.remove(groupId);
+            if (timeout != null)
+            {
+                timeout.cancel();
+            }
+        }
+
         @Override
         public void doRun()
         {
@@ -533,18 +656,47 @@ public class EventCorrelator implements Startable, Stoppable, Disposable
             ////in a different node when the primary goes down.
             if (!muleContext.isPrimaryPollingInstance())
             {
+                primaryPollingInstance = false;
                 return;
             }
+            if (!primaryPollingInstance)
+            {
+                // just started or became the primary node, stored groups may not be scheduled yet
+                scheduleStoredGroups();
+                primaryPollingInstance = true;
+                nextReconciliation = System.currentTimeMillis() + reconciliationInterval;
+            }
+            else if (reconciliationInterval > 0 && StringUtils.isNotEmpty(muleContext.getClusterId()))
+            {
+                long now = System.currentTimeMillis();
+                if (now >= nextReconciliation)
+                {
+                    // other nodes of the cluster may have stored groups that are not scheduled yet
+                    scheduleStoredGroups();
+                    nextReconciliation = now + reconciliationInterval;
+                }
+            }
+
+            for (TimingWheel.Timeout timeout : groupTimeouts.expireTimeouts())
+            {
+                timeout.getExpirable().expired();
+            }
+        }
 
-            List<EventGroup> expired = new ArrayList<EventGroup>(1);
+        private void scheduleStoredGroups()
+        {
             try
             {
                 for (Serializable o : eventGroups.allKeys())
                 {
+                    if (scheduledGroups.containsKey(o))
+                    {
+                        continue;
+                    }
                     EventGroup group = getEventGroup(o);
-                    if (group.getCreated() + getTimeout() < System.currentTimeMillis())
+                    if (group != null)
                     {
-                        expired.add(group);
+                        scheduleExpiry(group);
                     }
                 }
             }
@@ -552,33 +704,30 @@ public class EventCorrelator implements Startable, Stoppable, Disposable
             {
                 logger.warn("expiry failed dues to ObjectStoreException " + e);
             }
-            if (expired.size() > 0)
+        }
+
+        private void expireGroup(final EventGroup group)
+        {
+            ExecutionTemplate<MuleEvent> executionTemplate = ErrorHandlingExecutionTemplate.createErrorHandlingExecutionTemplate(muleContext, flowConstruct.getExceptionListener());
+            try
             {
-                for (Object anExpired : expired)
+                executionTemplate.execute(new ExecutionCallback<MuleEvent>()
                 {
-                    final EventGroup group = (EventGroup) anExpired;
-                    ExecutionTemplate<MuleEvent> executionTemplate = ErrorHandlingExecutionTemplate.createErrorHandlingExecutionTemplate(muleContext, flowConstruct.getExceptionListener());
-                    try
-                    {
-                        executionTemplate.execute(new ExecutionCallback<MuleEvent>()
-                        {
-                            @Override
-                            public MuleEvent process() throws Exception
-                            {
-                                handleGroupExpiry(group);
-                                return null;
-                            }
-                        });
-                    }
-                    catch (MessagingException e)
-                    {
-                        //Already handled by TransactionTemplate
-                    }
-                    catch (Exception e)
+                    @Override
+                    public MuleEvent process() throws Exception
                     {
-                        muleContext.getExceptionListener().handleException(e);
+                        handleGroupExpiry(group);
+                        return null;
                     }
-                }
+                });
+            }
+            catch (MessagingException e)
+            {
+                //Already handled by TransactionTemplate
+            }
+            catch (Exception e)
+            {
+                muleContext.getExceptionListener().handleException(e);
             }
         }
 
@@ -589,6 +738,40 @@ public class EventCorrelator implements Startable, Stoppable, Disposable
             {
                 expiryMonitor.dispose();
             }
+            groupTimeouts.clear();
+            scheduledGroups.clear();
+        }
+
+        private final class ExpiringGroup implements Expirable
+        {
+
+            private final Serializable groupId;
+
+            private ExpiringGroup(Serializable groupId)
+            {
+                this.groupId = groupId;
+            }
+
+            @Override
+            public void expired()
+            {
+                scheduledGroups.remove(groupId);
+                EventGroup group;
+                try
+                {
+                    group = getEventGroup(groupId);
+                }
+                catch (ObjectStoreException e)
+                {
+                    logger.warn("expiry failed dues to ObjectStoreException " + e);
+                    return;
+                }
+                // it may have been aggregated concurrently
+                if (group != null)
+                {
+                    expireGroup(group);
+                }
+            }
         }
     }
 
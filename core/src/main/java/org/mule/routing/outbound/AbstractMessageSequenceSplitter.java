@@ -10,6 +10,7 @@ import org.mule.DefaultMuleEvent;
 import org.mule.DefaultMuleMessage;
 import org.mule.VoidMuleEvent;
 import org.mule.RequestContext;
+import org.mule.api.Closeable;
 import org.mule.api.MuleContext;
 import org.mule.api.MuleEvent;
 import org.mule.api.MuleException;
@@ -101,36 +102,49 @@ public abstract class AbstractMessageSequenceSplitter extends AbstractIntercepti
         }
         int count = messageSequence.size();
         MuleEvent currentEvent = originalEvent;
-        for (; messageSequence.hasNext();)
+        boolean completed = false;
+        try
         {
-            Object payload = messageSequence.next();
-            MuleMessage message = createMessage(payload, originalEvent.getMessage());
-            correlationSequence++;
-            if (counterVariableName != null)
+            for (; messageSequence.hasNext();)
             {
-                message.setInvocationProperty(counterVariableName, correlationSequence);
-            }
-            if (enableCorrelation != CorrelationMode.NEVER)
-            {
-                boolean correlationSet = message.getCorrelationId() != null;
-                if ((!correlationSet && (enableCorrelation == CorrelationMode.IF_NOT_SET))
-                    || (enableCorrelation == CorrelationMode.ALWAYS))
+                Object payload = messageSequence.next();
+                MuleMessage message = createMessage(payload, originalEvent.getMessage());
+                correlationSequence++;
+                if (counterVariableName != null)
                 {
-                    message.setCorrelationId(correlationId);
+                    message.setInvocationProperty(counterVariableName, correlationSequence);
                 }
+                if (enableCorrelation != CorrelationMode.NEVER)
+                {
+                    boolean correlationSet = message.getCorrelationId() != null;
+                    if ((!correlationSet && (enableCorrelation == CorrelationMode.IF_NOT_SET))
+                        || (enableCorrelation == CorrelationMode.ALWAYS))
+                    {
+                        message.setCorrelationId(correlationId);
+                    }
 
-                // take correlation group size from the message properties, set by
-                // concrete
-                // message splitter implementations
-                message.setCorrelationGroupSize(count);
-                message.setCorrelationSequence(correlationSequence);
+                    // take correlation group size from the message properties, set by
+                    // concrete
+                    // message splitter implementations
+                    message.setCorrelationGroupSize(count);
+                    message.setCorrelationSequence(correlationSequence);
+                }
+                message.propagateRootId(originalEvent.getMessage());
+                MuleEvent resultEvent = processNext(RequestContext.setEvent(new DefaultMuleEvent(message, originalEvent, currentEvent.getSession())));
+                if (resultEvent != null && !VoidMuleEvent.getInstance().equals(resultEvent))
+                {
+                    currentEvent = resultEvent;
+                    resultEvents.add(resultEvent);
+                }
             }
-            message.propagateRootId(originalEvent.getMessage());
-            MuleEvent resultEvent = processNext(RequestContext.setEvent(new DefaultMuleEvent(message, originalEvent, currentEvent.getSession())));
-            if (resultEvent != null && !VoidMuleEvent.getInstance().equals(resultEvent))
+            completed = true;
+        }
+        finally
+        {
+            // a sequence that is not fully consumed must release what it holds, e.g. a database cursor
+            if (!completed && seq instanceof Closeable)
             {
-                currentEvent = resultEvent;
-                resultEvents.add(resultEvent);
+                closeQuietly((Closeable) seq);
             }
         }
         if (correlationSequence == 1)
@@ -140,6 +154,18 @@ public abstract class AbstractMessageSequenceSplitter extends AbstractIntercepti
         return resultEvents;
     }
 
+    private void closeQuietly(Closeable sequence)
+    {
+        try
+        {
+            sequence.close();
+        }
+        catch (Exception e)
+        {
+            logger.warn("Failed to close the split sequence: " + e.getMessage());
+        }
+    }
+
     private MuleMessage createMessage(Object payload, MuleMessage originalMessage)
     {
         if (payload instanceof MuleMessage)
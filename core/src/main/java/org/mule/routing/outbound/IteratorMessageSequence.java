@@ -9,6 +9,8 @@ package org.mule.routing.outbound;
 import java.util.Iterator;
 
 import org.apache.commons.lang.Validate;
+import org.mule.api.Closeable;
+import org.mule.api.MuleException;
 import org.mule.routing.AbstractMessageSequence;
 import org.mule.routing.MessageSequence;
 
@@ -19,7 +21,7 @@ import org.mule.routing.MessageSequence;
  * @author flbulgarelli
  * @param <T>
  */
-public final class IteratorMessageSequence<T> extends AbstractMessageSequence<T>
+public final class IteratorMessageSequence<T> extends AbstractMessageSequence<T> implements Closeable
 {
     private final Iterator<T> iter;
 
@@ -44,4 +46,15 @@ public final class IteratorMessageSequence<T> extends AbstractMessageSequence<T>
         return iter.next();
     }
 
+    /**
+     * Closes the iterator if it holds resources, e.g. a streamed database cursor
+     */
+    public void close() throws MuleException
+    {
+        if (iter instanceof Closeable)
+        {
+            ((Closeable) iter).close();
+        }
+    }
+
 }
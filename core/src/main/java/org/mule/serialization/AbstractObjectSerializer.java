@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.serialization;
+
+import org.mule.api.MuleContext;
+import org.mule.api.context.MuleContextAware;
+import org.mule.api.serialization.ObjectSerializer;
+import org.mule.util.IOUtils;
+import org.mule.util.store.DeserializationPostInitialisable;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.apache.commons.lang.SerializationException;
+
+/**
+ * Base {@link ObjectSerializer} that validates the arguments, closes the streams, resolves the
+ * class loader and initialises {@link DeserializationPostInitialisable} objects, leaving to
+ * subclasses only the encoding of the objects.
+ */
+public abstract class AbstractObjectSerializer implements ObjectSerializer, MuleContextAware
+{
+
+    protected MuleContext muleContext;
+
+    @Override
+    public void setMuleContext(MuleContext context)
+    {
+        this.muleContext = context;
+    }
+
+    @Override
+    public byte[] serialize(Object object)
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(512);
+        serialize(object, out);
+        return out.toByteArray();
+    }
+
+    @Override
+    public void serialize(Object object, OutputStream out)
+    {
+        if (out == null)
+        {
+            throw new IllegalArgumentException("The OutputStream must not be null");
+        }
+        try
+        {
+            doSerialize(object, out);
+        }
+        catch (IOException e)
+        {
+            throw new SerializationException(e);
+        }
+        finally
+        {
+            IOUtils.closeQuietly(out);
+        }
+    }
+
+    @Override
+    public <T> T deserialize(byte[] bytes)
+    {
+        return deserialize(bytes, getDefaultClassLoader());
+    }
+
+    @Override
+    public <T> T deserialize(byte[] bytes, ClassLoader classLoader)
+    {
+        if (bytes == null)
+        {
+            throw new IllegalArgumentException("The byte[] must not be null");
+        }
+        return deserialize(new ByteArrayInputStream(bytes), classLoader);
+    }
+
+    @Override
+    public <T> T deserialize(InputStream in)
+    {
+        return deserialize(in, getDefaultClassLoader());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T deserialize(InputStream in, ClassLoader classLoader)
+    {
+        if (in == null)
+        {
+            throw new IllegalArgumentException("The InputStream must not be null");
+        }
+        if (classLoader == null)
+        {
+            throw new IllegalArgumentException("The ClassLoader must not be null");
+        }
+        try
+        {
+            Object object = doDeserialize(in, classLoader);
+            if (object instanceof DeserializationPostInitialisable && muleContext != null)
+            {
+                DeserializationPostInitialisable.Implementation.init(object, muleContext);
+            }
+            return (T) object;
+        }
+        catch (SerializationException e)
+        {
+            throw e;
+        }
+        catch (Exception e)
+        {
+            throw new SerializationException(e);
+        }
+        finally
+        {
+            IOUtils.closeQuietly(in);
+        }
+    }
+
+    /**
+     * Writes <code>object</code> to <code>out</code>. The stream is closed by the caller.
+     */
+    protected abstract void doSerialize(Object object, OutputStream out) throws IOException;
+
+    /**
+     * Reads an object from <code>in</code> loading its classes with <code>classLoader</code>. The
+     * stream is closed by the caller.
+     */
+    protected abstract Object doDeserialize(InputStream in, ClassLoader classLoader) throws Exception;
+
+    protected ClassLoader getDefaultClassLoader()
+    {
+        if (muleContext != null)
+        {
+            return muleContext.getExecutionClassLoader();
+        }
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        return classLoader != null ? classLoader : getClass().getClassLoader();
+    }
+}
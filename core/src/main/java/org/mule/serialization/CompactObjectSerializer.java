@@ -0,0 +1,306 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.serialization;
+
+import org.mule.DefaultMuleMessage;
+import org.mule.MessagePropertiesContext;
+import org.mule.session.DefaultMuleSession;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.OutputStream;
+import java.io.StreamCorruptedException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.io.input.ClassLoaderObjectInputStream;
+
+/**
+ * {@link org.mule.api.serialization.ObjectSerializer} that keeps the semantics of Java
+ * serialization (<code>writeObject</code>/<code>readObject</code> methods,
+ * <code>transient</code> fields, shared references) but writes much less data and allocates less
+ * for small objects such as sessions and queued messages:
+ * <ul>
+ * <li>Registered classes are written as a number instead of a full class descriptor, and other
+ * classes by name only. The ids come from the order of registration, so every reader must
+ * register the same classes in the same order as the writer. The default registrations, see
+ * {@link #DEFAULT_REGISTERED_CLASSES}, always come first.</li>
+ * <li>The stream header is not written.</li>
+ * <li>{@link #serialize(Object)} reuses a buffer per thread.</li>
+ * </ul>
+ * Classes are loaded with the class loader given to <code>deserialize</code>, or the execution
+ * class loader of the Mule context, and not with the one of the classes registered here.
+ * <p/>
+ * As class descriptors are not written, the classes read must be the same version as the ones
+ * written: Java serialization rules for compatible class changes do not apply. Persistent queues
+ * and object stores must be drained before changing their classes, or before switching between
+ * this serializer and {@link JavaObjectSerializer}.
+ */
+public class CompactObjectSerializer extends AbstractObjectSerializer
+{
+
+    /**
+     * Classes registered before the ones set through {@link #setRegisteredClasses(List)}.
+     */
+    public static final List<Class<?>> DEFAULT_REGISTERED_CLASSES = Collections.unmodifiableList(Arrays.<Class<?>>asList(
+        Number.class, Boolean.class, Byte.class, Character.class, Short.class, Integer.class, Long.class,
+        Float.class, Double.class, BigInteger.class, BigDecimal.class, Enum.class, Date.class,
+        byte[].class, char[].class, int[].class, long[].class, Object[].class, String[].class,
+        ArrayList.class, LinkedList.class, HashSet.class, LinkedHashSet.class, HashMap.class,
+        LinkedHashMap.class, TreeMap.class, ConcurrentHashMap.class,
+        DefaultMuleSession.class, DefaultMuleMessage.class, MessagePropertiesContext.class));
+
+    private static final int FULL_DESCRIPTOR = 0;
+    private static final int CLASS_NAME = 1;
+    private static final int REGISTERED_CLASS = 2;
+
+    private static final int MAX_REUSED_BUFFER_SIZE = 64 * 1024;
+
+    private final ThreadLocal<ReusableBuffer> buffers = new ThreadLocal<ReusableBuffer>()
+    {
+        @Override
+        protected ReusableBuffer initialValue()
+        {
+            return new ReusableBuffer();
+        }
+    };
+
+    private volatile Registrations registrations = new Registrations(DEFAULT_REGISTERED_CLASSES);
+
+    @Override
+    public byte[] serialize(Object object)
+    {
+        ReusableBuffer buffer = buffers.get();
+        if (buffer.inUse)
+        {
+            // serializing from a writeObject method of an object being serialized
+            return super.serialize(object);
+        }
+
+        buffer.inUse = true;
+        try
+        {
+            serialize(object, buffer);
+            return buffer.toByteArray();
+        }
+        finally
+        {
+            if (buffer.capacity() > MAX_REUSED_BUFFER_SIZE)
+            {
+                buffers.remove();
+            }
+            else
+            {
+                buffer.reset();
+                buffer.inUse = false;
+            }
+        }
+    }
+
+    @Override
+    protected void doSerialize(Object object, OutputStream out) throws IOException
+    {
+        ObjectOutputStream objectOutputStream = new CompactObjectOutputStream(out, registrations);
+        objectOutputStream.writeObject(object);
+        objectOutputStream.flush();
+    }
+
+    @Override
+    protected Object doDeserialize(InputStream in, ClassLoader classLoader) throws Exception
+    {
+        return new CompactObjectInputStream(classLoader, in, registrations).readObject();
+    }
+
+    /**
+     * Registers classes that are written as a number. The ids of these classes follow the ones of
+     * {@link #DEFAULT_REGISTERED_CLASSES}, in the order of the list.
+     */
+    public void setRegisteredClasses(List<Class<?>> classes)
+    {
+        List<Class<?>> allClasses = new ArrayList<Class<?>>(DEFAULT_REGISTERED_CLASSES);
+        allClasses.addAll(classes);
+        registrations = new Registrations(allClasses);
+    }
+
+    public List<Class<?>> getRegisteredClasses()
+    {
+        return registrations.classes;
+    }
+
+    private static class Registrations
+    {
+
+        private final List<Class<?>> classes;
+        private final String[] names;
+        private final Map<String, Integer> ids = new HashMap<String, Integer>();
+
+        Registrations(List<Class<?>> classes)
+        {
+            this.classes = Collections.unmodifiableList(new ArrayList<Class<?>>(classes));
+            names = new String[classes.size()];
+            for (int i = 0; i < names.length; i++)
+            {
+                names[i] = classes.get(i).getName();
+                if (ids.put(names[i], i) != null)
+                {
+                    throw new IllegalArgumentException("Class " + names[i] + " is registered more than once");
+                }
+            }
+        }
+    }
+
+    private static class CompactObjectOutputStream extends ObjectOutputStream
+    {
+
+        private final Registrations registrations;
+
+        CompactObjectOutputStream(OutputStream out, Registrations registrations) throws IOException
+        {
+            super(out);
+            this.registrations = registrations;
+        }
+
+        @Override
+        protected void writeStreamHeader() throws IOException
+        {
+            // not needed, the reader knows the format
+        }
+
+        @Override
+        protected void writeClassDescriptor(ObjectStreamClass desc) throws IOException
+        {
+            Integer id = registrations.ids.get(desc.getName());
+            Class<?> type = desc.forClass();
+            if (id != null)
+            {
+                write(REGISTERED_CLASS);
+                writeVarInt(id);
+            }
+            else if (type == null || type.isArray() || desc.getSerialVersionUID() == 0)
+            {
+                // enums, and classes that are not available to resolve the descriptor by name
+                write(FULL_DESCRIPTOR);
+                super.writeClassDescriptor(desc);
+            }
+            else
+            {
+                write(CLASS_NAME);
+                writeUTF(desc.getName());
+            }
+        }
+
+        private void writeVarInt(int value) throws IOException
+        {
+            while ((value & ~0x7F) != 0)
+            {
+                write((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            write(value);
+        }
+    }
+
+    private static class CompactObjectInputStream extends ClassLoaderObjectInputStream
+    {
+
+        private final ClassLoader classLoader;
+        private final Registrations registrations;
+
+        CompactObjectInputStream(ClassLoader classLoader, InputStream in, Registrations registrations) throws IOException
+        {
+            super(classLoader, in);
+            this.classLoader = classLoader;
+            this.registrations = registrations;
+        }
+
+        @Override
+        protected void readStreamHeader() throws IOException
+        {
+            // not written
+        }
+
+        @Override
+        protected ObjectStreamClass readClassDescriptor() throws IOException, ClassNotFoundException
+        {
+            int type = read();
+            switch (type)
+            {
+                case FULL_DESCRIPTOR:
+                    return super.readClassDescriptor();
+                case CLASS_NAME:
+                    return lookup(readUTF());
+                case REGISTERED_CLASS:
+                    int id = readVarInt();
+                    if (id >= registrations.names.length)
+                    {
+                        throw new StreamCorruptedException("Class id " + id + " is not registered");
+                    }
+                    return lookup(registrations.names[id]);
+                default:
+                    throw new StreamCorruptedException("Unexpected class descriptor type: " + type);
+            }
+        }
+
+        private ObjectStreamClass lookup(String className) throws ClassNotFoundException, InvalidClassException
+        {
+            ObjectStreamClass desc = ObjectStreamClass.lookup(Class.forName(className, false, classLoader));
+            if (desc == null)
+            {
+                throw new InvalidClassException(className, "class is not serializable");
+            }
+            return desc;
+        }
+
+        private int readVarInt() throws IOException
+        {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7)
+            {
+                int b = readUnsignedByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0)
+                {
+                    return value;
+                }
+            }
+            throw new StreamCorruptedException("Malformed class id");
+        }
+    }
+
+    private static class ReusableBuffer extends ByteArrayOutputStream
+    {
+
+        private boolean inUse;
+
+        ReusableBuffer()
+        {
+            super(512);
+        }
+
+        int capacity()
+        {
+            return buf.length;
+        }
+    }
+}
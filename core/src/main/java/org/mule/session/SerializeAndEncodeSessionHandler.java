@@ -6,6 +6,7 @@
  */
 package org.mule.session;
 
+import org.mule.api.MuleContext;
 import org.mule.api.MuleException;
 import org.mule.api.MuleMessage;
 import org.mule.api.MuleSession;
@@ -13,7 +14,6 @@ import org.mule.api.config.MuleProperties;
 import org.mule.api.model.SessionException;
 import org.mule.config.i18n.MessageFactory;
 import org.mule.util.Base64;
-import org.mule.util.SerializationUtils;
 
 import java.io.IOException;
 
@@ -37,7 +37,7 @@ public class SerializeAndEncodeSessionHandler extends SerializeOnlySessionHandle
             byte[] serializedSession = Base64.decode(serializedEncodedSession);            
             if (serializedSession != null)
             {
-                session = (MuleSession) SerializationUtils.deserialize(serializedSession, message.getMuleContext());
+                session = message.getMuleContext().getObjectSerializer().deserialize(serializedSession);
             }
         }
         return session;
@@ -46,7 +46,8 @@ public class SerializeAndEncodeSessionHandler extends SerializeOnlySessionHandle
     @Override
     public void storeSessionInfoToMessage(MuleSession session, MuleMessage message) throws MuleException
     {        
-        byte[] serializedSession = SerializationUtils.serialize(removeNonSerializableProperties(session,message.getMuleContext()));
+        MuleContext muleContext = message.getMuleContext();
+        byte[] serializedSession = muleContext.getObjectSerializer().serialize(removeNonSerializableProperties(session, muleContext));
         String serializedEncodedSession;
         try
         {
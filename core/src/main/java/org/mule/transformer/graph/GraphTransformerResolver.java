@@ -12,19 +12,32 @@ import org.mule.api.transformer.Converter;
 import org.mule.api.transformer.DataType;
 import org.mule.api.transformer.Transformer;
 import org.mule.config.i18n.CoreMessages;
+import org.mule.transformer.types.DataTypePair;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
-import org.apache.commons.collections.map.LRUMap;
-
+/**
+ * Resolves transformers combining the registered {@link Converter}s.
+ * <p/>
+ * The best route for each pair of data types is searched in the {@link TransformationGraph} the
+ * first time it is resolved and kept in a route table, so later resolutions are a single lookup.
+ * When a converter is added or removed only the routes that could go through it are discarded.
+ */
 public class GraphTransformerResolver implements TransformerResolver
 {
 
+    private static final int MAX_ROUTES = 1000;
+
     private ReentrantReadWriteLock readWriteLock;
     private TransformationGraph graph;
     private CompositeConverterFilter converterFilter;
-    private LRUMap cache;
+    private Cache<DataTypePair, List<Converter>> routes;
     private TransformationGraphLookupStrategy lookupStrategyTransformation;
 
     public GraphTransformerResolver()
@@ -33,83 +46,61 @@ public class GraphTransformerResolver implements TransformerResolver
         this.graph = new TransformationGraph();
         lookupStrategyTransformation = new TransformationGraphLookupStrategy(graph);
         converterFilter = new CompositeConverterFilter(new TransformationLengthConverterFilter(), new PriorityWeightingConverterFilter(), new NameConverterFilter());
-        cache = new LRUMap();
+        routes = CacheBuilder.newBuilder().maximumSize(MAX_ROUTES).build();
     }
 
     @Override
     public Transformer resolve(DataType<?> source, DataType<?> result) throws ResolverException
     {
-        String cacheKey = getDataTypeSourceResultPairHash(source, result);
+        DataTypePair dataTypePair = new DataTypePair(source, result);
+        List<Converter> converters = routes.getIfPresent(dataTypePair);
 
-        readWriteLock.readLock().lock();
-        try
+        if (converters == null)
         {
-            if (cache.containsKey(cacheKey))
+            // Holds the read lock until the route is stored, so it is not discarded before it is
+            // visible to a concurrent change in the graph
+            readWriteLock.readLock().lock();
+            try
             {
-                return (Converter) cache.get(cacheKey);
+                converters = converterFilter.filter(lookupStrategyTransformation.lookupConverters(source, result), source, result);
+                routes.put(dataTypePair.copy(), converters);
+            }
+            finally
+            {
+                readWriteLock.readLock().unlock();
             }
         }
-        finally
-        {
-            readWriteLock.readLock().unlock();
-        }
-
-        List<Converter> converters = converterFilter.filter(lookupStrategyTransformation.lookupConverters(source, result), source, result);
 
         if (converters.size() > 1)
         {
             throw new ResolverException(CoreMessages.transformHasMultipleMatches(source.getType(), result.getType(), converters.get(0), converters.get(1)));
         }
 
-        Transformer converter = (converters.size() == 0) ? null : converters.get(0);
-
-
-        readWriteLock.writeLock().lock();
-        try
-        {
-            cache.put(cacheKey, converter);
-        }
-        finally
-        {
-            readWriteLock.writeLock().unlock();
-        }
-
-        return converter;
-    }
-
-    private String getDataTypeSourceResultPairHash(DataType<?> source, DataType<?> result)
-    {
-        StringBuilder builder = new StringBuilder();
-        builder.append(source.getClass().getName());
-        builder.append(source.hashCode());
-        builder.append(":");
-        builder.append(result.getClass().getName());
-        builder.append(result.hashCode());
-
-        return builder.toString();
+        return (converters.size() == 0) ? null : converters.get(0);
     }
 
     @Override
     public void transformerChange(Transformer transformer, RegistryAction registryAction)
     {
-        readWriteLock.writeLock().lock();
-
-        try
+        if (!(transformer instanceof Converter))
         {
-            if (!(transformer instanceof Converter))
-            {
-                return;
-            }
+            return;
+        }
 
-            cache.clear();
+        Converter converter = (Converter) transformer;
 
+        readWriteLock.writeLock().lock();
+        try
+        {
             if (registryAction == RegistryAction.ADDED)
             {
-                graph.addConverter((Converter) transformer);
+                graph.addConverter(converter);
+                discardRoutesThrough(converter);
             }
             else if (registryAction == RegistryAction.REMOVED)
             {
-                graph.removeConverter((Converter) transformer);
+                discardRoutesThrough(converter);
+                graph.removeConverter(converter);
             }
         }
         finally
@@ -117,4 +108,23 @@ public class GraphTransformerResolver implements TransformerResolver
             readWriteLock.writeLock().unlock();
         }
     }
+
+    /**
+     * Discards the routes between data types that are connected through the converter, as they
+     * are the only ones that change when it is added to or removed from the graph.
+     */
+    private void discardRoutesThrough(Converter converter)
+    {
+        Set<DataType<?>> sources = graph.getConversionSources(converter);
+        Set<DataType<?>> results = graph.getConversionResults(converter);
+
+        for (Iterator<DataTypePair> iterator = routes.asMap().keySet().iterator(); iterator.hasNext(); )
+        {
+            DataTypePair route = iterator.next();
+            if (sources.contains(route.getSource()) && results.contains(route.getResult()))
+            {
+                iterator.remove();
+            }
+        }
+    }
 }
@@ -9,7 +9,9 @@ package org.mule.transformer.graph;
 import org.mule.api.transformer.Converter;
 import org.mule.api.transformer.DataType;
 
+import java.util.Collection;
 import java.util.HashSet;
+import java.util.LinkedList;
 import java.util.Set;
 
 import org.apache.commons.logging.Log;
@@ -106,4 +108,53 @@ public class TransformationGraph extends DirectedMultigraph<DataType<?>, Transfo
 
         registeredConverters.remove(converter);
     }
+
+    /**
+     * Returns the data types that a conversion using the given converter can start from: its source
+     * data types and any data type that can be converted to them.
+     */
+    public Set<DataType<?>> getConversionSources(Converter converter)
+    {
+        return collectReachable(converter.getSourceDataTypes(), false);
+    }
+
+    /**
+     * Returns the data types that a conversion using the given converter can end in: its return
+     * data type and any data type it can be converted to.
+     */
+    public Set<DataType<?>> getConversionResults(Converter converter)
+    {
+        Set<DataType<?>> returnDataType = new HashSet<DataType<?>>();
+        returnDataType.add(converter.getReturnDataType());
+        return collectReachable(returnDataType, true);
+    }
+
+    private Set<DataType<?>> collectReachable(Collection<DataType<?>> dataTypes, boolean outgoing)
+    {
+        Set<DataType<?>> reachable = new HashSet<DataType<?>>();
+        LinkedList<DataType<?>> pending = new LinkedList<DataType<?>>();
+        for (DataType<?> dataType : dataTypes)
+        {
+            if (containsVertex(dataType) && reachable.add(dataType))
+            {
+                pending.add(dataType);
+            }
+        }
+
+        while (!pending.isEmpty())
+        {
+            DataType<?> dataType = pending.removeFirst();
+            Set<TransformationEdge> edges = outgoing ? outgoingEdgesOf(dataType) : incomingEdgesOf(dataType);
+            for (TransformationEdge edge : edges)
+            {
+                DataType<?> next = outgoing ? getEdgeTarget(edge) : getEdgeSource(edge);
+                if (reachable.add(next))
+                {
+                    pending.add(next);
+                }
+            }
+        }
+
+        return reachable;
+    }
 }
@@ -6,9 +6,16 @@
  */
 package org.mule.transformer.simple;
 
+import org.mule.api.transformer.TransformerException;
+import org.mule.config.i18n.CoreMessages;
 import org.mule.transformer.types.DataTypeFactory;
 
-/** TODO */
+import java.io.InputStream;
+
+/**
+ * Reads a {@link org.mule.api.MuleMessage} written by {@link MuleMessageToByteArray}, using the
+ * {@link org.mule.api.serialization.ObjectSerializer} of the Mule context.
+ */
 public class ByteArrayToMuleMessage extends ByteArrayToSerializable
 {
     public ByteArrayToMuleMessage()
@@ -16,4 +23,21 @@ public class ByteArrayToMuleMessage extends ByteArrayToSerializable
         super();
         setReturnDataType(DataTypeFactory.MULE_MESSAGE);
     }
+
+    @Override
+    public Object doTransform(Object src, String encoding) throws TransformerException
+    {
+        try
+        {
+            if (src instanceof byte[])
+            {
+                return muleContext.getObjectSerializer().deserialize((byte[]) src);
+            }
+            return muleContext.getObjectSerializer().deserialize((InputStream) src);
+        }
+        catch (Exception e)
+        {
+            throw new TransformerException(CoreMessages.transformFailed("byte[]", "MuleMessage"), this, e);
+        }
+    }
 }
@@ -9,9 +9,11 @@ package org.mule.transformer.simple;
 import org.mule.api.MuleMessage;
 import org.mule.transformer.AbstractMessageTransformer;
 import org.mule.transformer.types.DataTypeFactory;
-import org.mule.util.SerializationUtils;
 
-/** TODO */
+/**
+ * Serializes a whole {@link MuleMessage}, including its properties, with the
+ * {@link org.mule.api.serialization.ObjectSerializer} of the Mule context.
+ */
 public class MuleMessageToByteArray extends AbstractMessageTransformer
 {
     public MuleMessageToByteArray()
@@ -23,6 +25,6 @@ public class MuleMessageToByteArray extends AbstractMessageTransformer
     @Override
     public Object transformMessage(MuleMessage message, String outputEncoding)
     {
-        return SerializationUtils.serialize(message);
+        return message.getMuleContext().getObjectSerializer().serialize(message);
     }
 }
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transformer.types;
+
+import org.mule.api.transformer.DataType;
+
+/**
+ * Source and result {@link DataType}s of a transformation, used as key to cache the transformers
+ * resolved for them.
+ * <p/>
+ * Data types are compared with {@link DataType#equals(Object)} in both directions and must also have
+ * the same hash code, so a wildcard mime type or a different encoding never matches the entry cached
+ * for another data type. Pairs stored in a cache must be created with {@link #copy()}, as data types
+ * can be modified after the lookup.
+ */
+public final class DataTypePair
+{
+
+    private final DataType<?> source;
+    private final DataType<?> result;
+    private final int hashCode;
+
+    public DataTypePair(DataType<?> source, DataType<?> result)
+    {
+        this.source = source;
+        this.result = result;
+        this.hashCode = 31 * source.hashCode() + result.hashCode();
+    }
+
+    public DataType<?> getSource()
+    {
+        return source;
+    }
+
+    public DataType<?> getResult()
+    {
+        return result;
+    }
+
+    /**
+     * @return a pair with its own copy of the data types that can be modified
+     */
+    public DataTypePair copy()
+    {
+        return new DataTypePair(copyOf(source), copyOf(result));
+    }
+
+    private static DataType<?> copyOf(DataType<?> dataType)
+    {
+        return dataType instanceof ImmutableDataType ? dataType : dataType.cloneDataType();
+    }
+
+    private static boolean matches(DataType<?> dataType, DataType<?> other)
+    {
+        return dataType == other
+               || (dataType.hashCode() == other.hashCode() && dataType.equals(other) && other.equals(dataType));
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o)
+        {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass())
+        {
+            return false;
+        }
+
+        DataTypePair that = (DataTypePair) o;
+        return hashCode == that.hashCode && matches(source, that.source) && matches(result, that.result);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return hashCode;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "DataTypePair{source=" + source + ", result=" + result + '}';
+    }
+}
@@ -34,10 +34,22 @@ public class CopyOnWriteCaseInsensitiveMap<K, V> implements Map<K, V>, Serializa
     private transient boolean requiresCopy;
     private transient Set<K> keyset = new KeySet();
 
-    @SuppressWarnings("unchecked")
     public CopyOnWriteCaseInsensitiveMap()
     {
-        updateCore(new CaseInsensitiveHashMap());
+        this(true);
+    }
+
+    /**
+     * @param withCore false for subclasses that keep their entries in a different structure. These
+     *            have no copy on write core, so they must override every operation of this map.
+     */
+    @SuppressWarnings("unchecked")
+    protected CopyOnWriteCaseInsensitiveMap(boolean withCore)
+    {
+        if (withCore)
+        {
+            updateCore(new CaseInsensitiveHashMap());
+        }
     }
 
     private CopyOnWriteCaseInsensitiveMap(CopyOnWriteCaseInsensitiveMap<K, V> that)
@@ -237,7 +249,10 @@ public class CopyOnWriteCaseInsensitiveMap<K, V> implements Map<K, V>, Serializa
     private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException
     {
         in.defaultReadObject();
-        this.view = Collections.unmodifiableMap(core);
+        if (core != null)
+        {
+            this.view = Collections.unmodifiableMap(core);
+        }
         this.keyset = new KeySet();
     }
 
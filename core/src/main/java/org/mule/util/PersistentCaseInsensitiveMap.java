@@ -0,0 +1,846 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.util;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Case-insensitive {@link Map} of {@link String} keys whose copies share their structure.
+ * <p/>
+ * Entries are kept in a persistent hash array mapped trie: its nodes are never modified, so
+ * {@link #clone()} is a constant time operation that shares all the entries with the original
+ * map, and updating either map only copies the nodes in the path to the updated entry (at most
+ * seven nodes of up to 32 slots each) instead of the whole map.
+ * <p/>
+ * The case-insensitive hash of a key is computed once, without allocating a lower case copy of
+ * the key, and kept with its entry, so entries shared by copies are never hashed again. As with
+ * {@link CaseInsensitiveHashMap}, keys keep the case they were first added with.
+ * <p/>
+ * It extends {@link CopyOnWriteCaseInsensitiveMap} so it can be used where that map is declared,
+ * but none of its state is used.
+ * <p/>
+ * <b>Note:</b> {@link #values()} and {@link #entrySet()} return unmodifiable views.<br>
+ * This implementation is not thread-safe, but copies can be updated from different threads
+ * since they do not share any mutable state.
+ */
+public class PersistentCaseInsensitiveMap<V> extends CopyOnWriteCaseInsensitiveMap<String, V> implements Serializable
+{
+
+    private static final long serialVersionUID = 4117398563297640172L;
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    private static final int MAX_DEPTH = (Integer.SIZE + BITS - 1) / BITS;
+
+    private static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+
+    private transient Node root;
+    private transient int size;
+    private transient Set<String> keySet;
+    private transient Collection<V> values;
+    private transient Set<Map.Entry<String, V>> entrySet;
+
+    public PersistentCaseInsensitiveMap()
+    {
+        super(false);
+        this.root = EMPTY;
+    }
+
+    public PersistentCaseInsensitiveMap(Map<String, ? extends V> map)
+    {
+        this();
+        putAll(map);
+    }
+
+    private PersistentCaseInsensitiveMap(Node root, int size)
+    {
+        super(false);
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * @return a copy of this map that shares its entries, in constant time
+     */
+    @Override
+    public PersistentCaseInsensitiveMap<V> clone()
+    {
+        return new PersistentCaseInsensitiveMap<V>(root, size);
+    }
+
+    @Override
+    public int size()
+    {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    @Override
+    public boolean containsKey(Object key)
+    {
+        return findEntry(key) != null;
+    }
+
+    @Override
+    public V get(Object key)
+    {
+        Entry<V> entry = findEntry(key);
+        return entry == null ? null : entry.value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Entry<V> findEntry(Object key)
+    {
+        if (key != null && !(key instanceof String))
+        {
+            return null;
+        }
+        String name = (String) key;
+        return (Entry<V>) root.find(name, hash(name), 0);
+    }
+
+    @Override
+    public boolean containsValue(Object value)
+    {
+        for (V candidate : values())
+        {
+            if (value == null ? candidate == null : value.equals(candidate))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public V put(String key, V value)
+    {
+        Change change = new Change();
+        root = root.put(new Entry<V>(key, hash(key), value), 0, change);
+        if (change.previous == null)
+        {
+            size++;
+            return null;
+        }
+        return ((Entry<V>) change.previous).value;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public V remove(Object key)
+    {
+        if (key != null && !(key instanceof String))
+        {
+            return null;
+        }
+        String name = (String) key;
+        Change change = new Change();
+        root = root.remove(name, hash(name), 0, change);
+        if (change.previous == null)
+        {
+            return null;
+        }
+        size--;
+        return ((Entry<V>) change.previous).value;
+    }
+
+    @Override
+    public void putAll(Map<? extends String, ? extends V> map)
+    {
+        for (Map.Entry<? extends String, ? extends V> entry : map.entrySet())
+        {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    @Override
+    public void clear()
+    {
+        root = EMPTY;
+        size = 0;
+    }
+
+    @Override
+    public Set<String> keySet()
+    {
+        if (keySet == null)
+        {
+            keySet = new KeySet();
+        }
+        return keySet;
+    }
+
+    @Override
+    public Collection<V> values()
+    {
+        if (values == null)
+        {
+            values = new Values();
+        }
+        return values;
+    }
+
+    @Override
+    public Set<Map.Entry<String, V>> entrySet()
+    {
+        if (entrySet == null)
+        {
+            entrySet = new EntrySet();
+        }
+        return entrySet;
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (obj == this)
+        {
+            return true;
+        }
+        if (!(obj instanceof Map))
+        {
+            return false;
+        }
+        Map<?, ?> other = (Map<?, ?>) obj;
+        if (other.size() != size)
+        {
+            return false;
+        }
+        for (Map.Entry<String, V> entry : entrySet())
+        {
+            V value = entry.getValue();
+            if (value == null)
+            {
+                if (other.get(entry.getKey()) != null || !other.containsKey(entry.getKey()))
+                {
+                    return false;
+                }
+            }
+            else if (!value.equals(other.get(entry.getKey())))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        int hashCode = 0;
+        for (Map.Entry<String, V> entry : entrySet())
+        {
+            hashCode += entry.hashCode();
+        }
+        return hashCode;
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder builder = new StringBuilder("{");
+        for (Map.Entry<String, V> entry : entrySet())
+        {
+            if (builder.length() > 1)
+            {
+                builder.append(", ");
+            }
+            builder.append(entry);
+        }
+        return builder.append('}').toString();
+    }
+
+    /**
+     * Hashes a key consistently with {@link String#equalsIgnoreCase(String)}, without creating a
+     * lower case copy of it.
+     */
+    static int hash(String key)
+    {
+        if (key == null)
+        {
+            return 0;
+        }
+        int hash = 0;
+        for (int i = 0; i < key.length(); i++)
+        {
+            hash = 31 * hash + Character.toLowerCase(Character.toUpperCase(key.charAt(i)));
+        }
+        // spread the higher bits, as the trie is indexed from the lower ones
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean keysEqual(String key1, String key2)
+    {
+        return key1 == null ? key2 == null : key1.equalsIgnoreCase(key2);
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException
+    {
+        out.defaultWriteObject();
+        out.writeInt(size);
+        for (Map.Entry<String, V> entry : entrySet())
+        {
+            out.writeObject(entry.getKey());
+            out.writeObject(entry.getValue());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException
+    {
+        in.defaultReadObject();
+        root = EMPTY;
+        int entries = in.readInt();
+        for (int i = 0; i < entries; i++)
+        {
+            put((String) in.readObject(), (V) in.readObject());
+        }
+    }
+
+    /**
+     * Outcome of updating the trie.
+     */
+    private static class Change
+    {
+
+        // The replaced or removed entry, null if there was none
+        Entry<?> previous;
+    }
+
+    private static final class Entry<V> implements Map.Entry<String, V>
+    {
+
+        final String key;
+        final int hash;
+        final V value;
+
+        Entry(String key, int hash, V value)
+        {
+            this.key = key;
+            this.hash = hash;
+            this.value = value;
+        }
+
+        public String getKey()
+        {
+            return key;
+        }
+
+        public V getValue()
+        {
+            return value;
+        }
+
+        public V setValue(V value)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (!(obj instanceof Map.Entry))
+            {
+                return false;
+            }
+            Map.Entry<?, ?> other = (Map.Entry<?, ?>) obj;
+            return (key == null ? other.getKey() == null : key.equals(other.getKey()))
+                   && (value == null ? other.getValue() == null : value.equals(other.getValue()));
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return (key == null ? 0 : key.hashCode()) ^ (value == null ? 0 : value.hashCode());
+        }
+
+        @Override
+        public String toString()
+        {
+            return key + "=" + value;
+        }
+    }
+
+    /**
+     * Immutable node of the trie. Updates return a new node, or the same one if nothing changed.
+     */
+    private abstract static class Node
+    {
+
+        abstract Entry<?> find(String key, int hash, int shift);
+
+        abstract Node put(Entry<?> entry, int shift, Change change);
+
+        abstract Node remove(String key, int hash, int shift, Change change);
+
+        /**
+         * @return the only entry of this node if it has no other entries or nodes, null otherwise
+         */
+        abstract Entry<?> singleEntry();
+
+        abstract int slots();
+
+        abstract Object slot(int index);
+    }
+
+    /**
+     * Node with up to 32 slots, indexed by the next bits of the key hashes. Only the used slots
+     * are allocated, each one holding either an entry or the node of the next level.
+     */
+    private static final class BitmapNode extends Node
+    {
+
+        private final int bitmap;
+        private final Object[] slots;
+
+        BitmapNode(int bitmap, Object[] slots)
+        {
+            this.bitmap = bitmap;
+            this.slots = slots;
+        }
+
+        private int index(int bit)
+        {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        @Override
+        Entry<?> find(String key, int hash, int shift)
+        {
+            int bit = 1 << ((hash >>> shift) & MASK);
+            if ((bitmap & bit) == 0)
+            {
+                return null;
+            }
+            Object slot = slots[index(bit)];
+            if (slot instanceof Entry)
+            {
+                Entry<?> entry = (Entry<?>) slot;
+                return entry.hash == hash && keysEqual(entry.key, key) ? entry : null;
+            }
+            return ((Node) slot).find(key, hash, shift + BITS);
+        }
+
+        @Override
+        Node put(Entry<?> entry, int shift, Change change)
+        {
+            int bit = 1 << ((entry.hash >>> shift) & MASK);
+            int index = index(bit);
+            if ((bitmap & bit) == 0)
+            {
+                Object[] newSlots = new Object[slots.length + 1];
+                System.arraycopy(slots, 0, newSlots, 0, index);
+                newSlots[index] = entry;
+                System.arraycopy(slots, index, newSlots, index + 1, slots.length - index);
+                return new BitmapNode(bitmap | bit, newSlots);
+            }
+
+            Object slot = slots[index];
+            Object newSlot;
+            if (slot instanceof Entry)
+            {
+                Entry<?> existing = (Entry<?>) slot;
+                if (existing.hash == entry.hash && keysEqual(existing.key, entry.key))
+                {
+                    change.previous = existing;
+                    if (existing.value == entry.value)
+                    {
+                        return this;
+                    }
+                    // keep the case the key was first added with
+                    newSlot = new Entry<Object>(existing.key, existing.hash, entry.value);
+                }
+                else
+                {
+                    newSlot = createNode(existing, entry, shift + BITS);
+                }
+            }
+            else
+            {
+                newSlot = ((Node) slot).put(entry, shift + BITS, change);
+                if (newSlot == slot)
+                {
+                    return this;
+                }
+            }
+            return new BitmapNode(bitmap, replace(slots, index, newSlot));
+        }
+
+        @Override
+        Node remove(String key, int hash, int shift, Change change)
+        {
+            int bit = 1 << ((hash >>> shift) & MASK);
+            if ((bitmap & bit) == 0)
+            {
+                return this;
+            }
+            int index = index(bit);
+            Object slot = slots[index];
+            if (slot instanceof Entry)
+            {
+                Entry<?> entry = (Entry<?>) slot;
+                if (entry.hash != hash || !keysEqual(entry.key, key))
+                {
+                    return this;
+                }
+                change.previous = entry;
+                return removeSlot(bit, index);
+            }
+
+            Node node = (Node) slot;
+            Node newNode = node.remove(key, hash, shift + BITS, change);
+            if (newNode == node)
+            {
+                return this;
+            }
+            if (newNode.slots() == 0)
+            {
+                return removeSlot(bit, index);
+            }
+            // a node left with a single entry is replaced by the entry itself
+            Entry<?> single = newNode.singleEntry();
+            return new BitmapNode(bitmap, replace(slots, index, single != null ? single : newNode));
+        }
+
+        private Node removeSlot(int bit, int index)
+        {
+            if (slots.length == 1)
+            {
+                return EMPTY;
+            }
+            Object[] newSlots = new Object[slots.length - 1];
+            System.arraycopy(slots, 0, newSlots, 0, index);
+            System.arraycopy(slots, index + 1, newSlots, index, slots.length - index - 1);
+            return new BitmapNode(bitmap & ~bit, newSlots);
+        }
+
+        @Override
+        Entry<?> singleEntry()
+        {
+            return slots.length == 1 && slots[0] instanceof Entry ? (Entry<?>) slots[0] : null;
+        }
+
+        @Override
+        int slots()
+        {
+            return slots.length;
+        }
+
+        @Override
+        Object slot(int index)
+        {
+            return slots[index];
+        }
+
+        private static Node createNode(Entry<?> entry1, Entry<?> entry2, int shift)
+        {
+            if (entry1.hash == entry2.hash || shift >= MAX_DEPTH * BITS)
+            {
+                return new CollisionNode(entry1.hash, new Object[] {entry1, entry2});
+            }
+            int index1 = (entry1.hash >>> shift) & MASK;
+            int index2 = (entry2.hash >>> shift) & MASK;
+            if (index1 == index2)
+            {
+                return new BitmapNode(1 << index1, new Object[] {createNode(entry1, entry2, shift + BITS)});
+            }
+            Object[] slots = index1 < index2 ? new Object[] {entry1, entry2} : new Object[] {entry2, entry1};
+            return new BitmapNode((1 << index1) | (1 << index2), slots);
+        }
+    }
+
+    /**
+     * Node holding the entries whose keys have the same hash.
+     */
+    private static final class CollisionNode extends Node
+    {
+
+        private final int hash;
+        private final Object[] entries;
+
+        CollisionNode(int hash, Object[] entries)
+        {
+            this.hash = hash;
+            this.entries = entries;
+        }
+
+        private int indexOf(String key)
+        {
+            for (int i = 0; i < entries.length; i++)
+            {
+                if (keysEqual(((Entry<?>) entries[i]).key, key))
+                {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        Entry<?> find(String key, int hash, int shift)
+        {
+            if (hash != this.hash)
+            {
+                return null;
+            }
+            int index = indexOf(key);
+            return index < 0 ? null : (Entry<?>) entries[index];
+        }
+
+        @Override
+        Node put(Entry<?> entry, int shift, Change change)
+        {
+            if (entry.hash != hash)
+            {
+                // nest this node in a bitmap node that can also hold the new entry
+                return new BitmapNode(1 << ((hash >>> shift) & MASK), new Object[] {this}).put(entry, shift, change);
+            }
+            int index = indexOf(entry.key);
+            if (index < 0)
+            {
+                Object[] newEntries = new Object[entries.length + 1];
+                System.arraycopy(entries, 0, newEntries, 0, entries.length);
+                newEntries[entries.length] = entry;
+                return new CollisionNode(hash, newEntries);
+            }
+            Entry<?> existing = (Entry<?>) entries[index];
+            change.previous = existing;
+            if (existing.value == entry.value)
+            {
+                return this;
+            }
+            return new CollisionNode(hash, replace(entries, index, new Entry<Object>(existing.key, hash, entry.value)));
+        }
+
+        @Override
+        Node remove(String key, int hash, int shift, Change change)
+        {
+            int index = hash == this.hash ? indexOf(key) : -1;
+            if (index < 0)
+            {
+                return this;
+            }
+            change.previous = (Entry<?>) entries[index];
+            Object[] newEntries = new Object[entries.length - 1];
+            System.arraycopy(entries, 0, newEntries, 0, index);
+            System.arraycopy(entries, index + 1, newEntries, index, entries.length - index - 1);
+            return new CollisionNode(hash, newEntries);
+        }
+
+        @Override
+        Entry<?> singleEntry()
+        {
+            return entries.length == 1 ? (Entry<?>) entries[0] : null;
+        }
+
+        @Override
+        int slots()
+        {
+            return entries.length;
+        }
+
+        @Override
+        Object slot(int index)
+        {
+            return entries[index];
+        }
+    }
+
+    private static Object[] replace(Object[] slots, int index, Object slot)
+    {
+        Object[] newSlots = slots.clone();
+        newSlots[index] = slot;
+        return newSlots;
+    }
+
+    /**
+     * Iterates the entries of the trie as it was when the iterator was created, so the map can
+     * be updated while iterating.
+     */
+    private abstract class TrieIterator<T> implements Iterator<T>
+    {
+
+        private final Node[] nodes = new Node[MAX_DEPTH + 1];
+        private final int[] indexes = new int[MAX_DEPTH + 1];
+        private int depth;
+        private Entry<V> next;
+        private Entry<V> last;
+
+        TrieIterator()
+        {
+            nodes[0] = root;
+            advance();
+        }
+
+        @SuppressWarnings("unchecked")
+        private void advance()
+        {
+            next = null;
+            while (depth >= 0)
+            {
+                Node node = nodes[depth];
+                if (indexes[depth] == node.slots())
+                {
+                    depth--;
+                    continue;
+                }
+                Object slot = node.slot(indexes[depth]++);
+                if (slot instanceof Entry)
+                {
+                    next = (Entry<V>) slot;
+                    return;
+                }
+                depth++;
+                nodes[depth] = (Node) slot;
+                indexes[depth] = 0;
+            }
+        }
+
+        public boolean hasNext()
+        {
+            return next != null;
+        }
+
+        Entry<V> nextEntry()
+        {
+            if (next == null)
+            {
+                throw new NoSuchElementException();
+            }
+            last = next;
+            advance();
+            return last;
+        }
+
+        public void remove()
+        {
+            if (last == null)
+            {
+                throw new IllegalStateException("Cannot remove element before first invoking next()");
+            }
+            PersistentCaseInsensitiveMap.this.remove(last.key);
+            last = null;
+        }
+    }
+
+    private final class KeySet extends AbstractSet<String>
+    {
+
+        @Override
+        public Iterator<String> iterator()
+        {
+            return new TrieIterator<String>()
+            {
+                public String next()
+                {
+                    return nextEntry().key;
+                }
+            };
+        }
+
+        @Override
+        public int size()
+        {
+            return size;
+        }
+
+        @Override
+        public boolean contains(Object o)
+        {
+            return containsKey(o);
+        }
+
+        @Override
+        public boolean remove(Object o)
+        {
+            if (!containsKey(o))
+            {
+                return false;
+            }
+            PersistentCaseInsensitiveMap.this.remove(o);
+            return true;
+        }
+
+        @Override
+        public void clear()
+        {
+            PersistentCaseInsensitiveMap.this.clear();
+        }
+    }
+
+    private final class Values extends AbstractCollection<V>
+    {
+
+        @Override
+        public Iterator<V> iterator()
+        {
+            return new TrieIterator<V>()
+            {
+                public V next()
+                {
+                    return nextEntry().value;
+                }
+
+                @Override
+                public void remove()
+                {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+
+        @Override
+        public int size()
+        {
+            return size;
+        }
+    }
+
+    private final class EntrySet extends AbstractSet<Map.Entry<String, V>>
+    {
+
+        @Override
+        public Iterator<Map.Entry<String, V>> iterator()
+        {
+            return new TrieIterator<Map.Entry<String, V>>()
+            {
+                public Map.Entry<String, V> next()
+                {
+                    return nextEntry();
+                }
+
+                @Override
+                public void remove()
+                {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+
+        @Override
+        public int size()
+        {
+            return size;
+        }
+    }
+}
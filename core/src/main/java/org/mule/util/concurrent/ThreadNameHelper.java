@@ -50,6 +50,11 @@ public class ThreadNameHelper
         return String.format("%s%s", getPrefix(muleContext), name);
     }
 
+    public static String lifecycle(MuleContext muleContext, String phaseName)
+    {
+        return String.format("%slifecycle.%s", getPrefix(muleContext), phaseName);
+    }
+
     /**
      * Generate a generic thread name prefix for this context.
      * @param muleContext context to generate the name prefix for
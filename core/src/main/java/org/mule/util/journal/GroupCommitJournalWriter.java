@@ -0,0 +1,345 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.util.journal;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Writes journal entries in batches from a single thread.
+ * <p/>
+ * Transactions enqueue their entries in a bounded ring buffer and the writer thread drains it,
+ * serializing every available entry (up to a maximum batch size) and then syncing each touched
+ * journal file once for the whole batch. Callers that need an entry to be durable, such as a
+ * commit, wait for the sequence returned when enqueuing it to be written.
+ * <p/>
+ * Entries are written in the same order they are enqueued, so an operation is always written
+ * before the checkpoint that completes its transaction. If a batch can not be written the writer
+ * stops and the failure is propagated to every caller waiting for it or enqueuing new entries.
+ */
+public class GroupCommitJournalWriter
+{
+
+    public static final String GROUP_COMMIT_PROPERTY = "mule.journal.groupCommit";
+    public static final String BUFFER_SIZE_PROPERTY = "mule.journal.groupCommit.bufferSize";
+    public static final String MAX_BATCH_SIZE_PROPERTY = "mule.journal.groupCommit.maxBatchSize";
+    public static final String MAX_BATCH_DELAY_PROPERTY = "mule.journal.groupCommit.maxBatchDelay";
+
+    public static final int DEFAULT_BUFFER_SIZE = 4096;
+    public static final int DEFAULT_MAX_BATCH_SIZE = 512;
+    public static final long DEFAULT_MAX_BATCH_DELAY = 0;
+
+    private static final long NOT_WRITTEN = -1;
+
+    protected transient Log logger = LogFactory.getLog(getClass());
+
+    private final TransactionJournalFile[] files;
+    private final JournalEntry[] entries;
+    private final int maxBatchSize;
+    private final long maxBatchDelayNanos;
+    private final GroupCommitStatistics statistics = new GroupCommitStatistics();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final Condition written = lock.newCondition();
+
+    private final Thread writerThread;
+    private long nextSequence;
+    private long writtenSequence = NOT_WRITTEN;
+    private int pending;
+    private boolean running = true;
+    private RuntimeException failure;
+
+    /**
+     * @param name name used for the writer thread
+     * @param bufferSize maximum number of entries waiting to be written before producers block
+     * @param maxBatchSize maximum number of entries written before syncing the journal files
+     * @param maxBatchDelay milliseconds the writer waits for a batch to fill up before writing it,
+     *        0 to write whatever is available as soon as the previous batch is done
+     */
+    public GroupCommitJournalWriter(String name, int bufferSize, int maxBatchSize, long maxBatchDelay)
+    {
+        this.files = new TransactionJournalFile[bufferSize];
+        this.entries = new JournalEntry[bufferSize];
+        this.maxBatchSize = Math.min(maxBatchSize, bufferSize);
+        this.maxBatchDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxBatchDelay);
+        this.writerThread = new Thread(new BatchWriter(), name);
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * @return a writer configured from system properties if group commit is enabled through the
+     *         {@value #GROUP_COMMIT_PROPERTY} system property, null otherwise
+     */
+    public static GroupCommitJournalWriter fromSystemProperties(String name)
+    {
+        if (!Boolean.getBoolean(GROUP_COMMIT_PROPERTY))
+        {
+            return null;
+        }
+        return new GroupCommitJournalWriter(name,
+                                            Integer.getInteger(BUFFER_SIZE_PROPERTY, DEFAULT_BUFFER_SIZE),
+                                            Integer.getInteger(MAX_BATCH_SIZE_PROPERTY, DEFAULT_MAX_BATCH_SIZE),
+                                            Long.getLong(MAX_BATCH_DELAY_PROPERTY, DEFAULT_MAX_BATCH_DELAY));
+    }
+
+    /**
+     * Enqueues an entry to be written to a journal file.
+     *
+     * @return the sequence of the write, to be used with {@link #awaitWritten(long)}
+     */
+    long write(TransactionJournalFile file, JournalEntry entry)
+    {
+        lock.lock();
+        try
+        {
+            while (pending == entries.length && running)
+            {
+                notFull.awaitUninterruptibly();
+            }
+            if (failure != null)
+            {
+                throw failure;
+            }
+            if (!running)
+            {
+                throw new IllegalStateException("Journal writer " + writerThread.getName() + " has been stopped");
+            }
+            int slot = (int) (nextSequence % entries.length);
+            files[slot] = file;
+            entries[slot] = entry;
+            pending++;
+            notEmpty.signal();
+            return nextSequence++;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Enqueues the truncation of a journal file, which is done once all the previously enqueued
+     * entries are written.
+     *
+     * @return the sequence of the truncation, to be used with {@link #awaitWritten(long)}
+     */
+    long truncate(TransactionJournalFile file)
+    {
+        return write(file, null);
+    }
+
+    /**
+     * Waits until the write with the given sequence, and therefore all the previous ones, is
+     * written and synced.
+     */
+    void awaitWritten(long sequence)
+    {
+        lock.lock();
+        try
+        {
+            while (writtenSequence < sequence && failure == null)
+            {
+                written.awaitUninterruptibly();
+            }
+            if (writtenSequence < sequence)
+            {
+                throw failure;
+            }
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes every pending entry and stops the writer thread.
+     */
+    public void stop()
+    {
+        lock.lock();
+        try
+        {
+            running = false;
+            notEmpty.signalAll();
+            notFull.signalAll();
+        }
+        finally
+        {
+            lock.unlock();
+        }
+        try
+        {
+            writerThread.join();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return number of entries waiting to be written
+     */
+    public int getPendingEntries()
+    {
+        lock.lock();
+        try
+        {
+            return pending;
+        }
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    public GroupCommitStatistics getStatistics()
+    {
+        return statistics;
+    }
+
+    private class BatchWriter implements Runnable
+    {
+
+        private final TransactionJournalFile[] batchFiles = new TransactionJournalFile[maxBatchSize];
+        private final JournalEntry[] batchEntries = new JournalEntry[maxBatchSize];
+
+        @Override
+        public void run()
+        {
+            while (true)
+            {
+                int batchSize;
+                long lastSequence;
+                lock.lock();
+                try
+                {
+                    while (pending == 0 && running)
+                    {
+                        notEmpty.awaitUninterruptibly();
+                    }
+                    if (pending == 0)
+                    {
+                        return;
+                    }
+                    waitForBatchToFill();
+                    batchSize = Math.min(pending, maxBatchSize);
+                    long firstSequence = nextSequence - pending;
+                    for (int i = 0; i < batchSize; i++)
+                    {
+                        int slot = (int) ((firstSequence + i) % entries.length);
+                        batchFiles[i] = files[slot];
+                        batchEntries[i] = entries[slot];
+                        files[slot] = null;
+                        entries[slot] = null;
+                    }
+                    pending -= batchSize;
+                    lastSequence = firstSequence + batchSize - 1;
+                    notFull.signalAll();
+                }
+                finally
+                {
+                    lock.unlock();
+                }
+
+                RuntimeException batchFailure = null;
+                long start = System.nanoTime();
+                try
+                {
+                    writeBatch(batchSize);
+                }
+                catch (RuntimeException e)
+                {
+                    logger.error("Failure writing transaction journal entries", e);
+                    batchFailure = e;
+                }
+                statistics.recordBatch(batchSize, System.nanoTime() - start);
+
+                lock.lock();
+                try
+                {
+                    if (batchFailure == null)
+                    {
+                        writtenSequence = lastSequence;
+                    }
+                    else
+                    {
+                        failure = batchFailure;
+                        running = false;
+                        notFull.signalAll();
+                    }
+                    written.signalAll();
+                }
+                finally
+                {
+                    lock.unlock();
+                }
+                if (batchFailure != null)
+                {
+                    return;
+                }
+            }
+        }
+
+        private void waitForBatchToFill()
+        {
+            long remaining = maxBatchDelayNanos;
+            while (remaining > 0 && pending < maxBatchSize && running)
+            {
+                try
+                {
+                    remaining = notEmpty.awaitNanos(remaining);
+                }
+                catch (InterruptedException e)
+                {
+                    return;
+                }
+            }
+        }
+
+        private void writeBatch(int batchSize)
+        {
+            Map<TransactionJournalFile, Object> touchedFiles = new IdentityHashMap<TransactionJournalFile, Object>();
+            for (int i = 0; i < batchSize; i++)
+            {
+                TransactionJournalFile file = batchFiles[i];
+                if (batchEntries[i] == null)
+                {
+                    file.truncateLog();
+                    touchedFiles.remove(file);
+                }
+                else
+                {
+                    file.writeToLog(batchEntries[i]);
+                    touchedFiles.put(file, file);
+                }
+                batchFiles[i] = null;
+                batchEntries[i] = null;
+            }
+            for (TransactionJournalFile file : touchedFiles.keySet())
+            {
+                file.syncLog();
+            }
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return writerThread.getName() + " " + statistics;
+    }
+}
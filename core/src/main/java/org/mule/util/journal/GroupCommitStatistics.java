@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.util.journal;
+
+import org.mule.api.management.stats.Statistics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Statistics about the batches written by a {@link GroupCommitJournalWriter}.
+ */
+public class GroupCommitStatistics implements Statistics
+{
+
+    private static final long serialVersionUID = -2389487462918452201L;
+
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong entries = new AtomicLong();
+    private final AtomicLong maxBatchSize = new AtomicLong();
+    private final AtomicLong totalSyncTime = new AtomicLong();
+
+    @Override
+    public boolean isEnabled()
+    {
+        return true;
+    }
+
+    void recordBatch(int batchSize, long syncTimeNanos)
+    {
+        batches.incrementAndGet();
+        entries.addAndGet(batchSize);
+        totalSyncTime.addAndGet(syncTimeNanos);
+        long currentMax = maxBatchSize.get();
+        while (batchSize > currentMax && !maxBatchSize.compareAndSet(currentMax, batchSize))
+        {
+            currentMax = maxBatchSize.get();
+        }
+    }
+
+    /**
+     * @return number of batches written, each one followed by a single sync of the journal files
+     */
+    public long getBatchCount()
+    {
+        return batches.get();
+    }
+
+    /**
+     * @return number of journal operations written
+     */
+    public long getEntryCount()
+    {
+        return entries.get();
+    }
+
+    /**
+     * @return biggest number of journal operations written in a single batch
+     */
+    public long getMaxBatchSize()
+    {
+        return maxBatchSize.get();
+    }
+
+    /**
+     * @return average number of journal operations written per batch
+     */
+    public double getAverageBatchSize()
+    {
+        long batchCount = batches.get();
+        return batchCount == 0 ? 0 : (double) entries.get() / batchCount;
+    }
+
+    /**
+     * @return average time in microseconds spent writing and syncing a batch
+     */
+    public double getAverageSyncTime()
+    {
+        long batchCount = batches.get();
+        return batchCount == 0 ? 0 : (double) totalSyncTime.get() / batchCount / 1000;
+    }
+
+    public void clear()
+    {
+        batches.set(0);
+        entries.set(0);
+        maxBatchSize.set(0);
+        totalSyncTime.set(0);
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("GroupCommitStatistics{batches=%s, entries=%s, maxBatchSize=%s, averageBatchSize=%.2f, averageSyncTime=%.2fus}",
+                             getBatchCount(), getEntryCount(), getMaxBatchSize(), getAverageBatchSize(), getAverageSyncTime());
+    }
+}
@@ -27,6 +27,9 @@ import org.apache.commons.logging.LogFactory;
  * Keeps a memory cache of the log entries for performance reasons.
  * Once a transaction finishes the client of this class must manually remove the
  * entries related to such transaction to clear the cache.
+ *
+ * When a {@link GroupCommitJournalWriter} is used, entries are written to the files in batches
+ * by the writer thread and checkpoint operations wait until their entry has been synced.
  */
 public class TransactionJournal<T, K extends JournalEntry<T>>
 {
@@ -45,12 +48,28 @@ public class TransactionJournal<T, K extends JournalEntry<T>>
      * Log file which has old entries and will be cleared as soon as all the transaction in it are resolved.
      */
     private TransactionJournalFile<T, K> notCurrentLogFile;
+    /**
+     * Writer for the log files when group commit is enabled, null otherwise.
+     */
+    private final GroupCommitJournalWriter groupCommitWriter;
 
     /**
+     * Creates a journal that uses group commit if enabled through system properties.
+     *
      * @param logFilesDirectory directory used to store the journal files.
      */
     public TransactionJournal(String logFilesDirectory, TransactionCompletePredicate transactionCompletePredicate, JournalEntrySerializer journalEntrySerializer)
     {
+        this(logFilesDirectory, transactionCompletePredicate, journalEntrySerializer, GroupCommitJournalWriter.fromSystemProperties("journal.writer." + new File(logFilesDirectory).getName()));
+    }
+
+    /**
+     * @param logFilesDirectory directory used to store the journal files.
+     * @param groupCommitWriter writer used to write the entries in batches, or null to write each entry as it is logged
+     */
+    public TransactionJournal(String logFilesDirectory, TransactionCompletePredicate transactionCompletePredicate, JournalEntrySerializer journalEntrySerializer, GroupCommitJournalWriter groupCommitWriter)
+    {
+        this.groupCommitWriter = groupCommitWriter;
         File logFileDirectory = new File(logFilesDirectory);
         if (!logFileDirectory.exists())
         {
@@ -60,8 +79,8 @@ public class TransactionJournal<T, K extends JournalEntry<T>>
         File logFile2 = new File(logFileDirectory, "tx2.log");
         logger.info(String.format("Using files for tx logs %s and %s", logFile1.getAbsolutePath(), logFile2.getAbsolutePath()));
 
-        this.currentLogFile = new TransactionJournalFile(logFile1, journalEntrySerializer);
-        this.notCurrentLogFile = new TransactionJournalFile(logFile2, journalEntrySerializer);
+        this.currentLogFile = new TransactionJournalFile(logFile1, journalEntrySerializer, groupCommitWriter);
+        this.notCurrentLogFile = new TransactionJournalFile(logFile2, journalEntrySerializer, groupCommitWriter);
         this.transactionCompletePredicate = transactionCompletePredicate;
     }
 
@@ -83,13 +102,21 @@ public class TransactionJournal<T, K extends JournalEntry<T>>
      *
      * @param journalEntry journal entry with the checkpoint operation details
      */
-    public synchronized void logCheckpointOperation(JournalEntry<T> journalEntry)
+    public void logCheckpointOperation(JournalEntry<T> journalEntry)
     {
-        TransactionJournalFile logFile = determineLogFile(journalEntry.getTxId());
-        logFile.logOperation(journalEntry);
-        if (transactionCompletePredicate.isTransactionComplete(journalEntry))
+        long sequence;
+        synchronized (this)
         {
-            logFile.clearEntriesForTransaction(journalEntry.getTxId());
+            TransactionJournalFile logFile = determineLogFile(journalEntry.getTxId());
+            sequence = logFile.logOperation(journalEntry);
+            if (transactionCompletePredicate.isTransactionComplete(journalEntry))
+            {
+                logFile.clearEntriesForTransaction(journalEntry.getTxId());
+            }
+        }
+        if (groupCommitWriter != null)
+        {
+            groupCommitWriter.awaitWritten(sequence);
         }
     }
 
@@ -123,6 +150,10 @@ public class TransactionJournal<T, K extends JournalEntry<T>>
      */
     public synchronized void close()
     {
+        if (groupCommitWriter != null)
+        {
+            groupCommitWriter.stop();
+        }
         currentLogFile.close();
         notCurrentLogFile.close();
     }
@@ -133,7 +164,19 @@ public class TransactionJournal<T, K extends JournalEntry<T>>
     public synchronized void clear()
     {
         currentLogFile.clear();
-        notCurrentLogFile.clear();
+        long sequence = notCurrentLogFile.clear();
+        if (groupCommitWriter != null)
+        {
+            groupCommitWriter.awaitWritten(sequence);
+        }
+    }
+
+    /**
+     * @return statistics of the batches written when group commit is enabled, null otherwise
+     */
+    public GroupCommitStatistics getGroupCommitStatistics()
+    {
+        return groupCommitWriter == null ? null : groupCommitWriter.getStatistics();
     }
 
     private TransactionJournalFile determineLogFile(T txId)
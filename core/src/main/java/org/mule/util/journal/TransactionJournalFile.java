@@ -12,6 +12,7 @@ import com.google.common.collect.LinkedHashMultimap;
 import com.google.common.collect.Multimap;
 
 import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.EOFException;
@@ -47,9 +48,11 @@ class TransactionJournalFile<T, K extends JournalEntry<T>>
 
     private final File journalFile;
     private final JournalEntrySerializer<T, K> journalEntrySerializer;
+    private final GroupCommitJournalWriter groupCommitWriter;
 
     private Multimap<T, K> entries = LinkedHashMultimap.create();
 
+    private FileOutputStream logFileStream;
     private DataOutputStream logFileOutputStream;
     private int journalOperations = 0;
 
@@ -58,9 +61,20 @@ class TransactionJournalFile<T, K extends JournalEntry<T>>
      * @param journalEntrySerializer serializer for {@link org.mule.util.journal.JournalEntry}
      */
     public TransactionJournalFile(File journalFile, JournalEntrySerializer journalEntrySerializer)
+    {
+        this(journalFile, journalEntrySerializer, null);
+    }
+
+    /**
+     * @param journalFile journal file to use. Will be created if it doesn't exists. If exists then transaction entries will get loaded from it.
+     * @param journalEntrySerializer serializer for {@link org.mule.util.journal.JournalEntry}
+     * @param groupCommitWriter writer used to write the entries in batches, or null to write each entry as it is logged
+     */
+    public TransactionJournalFile(File journalFile, JournalEntrySerializer journalEntrySerializer, GroupCommitJournalWriter groupCommitWriter)
     {
         this.journalFile = journalFile;
         this.journalEntrySerializer = journalEntrySerializer;
+        this.groupCommitWriter = groupCommitWriter;
         if (journalFile.exists())
         {
             loadAllEntries();
@@ -71,12 +85,58 @@ class TransactionJournalFile<T, K extends JournalEntry<T>>
     /**
      * Adds a journal entry for an operation done over a transactional resource
      * @param journalEntry operation details
+     * @return the sequence of the group commit write for the entry, or -1 if the entry was written directly
      */
-    public synchronized void logOperation(K journalEntry)
+    public synchronized long logOperation(K journalEntry)
     {
         entries.put(journalEntry.getTxId(), journalEntry);
-        journalEntrySerializer.serialize(journalEntry, logFileOutputStream);
         journalOperations++;
+        if (groupCommitWriter != null)
+        {
+            return groupCommitWriter.write(this, journalEntry);
+        }
+        journalEntrySerializer.serialize(journalEntry, logFileOutputStream);
+        return -1;
+    }
+
+    /**
+     * Serializes an entry into the journal file without syncing it.
+     * <p/>
+     * Only invoked from the {@link GroupCommitJournalWriter} thread.
+     */
+    void writeToLog(K journalEntry)
+    {
+        journalEntrySerializer.serialize(journalEntry, logFileOutputStream);
+    }
+
+    /**
+     * Flushes and syncs every entry written so far to the journal file.
+     * <p/>
+     * Only invoked from the {@link GroupCommitJournalWriter} thread.
+     */
+    void syncLog()
+    {
+        try
+        {
+            logFileOutputStream.flush();
+            logFileStream.getChannel().force(false);
+        }
+        catch (IOException e)
+        {
+            throw new MuleRuntimeException(e);
+        }
+    }
+
+    /**
+     * Empties the journal file.
+     * <p/>
+     * Only invoked from the {@link GroupCommitJournalWriter} thread.
+     */
+    void truncateLog()
+    {
+        closeLogStream();
+        FileUtils.deleteQuietly(journalFile);
+        createLogOutputStream();
     }
 
     /**
@@ -109,6 +169,11 @@ class TransactionJournalFile<T, K extends JournalEntry<T>>
      * Will not remove the transaction context.
      */
     public synchronized void close()
+    {
+        closeLogStream();
+    }
+
+    private void closeLogStream()
     {
         try
         {
@@ -153,13 +218,18 @@ class TransactionJournalFile<T, K extends JournalEntry<T>>
 
     /**
      * Remove all the entries from the transaction journal and cleans the transaction journal fle.
+     *
+     * @return the sequence of the group commit truncation of the file, or -1 if the file was truncated directly
      */
-    public synchronized void clear()
+    public synchronized long clear()
     {
-        close();
         entries.clear();
-        FileUtils.deleteQuietly(journalFile);
-        createLogOutputStream();
+        if (groupCommitWriter != null)
+        {
+            return groupCommitWriter.truncate(this);
+        }
+        truncateLog();
+        return -1;
     }
 
     private void createLogOutputStream()
@@ -177,7 +247,15 @@ class TransactionJournalFile<T, K extends JournalEntry<T>>
         }
         try
         {
-            this.logFileOutputStream = new DataOutputStream(new FileOutputStream(journalFile, true));
+            this.logFileStream = new FileOutputStream(journalFile, true);
+            if (groupCommitWriter != null)
+            {
+                this.logFileOutputStream = new DataOutputStream(new BufferedOutputStream(logFileStream));
+            }
+            else
+            {
+                this.logFileOutputStream = new DataOutputStream(logFileStream);
+            }
         }
         catch (FileNotFoundException e)
         {
@@ -6,6 +6,8 @@
  */
 package org.mule.util.journal.queue;
 
+import org.mule.util.journal.GroupCommitJournalWriter;
+import org.mule.util.journal.GroupCommitStatistics;
 import org.mule.util.journal.JournalEntry;
 import org.mule.util.journal.JournalEntrySerializer;
 import org.mule.util.journal.TransactionCompletePredicate;
@@ -35,7 +37,20 @@ public abstract class AbstractQueueTransactionJournal<T, K extends JournalEntry<
 
     public AbstractQueueTransactionJournal(String logFilesDirectory, JournalEntrySerializer journalEntrySerializer)
     {
-        this.logFile = new TransactionJournal(logFilesDirectory, new TransactionCompletePredicate()
+        this.logFile = new TransactionJournal(logFilesDirectory, createTransactionCompletePredicate(), journalEntrySerializer);
+    }
+
+    /**
+     * @param groupCommitWriter writer used to write the journal entries in batches
+     */
+    public AbstractQueueTransactionJournal(String logFilesDirectory, JournalEntrySerializer journalEntrySerializer, GroupCommitJournalWriter groupCommitWriter)
+    {
+        this.logFile = new TransactionJournal(logFilesDirectory, createTransactionCompletePredicate(), journalEntrySerializer, groupCommitWriter);
+    }
+
+    private TransactionCompletePredicate createTransactionCompletePredicate()
+    {
+        return new TransactionCompletePredicate()
         {
             @Override
             public boolean isTransactionComplete(JournalEntry journalEntry)
@@ -43,7 +58,7 @@ public abstract class AbstractQueueTransactionJournal<T, K extends JournalEntry<
                 AbstractQueueTxJournalEntry abstractQueueTxJournalEntry = (AbstractQueueTxJournalEntry) journalEntry;
                 return abstractQueueTxJournalEntry.isCommit() || abstractQueueTxJournalEntry.isRollback();
             }
-        }, journalEntrySerializer);
+        };
     }
 
     public void logAdd(T txId, QueueStore queue, Serializable value)
@@ -131,6 +146,14 @@ public abstract class AbstractQueueTransactionJournal<T, K extends JournalEntry<
         return logFile.getLogEntriesForTx(txId);
     }
 
+    /**
+     * @return statistics of the batches written when group commit is enabled, null otherwise
+     */
+    public GroupCommitStatistics getGroupCommitStatistics()
+    {
+        return logFile.getGroupCommitStatistics();
+    }
+
     protected TransactionJournal<T, K> getJournal()
     {
         return logFile;
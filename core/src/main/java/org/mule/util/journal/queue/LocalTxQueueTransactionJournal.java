@@ -7,6 +7,7 @@
 package org.mule.util.journal.queue;
 
 import org.mule.api.MuleContext;
+import org.mule.util.journal.GroupCommitJournalWriter;
 import org.mule.util.journal.JournalEntry;
 import org.mule.util.journal.JournalEntrySerializer;
 
@@ -26,6 +27,11 @@ public class LocalTxQueueTransactionJournal extends AbstractQueueTransactionJour
         super(logFilesDirectory, createLocalTxQueueJournalEntrySerializer(muleContext));
     }
 
+    public LocalTxQueueTransactionJournal(String logFilesDirectory, final MuleContext muleContext, GroupCommitJournalWriter groupCommitWriter)
+    {
+        super(logFilesDirectory, createLocalTxQueueJournalEntrySerializer(muleContext), groupCommitWriter);
+    }
+
     public static JournalEntrySerializer<Integer, LocalQueueTxJournalEntry> createLocalTxQueueJournalEntrySerializer(final MuleContext muleContext)
     {
         return new JournalEntrySerializer<Integer, LocalQueueTxJournalEntry>(){
@@ -39,7 +45,7 @@ public class LocalTxQueueTransactionJournal extends AbstractQueueTransactionJour
             @Override
             public void serialize(LocalQueueTxJournalEntry journalEntry, DataOutputStream dataOutputStream)
             {
-                journalEntry.write(dataOutputStream);
+                journalEntry.write(dataOutputStream, muleContext.getObjectSerializer());
             }
         };
     }
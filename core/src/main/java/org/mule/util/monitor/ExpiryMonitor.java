@@ -11,9 +11,8 @@ import org.mule.api.lifecycle.Disposable;
 import org.mule.config.i18n.CoreMessages;
 import org.mule.util.concurrent.DaemonThreadFactory;
 
-import java.util.Iterator;
-import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
@@ -24,6 +23,9 @@ import org.apache.commons.logging.LogFactory;
  * <code>ExpiryMonitor</code> can monitor objects beased on an expiry time and can
  * invoke a callback method once the object time has expired. If the object does
  * expire it is removed from this monitor.
+ * <p/>
+ * Objects are kept in a {@link TimingWheel} whose tick is the monitor frequency, so each
+ * run only deals with the objects that actually expire instead of checking all of them.
  */
 public class ExpiryMonitor implements Runnable, Disposable
 {
@@ -34,7 +36,9 @@ public class ExpiryMonitor implements Runnable, Disposable
 
     protected ScheduledThreadPoolExecutor scheduler;
 
-    private Map monitors;
+    private ConcurrentMap<Expirable, TimingWheel.Timeout> monitors;
+
+    private TimingWheel timingWheel;
 
     private int monitorFrequency;
 
@@ -90,7 +94,8 @@ public class ExpiryMonitor implements Runnable, Disposable
             throw new IllegalArgumentException(CoreMessages.propertyHasInvalidValue("monitorFrequency",
                     new Integer(monitorFrequency)).toString());
         }
-        monitors = new ConcurrentHashMap();
+        monitors = new ConcurrentHashMap<Expirable, TimingWheel.Timeout>();
+        timingWheel = new TimingWheel(monitorFrequency, TimeUnit.MILLISECONDS);
         if (scheduler == null)
         {
             this.scheduler = new ScheduledThreadPoolExecutor(1);
@@ -120,7 +125,13 @@ public class ExpiryMonitor implements Runnable, Disposable
             {
                 logger.debug("Adding new expirable: " + expirable);
             }
-            monitors.put(expirable, new ExpirableHolder(timeUnit.toNanos(value), expirable));
+            TimingWheel.Timeout timeout = timingWheel.schedule(expirable, value, timeUnit);
+            if (monitors.putIfAbsent(expirable, timeout) != null)
+            {
+                // registered concurrently
+                timeout.cancel();
+                resetExpirable(expirable);
+            }
         }
     }
 
@@ -135,15 +146,19 @@ public class ExpiryMonitor implements Runnable, Disposable
         {
             logger.debug("Removing expirable: " + expirable);
         }
-        monitors.remove(expirable);
+        TimingWheel.Timeout timeout = monitors.remove(expirable);
+        if (timeout != null)
+        {
+            timeout.cancel();
+        }
     }
 
     public void resetExpirable(Expirable expirable)
     {
-        ExpirableHolder eh = (ExpirableHolder) monitors.get(expirable);
-        if (eh != null)
+        TimingWheel.Timeout timeout = monitors.get(expirable);
+        if (timeout != null)
         {
-            eh.reset();
+            timeout.reset();
             if (logger.isDebugEnabled())
             {
                 logger.debug("Reset expirable: " + expirable);
@@ -156,17 +171,21 @@ public class ExpiryMonitor implements Runnable, Disposable
      */
     public void run()
     {
-        ExpirableHolder holder;
-
         if (!onPollingNodeOnly || muleContext == null || muleContext.isPrimaryPollingInstance())
         {
-            for (Iterator iterator = monitors.values().iterator(); iterator.hasNext();)
+            for (TimingWheel.Timeout timeout : timingWheel.expireTimeouts())
             {
-                holder = (ExpirableHolder) iterator.next();
-                if (holder.isExpired())
+                // it may have been removed concurrently
+                if (monitors.remove(timeout.getExpirable(), timeout))
                 {
-                    removeExpirable(holder.getExpirable());
-                    holder.getExpirable().expired();
+                    try
+                    {
+                        timeout.getExpirable().expired();
+                    }
+                    catch (RuntimeException e)
+                    {
+                        logger.warn("Failure notifying expiration of " + timeout.getExpirable(), e);
+                    }
                 }
             }
         }
@@ -176,14 +195,12 @@ public class ExpiryMonitor implements Runnable, Disposable
     {
         logger.info("disposing monitor");
         scheduler.shutdown();
-        ExpirableHolder holder;
-        for (Iterator iterator = monitors.values().iterator(); iterator.hasNext();)
+        for (Expirable expirable : monitors.keySet())
         {
-            holder = (ExpirableHolder) iterator.next();
-            removeExpirable(holder.getExpirable());
+            removeExpirable(expirable);
             try
             {
-                holder.getExpirable().expired();
+                expirable.expired();
             }
             catch (Exception e)
             {
@@ -191,40 +208,6 @@ public class ExpiryMonitor implements Runnable, Disposable
                 logger.debug(e.getMessage());
             }
         }
-    }
-
-    private static class ExpirableHolder
-    {
-
-        private long nanoseconds;
-        private Expirable expirable;
-        private long created;
-
-        public ExpirableHolder(long nanoseconds, Expirable expirable)
-        {
-            this.nanoseconds = nanoseconds;
-            this.expirable = expirable;
-            created = System.nanoTime();
-        }
-
-        public long getNanoSeconds()
-        {
-            return nanoseconds;
-        }
-
-        public Expirable getExpirable()
-        {
-            return expirable;
-        }
-
-        public boolean isExpired()
-        {
-            return (System.nanoTime() - nanoseconds) > created;
-        }
-
-        public void reset()
-        {
-            created = System.nanoTime();
-        }
+        timingWheel.clear();
     }
 }
@@ -0,0 +1,335 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.util.monitor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hierarchical timing wheel that keeps track of {@link Expirable}s to expire after a delay.
+ * <p/>
+ * Time is divided in ticks of a fixed duration, and the wheel is made of several levels of
+ * {@value #SLOTS} slots each: the first level holds the timeouts expiring in the next
+ * {@value #SLOTS} ticks, the second one the timeouts expiring in the following
+ * {@value #SLOTS}<sup>2</sup> ticks, and so on. Scheduling and cancelling a timeout are
+ * constant time operations, and advancing the wheel only touches the timeouts in the slot of
+ * the current tick, plus the ones cascaded from an upper level slot to the lower levels once
+ * every {@value #SLOTS} ticks.
+ * <p/>
+ * The wheel does not have a thread of its own, its owner is expected to call
+ * {@link #expireTimeouts()} at least once per tick and notify the returned timeouts. Timeouts
+ * can be scheduled, cancelled and reset from any thread.
+ */
+public class TimingWheel
+{
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+    private static final long MAX_TICKS = (1L << (SLOT_BITS * LEVELS)) - 1;
+
+    private final long tickNanos;
+    private final long startTime;
+    private final Timeout[][] wheel = new Timeout[LEVELS][SLOTS];
+    private final Object lock = new Object();
+
+    // @GuardedBy lock
+    private long currentTick;
+    // @GuardedBy lock
+    private int size;
+
+    /**
+     * @param tickDuration granularity of the wheel, timeouts expire up to one tick after their
+     *        delay elapses
+     * @param timeUnit time unit of the tick duration
+     */
+    public TimingWheel(long tickDuration, TimeUnit timeUnit)
+    {
+        if (tickDuration <= 0)
+        {
+            throw new IllegalArgumentException("Tick duration must be positive: " + tickDuration);
+        }
+        this.tickNanos = timeUnit.toNanos(tickDuration);
+        this.startTime = System.nanoTime();
+    }
+
+    /**
+     * Schedules an expirable to expire once the given delay elapses.
+     *
+     * @return the timeout that can be used to cancel or reset the expiration
+     */
+    public Timeout schedule(Expirable expirable, long delay, TimeUnit timeUnit)
+    {
+        Timeout timeout = new Timeout(expirable, Math.max(0, timeUnit.toNanos(delay)));
+        synchronized (lock)
+        {
+            add(timeout);
+            size++;
+        }
+        return timeout;
+    }
+
+    /**
+     * Advances the wheel up to the current time, removing the timeouts whose delay elapsed.
+     *
+     * @return the expired timeouts, in no particular order
+     */
+    public List<Timeout> expireTimeouts()
+    {
+        List<Timeout> expired = null;
+        long now = System.nanoTime();
+        synchronized (lock)
+        {
+            while (now - startTime >= currentTick * tickNanos)
+            {
+                int slot = (int) (currentTick & SLOT_MASK);
+                if (slot == 0)
+                {
+                    cascade();
+                }
+                long tickTime = startTime + currentTick * tickNanos;
+                Timeout timeout = detachSlot(0, slot);
+                while (timeout != null)
+                {
+                    Timeout next = timeout.next;
+                    timeout.next = null;
+                    timeout.prev = null;
+                    if (timeout.deadline - tickTime > 0)
+                    {
+                        // it was reset after being scheduled
+                        add(timeout);
+                    }
+                    else
+                    {
+                        timeout.expired = true;
+                        size--;
+                        if (expired == null)
+                        {
+                            expired = new ArrayList<Timeout>();
+                        }
+                        expired.add(timeout);
+                    }
+                    timeout = next;
+                }
+                currentTick++;
+            }
+        }
+        return expired == null ? Collections.<Timeout>emptyList() : expired;
+    }
+
+    /**
+     * Removes every scheduled timeout without expiring them.
+     */
+    public void clear()
+    {
+        synchronized (lock)
+        {
+            for (int level = 0; level < LEVELS; level++)
+            {
+                for (int slot = 0; slot < SLOTS; slot++)
+                {
+                    Timeout timeout = detachSlot(level, slot);
+                    while (timeout != null)
+                    {
+                        Timeout next = timeout.next;
+                        timeout.next = null;
+                        timeout.prev = null;
+                        timeout.cancelled = true;
+                        timeout = next;
+                    }
+                }
+            }
+            size = 0;
+        }
+    }
+
+    /**
+     * @return number of scheduled timeouts that did not expire yet
+     */
+    public int size()
+    {
+        synchronized (lock)
+        {
+            return size;
+        }
+    }
+
+    // @GuardedBy lock
+    private void add(Timeout timeout)
+    {
+        long elapsed = timeout.deadline - startTime;
+        long expirationTick = elapsed <= 0 ? 0 : (elapsed + tickNanos - 1) / tickNanos;
+        long delta = expirationTick - currentTick;
+        int level;
+        if (delta < 0)
+        {
+            expirationTick = currentTick;
+            level = 0;
+        }
+        else
+        {
+            if (delta > MAX_TICKS)
+            {
+                // it will be cascaded and placed again once the wheel gets closer to its deadline
+                expirationTick = currentTick + MAX_TICKS;
+                delta = MAX_TICKS;
+            }
+            level = 0;
+            while (delta >= SLOTS && level < LEVELS - 1)
+            {
+                delta >>>= SLOT_BITS;
+                level++;
+            }
+        }
+        int slot = (int) ((expirationTick >>> (level * SLOT_BITS)) & SLOT_MASK);
+        timeout.level = level;
+        timeout.slot = slot;
+        timeout.next = wheel[level][slot];
+        if (timeout.next != null)
+        {
+            timeout.next.prev = timeout;
+        }
+        wheel[level][slot] = timeout;
+    }
+
+    // @GuardedBy lock
+    private void cascade()
+    {
+        for (int level = 1; level < LEVELS; level++)
+        {
+            int slot = (int) ((currentTick >>> (level * SLOT_BITS)) & SLOT_MASK);
+            Timeout timeout = detachSlot(level, slot);
+            while (timeout != null)
+            {
+                Timeout next = timeout.next;
+                timeout.next = null;
+                timeout.prev = null;
+                add(timeout);
+                timeout = next;
+            }
+            if (slot != 0)
+            {
+                return;
+            }
+        }
+    }
+
+    // @GuardedBy lock
+    private Timeout detachSlot(int level, int slot)
+    {
+        Timeout head = wheel[level][slot];
+        wheel[level][slot] = null;
+        return head;
+    }
+
+    // @GuardedBy lock
+    private void unlink(Timeout timeout)
+    {
+        if (timeout.prev == null)
+        {
+            if (wheel[timeout.level][timeout.slot] == timeout)
+            {
+                wheel[timeout.level][timeout.slot] = timeout.next;
+            }
+        }
+        else
+        {
+            timeout.prev.next = timeout.next;
+        }
+        if (timeout.next != null)
+        {
+            timeout.next.prev = timeout.prev;
+        }
+        timeout.next = null;
+        timeout.prev = null;
+    }
+
+    /**
+     * Handle to an {@link Expirable} scheduled in a {@link TimingWheel}.
+     */
+    public final class Timeout
+    {
+
+        private final Expirable expirable;
+        private final long delayNanos;
+        private volatile long deadline;
+
+        // @GuardedBy lock
+        private boolean expired;
+        // @GuardedBy lock
+        private boolean cancelled;
+        // @GuardedBy lock
+        private int level;
+        // @GuardedBy lock
+        private int slot;
+        // @GuardedBy lock
+        private Timeout next;
+        // @GuardedBy lock
+        private Timeout prev;
+
+        private Timeout(Expirable expirable, long delayNanos)
+        {
+            this.expirable = expirable;
+            this.delayNanos = delayNanos;
+            this.deadline = System.nanoTime() + delayNanos;
+        }
+
+        public Expirable getExpirable()
+        {
+            return expirable;
+        }
+
+        /**
+         * Restarts the delay of this timeout from the current time. The timeout is moved to its
+         * new slot once the wheel reaches the previous one, so resetting it is a constant time
+         * operation.
+         */
+        public void reset()
+        {
+            deadline = System.nanoTime() + delayNanos;
+        }
+
+        /**
+         * Cancels this timeout so it does not expire.
+         *
+         * @return true if the timeout was cancelled, false if it already expired or was cancelled
+         */
+        public boolean cancel()
+        {
+            synchronized (lock)
+            {
+                if (expired || cancelled)
+                {
+                    return false;
+                }
+                cancelled = true;
+                unlink(this);
+                size--;
+                return true;
+            }
+        }
+
+        public boolean isExpired()
+        {
+            synchronized (lock)
+            {
+                return expired;
+            }
+        }
+
+        public boolean isCancelled()
+        {
+            synchronized (lock)
+            {
+                return cancelled;
+            }
+        }
+    }
+}
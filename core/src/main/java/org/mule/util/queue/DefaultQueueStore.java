@@ -46,7 +46,11 @@ public class DefaultQueueStore implements RecoverableQueueStore
         {
             this.config = new DefaultQueueConfiguration();
         }
-        if (this.config.isPersistent())
+        if (this.config instanceof MappedSegmentQueueConfiguration)
+        {
+            delegate = new MappedSegmentQueueStoreDelegate(this.name, muleContext.getConfiguration().getWorkingDirectory(), muleContext, (MappedSegmentQueueConfiguration) this.config);
+        }
+        else if (this.config.isPersistent())
         {
             delegate = new DualRandomAccessFileQueueStoreDelegate(this.name, muleContext.getConfiguration().getWorkingDirectory(), muleContext, this.config.getCapacity());
         }
@@ -0,0 +1,298 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.util.queue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Fixed size, memory mapped segment of an append-only queue log.
+ * <p/>
+ * A segment starts with a header holding its sequence number (0 when the segment is free and
+ * may be recycled) followed by entries laid out as <code>[status][length][data]</code>. A zero
+ * status byte marks the end of the written data, so the status of a new entry is written only
+ * after its length and data, leaving a partially written entry invisible after a crash.
+ * <p/>
+ * The mapping is released when the segment is closed, so the segment must not be used after that.
+ */
+class MappedQueueSegment
+{
+
+    static final int HEADER_SIZE = 8;
+    static final int ENTRY_CONTROL_DATA_SIZE = 5;
+
+    static final byte END = 0;
+    static final byte LIVE = 1;
+    static final byte PRIORITY = 2;
+    static final byte REMOVED = 3;
+
+    private static final long FREE_SEQUENCE = 0;
+
+    private static final Log staticLogger = LogFactory.getLog(MappedQueueSegment.class);
+
+    private final Log logger = LogFactory.getLog(this.getClass());
+    private final File file;
+    private final RandomAccessFile randomAccessFile;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private long sequence;
+    private int writePosition = HEADER_SIZE;
+    private int pendingPriorityEntries;
+    private boolean dirty;
+    private boolean closed;
+
+    private MappedQueueSegment(File file, int capacity) throws IOException
+    {
+        this.file = file;
+        this.capacity = capacity;
+        this.randomAccessFile = new RandomAccessFile(file, "rw");
+        if (randomAccessFile.length() != capacity)
+        {
+            randomAccessFile.setLength(capacity);
+        }
+        this.buffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        this.sequence = buffer.getLong(0);
+    }
+
+    /**
+     * Opens an existing segment file, scanning it to find where its written data ends.
+     */
+    static MappedQueueSegment open(File file) throws IOException
+    {
+        MappedQueueSegment segment = new MappedQueueSegment(file, (int) file.length());
+        if (!segment.isFree())
+        {
+            int position = HEADER_SIZE;
+            while (segment.hasEntryAt(position))
+            {
+                position = segment.nextEntryPosition(position);
+            }
+            segment.writePosition = position;
+        }
+        return segment;
+    }
+
+    /**
+     * Creates a new segment file of the given capacity, assigning it the given sequence.
+     */
+    static MappedQueueSegment create(File file, int capacity, long sequence) throws IOException
+    {
+        MappedQueueSegment segment = new MappedQueueSegment(file, capacity);
+        segment.assign(sequence);
+        return segment;
+    }
+
+    /**
+     * Resets a free or consumed segment so it can be reused with a new sequence.
+     */
+    void assign(long sequence)
+    {
+        this.sequence = sequence;
+        this.writePosition = HEADER_SIZE;
+        this.pendingPriorityEntries = 0;
+        buffer.put(HEADER_SIZE, END);
+        buffer.putLong(0, sequence);
+        dirty = true;
+    }
+
+    /**
+     * Marks the segment as free so it is ignored when the queue is recovered.
+     */
+    void free()
+    {
+        assign(FREE_SEQUENCE);
+    }
+
+    boolean isFree()
+    {
+        return sequence == FREE_SEQUENCE;
+    }
+
+    long getSequence()
+    {
+        return sequence;
+    }
+
+    int getCapacity()
+    {
+        return capacity;
+    }
+
+    File getFile()
+    {
+        return file;
+    }
+
+    /**
+     * @return true if an entry of the given size fits in the segment, leaving room for the end mark.
+     */
+    boolean fits(int dataLength)
+    {
+        return writePosition + ENTRY_CONTROL_DATA_SIZE + dataLength < capacity;
+    }
+
+    /**
+     * Appends an entry at the end of the segment.
+     *
+     * @return the position of the entry within the segment
+     */
+    int append(byte[] data, byte status)
+    {
+        int position = writePosition;
+        int next = position + ENTRY_CONTROL_DATA_SIZE + data.length;
+        buffer.putInt(position + 1, data.length);
+        ByteBuffer target = buffer.duplicate();
+        target.position(position + ENTRY_CONTROL_DATA_SIZE);
+        target.put(data);
+        buffer.put(next, END);
+        buffer.put(position, status);
+        writePosition = next;
+        dirty = true;
+        return position;
+    }
+
+    boolean hasEntryAt(int position)
+    {
+        return position < capacity && buffer.get(position) != END;
+    }
+
+    byte statusAt(int position)
+    {
+        return buffer.get(position);
+    }
+
+    void markStatus(int position, byte status)
+    {
+        buffer.put(position, status);
+        dirty = true;
+    }
+
+    int nextEntryPosition(int position)
+    {
+        return position + ENTRY_CONTROL_DATA_SIZE + buffer.getInt(position + 1);
+    }
+
+    byte[] readData(int position)
+    {
+        byte[] data = new byte[buffer.getInt(position + 1)];
+        ByteBuffer source = buffer.duplicate();
+        source.position(position + ENTRY_CONTROL_DATA_SIZE);
+        source.get(data);
+        return data;
+    }
+
+    int getWritePosition()
+    {
+        return writePosition;
+    }
+
+    int getPendingPriorityEntries()
+    {
+        return pendingPriorityEntries;
+    }
+
+    void incrementPendingPriorityEntries()
+    {
+        pendingPriorityEntries++;
+    }
+
+    void decrementPendingPriorityEntries()
+    {
+        pendingPriorityEntries--;
+    }
+
+    /**
+     * Flushes the mapped content to the storage device if it changed since the last sync.
+     */
+    void sync()
+    {
+        if (dirty)
+        {
+            buffer.force();
+            dirty = false;
+        }
+    }
+
+    void close()
+    {
+        if (closed)
+        {
+            return;
+        }
+        closed = true;
+        try
+        {
+            sync();
+            unmap(buffer);
+            randomAccessFile.close();
+        }
+        catch (IOException e)
+        {
+            logger.warn(e.getMessage());
+            if (logger.isDebugEnabled())
+            {
+                logger.debug(e);
+            }
+        }
+    }
+
+    void delete()
+    {
+        close();
+        if (!file.delete() && logger.isDebugEnabled())
+        {
+            logger.debug("Could not delete queue segment file " + file.getAbsolutePath());
+        }
+    }
+
+    /**
+     * Releases the mapping of a buffer right away instead of waiting for it to be garbage
+     * collected, which keeps the file open, and prevents deleting it on Windows, until then.
+     * The buffer must not be accessed after this.
+     */
+    static void unmap(MappedByteBuffer buffer)
+    {
+        try
+        {
+            try
+            {
+                // Java 9 and later
+                Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+                Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+                Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+                theUnsafe.setAccessible(true);
+                invokeCleaner.invoke(theUnsafe.get(null), buffer);
+            }
+            catch (NoSuchMethodException e)
+            {
+                Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+                cleanerMethod.setAccessible(true);
+                Object cleaner = cleanerMethod.invoke(buffer);
+                if (cleaner != null)
+                {
+                    cleaner.getClass().getMethod("clean").invoke(cleaner);
+                }
+            }
+        }
+        catch (Exception e)
+        {
+            if (staticLogger.isDebugEnabled())
+            {
+                staticLogger.debug("Could not unmap queue file, it will be released when garbage collected", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.util.queue;
+
+/**
+ * Configuration for persistent queues stored by {@link MappedSegmentQueueStoreDelegate}.
+ * <p/>
+ * Using this configuration for a queue selects the memory mapped segmented log storage instead
+ * of the default {@link DualRandomAccessFileQueueStoreDelegate}.
+ */
+public class MappedSegmentQueueConfiguration extends DefaultQueueConfiguration
+{
+
+    public static final int DEFAULT_SEGMENT_SIZE = Integer.getInteger("mule.queue.segmentSize", 4 * 1024 * 1024);
+    public static final int DEFAULT_SYNC_BATCH_SIZE = 0;
+    public static final long DEFAULT_SYNC_INTERVAL = 0;
+    public static final int DEFAULT_MAX_FREE_SEGMENTS = 2;
+
+    private final int segmentSize;
+    private final int syncBatchSize;
+    private final long syncInterval;
+    private final int maxFreeSegments;
+
+    public MappedSegmentQueueConfiguration(int capacity)
+    {
+        this(capacity, DEFAULT_SEGMENT_SIZE, DEFAULT_SYNC_BATCH_SIZE, DEFAULT_SYNC_INTERVAL, DEFAULT_MAX_FREE_SEGMENTS);
+    }
+
+    /**
+     * @param capacity maximum number of elements in the queue, 0 for unbounded
+     * @param segmentSize size in bytes of each segment file
+     * @param syncBatchSize number of writes after which segments are forced to disk, 0 to never
+     *        force based on the number of writes
+     * @param syncInterval milliseconds after which pending writes are forced to disk on the next
+     *        write, 0 to never force based on time
+     * @param maxFreeSegments number of consumed segment files kept for reuse instead of being deleted
+     */
+    public MappedSegmentQueueConfiguration(int capacity, int segmentSize, int syncBatchSize, long syncInterval, int maxFreeSegments)
+    {
+        super(capacity, true);
+        this.segmentSize = segmentSize;
+        this.syncBatchSize = syncBatchSize;
+        this.syncInterval = syncInterval;
+        this.maxFreeSegments = maxFreeSegments;
+    }
+
+    public int getSegmentSize()
+    {
+        return segmentSize;
+    }
+
+    public int getSyncBatchSize()
+    {
+        return syncBatchSize;
+    }
+
+    public long getSyncInterval()
+    {
+        return syncInterval;
+    }
+
+    public int getMaxFreeSegments()
+    {
+        return maxFreeSegments;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("MappedSegmentQueueConfiguration{" +
+               "capacity=%s, segmentSize=%s, syncBatchSize=%s, syncInterval=%s, maxFreeSegments=%s}",
+               getCapacity(), segmentSize, syncBatchSize, syncInterval, maxFreeSegments);
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (!super.equals(obj))
+        {
+            return false;
+        }
+        MappedSegmentQueueConfiguration other = (MappedSegmentQueueConfiguration) obj;
+        return segmentSize == other.segmentSize && syncBatchSize == other.syncBatchSize
+               && syncInterval == other.syncInterval && maxFreeSegments == other.maxFreeSegments;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return 31 * getCapacity() + segmentSize;
+    }
+}
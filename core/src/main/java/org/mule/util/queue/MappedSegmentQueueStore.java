@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.util.queue;
+
+import org.mule.util.store.QueuePersistenceObjectStore;
+import org.mule.util.store.QueueStoreAdapter;
+
+import java.io.Serializable;
+
+/**
+ * Persistent queue store that makes the queues of a queue profile use the memory mapped
+ * segmented log of {@link MappedSegmentQueueStoreDelegate}, configured from the
+ * <code>mapped-segment-queue-store</code> element:
+ * <pre>
+ * &lt;queue-profile maxOutstandingMessages="1000"&gt;
+ *     &lt;mapped-segment-queue-store segmentSize="8388608" syncBatchSize="100"/&gt;
+ * &lt;/queue-profile&gt;
+ * </pre>
+ * When the legacy queue manager is enabled, elements are stored in a
+ * {@link QueuePersistenceObjectStore} as with the default persistent queue store.
+ */
+public class MappedSegmentQueueStore extends QueueStoreAdapter<Serializable>
+{
+
+    private int segmentSize = MappedSegmentQueueConfiguration.DEFAULT_SEGMENT_SIZE;
+    private int syncBatchSize = MappedSegmentQueueConfiguration.DEFAULT_SYNC_BATCH_SIZE;
+    private long syncInterval = MappedSegmentQueueConfiguration.DEFAULT_SYNC_INTERVAL;
+    private int maxFreeSegments = MappedSegmentQueueConfiguration.DEFAULT_MAX_FREE_SEGMENTS;
+
+    public MappedSegmentQueueStore()
+    {
+        super(new QueuePersistenceObjectStore<Serializable>());
+    }
+
+    /**
+     * @param capacity maximum number of elements in the queue, 0 for unbounded
+     * @return the configuration for a queue stored with the settings of this store
+     */
+    public MappedSegmentQueueConfiguration toQueueConfiguration(int capacity)
+    {
+        return new MappedSegmentQueueConfiguration(capacity, segmentSize, syncBatchSize, syncInterval, maxFreeSegments);
+    }
+
+    public int getSegmentSize()
+    {
+        return segmentSize;
+    }
+
+    public void setSegmentSize(int segmentSize)
+    {
+        this.segmentSize = segmentSize;
+    }
+
+    public int getSyncBatchSize()
+    {
+        return syncBatchSize;
+    }
+
+    public void setSyncBatchSize(int syncBatchSize)
+    {
+        this.syncBatchSize = syncBatchSize;
+    }
+
+    public long getSyncInterval()
+    {
+        return syncInterval;
+    }
+
+    public void setSyncInterval(long syncInterval)
+    {
+        this.syncInterval = syncInterval;
+    }
+
+    public int getMaxFreeSegments()
+    {
+        return maxFreeSegments;
+    }
+
+    public void setMaxFreeSegments(int maxFreeSegments)
+    {
+        this.maxFreeSegments = maxFreeSegments;
+    }
+}
@@ -0,0 +1,609 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.util.queue;
+
+import org.mule.api.MuleContext;
+import org.mule.api.MuleRuntimeException;
+import org.mule.util.FileUtils;
+import org.mule.util.Preconditions;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.io.UnsupportedEncodingException;
+import java.math.BigInteger;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * {@link TransactionalQueueStoreDelegate} implementation storing the queue data in an append-only
+ * log split across fixed size, memory mapped segment files.
+ * <p/>
+ * Elements are appended to the last segment and consumed from a head cursor that is kept in a
+ * small memory mapped index file, so neither the position of each element nor the elements
+ * themselves are held on heap, and reads and writes do not require a system call. Once the head
+ * cursor moves past a segment the segment is either kept for reuse or deleted.
+ * <p/>
+ * Elements returned to the queue through {@link #untake(java.io.Serializable)} are appended to the
+ * log flagged as priority entries, and only their positions are kept in memory until consumed.
+ * <p/>
+ * Mapped content survives a crash of the JVM. Forcing it to the storage device, which is only
+ * needed to survive an operating system failure, is done in batches according to the
+ * {@link MappedSegmentQueueConfiguration}.
+ */
+public class MappedSegmentQueueStoreDelegate extends AbstractQueueStoreDelegate implements TransactionalQueueStoreDelegate
+{
+
+    private static final String QUEUE_STORE_DIRECTORY = "queuestore";
+    private static final String SEGMENTS_DIRECTORY_SUFFIX = "-segments";
+    private static final String SEGMENT_FILE_PREFIX = "segment-";
+    private static final String SEGMENT_FILE_SUFFIX = ".dat";
+    private static final String INDEX_FILE_NAME = "queue.idx";
+    private static final int INDEX_FILE_SIZE = 12;
+    private static final int MAX_DIRECTORY_NAME_LENGTH = 200;
+
+    protected final Log logger = LogFactory.getLog(this.getClass());
+    private final MuleContext muleContext;
+    private final File segmentsDirectory;
+    private final int segmentSize;
+    private final int syncBatchSize;
+    private final long syncInterval;
+    private final int maxFreeSegments;
+
+    private final List<MappedQueueSegment> segments = new ArrayList<MappedQueueSegment>();
+    private final LinkedList<MappedQueueSegment> freeSegments = new LinkedList<MappedQueueSegment>();
+    private final LinkedList<EntryPosition> priorityEntries = new LinkedList<EntryPosition>();
+    private RandomAccessFile indexFile;
+    private MappedByteBuffer index;
+    private MappedQueueSegment headSegment;
+    private int headPosition;
+    private int size;
+    private int nextSegmentFileId;
+    private int writesSinceSync;
+    private long lastSync = System.currentTimeMillis();
+    private boolean closed;
+
+    public MappedSegmentQueueStoreDelegate(String queueName, String workingDirectory, MuleContext muleContext, MappedSegmentQueueConfiguration configuration)
+    {
+        super(configuration.getCapacity());
+        this.muleContext = muleContext;
+        this.segmentSize = configuration.getSegmentSize();
+        this.syncBatchSize = configuration.getSyncBatchSize();
+        this.syncInterval = configuration.getSyncInterval();
+        this.maxFreeSegments = configuration.getMaxFreeSegments();
+        this.segmentsDirectory = getSegmentsDirectory(queueName, workingDirectory);
+        if (!segmentsDirectory.exists())
+        {
+            Preconditions.checkState(segmentsDirectory.mkdirs(), "Could not create queue store directory " + segmentsDirectory.getAbsolutePath());
+        }
+        try
+        {
+            openIndex();
+            recover();
+        }
+        catch (IOException e)
+        {
+            throw new MuleRuntimeException(e);
+        }
+        if (logger.isDebugEnabled())
+        {
+            logger.debug(String.format("Queue %s has %s messages", queueName, size));
+        }
+    }
+
+    static File getSegmentsDirectory(String queueName, String workingDirectory)
+    {
+        return new File(workingDirectory + File.separator + QUEUE_STORE_DIRECTORY, toDirectoryName(queueName) + SEGMENTS_DIRECTORY_SUFFIX);
+    }
+
+    private static String toDirectoryName(String queueName)
+    {
+        String name = queueName.matches("[\\w.\\-]+") ? queueName : toHex(queueName);
+        if (name.length() > MAX_DIRECTORY_NAME_LENGTH)
+        {
+            name = name.substring(0, MAX_DIRECTORY_NAME_LENGTH) + "-" + Integer.toHexString(queueName.hashCode());
+        }
+        return name;
+    }
+
+    private static String toHex(String name)
+    {
+        try
+        {
+            return new BigInteger(1, name.getBytes("UTF-8")).toString(16);
+        }
+        catch (UnsupportedEncodingException e)
+        {
+            // This should never happen
+            return name;
+        }
+    }
+
+    private void openIndex() throws IOException
+    {
+        indexFile = new RandomAccessFile(new File(segmentsDirectory, INDEX_FILE_NAME), "rw");
+        if (indexFile.length() != INDEX_FILE_SIZE)
+        {
+            indexFile.setLength(INDEX_FILE_SIZE);
+        }
+        index = indexFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, INDEX_FILE_SIZE);
+    }
+
+    private void recover() throws IOException
+    {
+        File[] files = segmentsDirectory.listFiles(new FilenameFilter()
+        {
+            @Override
+            public boolean accept(File dir, String name)
+            {
+                return name.startsWith(SEGMENT_FILE_PREFIX) && name.endsWith(SEGMENT_FILE_SUFFIX);
+            }
+        });
+        for (File file : files)
+        {
+            String id = file.getName().substring(SEGMENT_FILE_PREFIX.length(), file.getName().length() - SEGMENT_FILE_SUFFIX.length());
+            nextSegmentFileId = Math.max(nextSegmentFileId, Integer.parseInt(id) + 1);
+            MappedQueueSegment segment = MappedQueueSegment.open(file);
+            if (segment.isFree())
+            {
+                releaseSegment(segment);
+            }
+            else
+            {
+                segments.add(segment);
+            }
+        }
+        Collections.sort(segments, new Comparator<MappedQueueSegment>()
+        {
+            @Override
+            public int compare(MappedQueueSegment s1, MappedQueueSegment s2)
+            {
+                return Long.valueOf(s1.getSequence()).compareTo(s2.getSequence());
+            }
+        });
+
+        if (segments.isEmpty())
+        {
+            headSegment = newSegment(segmentSize, 1);
+            headPosition = MappedQueueSegment.HEADER_SIZE;
+            updateIndex();
+            return;
+        }
+
+        long headSequence = index.getLong(0);
+        headSegment = null;
+        for (MappedQueueSegment segment : segments)
+        {
+            if (headSegment == null && segment.getSequence() >= headSequence)
+            {
+                headSegment = segment;
+                headPosition = segment.getSequence() == headSequence ? index.getInt(8) : MappedQueueSegment.HEADER_SIZE;
+            }
+            scanSegment(segment);
+        }
+        if (headSegment == null)
+        {
+            headSegment = getTail();
+            headPosition = headSegment.getWritePosition();
+        }
+        updateIndex();
+        releaseConsumedSegments();
+    }
+
+    private void scanSegment(MappedQueueSegment segment)
+    {
+        boolean consumed = headSegment == null || segment == headSegment;
+        int position = MappedQueueSegment.HEADER_SIZE;
+        while (segment.hasEntryAt(position))
+        {
+            if (segment == headSegment && position >= headPosition)
+            {
+                consumed = false;
+            }
+            byte status = segment.statusAt(position);
+            if (status == MappedQueueSegment.PRIORITY)
+            {
+                priorityEntries.addFirst(new EntryPosition(segment, position));
+                segment.incrementPendingPriorityEntries();
+                size++;
+            }
+            else if (status == MappedQueueSegment.LIVE && !consumed)
+            {
+                size++;
+            }
+            position = segment.nextEntryPosition(position);
+        }
+    }
+
+    @Override
+    protected void add(Serializable item)
+    {
+        checkOpen();
+        append(muleContext.getObjectSerializer().serialize(item), MappedQueueSegment.LIVE);
+        size++;
+    }
+
+    @Override
+    protected void addFirst(Serializable item) throws InterruptedException
+    {
+        checkOpen();
+        EntryPosition entry = append(muleContext.getObjectSerializer().serialize(item), MappedQueueSegment.PRIORITY);
+        entry.segment.incrementPendingPriorityEntries();
+        priorityEntries.addFirst(entry);
+        size++;
+    }
+
+    @Override
+    protected boolean doAddAll(Collection<? extends Serializable> items)
+    {
+        for (Serializable item : items)
+        {
+            add(item);
+        }
+        return true;
+    }
+
+    @Override
+    protected Serializable getFirst() throws InterruptedException
+    {
+        checkOpen();
+        if (!priorityEntries.isEmpty())
+        {
+            return deserialize(priorityEntries.getFirst().read());
+        }
+        return locateHead() ? deserialize(headSegment.readData(headPosition)) : null;
+    }
+
+    @Override
+    protected Serializable removeFirst() throws InterruptedException
+    {
+        checkOpen();
+        byte[] data;
+        if (!priorityEntries.isEmpty())
+        {
+            EntryPosition entry = priorityEntries.removeFirst();
+            data = entry.read();
+            removePriorityEntry(entry);
+        }
+        else if (locateHead())
+        {
+            data = headSegment.readData(headPosition);
+            headPosition = headSegment.nextEntryPosition(headPosition);
+            updateIndex();
+        }
+        else
+        {
+            return null;
+        }
+        size--;
+        writesSinceSync++;
+        syncIfRequired();
+        return deserialize(data);
+    }
+
+    /**
+     * Moves the head cursor over removed and priority entries and over exhausted segments.
+     *
+     * @return true if the cursor points to a live entry, false if there are none left
+     */
+    private boolean locateHead()
+    {
+        while (true)
+        {
+            if (headSegment.hasEntryAt(headPosition))
+            {
+                if (headSegment.statusAt(headPosition) == MappedQueueSegment.LIVE)
+                {
+                    return true;
+                }
+                headPosition = headSegment.nextEntryPosition(headPosition);
+            }
+            else if (headSegment == getTail())
+            {
+                updateIndex();
+                return false;
+            }
+            else
+            {
+                headSegment = segments.get(segments.indexOf(headSegment) + 1);
+                headPosition = MappedQueueSegment.HEADER_SIZE;
+                updateIndex();
+                releaseConsumedSegments();
+            }
+        }
+    }
+
+    private void removePriorityEntry(EntryPosition entry)
+    {
+        entry.segment.markStatus(entry.position, MappedQueueSegment.REMOVED);
+        entry.segment.decrementPendingPriorityEntries();
+        releaseConsumedSegments();
+    }
+
+    private EntryPosition append(byte[] data, byte status)
+    {
+        MappedQueueSegment tail = getTail();
+        if (!tail.fits(data.length))
+        {
+            int requiredSize = MappedQueueSegment.HEADER_SIZE + MappedQueueSegment.ENTRY_CONTROL_DATA_SIZE + data.length + 1;
+            tail = newSegment(Math.max(segmentSize, requiredSize), tail.getSequence() + 1);
+        }
+        EntryPosition entry = new EntryPosition(tail, tail.append(data, status));
+        writesSinceSync++;
+        syncIfRequired();
+        return entry;
+    }
+
+    private MappedQueueSegment getTail()
+    {
+        return segments.get(segments.size() - 1);
+    }
+
+    private MappedQueueSegment newSegment(int capacity, long sequence)
+    {
+        MappedQueueSegment segment;
+        if (capacity == segmentSize && !freeSegments.isEmpty())
+        {
+            segment = freeSegments.removeFirst();
+            segment.assign(sequence);
+        }
+        else
+        {
+            File file = new File(segmentsDirectory, SEGMENT_FILE_PREFIX + nextSegmentFileId++ + SEGMENT_FILE_SUFFIX);
+            try
+            {
+                segment = MappedQueueSegment.create(file, capacity, sequence);
+            }
+            catch (IOException e)
+            {
+                throw new MuleRuntimeException(e);
+            }
+        }
+        segments.add(segment);
+        return segment;
+    }
+
+    /**
+     * Releases every segment behind the head cursor that holds no pending priority entries.
+     */
+    private void releaseConsumedSegments()
+    {
+        Iterator<MappedQueueSegment> iterator = segments.iterator();
+        while (iterator.hasNext())
+        {
+            MappedQueueSegment segment = iterator.next();
+            if (segment == headSegment)
+            {
+                return;
+            }
+            if (segment.getPendingPriorityEntries() == 0)
+            {
+                iterator.remove();
+                releaseSegment(segment);
+            }
+        }
+    }
+
+    private void releaseSegment(MappedQueueSegment segment)
+    {
+        if (segment.getCapacity() == segmentSize && freeSegments.size() < maxFreeSegments)
+        {
+            segment.free();
+            freeSegments.add(segment);
+        }
+        else
+        {
+            segment.delete();
+        }
+    }
+
+    private void updateIndex()
+    {
+        index.putLong(0, headSegment.getSequence());
+        index.putInt(8, headPosition);
+    }
+
+    private void syncIfRequired()
+    {
+        boolean batchFull = syncBatchSize > 0 && writesSinceSync >= syncBatchSize;
+        boolean intervalElapsed = syncInterval > 0 && writesSinceSync > 0 && System.currentTimeMillis() - lastSync >= syncInterval;
+        if (batchFull || intervalElapsed)
+        {
+            sync();
+        }
+    }
+
+    private void sync()
+    {
+        for (MappedQueueSegment segment : segments)
+        {
+            segment.sync();
+        }
+        index.force();
+        writesSinceSync = 0;
+        lastSync = System.currentTimeMillis();
+    }
+
+    @Override
+    protected int size()
+    {
+        return size;
+    }
+
+    @Override
+    protected boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    @Override
+    protected void doClear()
+    {
+        checkOpen();
+        for (MappedQueueSegment segment : segments)
+        {
+            releaseSegment(segment);
+        }
+        segments.clear();
+        priorityEntries.clear();
+        size = 0;
+        headSegment = newSegment(segmentSize, 1);
+        headPosition = MappedQueueSegment.HEADER_SIZE;
+        updateIndex();
+    }
+
+    @Override
+    public synchronized void remove(Serializable value)
+    {
+        checkOpen();
+        Iterator<EntryPosition> iterator = priorityEntries.iterator();
+        while (iterator.hasNext())
+        {
+            EntryPosition entry = iterator.next();
+            if (deserialize(entry.read()).equals(value))
+            {
+                iterator.remove();
+                removePriorityEntry(entry);
+                size--;
+                return;
+            }
+        }
+        EntryPosition entry = findLiveEntry(value);
+        if (entry != null)
+        {
+            entry.segment.markStatus(entry.position, MappedQueueSegment.REMOVED);
+            size--;
+        }
+    }
+
+    @Override
+    public synchronized boolean contains(Serializable value)
+    {
+        checkOpen();
+        for (EntryPosition entry : priorityEntries)
+        {
+            if (deserialize(entry.read()).equals(value))
+            {
+                return true;
+            }
+        }
+        return findLiveEntry(value) != null;
+    }
+
+    private EntryPosition findLiveEntry(Serializable value)
+    {
+        int position = headPosition;
+        for (int i = segments.indexOf(headSegment); i < segments.size(); i++)
+        {
+            MappedQueueSegment segment = segments.get(i);
+            while (segment.hasEntryAt(position))
+            {
+                if (segment.statusAt(position) == MappedQueueSegment.LIVE && deserialize(segment.readData(position)).equals(value))
+                {
+                    return new EntryPosition(segment, position);
+                }
+                position = segment.nextEntryPosition(position);
+            }
+            position = MappedQueueSegment.HEADER_SIZE;
+        }
+        return null;
+    }
+
+    /**
+     * Forces pending writes to disk and releases the mapped files. The queue cannot be used
+     * after this.
+     */
+    @Override
+    public synchronized void close()
+    {
+        if (closed)
+        {
+            return;
+        }
+        sync();
+        closed = true;
+        for (MappedQueueSegment segment : segments)
+        {
+            segment.close();
+        }
+        for (MappedQueueSegment segment : freeSegments)
+        {
+            segment.close();
+        }
+        segments.clear();
+        freeSegments.clear();
+        priorityEntries.clear();
+        headSegment = null;
+        MappedQueueSegment.unmap(index);
+        index = null;
+        try
+        {
+            indexFile.close();
+        }
+        catch (IOException e)
+        {
+            logger.warn(e.getMessage());
+            if (logger.isDebugEnabled())
+            {
+                logger.debug(e);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void dispose()
+    {
+        close();
+        FileUtils.deleteQuietly(segmentsDirectory);
+    }
+
+    private void checkOpen()
+    {
+        if (closed)
+        {
+            throw new IllegalStateException("Queue store " + segmentsDirectory.getName() + " is closed");
+        }
+    }
+
+    private Serializable deserialize(byte[] data)
+    {
+        return muleContext.getObjectSerializer().deserialize(data);
+    }
+
+    /**
+     * Location of an entry within the segments of the queue.
+     */
+    private static class EntryPosition
+    {
+
+        private final MappedQueueSegment segment;
+        private final int position;
+
+        private EntryPosition(MappedQueueSegment segment, int position)
+        {
+            this.segment = segment;
+            this.position = position;
+        }
+
+        private byte[] read()
+        {
+            return segment.readData(position);
+        }
+    }
+}
@@ -0,0 +1,1113 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.util.store;
+
+import static org.mule.api.store.ObjectStoreManager.UNBOUNDED;
+import org.mule.api.MuleContext;
+import org.mule.api.serialization.ObjectSerializer;
+import org.mule.api.store.ObjectAlreadyExistsException;
+import org.mule.api.store.ObjectDoesNotExistException;
+import org.mule.api.store.ObjectStoreException;
+import org.mule.api.store.ObjectStoreNotAvaliableException;
+import org.mule.config.i18n.CoreMessages;
+import org.mule.util.FileUtils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Persistent partition that appends its entries to log files instead of writing each entry to
+ * its own file.
+ * <p/>
+ * Storing or removing an entry appends a record to the active data file, which is rolled over
+ * once it reaches its maximum size. The location of the record of each entry is kept in an
+ * in-memory index. When the partition is closed, and regularly as records are appended, the
+ * index is written to an index file along with the position of the data files it reflects, so
+ * loading the partition only reads the index file and the records appended after it was written
+ * instead of every stored entry.
+ * <p/>
+ * Data files whose live records take less than half of their size are compacted in the
+ * background: their live records are copied to the active data file and the file is deleted.
+ * <p/>
+ * Entries stored in the same directory by a {@link PersistentObjectStorePartition} are moved to
+ * the data files the first time the partition is loaded.
+ */
+public class LogStructuredObjectStorePartition<T extends Serializable> implements PersistentStorePartition<T>
+{
+
+    static final String DATA_FILE_PREFIX = "data-";
+    static final String DATA_FILE_EXTENSION = ".log";
+    static final String INDEX_FILE = "index";
+    static final long DEFAULT_MAX_DATA_FILE_SIZE = 64 * 1024 * 1024;
+    static final long DEFAULT_CHECKPOINT_SIZE = 16 * 1024 * 1024;
+
+    private static final String INDEX_TEMP_FILE = "index.tmp";
+    private static final int INDEX_MAGIC = 0x4d4c4f47;
+    private static final int INDEX_VERSION = 1;
+
+    private static final byte PUT = 1;
+    private static final byte REMOVE = 2;
+    // record length and checksum
+    private static final int RECORD_HEADER_SIZE = 8;
+    // record type, timestamp and key length
+    private static final int RECORD_PREFIX_SIZE = RECORD_HEADER_SIZE + 1 + 8 + 4;
+
+    protected final Log logger = LogFactory.getLog(this.getClass());
+
+    private final MuleContext muleContext;
+    private final File partitionDirectory;
+    private final Executor maintenanceExecutor;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicBoolean maintenanceScheduled = new AtomicBoolean();
+    private String partitionName;
+    private long maxDataFileSize = DEFAULT_MAX_DATA_FILE_SIZE;
+    private long checkpointSize = DEFAULT_CHECKPOINT_SIZE;
+
+    private volatile boolean loaded = false;
+    private LinkedHashMap<Serializable, Location> index;
+    private final TreeMap<Integer, DataFile> dataFiles = new TreeMap<Integer, DataFile>();
+    private DataFile activeFile;
+    private long appendedSinceCheckpoint;
+    private boolean compactionNeeded;
+
+    LogStructuredObjectStorePartition(MuleContext muleContext, String partitionName, File partitionDirectory,
+                                      Executor maintenanceExecutor)
+    {
+        this.muleContext = muleContext;
+        this.partitionName = partitionName;
+        this.partitionDirectory = partitionDirectory;
+        this.maintenanceExecutor = maintenanceExecutor;
+    }
+
+    LogStructuredObjectStorePartition(MuleContext muleContext, File partitionDirectory, Executor maintenanceExecutor)
+        throws ObjectStoreNotAvaliableException
+    {
+        this(muleContext, PersistentObjectStorePartition.readPartitionFileName(partitionDirectory),
+             partitionDirectory, maintenanceExecutor);
+    }
+
+    /**
+     * @return whether the given partition directory holds entries stored by a
+     *         {@link LogStructuredObjectStorePartition}
+     */
+    static boolean isLogStructured(File partitionDirectory)
+    {
+        return new File(partitionDirectory, INDEX_FILE).exists() || listDataFiles(partitionDirectory).length > 0;
+    }
+
+    void setMaxDataFileSize(long maxDataFileSize)
+    {
+        this.maxDataFileSize = maxDataFileSize;
+    }
+
+    void setCheckpointSize(long checkpointSize)
+    {
+        this.checkpointSize = checkpointSize;
+    }
+
+    @Override
+    public synchronized void open() throws ObjectStoreException
+    {
+        if (!partitionDirectory.exists() && !partitionDirectory.mkdirs())
+        {
+            throw new ObjectStoreException(CoreMessages.failedToCreate("object store directory "
+                                                                       + partitionDirectory.getAbsolutePath()));
+        }
+        File partitionDescriptorFile = new File(partitionDirectory, PersistentObjectStorePartition.PARTITION_DESCRIPTOR_FILE);
+        try
+        {
+            if (partitionDescriptorFile.exists())
+            {
+                partitionName = FileUtils.readFileToString(partitionDescriptorFile);
+            }
+            else
+            {
+                FileUtils.writeStringToFile(partitionDescriptorFile, partitionName);
+            }
+        }
+        catch (IOException e)
+        {
+            throw new ObjectStoreException(e);
+        }
+    }
+
+    /**
+     * Writes the index file and closes the data files. The partition is loaded again if it is
+     * used after being closed.
+     */
+    @Override
+    public synchronized void close() throws ObjectStoreException
+    {
+        if (!loaded)
+        {
+            return;
+        }
+        lock.writeLock().lock();
+        try
+        {
+            writeIndex();
+            for (DataFile dataFile : dataFiles.values())
+            {
+                dataFile.close();
+            }
+            dataFiles.clear();
+            activeFile = null;
+            index = null;
+            loaded = false;
+        }
+        catch (IOException e)
+        {
+            throw new ObjectStoreException(e);
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Serializable> allKeys() throws ObjectStoreException
+    {
+        assureLoaded();
+        lock.readLock().lock();
+        try
+        {
+            return Collections.unmodifiableList(new ArrayList<Serializable>(index.keySet()));
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean contains(Serializable key) throws ObjectStoreException
+    {
+        checkKey(key);
+        assureLoaded();
+        lock.readLock().lock();
+        try
+        {
+            return index.containsKey(key);
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void store(Serializable key, T value) throws ObjectStoreException
+    {
+        checkKey(key);
+        assureLoaded();
+        ObjectSerializer serializer = muleContext.getObjectSerializer();
+        byte[] keyBytes = serializer.serialize(key);
+        byte[] valueBytes = serializer.serialize(value);
+
+        lock.writeLock().lock();
+        try
+        {
+            if (index.containsKey(key))
+            {
+                throw new ObjectAlreadyExistsException();
+            }
+            Location location = append(encodeRecord(PUT, System.currentTimeMillis(), keyBytes, valueBytes));
+            index.put(key, location);
+            activeFile.liveBytes += location.length;
+        }
+        catch (IOException e)
+        {
+            throw new ObjectStoreException(e);
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+        scheduleMaintenanceIfNeeded();
+    }
+
+    @Override
+    public T retrieve(Serializable key) throws ObjectStoreException
+    {
+        checkKey(key);
+        assureLoaded();
+        ByteBuffer record;
+        lock.readLock().lock();
+        try
+        {
+            record = readRecord(getLocation(key));
+        }
+        catch (IOException e)
+        {
+            throw new ObjectStoreException(e);
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+        return deserializeValue(record);
+    }
+
+    @Override
+    public T remove(Serializable key) throws ObjectStoreException
+    {
+        checkKey(key);
+        assureLoaded();
+        ByteBuffer record;
+        lock.writeLock().lock();
+        try
+        {
+            Location location = getLocation(key);
+            record = readRecord(location);
+            removeEntry(key, location, recordKey(record));
+        }
+        catch (IOException e)
+        {
+            throw new ObjectStoreException(e);
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+        scheduleMaintenanceIfNeeded();
+        return deserializeValue(record);
+    }
+
+    @Override
+    public synchronized void clear() throws ObjectStoreException
+    {
+        lock.writeLock().lock();
+        try
+        {
+            for (DataFile dataFile : dataFiles.values())
+            {
+                dataFile.close();
+            }
+            dataFiles.clear();
+            activeFile = null;
+            for (File file : listDataFiles(partitionDirectory))
+            {
+                deleteFile(file);
+            }
+            for (File file : listLegacyFiles())
+            {
+                deleteFile(file);
+            }
+            deleteFile(new File(partitionDirectory, INDEX_FILE));
+            index = new LinkedHashMap<Serializable, Location>();
+            appendedSinceCheckpoint = 0;
+            compactionNeeded = false;
+            loaded = true;
+        }
+        catch (IOException e)
+        {
+            throw new ObjectStoreException(CoreMessages.createStaticMessage("Could not clear ObjectStore"), e);
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean isPersistent()
+    {
+        return true;
+    }
+
+    @Override
+    public void expire(int entryTTL, int maxEntries) throws ObjectStoreException
+    {
+        assureLoaded();
+        lock.writeLock().lock();
+        try
+        {
+            final long now = System.currentTimeMillis();
+            int excess = maxEntries == UNBOUNDED ? 0 : index.size() - maxEntries;
+
+            // entries are kept in the order they were stored, so the oldest ones come first
+            Iterator<Map.Entry<Serializable, Location>> entries = index.entrySet().iterator();
+            while (entries.hasNext())
+            {
+                Map.Entry<Serializable, Location> entry = entries.next();
+                if (excess > 0)
+                {
+                    excess--;
+                }
+                else if (entryTTL == UNBOUNDED || now - entry.getValue().timestamp < entryTTL)
+                {
+                    break;
+                }
+                Location location = entry.getValue();
+                appendRemove(muleContext.getObjectSerializer().serialize(entry.getKey()), location);
+                entries.remove();
+            }
+        }
+        catch (IOException e)
+        {
+            throw new ObjectStoreException(e);
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+        scheduleMaintenanceIfNeeded();
+    }
+
+    @Override
+    public String getPartitionName()
+    {
+        return partitionName;
+    }
+
+    private void checkKey(Serializable key) throws ObjectStoreException
+    {
+        if (key == null)
+        {
+            throw new ObjectStoreException(CoreMessages.objectIsNull("key"));
+        }
+    }
+
+    private Location getLocation(Serializable key) throws ObjectDoesNotExistException
+    {
+        Location location = index.get(key);
+        if (location == null)
+        {
+            String message = "Key does not exist: " + key;
+            throw new ObjectDoesNotExistException(CoreMessages.createStaticMessage(message));
+        }
+        return location;
+    }
+
+    private void removeEntry(Serializable key, Location location, byte[] keyBytes) throws IOException
+    {
+        appendRemove(keyBytes, location);
+        index.remove(key);
+    }
+
+    private void appendRemove(byte[] keyBytes, Location removed) throws IOException
+    {
+        append(encodeRecord(REMOVE, System.currentTimeMillis(), keyBytes, null));
+        DataFile dataFile = dataFiles.get(removed.fileId);
+        dataFile.liveBytes -= removed.length;
+        if (dataFile != activeFile && isCompactionCandidate(dataFile))
+        {
+            compactionNeeded = true;
+        }
+    }
+
+    private boolean isCompactionCandidate(DataFile dataFile)
+    {
+        return dataFile.liveBytes * 2 < dataFile.size;
+    }
+
+    private void assureLoaded() throws ObjectStoreException
+    {
+        if (!loaded)
+        {
+            load();
+        }
+    }
+
+    private synchronized void load() throws ObjectStoreException
+    {
+        // re-checked here so only the first access pays for the synchronization
+        if (loaded)
+        {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try
+        {
+            index = new LinkedHashMap<Serializable, Location>();
+            for (File file : listDataFiles(partitionDirectory))
+            {
+                DataFile dataFile = new DataFile(dataFileId(file), file);
+                dataFiles.put(dataFile.id, dataFile);
+            }
+
+            boolean indexLoaded = readIndex();
+            if (!indexLoaded && !index.isEmpty())
+            {
+                sortByTimestamp();
+            }
+            for (Location location : index.values())
+            {
+                dataFiles.get(location.fileId).liveBytes += location.length;
+            }
+            activeFile = dataFiles.isEmpty() ? null : dataFiles.lastEntry().getValue();
+            migrateLegacyEntries();
+            for (DataFile dataFile : dataFiles.values())
+            {
+                compactionNeeded |= dataFile != activeFile && isCompactionCandidate(dataFile);
+            }
+            loaded = true;
+            if (!indexLoaded || appendedSinceCheckpoint > 0)
+            {
+                writeIndex();
+            }
+        }
+        catch (Exception e)
+        {
+            for (DataFile dataFile : dataFiles.values())
+            {
+                dataFile.close();
+            }
+            dataFiles.clear();
+            activeFile = null;
+            String message = String.format("Could not restore object store data from %1s",
+                                           partitionDirectory.getAbsolutePath());
+            throw new ObjectStoreException(CoreMessages.createStaticMessage(message), e);
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+        scheduleMaintenanceIfNeeded();
+    }
+
+    /**
+     * Loads the index file, if there is a valid one, and then replays the records appended after
+     * it was written.
+     *
+     * @return whether the index file was loaded
+     */
+    private boolean readIndex() throws IOException
+    {
+        File indexFile = new File(partitionDirectory, INDEX_FILE);
+        int replayFileId = 0;
+        long replayPosition = 0;
+        boolean indexLoaded = false;
+        if (indexFile.exists())
+        {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)));
+            try
+            {
+                if (in.readInt() == INDEX_MAGIC && in.readInt() == INDEX_VERSION)
+                {
+                    replayFileId = in.readInt();
+                    replayPosition = in.readLong();
+                    int entries = in.readInt();
+                    for (int i = 0; i < entries; i++)
+                    {
+                        byte[] keyBytes = new byte[in.readInt()];
+                        in.readFully(keyBytes);
+                        Location location = new Location(in.readInt(), in.readLong(), in.readInt(), in.readLong());
+                        if (dataFiles.containsKey(location.fileId))
+                        {
+                            index.put(deserializeKey(keyBytes), location);
+                        }
+                    }
+                    indexLoaded = true;
+                }
+                else
+                {
+                    logger.warn("Ignoring index file of unknown format " + indexFile.getAbsolutePath());
+                }
+            }
+            catch (EOFException e)
+            {
+                logger.warn("Ignoring truncated index file " + indexFile.getAbsolutePath());
+            }
+            finally
+            {
+                in.close();
+            }
+        }
+        if (!indexLoaded)
+        {
+            index.clear();
+            replayFileId = 0;
+            replayPosition = 0;
+        }
+
+        for (DataFile dataFile : dataFiles.tailMap(replayFileId, true).values())
+        {
+            replay(dataFile, dataFile.id == replayFileId ? replayPosition : 0);
+        }
+        return indexLoaded;
+    }
+
+    private void replay(DataFile dataFile, long position) throws IOException
+    {
+        FileChannel channel = dataFile.channel;
+        channel.position(position);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+        long offset = position;
+        while (offset < dataFile.size)
+        {
+            ByteBuffer record = readRecord(in, dataFile.size - offset);
+            if (record == null)
+            {
+                if (dataFile.id == dataFiles.lastKey())
+                {
+                    logger.warn(String.format("Discarding incomplete record at position %d of %s", offset,
+                                              dataFile.file.getAbsolutePath()));
+                    channel.truncate(offset);
+                    dataFile.size = offset;
+                }
+                else
+                {
+                    logger.warn(String.format("Ignoring corrupted records from position %d of %s", offset,
+                                              dataFile.file.getAbsolutePath()));
+                }
+                break;
+            }
+            int length = record.limit();
+            Serializable key = deserializeKey(recordKey(record));
+            if (record.get(RECORD_HEADER_SIZE) == PUT)
+            {
+                index.put(key, new Location(dataFile.id, offset, length, record.getLong(RECORD_HEADER_SIZE + 1)));
+            }
+            else
+            {
+                index.remove(key);
+            }
+            offset += length;
+        }
+    }
+
+    /**
+     * Reads the next record from a data file.
+     *
+     * @return the record, or null if it is incomplete or corrupted
+     */
+    private ByteBuffer readRecord(DataInputStream in, long available) throws IOException
+    {
+        if (available < RECORD_PREFIX_SIZE)
+        {
+            return null;
+        }
+        int bodyLength = in.readInt();
+        int checksum = in.readInt();
+        if (bodyLength < RECORD_PREFIX_SIZE - RECORD_HEADER_SIZE || bodyLength > available - RECORD_HEADER_SIZE)
+        {
+            return null;
+        }
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + bodyLength);
+        record.putInt(bodyLength).putInt(checksum);
+        in.readFully(record.array(), RECORD_HEADER_SIZE, bodyLength);
+        if (checksum(record.array(), bodyLength) != checksum)
+        {
+            return null;
+        }
+        record.rewind();
+        return record;
+    }
+
+    private void sortByTimestamp()
+    {
+        // records moved by compactions are appended after newer ones, so replaying all the data
+        // files does not restore the order in which entries were stored
+        List<Map.Entry<Serializable, Location>> entries = new ArrayList<Map.Entry<Serializable, Location>>(index.entrySet());
+        Collections.sort(entries, new Comparator<Map.Entry<Serializable, Location>>()
+        {
+            @Override
+            public int compare(Map.Entry<Serializable, Location> entry1, Map.Entry<Serializable, Location> entry2)
+            {
+                return Long.valueOf(entry1.getValue().timestamp).compareTo(entry2.getValue().timestamp);
+            }
+        });
+        index = new LinkedHashMap<Serializable, Location>();
+        for (Map.Entry<Serializable, Location> entry : entries)
+        {
+            index.put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private void migrateLegacyEntries() throws IOException, ObjectStoreException
+    {
+        File[] files = listLegacyFiles();
+        if (files.length == 0)
+        {
+            return;
+        }
+        ObjectSerializer serializer = muleContext.getObjectSerializer();
+        Arrays.sort(files, new Comparator<File>()
+        {
+            @Override
+            public int compare(File f1, File f2)
+            {
+                int result = Long.valueOf(f1.lastModified()).compareTo(f2.lastModified());
+                if (result == 0)
+                {
+                    result = f1.getName().compareTo(f2.getName());
+                }
+                return result;
+            }
+        });
+        logger.info(String.format("Moving %d entries of object store partition %s to its data files",
+                                  files.length, partitionName));
+        for (File file : files)
+        {
+            PersistentObjectStorePartition.StoreValue<?> storeValue = deserializeLegacyFile(file);
+            if (!index.containsKey(storeValue.getKey()))
+            {
+                Location location = append(encodeRecord(PUT, file.lastModified(),
+                                                        serializer.serialize(storeValue.getKey()),
+                                                        serializer.serialize(storeValue.getValue())));
+                index.put(storeValue.getKey(), location);
+                activeFile.liveBytes += location.length;
+            }
+        }
+        activeFile.channel.force(false);
+        writeIndex();
+        for (File file : files)
+        {
+            deleteFile(file);
+        }
+    }
+
+    private PersistentObjectStorePartition.StoreValue<?> deserializeLegacyFile(File file) throws IOException
+    {
+        // read the same way PersistentObjectStorePartition does
+        ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)));
+        try
+        {
+            return muleContext.getObjectSerializer().deserialize(in);
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+
+    private File[] listLegacyFiles()
+    {
+        File[] files = partitionDirectory.listFiles(new FileFilter()
+        {
+            @Override
+            public boolean accept(File file)
+            {
+                return file.isFile() && file.getName().endsWith(PersistentObjectStorePartition.OBJECT_FILE_EXTENSION);
+            }
+        });
+        return files == null ? new File[0] : files;
+    }
+
+    private static File[] listDataFiles(File partitionDirectory)
+    {
+        File[] files = partitionDirectory.listFiles(new FileFilter()
+        {
+            @Override
+            public boolean accept(File file)
+            {
+                String name = file.getName();
+                return file.isFile() && name.startsWith(DATA_FILE_PREFIX) && name.endsWith(DATA_FILE_EXTENSION);
+            }
+        });
+        return files == null ? new File[0] : files;
+    }
+
+    private static int dataFileId(File file)
+    {
+        String name = file.getName();
+        return Integer.parseInt(name.substring(DATA_FILE_PREFIX.length(), name.length() - DATA_FILE_EXTENSION.length()));
+    }
+
+    private File dataFileFor(int id)
+    {
+        return new File(partitionDirectory, String.format("%s%010d%s", DATA_FILE_PREFIX, id, DATA_FILE_EXTENSION));
+    }
+
+    private ByteBuffer encodeRecord(byte type, long timestamp, byte[] keyBytes, byte[] valueBytes)
+    {
+        int bodyLength = RECORD_PREFIX_SIZE - RECORD_HEADER_SIZE + keyBytes.length
+                         + (valueBytes == null ? 0 : valueBytes.length);
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + bodyLength);
+        record.putInt(bodyLength);
+        record.putInt(0);
+        record.put(type);
+        record.putLong(timestamp);
+        record.putInt(keyBytes.length);
+        record.put(keyBytes);
+        if (valueBytes != null)
+        {
+            record.put(valueBytes);
+        }
+        record.putInt(4, checksum(record.array(), bodyLength));
+        record.flip();
+        return record;
+    }
+
+    private static int checksum(byte[] record, int bodyLength)
+    {
+        CRC32 crc = new CRC32();
+        crc.update(record, RECORD_HEADER_SIZE, bodyLength);
+        return (int) crc.getValue();
+    }
+
+    private static byte[] recordKey(ByteBuffer record)
+    {
+        int keyLength = record.getInt(RECORD_PREFIX_SIZE - 4);
+        return Arrays.copyOfRange(record.array(), RECORD_PREFIX_SIZE, RECORD_PREFIX_SIZE + keyLength);
+    }
+
+    /**
+     * Appends a record to the active data file, rolling it over first if the record does not fit
+     * in it. Must be called holding the write lock.
+     */
+    private Location append(ByteBuffer record) throws IOException
+    {
+        if (activeFile == null || (activeFile.size > 0 && activeFile.size + record.remaining() > maxDataFileSize))
+        {
+            int id = activeFile == null ? 1 : activeFile.id + 1;
+            activeFile = new DataFile(id, dataFileFor(id));
+            dataFiles.put(id, activeFile);
+        }
+        long offset = activeFile.size;
+        int length = record.remaining();
+        long timestamp = record.getLong(RECORD_HEADER_SIZE + 1);
+        while (record.hasRemaining())
+        {
+            activeFile.channel.write(record, offset + record.position());
+        }
+        activeFile.size += length;
+        appendedSinceCheckpoint += length;
+        return new Location(activeFile.id, offset, length, timestamp);
+    }
+
+    private ByteBuffer readRecord(Location location) throws IOException
+    {
+        ByteBuffer record = ByteBuffer.allocate(location.length);
+        FileChannel channel = dataFiles.get(location.fileId).channel;
+        while (record.hasRemaining())
+        {
+            if (channel.read(record, location.offset + record.position()) < 0)
+            {
+                throw new EOFException("Incomplete record for location " + location);
+            }
+        }
+        return record;
+    }
+
+    private Serializable deserializeKey(byte[] keyBytes)
+    {
+        return muleContext.getObjectSerializer().deserialize(keyBytes);
+    }
+
+    private T deserializeValue(ByteBuffer record) throws ObjectStoreException
+    {
+        int valueOffset = RECORD_PREFIX_SIZE + record.getInt(RECORD_PREFIX_SIZE - 4);
+        try
+        {
+            // the serializer initialises DeserializationPostInitialisable values
+            return muleContext.getObjectSerializer().deserialize(new ByteArrayInputStream(record.array(), valueOffset,
+                                                                                          record.limit() - valueOffset));
+        }
+        catch (Exception e)
+        {
+            throw new ObjectStoreException(e);
+        }
+    }
+
+    /**
+     * Writes the index file, replacing the previous one only once it was completely written.
+     */
+    private void writeIndex() throws IOException
+    {
+        File tempFile = new File(partitionDirectory, INDEX_TEMP_FILE);
+        FileOutputStream out = new FileOutputStream(tempFile);
+        try
+        {
+            DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+            data.writeInt(INDEX_MAGIC);
+            data.writeInt(INDEX_VERSION);
+            data.writeInt(activeFile == null ? 0 : activeFile.id);
+            data.writeLong(activeFile == null ? 0 : activeFile.size);
+            data.writeInt(index.size());
+            ObjectSerializer serializer = muleContext.getObjectSerializer();
+            for (Map.Entry<Serializable, Location> entry : index.entrySet())
+            {
+                byte[] keyBytes = serializer.serialize(entry.getKey());
+                Location location = entry.getValue();
+                data.writeInt(keyBytes.length);
+                data.write(keyBytes);
+                data.writeInt(location.fileId);
+                data.writeLong(location.offset);
+                data.writeInt(location.length);
+                data.writeLong(location.timestamp);
+            }
+            data.flush();
+            if (activeFile != null)
+            {
+                // records referenced by the index must be on disk before the index is
+                activeFile.channel.force(false);
+            }
+            out.getFD().sync();
+        }
+        finally
+        {
+            out.close();
+        }
+        File indexFile = new File(partitionDirectory, INDEX_FILE);
+        if (!tempFile.renameTo(indexFile))
+        {
+            deleteFile(indexFile);
+            if (!tempFile.renameTo(indexFile))
+            {
+                throw new IOException("Could not rename " + tempFile.getAbsolutePath() + " to " + indexFile.getName());
+            }
+        }
+        appendedSinceCheckpoint = 0;
+    }
+
+    private void deleteFile(File file) throws IOException
+    {
+        if (file.exists() && !file.delete())
+        {
+            throw new IOException("Deleting " + file.getAbsolutePath() + " failed");
+        }
+    }
+
+    private void scheduleMaintenanceIfNeeded()
+    {
+        if ((compactionNeeded || appendedSinceCheckpoint >= checkpointSize)
+            && maintenanceScheduled.compareAndSet(false, true))
+        {
+            try
+            {
+                maintenanceExecutor.execute(new MaintenanceWork());
+            }
+            catch (RejectedExecutionException e)
+            {
+                // the store is being disposed, the index is written when the partition is closed
+                maintenanceScheduled.set(false);
+            }
+        }
+    }
+
+    /**
+     * Compacts the data files with few live records and writes the index file.
+     */
+    synchronized void maintain() throws IOException
+    {
+        if (!loaded)
+        {
+            return;
+        }
+        List<DataFile> candidates = new ArrayList<DataFile>();
+        lock.writeLock().lock();
+        try
+        {
+            for (DataFile dataFile : dataFiles.values())
+            {
+                if (dataFile != activeFile && isCompactionCandidate(dataFile))
+                {
+                    candidates.add(dataFile);
+                }
+            }
+            compactionNeeded = false;
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+
+        for (DataFile candidate : candidates)
+        {
+            compact(candidate);
+        }
+
+        // writers are blocked while the index is written, but readers are not
+        lock.readLock().lock();
+        try
+        {
+            writeIndex();
+            for (DataFile compacted : candidates)
+            {
+                deleteFile(compacted.file);
+            }
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Copies the live records of a data file to the active data file and stops using it. The
+     * file is deleted once the index file no longer references it.
+     */
+    private void compact(DataFile dataFile) throws IOException
+    {
+        // no records are appended to a data file once it is rolled over, so it can be read
+        // without holding the lock
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(dataFile.file)));
+        try
+        {
+            long offset = 0;
+            while (offset < dataFile.size)
+            {
+                ByteBuffer record = readRecord(in, dataFile.size - offset);
+                if (record == null)
+                {
+                    break;
+                }
+                copyIfLive(dataFile, offset, record);
+                offset += record.limit();
+            }
+        }
+        finally
+        {
+            in.close();
+        }
+
+        lock.writeLock().lock();
+        try
+        {
+            dataFiles.remove(dataFile.id);
+            dataFile.close();
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void copyIfLive(DataFile dataFile, long offset, ByteBuffer record) throws IOException
+    {
+        Serializable key = deserializeKey(recordKey(record));
+        lock.writeLock().lock();
+        try
+        {
+            if (record.get(RECORD_HEADER_SIZE) == PUT)
+            {
+                Location location = index.get(key);
+                if (location != null && location.fileId == dataFile.id && location.offset == offset)
+                {
+                    Location moved = append(record);
+                    index.put(key, moved);
+                    activeFile.liveBytes += moved.length;
+                    dataFile.liveBytes -= moved.length;
+                }
+            }
+            else if (!index.containsKey(key) && dataFiles.firstKey() < dataFile.id)
+            {
+                // an older data file may still have the record of the removed entry. If the key
+                // was stored again, the removal must not be replayed after the new record
+                append(record);
+            }
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private class MaintenanceWork implements Runnable
+    {
+
+        @Override
+        public void run()
+        {
+            try
+            {
+                maintain();
+            }
+            catch (Exception e)
+            {
+                logger.warn("Could not compact object store partition " + partitionName, e);
+            }
+            finally
+            {
+                maintenanceScheduled.set(false);
+            }
+        }
+    }
+
+    /**
+     * Location of the record that holds the value of an entry.
+     */
+    private static final class Location
+    {
+
+        final int fileId;
+        final long offset;
+        final int length;
+        final long timestamp;
+
+        Location(int fileId, long offset, int length, long timestamp)
+        {
+            this.fileId = fileId;
+            this.offset = offset;
+            this.length = length;
+            this.timestamp = timestamp;
+        }
+
+        @Override
+        public String toString()
+        {
+            return fileId + ":" + offset + "+" + length;
+        }
+    }
+
+    private final class DataFile
+    {
+
+        final int id;
+        final File file;
+        final FileChannel channel;
+        long size;
+        long liveBytes;
+
+        DataFile(int id, File file) throws IOException
+        {
+            this.id = id;
+            this.file = file;
+            this.channel = new RandomAccessFile(file, "rw").getChannel();
+            this.size = channel.size();
+        }
+
+        void close()
+        {
+            try
+            {
+                channel.close();
+            }
+            catch (IOException e)
+            {
+                logger.warn("error closing file " + file.getAbsolutePath());
+            }
+        }
+    }
+}
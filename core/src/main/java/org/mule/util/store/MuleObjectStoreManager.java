@@ -44,6 +44,7 @@ public class MuleObjectStoreManager
     private String basePersistentStoreKey = MuleProperties.OBJECT_STORE_DEFAULT_PERSISTENT_NAME;
     private String baseTransientUserStoreKey = MuleProperties.DEFAULT_USER_TRANSIENT_OBJECT_STORE_NAME;
     private String basePersistentUserStoreKey = MuleProperties.DEFAULT_USER_OBJECT_STORE_NAME;
+    private Boolean logStructuredPersistentStores;
 
     @Override
     public <T extends ObjectStore<? extends Serializable>> T getObjectStore(String name)
@@ -164,6 +165,10 @@ public class MuleObjectStoreManager
                                                                                               String partitionName)
         throws ObjectStoreException
     {
+        if (logStructuredPersistentStores != null && baseStore instanceof PartitionedPersistentObjectStore)
+        {
+            ((PartitionedPersistentObjectStore) baseStore).setLogStructured(logStructuredPersistentStores);
+        }
         if (baseStore instanceof PartitionableObjectStore)
         {
             ObjectStorePartition objectStorePartition = new ObjectStorePartition(partitionName,
@@ -383,4 +388,16 @@ public class MuleObjectStoreManager
     {
         this.baseTransientUserStoreKey = baseTransientUserStoreKey;
     }
+
+    /**
+     * Selects the format of the partitions of the default persistent stores: append-only log
+     * files when true, a file per entry when false. When not set, the format configured in the
+     * stores is kept.
+     *
+     * @see PartitionedPersistentObjectStore#setLogStructured(boolean)
+     */
+    public void setLogStructuredPersistentStores(boolean logStructuredPersistentStores)
+    {
+        this.logStructuredPersistentStores = logStructuredPersistentStores;
+    }
 }
@@ -9,12 +9,14 @@ package org.mule.util.store;
 import org.mule.api.MuleContext;
 import org.mule.api.MuleRuntimeException;
 import org.mule.api.context.MuleContextAware;
+import org.mule.api.lifecycle.Disposable;
 import org.mule.api.store.ObjectStoreException;
 import org.mule.api.store.PartitionableExpirableObjectStore;
 import org.mule.config.i18n.CoreMessages;
 import org.mule.config.i18n.Message;
 import org.mule.util.FileUtils;
 import org.mule.util.UUID;
+import org.mule.util.concurrent.DaemonThreadFactory;
 
 import java.io.File;
 import java.io.FileFilter;
@@ -24,17 +26,23 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 public class PartitionedPersistentObjectStore<T extends Serializable> extends
-        AbstractPartitionedObjectStore<T> implements MuleContextAware, PartitionableExpirableObjectStore<T>
+        AbstractPartitionedObjectStore<T> implements MuleContextAware, PartitionableExpirableObjectStore<T>, Disposable
 {
 
     public static final String OBJECT_STORE_DIR = "objectstore";
 
     private MuleContext muleContext;
     private File storeDirectory;
-    private Map<String, PersistentObjectStorePartition> partitionsByName = new HashMap<String, PersistentObjectStorePartition>();
+    private Map<String, PersistentStorePartition<T>> partitionsByName = new HashMap<String, PersistentStorePartition<T>>();
     private boolean initialized = false;
+    private boolean logStructured = false;
+    private ThreadPoolExecutor maintenanceExecutor;
 
     public PartitionedPersistentObjectStore()
     {
@@ -79,13 +87,37 @@ public class PartitionedPersistentObjectStore<T extends Serializable> extends
     @Override
     public void close(String partitionName) throws ObjectStoreException
     {
+        if (partitionsByName.containsKey(partitionName))
+        {
+            partitionsByName.get(partitionName).close();
+        }
     }
 
     private void createPartition(String partitionName) throws ObjectStoreException
     {
-        PersistentObjectStorePartition persistentObjectStorePartition = new PersistentObjectStorePartition(muleContext, partitionName, getNewPartitionDirectory());
-        persistentObjectStorePartition.open();
-        partitionsByName.put(partitionName, persistentObjectStorePartition);
+        PersistentStorePartition<T> partition;
+        if (logStructured)
+        {
+            partition = new LogStructuredObjectStorePartition<T>(muleContext, partitionName, getNewPartitionDirectory(), getMaintenanceExecutor());
+        }
+        else
+        {
+            partition = new PersistentObjectStorePartition<T>(muleContext, partitionName, getNewPartitionDirectory());
+        }
+        partition.open();
+        partitionsByName.put(partitionName, partition);
+    }
+
+    private synchronized Executor getMaintenanceExecutor()
+    {
+        if (maintenanceExecutor == null)
+        {
+            // the thread is only kept while there are partitions being compacted
+            maintenanceExecutor = new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                                                         new DaemonThreadFactory("ObjectStore-Compaction", getClass().getClassLoader()));
+            maintenanceExecutor.allowCoreThreadTimeOut(true);
+        }
+        return maintenanceExecutor;
     }
 
     private File getNewPartitionDirectory()
@@ -135,7 +167,7 @@ public class PartitionedPersistentObjectStore<T extends Serializable> extends
         this.getPartitionObjectStore(partitionName).clear();
     }
 
-    private PersistentObjectStorePartition<T> getPartitionObjectStore(String partitionName) throws ObjectStoreException
+    private PersistentStorePartition<T> getPartitionObjectStore(String partitionName) throws ObjectStoreException
     {
         if (!partitionsByName.containsKey(partitionName))
         {
@@ -213,9 +245,17 @@ public class PartitionedPersistentObjectStore<T extends Serializable> extends
         {
             try
             {
-                PersistentObjectStorePartition persistentObjectStorePartition = new PersistentObjectStorePartition(muleContext, partitionDirectory);
-                persistentObjectStorePartition.open();
-                partitionsByName.put(persistentObjectStorePartition.getPartitionName(), persistentObjectStorePartition);
+                PersistentStorePartition<T> partition;
+                if (logStructured || LogStructuredObjectStorePartition.isLogStructured(partitionDirectory))
+                {
+                    partition = new LogStructuredObjectStorePartition<T>(muleContext, partitionDirectory, getMaintenanceExecutor());
+                }
+                else
+                {
+                    partition = new PersistentObjectStorePartition<T>(muleContext, partitionDirectory);
+                }
+                partition.open();
+                partitionsByName.put(partition.getPartitionName(), partition);
             }
             catch (Exception e)
             {
@@ -230,6 +270,42 @@ public class PartitionedPersistentObjectStore<T extends Serializable> extends
         muleContext = context;
     }
 
+    public boolean isLogStructured()
+    {
+        return logStructured;
+    }
+
+    /**
+     * Stores the partitions in append-only log files, using a {@link LogStructuredObjectStorePartition}
+     * instead of a file per entry. Partitions previously stored with a file per entry are
+     * converted when loaded. Partitions already stored in log files keep that format regardless
+     * of this setting.
+     */
+    public void setLogStructured(boolean logStructured)
+    {
+        this.logStructured = logStructured;
+    }
+
+    @Override
+    public synchronized void dispose()
+    {
+        for (PersistentStorePartition<T> partition : partitionsByName.values())
+        {
+            try
+            {
+                partition.close();
+            }
+            catch (ObjectStoreException e)
+            {
+                logger.warn("Could not close partition " + partition.getPartitionName(), e);
+            }
+        }
+        if (maintenanceExecutor != null)
+        {
+            maintenanceExecutor.shutdown();
+        }
+    }
+
     @Override
     public void expire(int entryTTL, int maxEntries) throws ObjectStoreException
     {
@@ -10,8 +10,6 @@ package org.mule.util.store;
 import static org.mule.api.store.ObjectStoreManager.UNBOUNDED;
 import org.mule.api.MuleContext;
 import org.mule.api.MuleRuntimeException;
-import org.mule.api.store.ExpirableObjectStore;
-import org.mule.api.store.ListableObjectStore;
 import org.mule.api.store.ObjectAlreadyExistsException;
 import org.mule.api.store.ObjectDoesNotExistException;
 import org.mule.api.store.ObjectStoreException;
@@ -20,7 +18,6 @@ import org.mule.config.i18n.CoreMessages;
 import org.mule.config.i18n.Message;
 import org.mule.config.i18n.MessageFactory;
 import org.mule.util.FileUtils;
-import org.mule.util.SerializationUtils;
 
 import java.io.File;
 import java.io.FileFilter;
@@ -44,11 +41,11 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 public class PersistentObjectStorePartition<T extends Serializable>
-    implements ListableObjectStore<T>, ExpirableObjectStore<T>
+    implements PersistentStorePartition<T>
 {
 
-    private static final String OBJECT_FILE_EXTENSION = ".obj";
-    private static final String PARTITION_DESCRIPTOR_FILE = "partition-descriptor";
+    static final String OBJECT_FILE_EXTENSION = ".obj";
+    static final String PARTITION_DESCRIPTOR_FILE = "partition-descriptor";
     protected final Log logger = LogFactory.getLog(this.getClass());
     private final MuleContext muleContext;
 
@@ -74,7 +71,7 @@ public class PersistentObjectStorePartition<T extends Serializable>
         this.partitionName = readPartitionFileName(partitionDirectory);
     }
 
-    private String readPartitionFileName(File partitionDirectory) throws ObjectStoreNotAvaliableException
+    static String readPartitionFileName(File partitionDirectory) throws ObjectStoreNotAvaliableException
     {
         File partitionDescriptorFile = new File(partitionDirectory, PARTITION_DESCRIPTOR_FILE);
         try
@@ -349,7 +346,7 @@ public class PersistentObjectStorePartition<T extends Serializable>
         {
             out = new FileOutputStream(outputFile);
             ObjectOutputStream objectOutputStream = new ObjectOutputStream(out);
-            SerializationUtils.serialize(storeValue, objectOutputStream);
+            muleContext.getObjectSerializer().serialize(storeValue, objectOutputStream);
         }
         catch (Exception se)
         {
@@ -378,8 +375,7 @@ public class PersistentObjectStorePartition<T extends Serializable>
         try
         {
             objectInputStream = new ObjectInputStream(new FileInputStream(file));
-            StoreValue<T> storedValue = (StoreValue<T>) SerializationUtils.deserialize(objectInputStream,
-                muleContext);
+            StoreValue<T> storedValue = muleContext.getObjectSerializer().deserialize(objectInputStream);
             if (storedValue.getValue() instanceof DeserializationPostInitialisable)
             {
                 DeserializationPostInitialisable.Implementation.init(storedValue.getValue(), muleContext);
@@ -12,11 +12,14 @@ import org.mule.tck.junit4.AbstractMuleContextTestCase;
 import org.mule.transformer.simple.ObjectToByteArray;
 import org.mule.transformer.types.DataTypeFactory;
 import org.mule.transformer.types.SimpleDataType;
+import org.mule.util.FileUtils;
 import org.mule.util.StringDataSource;
 import org.mule.util.store.DeserializationPostInitialisable;
 
 import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.InputStream;
+import java.net.URL;
 import java.util.Arrays;
 
 import javax.activation.DataHandler;
@@ -74,6 +77,25 @@ public class DefaultMuleMessageSerializationTestCase extends AbstractMuleContext
         assertTrue(Arrays.equals(TEST_MESSAGE.getBytes(), payload));
     }
 
+    @Test
+    public void readsMule_3_6_Message() throws Exception
+    {
+        URL resource = getClass().getClassLoader().getResource("muleMessage-3.6");
+        byte[] bytes = FileUtils.readFileToByteArray(new File(resource.toURI()));
+
+        MuleMessage message = (MuleMessage) SerializationUtils.deserialize(bytes);
+        DeserializationPostInitialisable.Implementation.init(message, muleContext);
+
+        assertEquals("test payload", message.getPayload());
+        assertEquals("inboundValue", message.getInboundProperty("inbound-header"));
+        assertEquals("outboundValue", message.getOutboundProperty("OUTBOUND-HEADER"));
+        assertEquals("invocationValue", message.getInvocationProperty("invocationProperty"));
+
+        MuleMessage copy = new DefaultMuleMessage(message.getPayload(), message, muleContext);
+        copy.setOutboundProperty("Outbound-Header", "otherValue");
+        assertEquals("outboundValue", message.getOutboundProperty("Outbound-Header"));
+    }
+
     @Test
     @Ignore("see MULE-2964")
     public void testAttachments() throws Exception
@@ -17,6 +17,7 @@ import org.mule.api.MuleEvent;
 import org.mule.api.MuleMessage;
 import org.mule.api.transport.PropertyScope;
 import org.mule.tck.junit4.AbstractMuleContextTestCase;
+import org.mule.util.PersistentCaseInsensitiveMap;
 
 import java.util.Set;
 
@@ -88,6 +89,24 @@ public class MessagePropertiesContextTestCase extends AbstractMuleContextTestCas
         mpc = (MessagePropertiesContext) SerializationUtils.deserialize(bytes);
         doTest(mpc);
     }
+
+    @Test
+    public void testSerializesPropertiesAsCopyOnWriteMaps() throws Exception
+    {
+        MessagePropertiesContext mpc = new MessagePropertiesContext();
+        mpc.setProperty("FOO", "BAR", PropertyScope.OUTBOUND);
+        mpc.setProperty("ABC", "abc", PropertyScope.OUTBOUND);
+        mpc.setProperty("DOO", "DAR", PropertyScope.INVOCATION);
+
+        // previous versions can only read the maps they declared
+        byte[] bytes = SerializationUtils.serialize(mpc);
+        assertFalse(new String(bytes, "ISO-8859-1").contains(PersistentCaseInsensitiveMap.class.getName()));
+
+        mpc = (MessagePropertiesContext) SerializationUtils.deserialize(bytes);
+        assertTrue(mpc.inboundMap instanceof PersistentCaseInsensitiveMap);
+        assertTrue(mpc.outboundMap instanceof PersistentCaseInsensitiveMap);
+        doTest(mpc);
+    }
     
     @Test
     public void testCopyConstructor() throws Exception
@@ -37,6 +37,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.mule.tck.SerializationTestUtils.addJavaSerializerToMockMuleContext;
 
 public class MuleSessionHandlerTestCase extends AbstractMuleTestCase
 {
@@ -50,6 +51,7 @@ public class MuleSessionHandlerTestCase extends AbstractMuleTestCase
     {
         muleContext = Mockito.mock(MuleContext.class);
         Mockito.when(muleContext.getExecutionClassLoader()).thenReturn(Thread.currentThread().getContextClassLoader());
+        addJavaSerializerToMockMuleContext(muleContext);
     }
 
     @BeforeClass
@@ -0,0 +1,241 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.cache;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNot.not;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import org.mule.DefaultMuleEvent;
+import org.mule.DefaultMuleMessage;
+import org.mule.api.MuleEvent;
+import org.mule.api.MuleException;
+import org.mule.api.processor.MessageProcessor;
+import org.mule.tck.junit4.AbstractMuleContextTestCase;
+import org.mule.tck.probe.JUnitProbe;
+import org.mule.tck.probe.PollingProber;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class InMemoryCachingStrategyTestCase extends AbstractMuleContextTestCase
+{
+
+    private static final String REQUEST = "request";
+    private static final String OTHER_REQUEST = "other request";
+
+    private final CountingMessageProcessor messageProcessor = new CountingMessageProcessor();
+    private InMemoryCachingStrategy cachingStrategy;
+
+    @Before
+    public void setUpCachingStrategy() throws Exception
+    {
+        cachingStrategy = new InMemoryCachingStrategy();
+        cachingStrategy.setMaxEntries(2);
+        cachingStrategy.initialise();
+    }
+
+    @Test
+    public void cachesResponse() throws Exception
+    {
+        MuleEvent first = cachingStrategy.process(getTestEvent(REQUEST), messageProcessor);
+        MuleEvent second = cachingStrategy.process(getTestEvent(REQUEST), messageProcessor);
+
+        assertThat(messageProcessor.invocations.get(), is(1));
+        assertThat(second.getMessage().getPayloadAsString(), is(first.getMessage().getPayloadAsString()));
+        assertThat(second.getMessage(), not(sameInstance(first.getMessage())));
+        assertThat(cachingStrategy.getStatistics().getHits(), is(1L));
+        assertThat(cachingStrategy.getStatistics().getMisses(), is(1L));
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedResponses() throws Exception
+    {
+        cachingStrategy.process(getTestEvent(REQUEST), messageProcessor);
+        cachingStrategy.process(getTestEvent(OTHER_REQUEST), messageProcessor);
+        cachingStrategy.process(getTestEvent("third request"), messageProcessor);
+
+        assertThat(cachingStrategy.getSize(), is(2L));
+        assertThat(cachingStrategy.getStatistics().getEvictions(), is(1L));
+    }
+
+    @Test
+    public void expiresResponses() throws Exception
+    {
+        cachingStrategy = new InMemoryCachingStrategy();
+        cachingStrategy.setEntryTtl(50);
+        cachingStrategy.initialise();
+
+        cachingStrategy.process(getTestEvent(REQUEST), messageProcessor);
+        Thread.sleep(100);
+        cachingStrategy.process(getTestEvent(REQUEST), messageProcessor);
+
+        assertThat(messageProcessor.invocations.get(), is(2));
+    }
+
+    @Test
+    public void invalidatesResponses() throws Exception
+    {
+        cachingStrategy.process(getTestEvent(REQUEST), messageProcessor);
+        cachingStrategy.invalidate();
+        cachingStrategy.process(getTestEvent(REQUEST), messageProcessor);
+
+        assertThat(messageProcessor.invocations.get(), is(2));
+        assertThat(cachingStrategy.getStatistics().getInvalidations(), is(1L));
+    }
+
+    @Test
+    public void doesNotCacheConsumableRequests() throws Exception
+    {
+        cachingStrategy.process(createStreamEvent(), messageProcessor);
+        cachingStrategy.process(createStreamEvent(), messageProcessor);
+
+        assertThat(messageProcessor.invocations.get(), is(2));
+        assertThat(cachingStrategy.getStatistics().getBypassed(), is(2L));
+    }
+
+    @Test
+    public void doesNotCacheConsumableResponses() throws Exception
+    {
+        MessageProcessor streamingProcessor = new StreamingMessageProcessor();
+        cachingStrategy.process(getTestEvent(REQUEST), streamingProcessor);
+
+        assertThat(cachingStrategy.getSize(), is(0L));
+    }
+
+    @Test
+    public void cachesConsumableResponsesWhenEnabled() throws Exception
+    {
+        cachingStrategy.setCacheConsumableResponses(true);
+        MessageProcessor streamingProcessor = new StreamingMessageProcessor();
+        MuleEvent first = cachingStrategy.process(getTestEvent(REQUEST), streamingProcessor);
+        MuleEvent second = cachingStrategy.process(getTestEvent(REQUEST), streamingProcessor);
+
+        assertThat(second.getMessage().getPayloadAsString(), is(REQUEST));
+        assertThat(first.getMessage().getPayloadAsString(), is(REQUEST));
+        assertThat(cachingStrategy.getStatistics().getHits(), is(1L));
+    }
+
+    @Test
+    public void processesConcurrentMissesOnce() throws Exception
+    {
+        final CountDownLatch processing = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger invocations = new AtomicInteger();
+        final MessageProcessor blockingProcessor = new MessageProcessor()
+        {
+            @Override
+            public MuleEvent process(MuleEvent event) throws MuleException
+            {
+                invocations.incrementAndGet();
+                processing.countDown();
+                try
+                {
+                    release.await(RECEIVE_TIMEOUT, TimeUnit.MILLISECONDS);
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+                return event;
+            }
+        };
+
+        final MuleEvent[] concurrentResponse = new MuleEvent[1];
+        Thread concurrentRequest = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    concurrentResponse[0] = cachingStrategy.process(getTestEvent(REQUEST), blockingProcessor);
+                }
+                catch (Exception e)
+                {
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+        concurrentRequest.start();
+        assertThat(processing.await(RECEIVE_TIMEOUT, TimeUnit.MILLISECONDS), is(true));
+
+        final MuleEvent waitingEvent = getTestEvent(REQUEST);
+        final Thread waitingRequest = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    cachingStrategy.process(waitingEvent, blockingProcessor);
+                }
+                catch (Exception e)
+                {
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+        waitingRequest.start();
+        // the second request must be waiting for the response being processed before it is released
+        new PollingProber(RECEIVE_TIMEOUT, 10).check(new JUnitProbe()
+        {
+            @Override
+            protected boolean test() throws Exception
+            {
+                assertThat(waitingRequest.getState(), is(Thread.State.WAITING));
+                return true;
+            }
+
+            @Override
+            public String describeFailure()
+            {
+                return "Second request is not waiting for the first one";
+            }
+        });
+        release.countDown();
+        concurrentRequest.join(RECEIVE_TIMEOUT);
+        waitingRequest.join(RECEIVE_TIMEOUT);
+
+        assertThat(invocations.get(), is(1));
+        assertThat(concurrentResponse[0].getMessage().getPayloadAsString(), is(REQUEST));
+    }
+
+    private MuleEvent createStreamEvent() throws Exception
+    {
+        return getTestEvent(new ByteArrayInputStream(REQUEST.getBytes()));
+    }
+
+    private static class CountingMessageProcessor implements MessageProcessor
+    {
+
+        private final AtomicInteger invocations = new AtomicInteger();
+
+        @Override
+        public MuleEvent process(MuleEvent event) throws MuleException
+        {
+            invocations.incrementAndGet();
+            return new DefaultMuleEvent(new DefaultMuleMessage("response " + invocations.get(), event.getMuleContext()), event);
+        }
+    }
+
+    private static class StreamingMessageProcessor implements MessageProcessor
+    {
+
+        @Override
+        public MuleEvent process(MuleEvent event) throws MuleException
+        {
+            return new DefaultMuleEvent(new DefaultMuleMessage(new ByteArrayInputStream(REQUEST.getBytes()), event.getMuleContext()), event);
+        }
+    }
+}
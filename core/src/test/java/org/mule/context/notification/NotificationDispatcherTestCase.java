@@ -0,0 +1,272 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.context.notification;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import org.mule.api.MuleContext;
+import org.mule.api.config.ThreadingProfile;
+import org.mule.api.context.notification.ServerNotification;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.probe.JUnitProbe;
+import org.mule.tck.probe.PollingProber;
+import org.mule.tck.size.SmallTest;
+import org.mule.work.MuleWorkManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+@SmallTest
+public class NotificationDispatcherTestCase extends AbstractMuleTestCase
+{
+
+    private static final int TIMEOUT = 5000;
+    private static final String BLOCK = "block";
+
+    private ServerNotificationManager manager;
+    private MuleWorkManager workManager;
+    private SlowListener slowListener;
+    private FastListener fastListener;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        slowListener = new SlowListener();
+        fastListener = new FastListener();
+        workManager = new MuleWorkManager(ThreadingProfile.DEFAULT_THREADING_PROFILE, "notifications", 5000);
+        MuleContext muleContext = mock(MuleContext.class, RETURNS_DEEP_STUBS);
+        workManager.setMuleContext(muleContext);
+        workManager.start();
+
+        manager = new ServerNotificationManager();
+        manager.setMuleContext(muleContext);
+        manager.addInterfaceToType(Listener1.class, Event1.class);
+        manager.addInterfaceToType(Listener2.class, Event1.class);
+        manager.addListener(slowListener);
+        manager.addListener(fastListener);
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        slowListener.release();
+        manager.dispose();
+        workManager.dispose();
+    }
+
+    @Test
+    public void deliversNotificationsInOrderToEachListener() throws Exception
+    {
+        manager.setNotificationDispatcherThreads(2);
+        manager.start(workManager, null);
+
+        List<String> fired = new ArrayList<String>();
+        for (int i = 0; i < 10000; i++)
+        {
+            fired.add(Integer.toString(i));
+            manager.fireNotification(new Event1(Integer.toString(i)));
+        }
+
+        assertReceived(slowListener, fired.size());
+        assertReceived(fastListener, fired.size());
+        assertThat(slowListener.getIds(), is(fired));
+        assertThat(fastListener.getIds(), is(fired));
+    }
+
+    @Test
+    public void slowListenerDoesNotHoldBackOtherDispatcherThreads() throws Exception
+    {
+        manager.setNotificationDispatcherThreads(2);
+        manager.start(workManager, null);
+
+        manager.fireNotification(new Event1(BLOCK));
+        for (int i = 0; i < 10; i++)
+        {
+            manager.fireNotification(new Event1(Integer.toString(i)));
+        }
+
+        assertReceived(fastListener, 11);
+        assertThat(slowListener.getIds().size(), is(1));
+
+        slowListener.release();
+        assertReceived(slowListener, 11);
+    }
+
+    @Test
+    public void discardsNotificationsWhenQueueIsFull() throws Exception
+    {
+        manager.setNotificationQueueSize(4);
+        manager.setNotificationQueueFullPolicy(NotificationQueueFullPolicy.DISCARD);
+
+        for (int i = 0; i < 10; i++)
+        {
+            manager.fireNotification(new Event1(Integer.toString(i)));
+        }
+
+        assertThat(manager.getDiscardedNotifications(), is(6L));
+        assertThat(manager.getNotificationQueueDepth(), is(4));
+        assertThat(manager.getListenerLag(), is(new long[] {4}));
+
+        manager.start(workManager, null);
+        assertReceived(fastListener, 4);
+        assertReceived(slowListener, 4);
+        assertThat(fastListener.getIds(), is(list("0", "1", "2", "3")));
+    }
+
+    @Test
+    public void deliversNotificationsInFiringThreadWhenQueueIsFull() throws Exception
+    {
+        manager.setNotificationQueueSize(2);
+        manager.setNotificationQueueFullPolicy(NotificationQueueFullPolicy.RUN);
+        manager.start(workManager, null);
+
+        manager.fireNotification(new Event1(BLOCK));
+        manager.fireNotification(new Event1("1"));
+        manager.fireNotification(new Event1("2"));
+        int index = fastListener.getIds().indexOf("2");
+        assertThat(fastListener.getThreads().get(index), is(Thread.currentThread()));
+
+        slowListener.release();
+        assertReceived(fastListener, 3);
+    }
+
+    @Test
+    public void deliversNotificationsInFiringThreadWhenQueueIsFullBeforeStart() throws Exception
+    {
+        manager.setNotificationQueueSize(2);
+
+        for (int i = 0; i < 3; i++)
+        {
+            manager.fireNotification(new Event1(Integer.toString(i)));
+        }
+        assertThat(fastListener.getIds(), is(list("2")));
+
+        manager.start(workManager, null);
+        assertReceived(fastListener, 3);
+    }
+
+    private List<String> list(String... ids)
+    {
+        List<String> list = new ArrayList<String>();
+        Collections.addAll(list, ids);
+        return list;
+    }
+
+    private void assertReceived(final RecordingListener listener, final int count)
+    {
+        new PollingProber(TIMEOUT, 50).check(new JUnitProbe()
+        {
+            @Override
+            protected boolean test() throws Exception
+            {
+                return listener.getIds().size() == count;
+            }
+
+            @Override
+            public String describeFailure()
+            {
+                return "Expected " + count + " notifications but got " + listener.getIds().size();
+            }
+        });
+    }
+
+    private interface RecordingListener
+    {
+
+        List<String> getIds();
+    }
+
+    private static class Recorder
+    {
+
+        private final List<String> ids = new ArrayList<String>();
+        private final List<Thread> threads = new ArrayList<Thread>();
+
+        synchronized void record(ServerNotification notification)
+        {
+            ids.add(notification.getResourceIdentifier());
+            threads.add(Thread.currentThread());
+        }
+
+        synchronized List<String> getIds()
+        {
+            return new ArrayList<String>(ids);
+        }
+
+        synchronized List<Thread> getThreads()
+        {
+            return new ArrayList<Thread>(threads);
+        }
+    }
+
+    public static class SlowListener extends Listener1 implements RecordingListener
+    {
+
+        private final Recorder recorder = new Recorder();
+        private final CountDownLatch latch = new CountDownLatch(1);
+
+        @Override
+        public void onNotification(ServerNotification notification)
+        {
+            recorder.record(notification);
+            if (BLOCK.equals(notification.getResourceIdentifier()))
+            {
+                try
+                {
+                    latch.await(TIMEOUT, TimeUnit.MILLISECONDS);
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        void release()
+        {
+            latch.countDown();
+        }
+
+        @Override
+        public List<String> getIds()
+        {
+            return recorder.getIds();
+        }
+    }
+
+    public static class FastListener extends Listener2 implements RecordingListener
+    {
+
+        private final Recorder recorder = new Recorder();
+
+        @Override
+        public void onNotification(ServerNotification notification)
+        {
+            recorder.record(notification);
+        }
+
+        @Override
+        public List<String> getIds()
+        {
+            return recorder.getIds();
+        }
+
+        List<Thread> getThreads()
+        {
+            return recorder.getThreads();
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.el.mvel;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.notNullValue;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+import org.mule.DefaultMuleMessage;
+import org.mule.api.MuleEvent;
+import org.mule.api.MuleMessage;
+import org.mule.api.transport.PropertyScope;
+import org.mule.tck.junit4.AbstractMuleContextTestCase;
+import org.mule.transport.NullPayload;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class DirectAccessExpressionTestCase extends AbstractMuleContextTestCase
+{
+
+    private static final String[] DIRECT_ACCESS_EXPRESSIONS = {"payload", "#[payload]", "message.payload",
+        " flowVars.foo ", "flowVars['foo']", "flowVars[\"foo\"]", "flowVars['other key']", "flowVars['missing']",
+        "sessionVars.foo", "sessionVars['foo']", "message.inboundProperties['foo']",
+        "message.inboundProperties.foo", "message.outboundProperties['foo']", "message.outboundProperties.foo"};
+
+    private static final String[] OTHER_EXPRESSIONS = {"flowVars", "message", "payload.length()",
+        "payload = 'bar'", "message.id", "flowVars['foo'] == 'bar'", "flowVars['foo'] + flowVars['bar']",
+        "flowVars['foo']['bar']", "flowVars['fo\\'o']", "flowVars.foo.bar", "flowVars.empty", "flowVars.class",
+        "flowVarsX.foo", "message.inboundPropertiesX['foo']", "message.inboundAttachments['foo']", "#[payload"};
+
+    private MVELExpressionLanguage mvel;
+    private MuleEvent event;
+    private MuleMessage message;
+
+    @Before
+    public void setUpMessage() throws Exception
+    {
+        mvel = new MVELExpressionLanguage(muleContext);
+        mvel.initialise();
+
+        event = getTestEvent(TEST_MESSAGE);
+        message = event.getMessage();
+        message.setInvocationProperty("foo", "invocation");
+        message.setInvocationProperty("other key", "other");
+        message.setProperty("foo", "inbound", PropertyScope.INBOUND);
+        message.setOutboundProperty("foo", "outbound");
+        message.setSessionProperty("foo", "session");
+    }
+
+    @Test
+    public void parsesExpressionsThatOnlyReadTheMessage() throws Exception
+    {
+        for (String expression : DIRECT_ACCESS_EXPRESSIONS)
+        {
+            if (!expression.startsWith("#["))
+            {
+                assertThat(expression, DirectAccessExpression.parse(expression), notNullValue());
+            }
+        }
+    }
+
+    @Test
+    public void doesNotParseOtherExpressions() throws Exception
+    {
+        for (String expression : OTHER_EXPRESSIONS)
+        {
+            assertThat(expression, DirectAccessExpression.parse(expression), nullValue());
+        }
+    }
+
+    @Test
+    public void evaluatesLikeMvel() throws Exception
+    {
+        Map<String, Object> vars = new HashMap<String, Object>();
+        for (String expression : DIRECT_ACCESS_EXPRESSIONS)
+        {
+            // evaluating with variables always uses MVEL
+            Object expected = mvel.evaluate(expression, message, vars);
+            assertThat(expression, mvel.evaluate(expression, message), is(expected));
+        }
+    }
+
+    @Test
+    public void evaluatesLikeMvelWithEvent() throws Exception
+    {
+        Map<String, Object> vars = new HashMap<String, Object>();
+        for (String expression : DIRECT_ACCESS_EXPRESSIONS)
+        {
+            Object expected = mvel.evaluate(expression, event, vars);
+            assertThat(expression, mvel.evaluate(expression, event), is(expected));
+        }
+    }
+
+    @Test
+    public void evaluatesNullPayloadLikeMvel() throws Exception
+    {
+        MuleMessage nullMessage = new DefaultMuleMessage(NullPayload.getInstance(), muleContext);
+
+        assertThat(mvel.evaluate("payload", nullMessage), is((Object) NullPayload.getInstance()));
+        assertThat(mvel.evaluate("message.payload", nullMessage), nullValue());
+    }
+
+    @Test
+    public void variablesTakePrecedence() throws Exception
+    {
+        Map<String, Object> vars = Collections.<String, Object> singletonMap("payload", "var");
+
+        assertThat(mvel.<String> evaluate("payload", message, vars), is("var"));
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.lifecycle;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import org.mule.api.DefaultMuleException;
+import org.mule.api.MuleException;
+import org.mule.api.lifecycle.LifecycleException;
+import org.mule.api.lifecycle.LifecycleState;
+import org.mule.api.lifecycle.Startable;
+import org.mule.api.registry.MuleRegistry;
+import org.mule.api.transport.Connector;
+import org.mule.config.DefaultMuleConfiguration;
+import org.mule.tck.junit4.AbstractMuleContextTestCase;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class ConcurrentLifecycleTestCase extends AbstractMuleContextTestCase
+{
+
+    private static final int THREADS = 3;
+    private static final long TIMEOUT = 5000;
+
+    @Test
+    public void startsConnectorsConcurrently() throws Exception
+    {
+        setLifecycleThreads(THREADS);
+        final CountDownLatch allStarting = new CountDownLatch(THREADS);
+        final AtomicInteger started = new AtomicInteger();
+        registerConnectors(THREADS, new Answer<Object>()
+        {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable
+            {
+                allStarting.countDown();
+                // only completes if all the connectors are starting at the same time
+                if (allStarting.await(TIMEOUT, TimeUnit.MILLISECONDS))
+                {
+                    started.incrementAndGet();
+                }
+                return null;
+            }
+        });
+
+        muleContext.start();
+
+        assertThat(started.get(), is(THREADS));
+    }
+
+    @Test
+    public void startsConnectorsOneByOneByDefault() throws Exception
+    {
+        final Set<Thread> threads = Collections.synchronizedSet(new HashSet<Thread>());
+        registerConnectors(THREADS, new Answer<Object>()
+        {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable
+            {
+                threads.add(Thread.currentThread());
+                return null;
+            }
+        });
+
+        muleContext.start();
+
+        assertThat(threads, is(Collections.singleton(Thread.currentThread())));
+    }
+
+    @Test
+    public void propagatesStartFailure() throws Exception
+    {
+        setLifecycleThreads(THREADS);
+        final AtomicInteger attempts = new AtomicInteger();
+        registerConnectors(THREADS, new Answer<Object>()
+        {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable
+            {
+                if (attempts.incrementAndGet() == 1)
+                {
+                    throw new DefaultMuleException("Expected failure");
+                }
+                return null;
+            }
+        });
+
+        try
+        {
+            muleContext.start();
+            fail("Expected the start to fail");
+        }
+        catch (LifecycleException e)
+        {
+            // expected
+        }
+
+        // the failure is reported once all the connectors have been started
+        assertThat(attempts.get(), is(THREADS));
+        assertThat(muleContext.isStarted(), is(false));
+    }
+
+    private void setLifecycleThreads(int threads)
+    {
+        ((DefaultMuleConfiguration) muleContext.getConfiguration()).setLifecycleThreads(threads);
+    }
+
+    private void registerConnectors(int count, Answer<Object> onStart) throws MuleException
+    {
+        for (int i = 0; i < count; i++)
+        {
+            LifecycleState state = mock(LifecycleState.class);
+            when(state.isValidTransition(Startable.PHASE_NAME)).thenReturn(true);
+            Connector connector = mock(Connector.class);
+            when(connector.getLifecycleState()).thenReturn(state);
+            doAnswer(onStart).when(connector).start();
+            muleContext.getRegistry().registerObject("connector-" + i, connector, MuleRegistry.LIFECYCLE_BYPASS_FLAG);
+        }
+    }
+}
@@ -13,7 +13,11 @@ import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.Mockito.withSettings;
 
@@ -26,6 +30,7 @@ import org.mule.api.MuleEvent;
 import org.mule.api.MuleException;
 import org.mule.api.MuleMessage;
 import org.mule.api.config.MuleConfiguration;
+import org.mule.api.context.notification.ServerNotification;
 import org.mule.api.construct.FlowConstruct;
 import org.mule.api.construct.FlowConstructAware;
 import org.mule.api.context.MuleContextAware;
@@ -38,12 +43,17 @@ import org.mule.api.processor.MessageProcessorBuilder;
 import org.mule.api.processor.MessageProcessorChain;
 import org.mule.api.service.Service;
 import org.mule.construct.Flow;
+import org.mule.context.notification.MessageProcessorNotification;
+import org.mule.context.notification.ServerNotificationManager;
 import org.mule.processor.AbstractInterceptingMessageProcessor;
 import org.mule.tck.junit4.AbstractMuleTestCase;
 import org.mule.tck.size.SmallTest;
 import org.mule.transformer.simple.StringAppendTransformer;
 import org.mule.util.ObjectUtils;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
@@ -668,6 +678,53 @@ public class DefaultMessageProcessorChainTestCase extends AbstractMuleTestCase
         assertSame(event, response);
     }
 
+    @Test
+    public void skipsMessageProcessorNotificationsWhenDisabled() throws Exception
+    {
+        ServerNotificationManager notificationManager = mockNotificationManager(false);
+        MuleEvent event = getTestEventUsingFlow("0");
+        when(event.isNotificationsEnabled()).thenReturn(true);
+        when(((Flow) event.getFlowConstruct()).getProcessorPath(any(MessageProcessor.class))).thenReturn("/path");
+
+        MessageProcessorChain chain = new DefaultMessageProcessorChain(new AppendingMP("1"), new AppendingMP("2"));
+
+        assertEquals("012", chain.process(event).getMessage().getPayload());
+        verify(notificationManager, never()).fireNotification(any(ServerNotification.class));
+    }
+
+    @Test
+    public void firesMessageProcessorNotificationsWhenEnabled() throws Exception
+    {
+        ServerNotificationManager notificationManager = mockNotificationManager(true);
+        MuleEvent event = getTestEventUsingFlow("0");
+        when(event.isNotificationsEnabled()).thenReturn(true);
+        when(((Flow) event.getFlowConstruct()).getProcessorPath(any(MessageProcessor.class))).thenReturn("/path");
+
+        MessageProcessorChain chain = new DefaultMessageProcessorChain(new AppendingMP("1"), new AppendingMP("2"));
+
+        assertEquals("012", chain.process(event).getMessage().getPayload());
+        verify(notificationManager, times(4)).fireNotification(any(MessageProcessorNotification.class));
+    }
+
+    @Test
+    public void executesProcessorsAddedAfterFirstInvocation() throws Exception
+    {
+        MessageProcessorChain chain = new DefaultMessageProcessorChain(new ArrayList<MessageProcessor>(
+            Arrays.<MessageProcessor> asList(new AppendingMP("1"))));
+        assertEquals("01", chain.process(getTestEventUsingFlow("0")).getMessage().getPayload());
+
+        chain.getMessageProcessors().add(new AppendingMP("2"));
+        assertEquals("012", chain.process(getTestEventUsingFlow("0")).getMessage().getPayload());
+    }
+
+    private ServerNotificationManager mockNotificationManager(boolean messageProcessorNotificationsEnabled)
+    {
+        ServerNotificationManager notificationManager = mock(ServerNotificationManager.class);
+        when(notificationManager.isNotificationEnabled(MessageProcessorNotification.class)).thenReturn(messageProcessorNotificationsEnabled);
+        when(muleContext.getNotificationManager()).thenReturn(notificationManager);
+        return notificationManager;
+    }
+
     static class TestNonIntercepting implements MessageProcessor
     {
         public MuleEvent process(MuleEvent event) throws MuleException
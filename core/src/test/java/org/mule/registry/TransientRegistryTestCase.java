@@ -6,7 +6,9 @@
  */
 package org.mule.registry;
 
+import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
 import org.mule.api.MuleContext;
 import org.mule.api.context.MuleContextAware;
@@ -17,6 +19,7 @@ import org.mule.tck.junit4.AbstractMuleContextTestCase;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
@@ -254,6 +257,50 @@ public class TransientRegistryTestCase extends AbstractMuleContextTestCase
         }
     }
 
+    @Test
+    public void lookupByTypeFollowsRegistrations() throws Exception
+    {
+        TransientRegistry reg = new TransientRegistry(muleContext);
+        reg.registerObject("string", "value", MuleRegistry.LIFECYCLE_BYPASS_FLAG);
+        assertThat(reg.lookupByType(CharSequence.class).size(), is(1));
+
+        reg.registerObject("builder", new StringBuilder(), MuleRegistry.LIFECYCLE_BYPASS_FLAG);
+        reg.registerObject("number", 1, MuleRegistry.LIFECYCLE_BYPASS_FLAG);
+        Map<String, CharSequence> sequences = reg.lookupByType(CharSequence.class);
+        assertThat(sequences.size(), is(2));
+        assertThat(sequences.get("string"), is((CharSequence) "value"));
+
+        reg.unregisterObject("string", MuleRegistry.LIFECYCLE_BYPASS_FLAG);
+        assertThat(reg.lookupByType(CharSequence.class).keySet().iterator().next(), is("builder"));
+        assertThat(reg.lookupObjects(Integer.class).iterator().next(), is(1));
+    }
+
+    @Test
+    public void lookupByTypeFollowsReplacedObjects() throws Exception
+    {
+        TransientRegistry reg = new TransientRegistry(muleContext);
+        reg.registerObject("test", "value", MuleRegistry.LIFECYCLE_BYPASS_FLAG);
+        assertThat(reg.lookupObjects(String.class).size(), is(1));
+        assertThat(reg.lookupObjects(Integer.class).size(), is(0));
+
+        reg.registerObject("test", 1, MuleRegistry.LIFECYCLE_BYPASS_FLAG);
+
+        assertThat(reg.lookupObjects(String.class).size(), is(0));
+        assertThat(reg.lookupObjects(Integer.class).size(), is(1));
+    }
+
+    @Test
+    public void lookupByTypeResultsCanBeModified() throws Exception
+    {
+        TransientRegistry reg = new TransientRegistry(muleContext);
+        reg.registerObject("test", "value", MuleRegistry.LIFECYCLE_BYPASS_FLAG);
+
+        reg.lookupByType(String.class).clear();
+        reg.lookupObjects(String.class).clear();
+
+        assertThat(reg.lookupByType(String.class).size(), is(1));
+    }
+
     public class InterfaceBasedTracker extends AbstractLifecycleTracker
     {
         // no custom methods
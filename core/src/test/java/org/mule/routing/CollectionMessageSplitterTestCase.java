@@ -7,9 +7,11 @@
 package org.mule.routing;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -18,6 +20,8 @@ import static org.mockito.Mockito.when;
 import org.mule.DefaultMuleEvent;
 import org.mule.DefaultMuleMessage;
 import org.mule.VoidMuleEvent;
+import org.mule.api.Closeable;
+import org.mule.api.DefaultMuleException;
 import org.mule.api.MuleEvent;
 import org.mule.api.MuleException;
 import org.mule.api.MuleMessage;
@@ -33,6 +37,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -143,6 +148,43 @@ public class CollectionMessageSplitterTestCase extends AbstractMuleContextTestCa
         assertRouted(new IteratorMessageSequence<String>(TEST_LIST_SINGLE.iterator()), 1, false);
     }
 
+    @Test
+    public void closesIteratorPayloadWhenProcessingFails() throws Exception
+    {
+        CloseableIterator payload = new CloseableIterator(TEST_LIST_MULTIPLE.iterator());
+        Service fc = getTestService();
+        MuleMessage toSplit = new DefaultMuleMessage(payload, muleContext);
+        CollectionSplitter splitter = new CollectionSplitter();
+        splitter.setMuleContext(muleContext);
+        splitter.setListener(new MessageProcessor()
+        {
+            @Override
+            public MuleEvent process(MuleEvent event) throws MuleException
+            {
+                throw new DefaultMuleException("Expected failure");
+            }
+        });
+
+        try
+        {
+            splitter.process(new DefaultMuleEvent(toSplit, getTestInboundEndpoint("ep"), fc, getTestSession(fc, muleContext)));
+            fail("Processing was expected to fail");
+        }
+        catch (MuleException e)
+        {
+            // expected
+        }
+        assertTrue(payload.closed);
+    }
+
+    @Test
+    public void doesNotCloseConsumedIteratorPayload() throws Exception
+    {
+        CloseableIterator payload = new CloseableIterator(TEST_LIST_MULTIPLE.iterator());
+        assertRouted(payload, 3, false);
+        assertFalse(payload.closed);
+    }
+
     private void assertRouted(Object payload, int count, boolean counted) throws Exception, MuleException
     {
         Service fc = getTestService();
@@ -220,6 +262,41 @@ public class CollectionMessageSplitterTestCase extends AbstractMuleContextTestCa
         }
     }
 
+    private static class CloseableIterator implements Iterator<String>, Closeable
+    {
+        private final Iterator<String> delegate;
+        private boolean closed;
+
+        CloseableIterator(Iterator<String> delegate)
+        {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            return delegate.hasNext();
+        }
+
+        @Override
+        public String next()
+        {
+            return delegate.next();
+        }
+
+        @Override
+        public void remove()
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void close() throws MuleException
+        {
+            closed = true;
+        }
+    }
+
     private static class Grabber implements MessageProcessor
     {
         private List<MuleMessage> messages = new ArrayList<MuleMessage>();
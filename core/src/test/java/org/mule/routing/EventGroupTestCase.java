@@ -161,6 +161,39 @@ public class EventGroupTestCase extends AbstractMuleContextTestCase
         assertTrue(Arrays.equals(array1, array2));
     }
 
+    @Test
+    public void eventGroupKeepsArrivalOrder() throws Exception
+    {
+        EventGroup eg = new EventGroup(UUID.getUUID(), muleContext);
+        MuleEvent[] events = new MuleEvent[5];
+        for (int i = 0; i < events.length; i++)
+        {
+            events[i] = getTestEvent("foo" + i);
+            eg.addEvent(events[i]);
+        }
+
+        assertEquals(events.length, eg.size());
+        assertTrue(Arrays.equals(events, eg.toArray()));
+        assertEquals("foo0", eg.toMessageCollection().getMessage(0).getPayload());
+    }
+
+    @Test
+    public void eventGroupSizeIsUpdatedOnRemoval() throws Exception
+    {
+        EventGroup eg = new EventGroup(UUID.getUUID(), muleContext);
+        MuleEvent event = getTestEvent("foo1");
+        eg.addEvent(event);
+        eg.addEvent(getTestEvent("foo2"));
+
+        eg.removeEvent(event);
+
+        assertEquals(1, eg.size());
+        assertEquals("foo2", eg.toArray()[0].getMessage().getPayload());
+
+        eg.clear();
+        assertEquals(0, eg.size());
+    }
+
     @Test
     public void eventGroupConversionToString() throws Exception
     {
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.routing.correlation;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import org.mule.DefaultMuleEvent;
+import org.mule.DefaultMuleMessage;
+import org.mule.api.MuleEvent;
+import org.mule.api.MuleMessage;
+import org.mule.api.MuleMessageCollection;
+import org.mule.routing.MuleMessageInfoMapping;
+import org.mule.tck.junit4.AbstractMuleContextTestCase;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class ConcurrentEventCorrelatorTestCase extends AbstractMuleContextTestCase
+{
+
+    private static final int THREADS = 8;
+    private static final int GROUPS = 200;
+    private static final int GROUP_SIZE = 4;
+
+    @Test
+    public void correlatesConcurrentGroupsWithSingleLock() throws Exception
+    {
+        assertConcurrentGroupsAreCorrelated(1);
+    }
+
+    @Test
+    public void correlatesConcurrentGroupsWithStripedLocks() throws Exception
+    {
+        assertConcurrentGroupsAreCorrelated(EventCorrelator.DEFAULT_LOCK_STRIPES);
+    }
+
+    private void assertConcurrentGroupsAreCorrelated(int lockStripes) throws Exception
+    {
+        final EventCorrelator correlator = new EventCorrelator(
+                new CollectionCorrelatorCallback(muleContext, false, "concurrent"), null,
+                new MuleMessageInfoMapping(), muleContext, getTestService(), false, "concurrent", lockStripes);
+        final MuleEvent templateEvent = getTestEvent("template");
+        final Map<String, Integer> aggregatedGroups = new ConcurrentHashMap<String, Integer>();
+        final AtomicInteger failures = new AtomicInteger();
+        final CountDownLatch latch = new CountDownLatch(THREADS);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        for (int t = 0; t < THREADS; t++)
+        {
+            final int thread = t;
+            executor.execute(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        // every thread sends its share of the events of every group
+                        for (int group = 0; group < GROUPS; group++)
+                        {
+                            for (int sequence = thread; sequence < GROUP_SIZE; sequence += THREADS)
+                            {
+                                MuleEvent aggregated = correlator.process(createEvent(templateEvent, group, sequence));
+                                if (aggregated != null)
+                                {
+                                    int size = ((MuleMessageCollection) aggregated.getMessage()).size();
+                                    if (aggregatedGroups.put(aggregated.getMessage().getCorrelationId(), size) != null)
+                                    {
+                                        failures.incrementAndGet();
+                                    }
+                                }
+                            }
+                        }
+                    }
+                    catch (Exception e)
+                    {
+                        failures.incrementAndGet();
+                    }
+                    finally
+                    {
+                        latch.countDown();
+                    }
+                }
+            });
+        }
+        assertThat(latch.await(RECEIVE_TIMEOUT, TimeUnit.MILLISECONDS), is(true));
+        executor.shutdown();
+
+        assertThat(failures.get(), is(0));
+        assertThat(aggregatedGroups.size(), is(GROUPS));
+        for (Integer size : aggregatedGroups.values())
+        {
+            assertThat(size, is(GROUP_SIZE));
+        }
+        correlator.dispose();
+    }
+
+    private MuleEvent createEvent(MuleEvent templateEvent, int group, int sequence)
+    {
+        MuleMessage message = new DefaultMuleMessage("payload" + sequence, muleContext);
+        message.setCorrelationId("group" + group);
+        message.setCorrelationGroupSize(GROUP_SIZE);
+        message.setCorrelationSequence(sequence);
+        return new DefaultMuleEvent(message, templateEvent);
+    }
+}
@@ -11,6 +11,7 @@ import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.isA;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -50,6 +51,8 @@ public class EventCorrelatorTestCase extends AbstractMuleTestCase
 
     public static final String OBJECT_STOR_NAME_PREFIX = "prefix";
     public static final String TEST_GROUP_ID = "groupId";
+    public static final String OTHER_NODE_GROUP_ID = "otherNodeGroupId";
+    public static final long RECONCILIATION_INTERVAL = 100;
     public static final boolean USE_PERSISTENT_STORE = false;
 
     private static final Logger logger = LoggerFactory.getLogger(EventCorrelatorTestCase.class);
@@ -144,6 +147,57 @@ public class EventCorrelatorTestCase extends AbstractMuleTestCase
         }
     }
 
+    @Test
+    public void processesExpiredGroupStoredByOtherNode() throws Exception
+    {
+        when(mockMuleContext.isPrimaryPollingInstance()).thenReturn(true);
+        when(mockMuleContext.getClusterId()).thenReturn("cluster");
+        EventCorrelator eventCorrelator = createEventCorrelator();
+        eventCorrelator.setReconciliationInterval(RECONCILIATION_INTERVAL);
+        eventCorrelator.start();
+
+        try
+        {
+            assertGroupExpired(TEST_GROUP_ID, 1000);
+
+            // stored in the shared object store, so it is not scheduled by this node
+            EventGroup otherNodeGroup = mock(EventGroup.class, RETURNS_DEEP_STUBS);
+            when(otherNodeGroup.getGroupId()).thenReturn(OTHER_NODE_GROUP_ID);
+            memoryObjectStore.store(OTHER_NODE_GROUP_ID, otherNodeGroup);
+
+            assertGroupExpired(OTHER_NODE_GROUP_ID, 1000 + RECONCILIATION_INTERVAL);
+        }
+        finally
+        {
+            eventCorrelator.stop();
+            eventCorrelator.dispose();
+        }
+    }
+
+    @Test
+    public void doesNotScanStoredGroupsAgainOutOfCluster() throws Exception
+    {
+        when(mockMuleContext.isPrimaryPollingInstance()).thenReturn(true);
+        when(mockMuleContext.getClusterId()).thenReturn("");
+        memoryObjectStore = spy(memoryObjectStore);
+        EventCorrelator eventCorrelator = createEventCorrelator();
+        eventCorrelator.setReconciliationInterval(RECONCILIATION_INTERVAL);
+        eventCorrelator.start();
+
+        try
+        {
+            assertGroupExpired(TEST_GROUP_ID, 1000);
+            Thread.sleep(RECONCILIATION_INTERVAL * 3);
+
+            verify(memoryObjectStore, times(1)).allKeys();
+        }
+        finally
+        {
+            eventCorrelator.stop();
+            eventCorrelator.dispose();
+        }
+    }
+
     private void doExpiredGroupMonitoringTest(boolean primaryNode) throws Exception
     {
         when(mockMuleContext.isPrimaryPollingInstance()).thenReturn(primaryNode);
@@ -155,26 +209,7 @@ public class EventCorrelatorTestCase extends AbstractMuleTestCase
 
         try
         {
-            Prober prober = new PollingProber(1000, 50);
-            prober.check(new Probe() {
-                public boolean isSatisfied()
-                {
-                    try
-                    {
-                        return !memoryObjectStore.contains(TEST_GROUP_ID);
-                    }
-                    catch (ObjectStoreException e)
-                    {
-                        logger.debug("Could not access object store.");
-                        return false;
-                    }
-                }
-
-                public String describeFailure()
-                {
-                    return "Event group not expired.";
-                }
-            });
+            assertGroupExpired(TEST_GROUP_ID, 1000);
         }
         finally
         {
@@ -183,6 +218,30 @@ public class EventCorrelatorTestCase extends AbstractMuleTestCase
         }
     }
 
+    private void assertGroupExpired(final String groupId, long timeout)
+    {
+        Prober prober = new PollingProber(timeout, 50);
+        prober.check(new Probe() {
+            public boolean isSatisfied()
+            {
+                try
+                {
+                    return !memoryObjectStore.contains(groupId);
+                }
+                catch (ObjectStoreException e)
+                {
+                    logger.debug("Could not access object store.");
+                    return false;
+                }
+            }
+
+            public String describeFailure()
+            {
+                return "Event group not expired.";
+            }
+        });
+    }
+
     @Test
     public void avoidCreateMessageEventToGetExceptionListener() throws Exception
     {
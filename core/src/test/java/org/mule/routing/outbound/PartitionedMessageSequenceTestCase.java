@@ -6,6 +6,7 @@
  */
 package org.mule.routing.outbound;
 
+import org.mule.routing.MessageSequence;
 import org.mule.tck.size.SmallTest;
 
 import java.util.ArrayList;
@@ -53,6 +54,23 @@ public class PartitionedMessageSequenceTestCase
 
         assertFalse(pms.hasNext());
     }
+
+    @Test
+    public void keepsUnknownSizeOfWrappedSequence()
+    {
+        Collection<String> base = new ArrayList<String>();
+        base.add("one");
+        base.add("two");
+        base.add("three");
+
+        IteratorMessageSequence<String> ims = new IteratorMessageSequence<String>(base.iterator());
+        PartitionedMessageSequence<String> pms = new PartitionedMessageSequence<String>(ims, 2);
+        assertEquals(MessageSequence.UNKNOWN_SIZE, pms.size());
+
+        assertEquals(2, pms.next().size());
+        assertEquals(1, pms.next().size());
+        assertFalse(pms.hasNext());
+    }
 }
 
 
@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.serialization;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import org.mule.DefaultMuleMessage;
+import org.mule.api.MuleMessage;
+import org.mule.api.MuleSession;
+import org.mule.api.serialization.ObjectSerializer;
+import org.mule.api.transport.PropertyScope;
+import org.mule.session.DefaultMuleSession;
+import org.mule.tck.junit4.AbstractMuleContextTestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang.SerializationException;
+import org.junit.Test;
+
+/**
+ * This test verifies the contract described in {@link ObjectSerializer}
+ */
+public abstract class AbstractObjectSerializerContractTestCase extends AbstractMuleContextTestCase
+{
+
+    protected abstract ObjectSerializer createSerializer();
+
+    @Test
+    public void serializesMessageAndInitialisesItWithTheContext() throws Exception
+    {
+        DefaultMuleMessage message = new DefaultMuleMessage(TEST_MESSAGE, muleContext);
+        message.setProperty("amount", new BigDecimal("10.50"), PropertyScope.OUTBOUND);
+        message.setProperty("unit", TimeUnit.SECONDS, PropertyScope.INVOCATION);
+
+        ObjectSerializer serializer = createSerializer();
+        MuleMessage copy = serializer.deserialize(serializer.serialize(message));
+
+        assertThat(copy.getPayload(), is((Object) TEST_MESSAGE));
+        assertThat(copy.<BigDecimal>getOutboundProperty("amount"), is(new BigDecimal("10.50")));
+        assertThat(copy.<TimeUnit>getInvocationProperty("unit"), is(TimeUnit.SECONDS));
+        assertThat(copy.getMuleContext(), sameInstance(muleContext));
+    }
+
+    @Test
+    public void serializesSession() throws Exception
+    {
+        DefaultMuleSession session = new DefaultMuleSession();
+        session.setProperty("user", "john");
+
+        ObjectSerializer serializer = createSerializer();
+        MuleSession copy = serializer.deserialize(serializer.serialize(session));
+
+        assertThat(copy.getId(), is(session.getId()));
+        assertThat(copy.<String>getProperty("user"), is("john"));
+    }
+
+    @Test
+    public void keepsSharedReferences() throws Exception
+    {
+        Order order = new Order("pen", 2);
+        List<Order> orders = new ArrayList<Order>();
+        orders.add(order);
+        orders.add(order);
+
+        ObjectSerializer serializer = createSerializer();
+        List<Order> copy = serializer.deserialize(serializer.serialize(orders));
+
+        assertThat(copy.size(), is(2));
+        assertThat(copy.get(0).item, is("pen"));
+        assertThat(copy.get(0).quantity, is(2));
+        assertThat(copy.get(1), sameInstance(copy.get(0)));
+    }
+
+    @Test
+    public void serializesToStreams() throws Exception
+    {
+        ObjectSerializer serializer = createSerializer();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        serializer.serialize(new Order("book", 1), out);
+
+        Order copy = serializer.deserialize(new ByteArrayInputStream(out.toByteArray()));
+
+        assertThat(copy.item, is("book"));
+    }
+
+    @Test
+    public void loadsClassesWithTheGivenClassLoader() throws Exception
+    {
+        ObjectSerializer serializer = createSerializer();
+        byte[] bytes = serializer.serialize(new Order("pen", 1));
+        RecordingClassLoader classLoader = new RecordingClassLoader(getClass().getClassLoader());
+
+        Order copy = serializer.deserialize(bytes, classLoader);
+
+        assertThat(copy.item, is("pen"));
+        assertThat(classLoader.loadedClasses.contains(Order.class.getName()), is(true));
+    }
+
+    @Test
+    public void failsOnObjectsThatAreNotSerializable() throws Exception
+    {
+        try
+        {
+            createSerializer().serialize(new Object());
+            fail("Expected the serialization to fail");
+        }
+        catch (SerializationException expected)
+        {
+        }
+    }
+
+    @Test
+    public void failsOnCorruptedData() throws Exception
+    {
+        try
+        {
+            createSerializer().deserialize(new byte[] {1, 2, 3});
+            fail("Expected the deserialization to fail");
+        }
+        catch (SerializationException expected)
+        {
+        }
+    }
+
+    protected static class Order implements Serializable
+    {
+
+        private static final long serialVersionUID = 1L;
+
+        final String item;
+        final int quantity;
+
+        Order(String item, int quantity)
+        {
+            this.item = item;
+            this.quantity = quantity;
+        }
+    }
+
+    private static class RecordingClassLoader extends ClassLoader
+    {
+
+        private final Set<String> loadedClasses = new HashSet<String>();
+
+        RecordingClassLoader(ClassLoader parent)
+        {
+            super(parent);
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException
+        {
+            loadedClasses.add(name);
+            return super.loadClass(name, resolve);
+        }
+    }
+}
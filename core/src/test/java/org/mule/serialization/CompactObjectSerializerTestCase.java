@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.serialization;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.mule.DefaultMuleMessage;
+import org.mule.api.serialization.ObjectSerializer;
+import org.mule.api.transport.PropertyScope;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.commons.lang.SerializationException;
+import org.junit.Test;
+
+public class CompactObjectSerializerTestCase extends AbstractObjectSerializerContractTestCase
+{
+
+    @Override
+    protected ObjectSerializer createSerializer()
+    {
+        CompactObjectSerializer serializer = new CompactObjectSerializer();
+        serializer.setMuleContext(muleContext);
+        return serializer;
+    }
+
+    @Test
+    public void writesLessThanJavaSerialization() throws Exception
+    {
+        DefaultMuleMessage message = new DefaultMuleMessage(TEST_MESSAGE, muleContext);
+        message.setProperty("amount", 10, PropertyScope.OUTBOUND);
+
+        int compactSize = createSerializer().serialize(message).length;
+        int javaSize = new JavaObjectSerializer().serialize(message).length;
+
+        assertTrue(compactSize < javaSize);
+    }
+
+    @Test
+    public void writesRegisteredClassesAsNumbers() throws Exception
+    {
+        CompactObjectSerializer serializer = new CompactObjectSerializer();
+        int unregisteredSize = serializer.serialize(new Order("pen", 1)).length;
+
+        serializer.setRegisteredClasses(Collections.<Class<?>>singletonList(Order.class));
+        byte[] bytes = serializer.serialize(new Order("pen", 1));
+        Order copy = serializer.deserialize(bytes);
+
+        assertTrue(bytes.length < unregisteredSize);
+        assertThat(copy.item, is("pen"));
+        assertThat(serializer.getRegisteredClasses().size(), is(CompactObjectSerializer.DEFAULT_REGISTERED_CLASSES.size() + 1));
+    }
+
+    @Test
+    public void failsWhenReaderDoesNotRegisterTheClass() throws Exception
+    {
+        CompactObjectSerializer writer = new CompactObjectSerializer();
+        writer.setRegisteredClasses(Collections.<Class<?>>singletonList(Order.class));
+
+        try
+        {
+            new CompactObjectSerializer().deserialize(writer.serialize(new Order("pen", 1)));
+            fail("Expected the deserialization to fail");
+        }
+        catch (SerializationException expected)
+        {
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsClassesRegisteredTwice() throws Exception
+    {
+        new CompactObjectSerializer().setRegisteredClasses(Arrays.<Class<?>>asList(Order.class, Order.class));
+    }
+
+    @Test
+    public void serializesFromWriteObjectMethods() throws Exception
+    {
+        CompactObjectSerializer serializer = new CompactObjectSerializer();
+        Envelope envelope = new Envelope(serializer, new Order("pen", 4));
+
+        Envelope copy = serializer.deserialize(serializer.serialize(envelope));
+
+        assertThat(copy.order.quantity, is(4));
+        assertThat(serializer.<Order>deserialize(serializer.serialize(new Order("book", 1))).item, is("book"));
+    }
+
+    /**
+     * Serializes its content with the same serializer, as objects wrapping payloads do.
+     */
+    private static class Envelope implements Serializable
+    {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient ObjectSerializer serializer;
+        private transient Order order;
+
+        Envelope(ObjectSerializer serializer, Order order)
+        {
+            this.serializer = serializer;
+            this.order = order;
+        }
+
+        private void writeObject(ObjectOutputStream out) throws IOException
+        {
+            out.defaultWriteObject();
+            byte[] bytes = serializer.serialize(order);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+
+        private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException
+        {
+            in.defaultReadObject();
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            order = new CompactObjectSerializer().deserialize(bytes);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.serialization;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsInstanceOf.instanceOf;
+import static org.junit.Assert.assertThat;
+import org.mule.api.serialization.ObjectSerializer;
+import org.mule.util.SerializationUtils;
+
+import org.junit.Test;
+
+public class JavaObjectSerializerTestCase extends AbstractObjectSerializerContractTestCase
+{
+
+    @Override
+    protected ObjectSerializer createSerializer()
+    {
+        JavaObjectSerializer serializer = new JavaObjectSerializer();
+        serializer.setMuleContext(muleContext);
+        return serializer;
+    }
+
+    @Test
+    public void isTheDefaultSerializer() throws Exception
+    {
+        assertThat(muleContext.getObjectSerializer(), instanceOf(JavaObjectSerializer.class));
+    }
+
+    @Test
+    public void readsWhatSerializationUtilsWrites() throws Exception
+    {
+        Order order = createSerializer().deserialize(SerializationUtils.serialize(new Order("pen", 3)));
+
+        assertThat(order.quantity, is(3));
+    }
+}
@@ -7,9 +7,12 @@
 
 package org.mule.tck;
 
+import static org.mockito.Mockito.when;
 import org.mule.api.MuleContext;
+import org.mule.api.serialization.ObjectSerializer;
 import org.mule.api.store.ObjectStore;
 import org.mule.api.store.ObjectStoreException;
+import org.mule.serialization.JavaObjectSerializer;
 
 public abstract class SerializationTestUtils
 {
@@ -41,6 +44,18 @@ public abstract class SerializationTestUtils
         }
     }
 
+    /**
+     * Makes a mocked context return a {@link JavaObjectSerializer}, as the default configuration
+     * does.
+     */
+    public static ObjectSerializer addJavaSerializerToMockMuleContext(MuleContext muleContext)
+    {
+        JavaObjectSerializer serializer = new JavaObjectSerializer();
+        serializer.setMuleContext(muleContext);
+        when(muleContext.getObjectSerializer()).thenReturn(serializer);
+        return serializer;
+    }
+
     private static <T extends Exception> ObjectStore<T> getObjectStore(MuleContext muleContext)
     {
         return muleContext.getObjectStoreManager().getObjectStore("SerializationTestUtils", true);
@@ -62,12 +62,16 @@ public class GraphTransformerResolverTestCase extends AbstractMuleTestCase
     {
         doReturn(true).when(XML_DATA_TYPE).isCompatibleWith(XML_DATA_TYPE);
         doReturn(XML_CLASS.class).when(XML_DATA_TYPE).getType();
+        doReturn(XML_DATA_TYPE).when(XML_DATA_TYPE).cloneDataType();
         doReturn(true).when(JSON_DATA_TYPE).isCompatibleWith(JSON_DATA_TYPE);
         doReturn(JSON_CLASS.class).when(JSON_DATA_TYPE).getType();
+        doReturn(JSON_DATA_TYPE).when(JSON_DATA_TYPE).cloneDataType();
         doReturn(true).when(INPUT_STREAM_DATA_TYPE).isCompatibleWith(INPUT_STREAM_DATA_TYPE);
         doReturn(INPUT_STREAM_CLASS.class).when(INPUT_STREAM_DATA_TYPE).getType();
+        doReturn(INPUT_STREAM_DATA_TYPE).when(INPUT_STREAM_DATA_TYPE).cloneDataType();
         doReturn(true).when(STRING_DATA_TYPE).isCompatibleWith(STRING_DATA_TYPE);
         doReturn(STRING_CLASS.class).when(STRING_DATA_TYPE).getType();
+        doReturn(STRING_DATA_TYPE).when(STRING_DATA_TYPE).cloneDataType();
     }
 
     private GraphTransformerResolver graphResolver = new GraphTransformerResolver();
@@ -99,11 +103,46 @@ public class GraphTransformerResolverTestCase extends AbstractMuleTestCase
         Transformer transformer1 = graphResolver.resolve(INPUT_STREAM_DATA_TYPE, JSON_DATA_TYPE);
         assertNotNull(transformer1);
 
+        Converter inputStreamToJson = new MockConverterBuilder().named("inputStreamToJson").from(INPUT_STREAM_DATA_TYPE).to(JSON_DATA_TYPE).build();
+        graphResolver.transformerChange(inputStreamToJson, TransformerResolver.RegistryAction.ADDED);
+
+        Transformer transformer2 = graphResolver.resolve(INPUT_STREAM_DATA_TYPE, JSON_DATA_TYPE);
+        assertNotSame(transformer1, transformer2);
+        assertSame(inputStreamToJson, transformer2);
+    }
+
+    @Test
+    public void keepsCacheWhenAddsConverterNotInTheRoute() throws ResolverException
+    {
+        Converter xmlToJson = new MockConverterBuilder().named("xmlToJson").from(XML_DATA_TYPE).to(JSON_DATA_TYPE).build();
+        Converter inputStreamToXml = new MockConverterBuilder().named("inputStreamToXml").from(INPUT_STREAM_DATA_TYPE).to(XML_DATA_TYPE).build();
+
+        graphResolver.transformerChange(inputStreamToXml, TransformerResolver.RegistryAction.ADDED);
+        graphResolver.transformerChange(xmlToJson, TransformerResolver.RegistryAction.ADDED);
+
+        Transformer transformer1 = graphResolver.resolve(INPUT_STREAM_DATA_TYPE, JSON_DATA_TYPE);
+        assertNotNull(transformer1);
+
         Converter xmlToString = new MockConverterBuilder().named("xmlToString").from(XML_DATA_TYPE).to(STRING_DATA_TYPE).build();
         graphResolver.transformerChange(xmlToString, TransformerResolver.RegistryAction.ADDED);
 
         Transformer transformer2 = graphResolver.resolve(INPUT_STREAM_DATA_TYPE, JSON_DATA_TYPE);
-        assertNotSame(transformer1, transformer2);
+        assertSame(transformer1, transformer2);
+    }
+
+    @Test
+    public void clearsCachedMissWhenAddsConverter() throws ResolverException
+    {
+        Converter xmlToJson = new MockConverterBuilder().named("xmlToJson").from(XML_DATA_TYPE).to(JSON_DATA_TYPE).build();
+        graphResolver.transformerChange(xmlToJson, TransformerResolver.RegistryAction.ADDED);
+
+        assertNull(graphResolver.resolve(STRING_DATA_TYPE, JSON_DATA_TYPE));
+
+        Converter stringToXml = new MockConverterBuilder().named("stringToXml").from(STRING_DATA_TYPE).to(XML_DATA_TYPE).build();
+        graphResolver.transformerChange(stringToXml, TransformerResolver.RegistryAction.ADDED);
+
+        Transformer transformer = graphResolver.resolve(STRING_DATA_TYPE, JSON_DATA_TYPE);
+        assertTrue(transformer instanceof CompositeConverter);
     }
 
     @Test
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transformer.types;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNot.not;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.junit.Assert.assertThat;
+import org.mule.api.transformer.DataType;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import java.io.InputStream;
+
+import org.junit.Test;
+
+@SmallTest
+public class DataTypePairTestCase extends AbstractMuleTestCase
+{
+
+    @Test
+    public void matchesEqualDataTypes() throws Exception
+    {
+        DataTypePair pair = new DataTypePair(DataTypeFactory.create(String.class, MimeTypes.JSON), DataTypeFactory.INPUT_STREAM);
+        DataTypePair other = new DataTypePair(DataTypeFactory.JSON_STRING, DataTypeFactory.create(InputStream.class));
+
+        assertThat(pair, is(other));
+        assertThat(pair.hashCode(), is(other.hashCode()));
+    }
+
+    @Test
+    public void doesNotMatchWildcardMimeType() throws Exception
+    {
+        DataTypePair pair = new DataTypePair(DataTypeFactory.create(String.class), DataTypeFactory.INPUT_STREAM);
+        DataTypePair other = new DataTypePair(DataTypeFactory.TEXT_STRING, DataTypeFactory.INPUT_STREAM);
+
+        assertThat(pair, not(other));
+        assertThat(other, not(pair));
+    }
+
+    @Test
+    public void doesNotMatchDifferentEncoding() throws Exception
+    {
+        DataTypePair pair = new DataTypePair(DataTypeFactory.createWithEncoding(String.class, "UTF-8"), DataTypeFactory.INPUT_STREAM);
+        DataTypePair other = new DataTypePair(DataTypeFactory.createWithEncoding(String.class, "UTF-16"), DataTypeFactory.INPUT_STREAM);
+
+        assertThat(pair, not(other));
+    }
+
+    @Test
+    public void copyIsNotAffectedByChangesInTheDataTypes() throws Exception
+    {
+        DataType<String> source = DataTypeFactory.create(String.class);
+        DataTypePair pair = new DataTypePair(source, DataTypeFactory.INPUT_STREAM);
+        DataTypePair copy = pair.copy();
+
+        source.setMimeType(MimeTypes.XML);
+
+        assertThat(copy, not(pair));
+        assertThat(copy, is(new DataTypePair(DataTypeFactory.create(String.class), DataTypeFactory.INPUT_STREAM)));
+    }
+
+    @Test
+    public void copyKeepsImmutableDataTypes() throws Exception
+    {
+        DataType<String> immutable = DataTypeFactory.createImmutable(String.class);
+        DataTypePair pair = new DataTypePair(immutable, DataTypeFactory.INPUT_STREAM);
+
+        DataTypePair copy = pair.copy();
+
+        assertThat(copy.getSource(), sameInstance((Object) immutable));
+        assertThat(copy, is(pair));
+    }
+}
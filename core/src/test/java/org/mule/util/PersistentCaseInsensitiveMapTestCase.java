@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.util;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.apache.commons.lang.SerializationUtils;
+import org.junit.Test;
+
+@SmallTest
+public class PersistentCaseInsensitiveMapTestCase extends AbstractMuleTestCase
+{
+
+    // different keys with the same case-insensitive hash
+    private static final String COLLIDING_KEY1 = "a~";
+    private static final String COLLIDING_KEY2 = "B_";
+
+    @Test
+    public void caseInsensitive() throws Exception
+    {
+        assertMapContents(createTestMap());
+    }
+
+    @Test
+    public void keepsCaseOfFirstKey() throws Exception
+    {
+        PersistentCaseInsensitiveMap<Object> map = createTestMap();
+        map.put("foo", "OTHER");
+
+        assertThat(map.size(), is(2));
+        assertThat(new HashSet<String>(map.keySet()), is(new HashSet<String>(Arrays.asList("FOO", "doo"))));
+        assertThat(map.get("Foo"), is((Object) "OTHER"));
+    }
+
+    @Test
+    public void cloneIsIndependent() throws Exception
+    {
+        PersistentCaseInsensitiveMap<Object> original = createTestMap();
+        PersistentCaseInsensitiveMap<Object> copy = original.clone();
+
+        original.put("newOriginal", "val");
+        original.remove("doo");
+        copy.put("newCopy", "val");
+        copy.put("foo", "OTHER");
+
+        assertThat(original.size(), is(2));
+        assertThat(original.get("FOO"), is((Object) "BAR"));
+        assertThat(original.containsKey("DOO"), is(false));
+        assertThat(original.containsKey("newCopy"), is(false));
+
+        assertThat(copy.size(), is(3));
+        assertThat(copy.get("FOO"), is((Object) "OTHER"));
+        assertThat(copy.get("DOO"), is((Object) 3));
+        assertThat(copy.containsKey("newOriginal"), is(false));
+    }
+
+    @Test
+    public void collidingKeys() throws Exception
+    {
+        assertThat(PersistentCaseInsensitiveMap.hash(COLLIDING_KEY1), is(PersistentCaseInsensitiveMap.hash(COLLIDING_KEY2)));
+
+        PersistentCaseInsensitiveMap<Object> map = new PersistentCaseInsensitiveMap<Object>();
+        map.put(COLLIDING_KEY1, 1);
+        map.put(COLLIDING_KEY2, 2);
+        map.put(COLLIDING_KEY2.toLowerCase(), 3);
+
+        assertThat(map.size(), is(2));
+        assertThat(map.get(COLLIDING_KEY1.toUpperCase()), is((Object) 1));
+        assertThat(map.get(COLLIDING_KEY2), is((Object) 3));
+
+        assertThat(map.remove(COLLIDING_KEY1), is((Object) 1));
+        assertThat(map.get(COLLIDING_KEY1), nullValue());
+        assertThat(map.get(COLLIDING_KEY2), is((Object) 3));
+        assertThat(map.size(), is(1));
+    }
+
+    @Test
+    public void keySetRemovesFromMap() throws Exception
+    {
+        PersistentCaseInsensitiveMap<Object> map = createTestMap();
+        PersistentCaseInsensitiveMap<Object> copy = map.clone();
+
+        assertThat(map.keySet().remove("foo"), is(true));
+        assertThat(map.keySet().remove("foo"), is(false));
+        assertThat(map.size(), is(1));
+
+        for (Iterator<String> iterator = map.keySet().iterator(); iterator.hasNext();)
+        {
+            iterator.next();
+            iterator.remove();
+        }
+        assertThat(map.isEmpty(), is(true));
+        assertThat(copy.size(), is(2));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void entrySetIsUnmodifiable() throws Exception
+    {
+        createTestMap().entrySet().iterator().next().setValue("OTHER");
+    }
+
+    @Test
+    public void serialize() throws Exception
+    {
+        PersistentCaseInsensitiveMap<Object> map = createTestMap().clone();
+        map.put("new", "val");
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> deserialized = (Map<String, Object>) SerializationUtils.deserialize(SerializationUtils.serialize((Serializable) map));
+
+        assertMapContents(deserialized);
+        assertThat(deserialized.get("NEW"), is((Object) "val"));
+        assertThat(deserialized, is((Map<String, Object>) map));
+    }
+
+    @Test
+    public void behavesAsCaseInsensitiveTreeMap() throws Exception
+    {
+        Random random = new Random(42);
+        List<PersistentCaseInsensitiveMap<Object>> maps = new ArrayList<PersistentCaseInsensitiveMap<Object>>();
+        List<TreeMap<String, Object>> expectedMaps = new ArrayList<TreeMap<String, Object>>();
+        maps.add(new PersistentCaseInsensitiveMap<Object>());
+        expectedMaps.add(new TreeMap<String, Object>(String.CASE_INSENSITIVE_ORDER));
+
+        for (int i = 0; i < 20000; i++)
+        {
+            int index = random.nextInt(maps.size());
+            PersistentCaseInsensitiveMap<Object> map = maps.get(index);
+            TreeMap<String, Object> expected = expectedMaps.get(index);
+            String key = randomKey(random);
+            int operation = random.nextInt(10);
+            if (operation < 6)
+            {
+                assertThat(map.put(key, i), is(expected.put(key, i)));
+            }
+            else if (operation < 9)
+            {
+                assertThat(map.remove(key), is(expected.remove(key)));
+            }
+            else if (maps.size() < 16)
+            {
+                maps.add(map.clone());
+                expectedMaps.add(new TreeMap<String, Object>(expected));
+            }
+            assertThat(map.get(key), is(expected.get(key)));
+        }
+
+        for (int i = 0; i < maps.size(); i++)
+        {
+            assertThat(maps.get(i).size(), is(expectedMaps.get(i).size()));
+            for (Map.Entry<String, Object> entry : maps.get(i).entrySet())
+            {
+                assertThat(entry.getValue(), is(expectedMaps.get(i).get(entry.getKey())));
+            }
+        }
+    }
+
+    private String randomKey(Random random)
+    {
+        StringBuilder key = new StringBuilder();
+        int length = 1 + random.nextInt(3);
+        for (int i = 0; i < length; i++)
+        {
+            key.append("aBc~_".charAt(random.nextInt(5)));
+        }
+        return key.toString();
+    }
+
+    private void assertMapContents(Map<String, Object> map)
+    {
+        assertThat(map.get("FOO"), is((Object) "BAR"));
+        assertThat(map.get("foo"), is((Object) "BAR"));
+        assertThat(map.get("Foo"), is((Object) "BAR"));
+
+        assertThat(map.get("DOO"), is((Object) 3));
+        assertThat(map.get("doo"), is((Object) 3));
+        assertThat(map.get("Doo"), is((Object) 3));
+    }
+
+    private PersistentCaseInsensitiveMap<Object> createTestMap()
+    {
+        PersistentCaseInsensitiveMap<Object> map = new PersistentCaseInsensitiveMap<Object>();
+        map.put("FOO", "BAR");
+        map.put("doo", 3);
+        return map;
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.util;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+import org.mule.util.monitor.Expirable;
+import org.mule.util.monitor.TimingWheel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+@SmallTest
+public class TimingWheelTestCase extends AbstractMuleTestCase
+{
+
+    private static final Expirable EXPIRABLE = new Expirable()
+    {
+        @Override
+        public void expired()
+        {
+        }
+    };
+
+    private final TimingWheel timingWheel = new TimingWheel(1, TimeUnit.MILLISECONDS);
+
+    @Test
+    public void expiresAfterDelay() throws Exception
+    {
+        TimingWheel.Timeout timeout = timingWheel.schedule(EXPIRABLE, 50, TimeUnit.MILLISECONDS);
+
+        assertThat(timingWheel.expireTimeouts().isEmpty(), is(true));
+        Thread.sleep(100);
+
+        List<TimingWheel.Timeout> expired = timingWheel.expireTimeouts();
+        assertThat(expired.size(), is(1));
+        assertThat(expired.get(0).getExpirable(), is(EXPIRABLE));
+        assertThat(timeout.isExpired(), is(true));
+        assertThat(timingWheel.size(), is(0));
+    }
+
+    @Test
+    public void expiresNonPositiveDelaysOnNextTick() throws Exception
+    {
+        timingWheel.schedule(EXPIRABLE, -10, TimeUnit.MILLISECONDS);
+        timingWheel.schedule(EXPIRABLE, 0, TimeUnit.MILLISECONDS);
+        Thread.sleep(5);
+
+        assertThat(timingWheel.expireTimeouts().size(), is(2));
+    }
+
+    @Test
+    public void cancelledTimeoutDoesNotExpire() throws Exception
+    {
+        TimingWheel.Timeout timeout = timingWheel.schedule(EXPIRABLE, 10, TimeUnit.MILLISECONDS);
+
+        assertThat(timeout.cancel(), is(true));
+        Thread.sleep(50);
+
+        assertThat(timingWheel.expireTimeouts().isEmpty(), is(true));
+        assertThat(timeout.cancel(), is(false));
+        assertThat(timeout.isCancelled(), is(true));
+        assertThat(timingWheel.size(), is(0));
+    }
+
+    @Test
+    public void resetPostponesExpiration() throws Exception
+    {
+        TimingWheel.Timeout timeout = timingWheel.schedule(EXPIRABLE, 100, TimeUnit.MILLISECONDS);
+        Thread.sleep(60);
+        timeout.reset();
+        Thread.sleep(60);
+
+        assertThat(timingWheel.expireTimeouts().isEmpty(), is(true));
+        Thread.sleep(100);
+        assertThat(timingWheel.expireTimeouts().size(), is(1));
+    }
+
+    @Test
+    public void expiresTimeoutsCascadedFromUpperLevels() throws Exception
+    {
+        List<TimingWheel.Timeout> timeouts = new ArrayList<TimingWheel.Timeout>();
+        for (int delay = 0; delay < 300; delay += 3)
+        {
+            timeouts.add(timingWheel.schedule(EXPIRABLE, delay, TimeUnit.MILLISECONDS));
+        }
+        timingWheel.schedule(EXPIRABLE, 1, TimeUnit.DAYS);
+
+        int expired = 0;
+        long end = System.currentTimeMillis() + 400;
+        while (System.currentTimeMillis() < end)
+        {
+            expired += timingWheel.expireTimeouts().size();
+            Thread.sleep(5);
+        }
+
+        assertThat(expired, is(timeouts.size()));
+        for (TimingWheel.Timeout timeout : timeouts)
+        {
+            assertThat(timeout.isExpired(), is(true));
+        }
+        assertThat(timingWheel.size(), is(1));
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.util.journal.queue;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.mule.tck.junit4.AbstractMuleContextTestCase;
+import org.mule.util.journal.GroupCommitJournalWriter;
+import org.mule.util.journal.GroupCommitStatistics;
+import org.mule.util.queue.DefaultQueueStore;
+
+import com.google.common.collect.Multimap;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Answers;
+
+public class GroupCommitTransactionJournalTestCase extends AbstractMuleContextTestCase
+{
+
+    private static final String QUEUE_NAME = "queueName";
+    private static final String SOME_VALUE = "some value";
+    private static final int THREADS = 8;
+    private static final int TRANSACTIONS_PER_THREAD = 50;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private DefaultQueueStore mockQueueInfo = mock(DefaultQueueStore.class, Answers.RETURNS_DEEP_STUBS.get());
+
+    @Before
+    public void setUpMocks()
+    {
+        when(mockQueueInfo.getName()).thenReturn(QUEUE_NAME);
+    }
+
+    @Test
+    public void concurrentCommitsAreWrittenInBatches() throws Exception
+    {
+        // a batch is only written once every thread enqueued the entries of its transaction, so
+        // the entries of concurrent commits are always written together
+        final LocalTxQueueTransactionJournal transactionJournal = createJournal(THREADS * 2, RECEIVE_TIMEOUT);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch latch = new CountDownLatch(THREADS);
+        for (int i = 0; i < THREADS; i++)
+        {
+            final int thread = i;
+            executor.execute(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        start.await();
+                    }
+                    catch (InterruptedException e)
+                    {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    for (int j = 0; j < TRANSACTIONS_PER_THREAD; j++)
+                    {
+                        int txId = thread * TRANSACTIONS_PER_THREAD + j;
+                        transactionJournal.logAdd(txId, mockQueueInfo, SOME_VALUE);
+                        transactionJournal.logCommit(txId);
+                    }
+                    latch.countDown();
+                }
+            });
+        }
+        start.countDown();
+        assertThat(latch.await(RECEIVE_TIMEOUT * TRANSACTIONS_PER_THREAD, TimeUnit.MILLISECONDS), is(true));
+        executor.shutdown();
+
+        GroupCommitStatistics statistics = transactionJournal.getGroupCommitStatistics();
+        assertThat(statistics.getEntryCount(), is((long) THREADS * TRANSACTIONS_PER_THREAD * 2));
+        assertThat(statistics.getBatchCount() < statistics.getEntryCount(), is(true));
+        transactionJournal.close();
+
+        LocalTxQueueTransactionJournal reloadedJournal = createJournal();
+        try
+        {
+            Multimap<Integer, LocalQueueTxJournalEntry> allEntries = reloadedJournal.getAllLogEntries();
+            assertThat(allEntries.keySet().size(), is(THREADS * TRANSACTIONS_PER_THREAD));
+            for (Integer txId : allEntries.keySet())
+            {
+                assertThat(allEntries.get(txId).size(), is(2));
+            }
+        }
+        finally
+        {
+            reloadedJournal.close();
+        }
+    }
+
+    @Test
+    public void pendingEntriesAreWrittenOnClose() throws Exception
+    {
+        LocalTxQueueTransactionJournal transactionJournal = createJournal();
+        transactionJournal.logAdd(1, mockQueueInfo, SOME_VALUE);
+        transactionJournal.logRemove(1, mockQueueInfo, SOME_VALUE);
+        transactionJournal.close();
+
+        LocalTxQueueTransactionJournal reloadedJournal = createJournal();
+        try
+        {
+            Multimap<Integer, LocalQueueTxJournalEntry> allEntries = reloadedJournal.getAllLogEntries();
+            assertThat(allEntries.get(1).size(), is(2));
+        }
+        finally
+        {
+            reloadedJournal.close();
+        }
+    }
+
+    private LocalTxQueueTransactionJournal createJournal()
+    {
+        return createJournal(16, 1);
+    }
+
+    private LocalTxQueueTransactionJournal createJournal(int maxBatchSize, long maxBatchDelay)
+    {
+        GroupCommitJournalWriter writer = new GroupCommitJournalWriter("test.journal.writer", 64, maxBatchSize, maxBatchDelay);
+        return new LocalTxQueueTransactionJournal(temporaryFolder.getRoot().getAbsolutePath(), muleContext, writer);
+    }
+}
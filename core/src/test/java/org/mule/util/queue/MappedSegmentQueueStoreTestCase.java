@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.util.queue;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.hamcrest.core.StringContains.containsString;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assume.assumeThat;
+
+import org.mule.api.MuleContext;
+
+import java.io.File;
+import java.io.Serializable;
+
+import org.apache.commons.io.FileUtils;
+
+import org.junit.Test;
+
+public class MappedSegmentQueueStoreTestCase extends QueueStoreTestCase
+{
+
+    private static final int SMALL_SEGMENT_SIZE = 1024;
+    private static int queueCounter;
+
+    private final String queueName = "mappedQueue" + queueCounter++;
+
+    @Override
+    protected QueueStore createQueueInfoDelegate(int capacity, MuleContext muleContext)
+    {
+        return new DefaultQueueStore(queueName, muleContext, new MappedSegmentQueueConfiguration(capacity));
+    }
+
+    @Test
+    public void elementsAreRecoveredAfterClose() throws Exception
+    {
+        MappedSegmentQueueStoreDelegate queue = createSmallSegmentsQueue();
+        for (int i = 0; i < NUMBER_OF_ITEMS * 10; i++)
+        {
+            queue.offer(VALUE + i, 0, OFFER_TIMEOUT);
+        }
+        for (int i = 0; i < NUMBER_OF_ITEMS; i++)
+        {
+            assertThat((String) queue.poll(SHORT_POLL_TIMEOUT), is(VALUE + i));
+        }
+        queue.close();
+
+        queue = createSmallSegmentsQueue();
+        assertThat(queue.getSize(), is(NUMBER_OF_ITEMS * 9));
+        for (int i = NUMBER_OF_ITEMS; i < NUMBER_OF_ITEMS * 10; i++)
+        {
+            assertThat((String) queue.poll(SHORT_POLL_TIMEOUT), is(VALUE + i));
+        }
+        assertThat(queue.poll(SHORT_POLL_TIMEOUT), nullValue());
+        queue.dispose();
+    }
+
+    @Test
+    public void untakenElementsAreRecoveredFirst() throws Exception
+    {
+        MappedSegmentQueueStoreDelegate queue = createSmallSegmentsQueue();
+        queue.offer(VALUE, 0, OFFER_TIMEOUT);
+        queue.untake(ANOTHER_VALUE);
+        queue.close();
+
+        queue = createSmallSegmentsQueue();
+        assertThat(queue.getSize(), is(2));
+        assertThat((String) queue.poll(SHORT_POLL_TIMEOUT), is(ANOTHER_VALUE));
+        assertThat((String) queue.poll(SHORT_POLL_TIMEOUT), is(VALUE));
+        queue.dispose();
+    }
+
+    @Test
+    public void consumedSegmentsAreRecycled() throws Exception
+    {
+        MappedSegmentQueueStoreDelegate queue = createSmallSegmentsQueue();
+        for (int round = 0; round < 5; round++)
+        {
+            for (int i = 0; i < NUMBER_OF_ITEMS * 10; i++)
+            {
+                queue.offer(VALUE + i, 0, OFFER_TIMEOUT);
+            }
+            while (queue.poll(SHORT_POLL_TIMEOUT) != null)
+            {
+                // consume everything
+            }
+        }
+        File directory = MappedSegmentQueueStoreDelegate.getSegmentsDirectory(queueName, temporaryFolder.getRoot().getAbsolutePath());
+        int maxFiles = MappedSegmentQueueConfiguration.DEFAULT_MAX_FREE_SEGMENTS + 2;
+        assertThat(directory.list().length <= maxFiles, is(true));
+        queue.dispose();
+    }
+
+    @Test
+    public void removeAndContains() throws Exception
+    {
+        MappedSegmentQueueStoreDelegate queue = createSmallSegmentsQueue();
+        queue.offer(VALUE, 0, OFFER_TIMEOUT);
+        queue.offer(ANOTHER_VALUE, 0, OFFER_TIMEOUT);
+        assertThat(queue.contains(ANOTHER_VALUE), is(true));
+        queue.remove(VALUE);
+        assertThat(queue.contains(VALUE), is(false));
+        assertThat(queue.getSize(), is(1));
+        assertThat((String) queue.poll(SHORT_POLL_TIMEOUT), is(ANOTHER_VALUE));
+        queue.dispose();
+    }
+
+    @Test
+    public void elementsBiggerThanSegmentSize() throws Exception
+    {
+        MappedSegmentQueueStoreDelegate queue = createSmallSegmentsQueue();
+        Serializable bigValue = new byte[SMALL_SEGMENT_SIZE * 3];
+        queue.offer(VALUE, 0, OFFER_TIMEOUT);
+        queue.offer(bigValue, 0, OFFER_TIMEOUT);
+        queue.offer(ANOTHER_VALUE, 0, OFFER_TIMEOUT);
+        assertThat((String) queue.poll(SHORT_POLL_TIMEOUT), is(VALUE));
+        assertThat(((byte[]) queue.poll(SHORT_POLL_TIMEOUT)).length, is(SMALL_SEGMENT_SIZE * 3));
+        assertThat((String) queue.poll(SHORT_POLL_TIMEOUT), is(ANOTHER_VALUE));
+        queue.dispose();
+    }
+
+    @Test
+    public void closeReleasesMappedFiles() throws Exception
+    {
+        File maps = new File("/proc/self/maps");
+        assumeThat(maps.exists(), is(true));
+        File directory = MappedSegmentQueueStoreDelegate.getSegmentsDirectory(queueName, temporaryFolder.getRoot().getAbsolutePath());
+
+        MappedSegmentQueueStoreDelegate queue = createSmallSegmentsQueue();
+        for (int i = 0; i < NUMBER_OF_ITEMS * 10; i++)
+        {
+            queue.offer(VALUE + i, 0, OFFER_TIMEOUT);
+        }
+        assertThat(FileUtils.readFileToString(maps), containsString(directory.getAbsolutePath()));
+
+        queue.close();
+        assertThat(FileUtils.readFileToString(maps).contains(directory.getAbsolutePath()), is(false));
+        queue.dispose();
+        assertThat(directory.exists(), is(false));
+    }
+
+    @Test
+    public void closeIsIgnoredOnceClosed() throws Exception
+    {
+        MappedSegmentQueueStoreDelegate queue = createSmallSegmentsQueue();
+        queue.offer(VALUE, 0, OFFER_TIMEOUT);
+        queue.close();
+        queue.close();
+
+        queue = createSmallSegmentsQueue();
+        assertThat((String) queue.poll(SHORT_POLL_TIMEOUT), is(VALUE));
+        queue.dispose();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void cannotBeUsedOnceClosed() throws Exception
+    {
+        MappedSegmentQueueStoreDelegate queue = createSmallSegmentsQueue();
+        queue.close();
+        try
+        {
+            queue.offer(VALUE, 0, OFFER_TIMEOUT);
+        }
+        finally
+        {
+            queue.dispose();
+        }
+    }
+
+    private MappedSegmentQueueStoreDelegate createSmallSegmentsQueue()
+    {
+        MappedSegmentQueueConfiguration configuration = new MappedSegmentQueueConfiguration(0, SMALL_SEGMENT_SIZE, 1, 0, MappedSegmentQueueConfiguration.DEFAULT_MAX_FREE_SEGMENTS);
+        return new MappedSegmentQueueStoreDelegate(queueName, temporaryFolder.getRoot().getAbsolutePath(), muleContext, configuration);
+    }
+}
@@ -11,6 +11,7 @@ import static org.hamcrest.core.IsNull.nullValue;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
+import static org.mule.tck.SerializationTestUtils.addJavaSerializerToMockMuleContext;
 import static org.mule.util.queue.QueueConfiguration.MAXIMUM_CAPACITY;
 
 import org.mule.api.MuleContext;
@@ -157,6 +158,7 @@ public abstract class QueueStoreTestCase extends AbstractMuleContextTestCase
         MuleContext mockMuleContext = mock(MuleContext.class, Answers.RETURNS_DEEP_STUBS.get());
         when(mockMuleContext.getConfiguration().getWorkingDirectory()).thenReturn(temporaryFolder.getRoot().getAbsolutePath());
         when(mockMuleContext.getExecutionClassLoader()).thenReturn(muleContext.getExecutionClassLoader());
+        addJavaSerializerToMockMuleContext(mockMuleContext);
         QueueStore queue = createQueueInfoDelegate(capacity, mockMuleContext);
         return queue;
     }
@@ -0,0 +1,336 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.util.store;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.when;
+import static org.mule.api.store.ObjectStoreManager.UNBOUNDED;
+import static org.mule.tck.SerializationTestUtils.addJavaSerializerToMockMuleContext;
+import org.mule.api.MuleContext;
+import org.mule.api.store.ObjectAlreadyExistsException;
+import org.mule.api.store.ObjectDoesNotExistException;
+import org.mule.api.store.ObjectStoreException;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import org.apache.commons.io.filefilter.SuffixFileFilter;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+@SmallTest
+@RunWith(MockitoJUnitRunner.class)
+public class LogStructuredObjectStorePartitionTestCase extends AbstractMuleTestCase
+{
+
+    private static final String VALUE = "value";
+
+    @Rule
+    public TemporaryFolder objectStoreFolder = new TemporaryFolder();
+
+    @Mock
+    private MuleContext muleContext;
+
+    // maintenance is run explicitly by the tests
+    private final Executor maintenanceExecutor = new Executor()
+    {
+        @Override
+        public void execute(Runnable command)
+        {
+        }
+    };
+
+    private LogStructuredObjectStorePartition<Serializable> partition;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        when(muleContext.getExecutionClassLoader()).thenReturn(getClass().getClassLoader());
+        addJavaSerializerToMockMuleContext(muleContext);
+        partition = new LogStructuredObjectStorePartition<Serializable>(muleContext, "test", objectStoreFolder.getRoot(), maintenanceExecutor);
+        partition.open();
+    }
+
+    @Test
+    public void storeRetrieveAndRemove() throws Exception
+    {
+        partition.store("key", VALUE);
+
+        assertThat(partition.contains("key"), is(true));
+        assertThat(partition.retrieve("key"), is((Serializable) VALUE));
+        assertThat(partition.remove("key"), is((Serializable) VALUE));
+        assertThat(partition.contains("key"), is(false));
+        assertThat(partition.allKeys().isEmpty(), is(true));
+    }
+
+    @Test(expected = ObjectAlreadyExistsException.class)
+    public void storeExistingKey() throws Exception
+    {
+        partition.store("key", VALUE);
+        partition.store("key", VALUE);
+    }
+
+    @Test
+    public void indicatesUnexistentKeyOnRetrieveError() throws ObjectStoreException
+    {
+        try
+        {
+            partition.retrieve("nonExistentKey");
+            fail("Supposed to thrown an exception as key is not valid");
+        }
+        catch (ObjectDoesNotExistException e)
+        {
+            assertTrue(e.getMessage().contains("nonExistentKey"));
+        }
+    }
+
+    @Test
+    public void restoresEntriesAfterClose() throws Exception
+    {
+        storeEntries(0, 10);
+        partition.remove(key(3));
+        partition.close();
+
+        partition = reopen();
+
+        assertThat(partition.getPartitionName(), is("test"));
+        assertEntries(0, 3);
+        assertEntries(4, 10);
+        assertThat(partition.allKeys().size(), is(9));
+    }
+
+    @Test
+    public void restoresEntriesAppendedAfterIndexWasWritten() throws Exception
+    {
+        storeEntries(0, 5);
+        partition.close();
+        storeEntries(5, 10);
+        partition.remove(key(0));
+
+        // the partition is not closed, as if the process had crashed
+        partition = reopen();
+
+        assertThat(partition.allKeys(), is(keys(1, 10)));
+        assertEntries(1, 10);
+    }
+
+    @Test
+    public void restoresEntriesWithoutIndexFile() throws Exception
+    {
+        storeEntries(0, 10);
+        partition.remove(key(5));
+        partition.close();
+        assertTrue(new File(objectStoreFolder.getRoot(), LogStructuredObjectStorePartition.INDEX_FILE).delete());
+
+        partition = reopen();
+
+        List<Serializable> expectedKeys = keys(0, 10);
+        expectedKeys.remove(key(5));
+        assertThat(partition.allKeys(), is(expectedKeys));
+    }
+
+    @Test
+    public void discardsIncompleteRecord() throws Exception
+    {
+        storeEntries(0, 2);
+        File[] dataFiles = dataFiles();
+        FileOutputStream out = new FileOutputStream(dataFiles[dataFiles.length - 1], true);
+        out.write(new byte[] {0, 0, 1, 0, 7});
+        out.close();
+
+        partition = reopen();
+        assertEntries(0, 2);
+        partition.store(key(2), VALUE + 2);
+        partition.close();
+
+        partition = reopen();
+        assertThat(partition.allKeys(), is(keys(0, 3)));
+        assertEntries(0, 3);
+    }
+
+    @Test
+    public void compactsDataFilesWithFewLiveEntries() throws Exception
+    {
+        partition.setMaxDataFileSize(1024);
+        storeEntries(0, 100);
+        int initialDataFiles = dataFiles().length;
+        for (int i = 0; i < 100; i++)
+        {
+            if (i % 10 != 0)
+            {
+                partition.remove(key(i));
+            }
+        }
+
+        partition.maintain();
+
+        assertTrue(dataFiles().length < initialDataFiles);
+        assertCompactedEntries();
+
+        partition.close();
+        partition = reopen();
+        assertCompactedEntries();
+
+        // removed entries must not come back when the data files are replayed from the start
+        partition.close();
+        assertTrue(new File(objectStoreFolder.getRoot(), LogStructuredObjectStorePartition.INDEX_FILE).delete());
+        partition = reopen();
+        assertCompactedEntries();
+    }
+
+    @Test
+    public void keepsEntryStoredAgainAfterRemovalWhenCompacting() throws Exception
+    {
+        partition.setMaxDataFileSize(1024);
+        storeEntries(0, 100);
+        // the data files with the first entries are not compacted, so the removals are kept
+        for (int i = 30; i < 100; i++)
+        {
+            partition.remove(key(i));
+        }
+        partition.store(key(50), VALUE + 50);
+
+        partition.maintain();
+        partition.close();
+        assertTrue(new File(objectStoreFolder.getRoot(), LogStructuredObjectStorePartition.INDEX_FILE).delete());
+
+        partition = reopen();
+        List<Serializable> expectedKeys = keys(0, 30);
+        expectedKeys.add(key(50));
+        assertThat(partition.allKeys().size(), is(expectedKeys.size()));
+        assertThat(partition.retrieve(key(50)), is((Serializable) (VALUE + 50)));
+        assertEntries(0, 30);
+    }
+
+    @Test
+    public void expireExcessEntries() throws Exception
+    {
+        storeEntries(0, 5);
+
+        partition.expire(UNBOUNDED, 2);
+
+        assertThat(partition.allKeys(), is(keys(3, 5)));
+    }
+
+    @Test
+    public void expireEntriesOlderThanTtl() throws Exception
+    {
+        partition.store("old", VALUE);
+        Thread.sleep(200);
+        partition.store("new", VALUE);
+
+        partition.expire(100, UNBOUNDED);
+
+        assertThat(partition.allKeys(), is(Arrays.<Serializable> asList("new")));
+    }
+
+    @Test
+    public void migratesEntriesStoredWithAFilePerEntry() throws Exception
+    {
+        File directory = objectStoreFolder.newFolder("legacy");
+        PersistentObjectStorePartition<Serializable> legacyPartition = new PersistentObjectStorePartition<Serializable>(muleContext, "legacy", directory);
+        legacyPartition.open();
+        legacyPartition.store(key(0), VALUE + 0);
+        legacyPartition.store(key(1), VALUE + 1);
+
+        partition = new LogStructuredObjectStorePartition<Serializable>(muleContext, directory, maintenanceExecutor);
+        partition.open();
+
+        assertThat(partition.getPartitionName(), is("legacy"));
+        assertEntries(0, 2);
+        assertThat(directory.list(new SuffixFileFilter(PersistentObjectStorePartition.OBJECT_FILE_EXTENSION)).length, is(0));
+        assertThat(LogStructuredObjectStorePartition.isLogStructured(directory), is(true));
+    }
+
+    @Test
+    public void clear() throws Exception
+    {
+        storeEntries(0, 5);
+
+        partition.clear();
+        assertThat(partition.allKeys().isEmpty(), is(true));
+
+        partition.store(key(5), VALUE + 5);
+        partition.close();
+        partition = reopen();
+        assertThat(partition.allKeys(), is(keys(5, 6)));
+    }
+
+    @Test(expected = ObjectStoreException.class)
+    public void storeWithNullKey() throws Exception
+    {
+        partition.store(null, VALUE);
+    }
+
+    private void assertCompactedEntries() throws ObjectStoreException
+    {
+        assertThat(partition.allKeys().size(), is(10));
+        for (int i = 0; i < 100; i += 10)
+        {
+            assertThat(partition.retrieve(key(i)), is((Serializable) (VALUE + i)));
+        }
+    }
+
+    private LogStructuredObjectStorePartition<Serializable> reopen() throws ObjectStoreException
+    {
+        LogStructuredObjectStorePartition<Serializable> reopened = new LogStructuredObjectStorePartition<Serializable>(muleContext, objectStoreFolder.getRoot(), maintenanceExecutor);
+        reopened.open();
+        return reopened;
+    }
+
+    private File[] dataFiles()
+    {
+        return objectStoreFolder.getRoot().listFiles((FileFilter) new SuffixFileFilter(LogStructuredObjectStorePartition.DATA_FILE_EXTENSION));
+    }
+
+    private void storeEntries(int from, int to) throws ObjectStoreException
+    {
+        for (int i = from; i < to; i++)
+        {
+            partition.store(key(i), VALUE + i);
+        }
+    }
+
+    private void assertEntries(int from, int to) throws ObjectStoreException
+    {
+        for (int i = from; i < to; i++)
+        {
+            assertThat(partition.retrieve(key(i)), is((Serializable) (VALUE + i)));
+        }
+    }
+
+    private List<Serializable> keys(int from, int to)
+    {
+        List<Serializable> keys = new ArrayList<Serializable>();
+        for (int i = from; i < to; i++)
+        {
+            keys.add(key(i));
+        }
+        return keys;
+    }
+
+    private String key(int i)
+    {
+        return "key" + i;
+    }
+}
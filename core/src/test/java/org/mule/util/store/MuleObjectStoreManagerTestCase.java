@@ -17,6 +17,7 @@ import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.Mockito.withSettings;
+import static org.mule.tck.SerializationTestUtils.addJavaSerializerToMockMuleContext;
 import org.mule.api.MuleContext;
 import org.mule.api.config.MuleConfiguration;
 import org.mule.api.config.MuleProperties;
@@ -180,6 +181,7 @@ public class MuleObjectStoreManagerTestCase extends AbstractMuleTestCase
     private ObjectStorePartition<Serializable> createStorePartition(String partitionName, boolean isPersistent) throws InitialisationException
     {
         MuleContext muleContext = mock(MuleContext.class);
+        addJavaSerializerToMockMuleContext(muleContext);
 
         createRegistryAndBaseStore(muleContext, isPersistent);
 
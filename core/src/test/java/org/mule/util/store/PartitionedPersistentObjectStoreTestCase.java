@@ -10,6 +10,7 @@ import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.when;
+import static org.mule.tck.SerializationTestUtils.addJavaSerializerToMockMuleContext;
 
 import org.mule.api.MuleContext;
 import org.mule.api.store.ObjectAlreadyExistsException;
@@ -45,6 +46,7 @@ public class PartitionedPersistentObjectStoreTestCase extends AbstractMuleTestCa
         numberOfPartitions = 3;
         when(mockMuleContext.getConfiguration().getWorkingDirectory()).thenReturn(".");
         when(mockMuleContext.getExecutionClassLoader()).thenReturn(Thread.currentThread().getContextClassLoader());
+        addJavaSerializerToMockMuleContext(mockMuleContext);
         os = new PartitionedPersistentObjectStore<Serializable>(mockMuleContext);
         File objectStorePersistDir = new File(PartitionedPersistentObjectStore.OBJECT_STORE_DIR);
         if (objectStorePersistDir.exists())
@@ -118,6 +120,36 @@ public class PartitionedPersistentObjectStoreTestCase extends AbstractMuleTestCa
         assertNotNull(value.getMuleContext());
     }
 
+    @Test
+    public void logStructuredObjectStorePersistDataBetweenOpenAndClose() throws ObjectStoreException
+    {
+        os.setLogStructured(true);
+        openPartitions();
+        storeInPartitions(OBJECT_KEY, OBJECT_BASE_VALUE);
+        os.dispose();
+
+        os = new PartitionedPersistentObjectStore<Serializable>(mockMuleContext);
+        openPartitions();
+        assertAllValuesExistsInPartitionAreUnique(OBJECT_KEY, OBJECT_BASE_VALUE);
+        removeEntriesInPartitions();
+        assertAllPartitionsAreEmpty();
+        os.dispose();
+    }
+
+    @Test
+    public void logStructuredObjectStoreMigratesExistingPartitions() throws ObjectStoreException
+    {
+        openPartitions();
+        storeInPartitions(OBJECT_KEY, OBJECT_BASE_VALUE);
+        closePartitions();
+
+        os = new PartitionedPersistentObjectStore<Serializable>(mockMuleContext);
+        os.setLogStructured(true);
+        openPartitions();
+        assertAllValuesExistsInPartitionAreUnique(OBJECT_KEY, OBJECT_BASE_VALUE);
+        os.dispose();
+    }
+
     private void closePartitions() throws ObjectStoreException
     {
         for (int i = 0; i < numberOfPartitions; i++)
@@ -23,6 +23,9 @@ import org.w3c.dom.Element;
 public class PreparedBulkUpdateProcessorBeanDefinitionParser extends AbstractSingleQueryProcessorDefinitionParser
 {
 
+    public static final String BATCH_SIZE_ATTRIBUTE = "batchSize";
+    public static final String COMMIT_BATCHES_ATTRIBUTE = "commitBatches";
+
     private final List<QueryType> validQueryTypes;
 
     public PreparedBulkUpdateProcessorBeanDefinitionParser(List<QueryType> validQueryTypes)
@@ -44,6 +47,15 @@ public class PreparedBulkUpdateProcessorBeanDefinitionParser extends AbstractSin
         builder.addConstructorArgValue(validQueryTypes);
         parseAutoGeneratedKeys(element, builder);
         parseMetadataProvider(element, builder);
+
+        if (element.hasAttribute(BATCH_SIZE_ATTRIBUTE))
+        {
+            builder.addPropertyValue(BATCH_SIZE_ATTRIBUTE, element.getAttribute(BATCH_SIZE_ATTRIBUTE));
+        }
+        if (element.hasAttribute(COMMIT_BATCHES_ATTRIBUTE))
+        {
+            builder.addPropertyValue(COMMIT_BATCHES_ATTRIBUTE, element.getAttribute(COMMIT_BATCHES_ATTRIBUTE));
+        }
     }
 
     @Override
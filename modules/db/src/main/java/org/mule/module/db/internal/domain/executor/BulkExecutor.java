@@ -13,6 +13,7 @@ import org.mule.module.db.internal.domain.query.Query;
 import org.mule.module.db.internal.domain.query.QueryParamValue;
 
 import java.sql.SQLException;
+import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -41,4 +42,19 @@ public interface BulkExecutor
      * @throws SQLException if a database access error occurs or this method is called on a closed connection
      */
     Object execute(DbConnection connection, Query query, List<List<QueryParamValue>> paramValues) throws SQLException;
+
+    /**
+     * Executes a parameterized query in consecutive batches of parameter sets, so only one batch
+     * is kept in memory at a time
+     *
+     * @param connection connection to the database where the query will be executed. Non null
+     * @param query parameterized query to executed using the sets of parameters
+     * @param paramValues parameters to use to execute the query, consumed as the batches are executed
+     * @param batchSize maximum number of parameter sets executed in a single batch. Must be positive
+     * @param commitBatches indicates whether each batch must be committed once executed. Only honored
+     *                      when the connection is in auto-commit mode, as otherwise it is part of a transaction
+     * @return a non null result containing the update count of each executed batch
+     * @throws SQLException if a database access error occurs or this method is called on a closed connection
+     */
+    Object execute(DbConnection connection, Query query, Iterator<List<QueryParamValue>> paramValues, int batchSize, boolean commitBatches) throws SQLException;
 }
@@ -19,6 +19,8 @@ import org.mule.module.db.internal.domain.statement.StatementFactory;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -63,32 +65,145 @@ public class BulkUpdateExecutor extends AbstractExecutor implements BulkExecutor
     @Override
     public Object execute(DbConnection connection, Query query, List<List<QueryParamValue>> paramValues) throws SQLException
     {
-        Statement statement = statementFactory.create(connection, query.getQueryTemplate());
+        PreparedStatement preparedStatement = createPreparedStatement(connection, query);
+        try
+        {
+            return executeBatch(preparedStatement, query, paramValues);
+        }
+        finally
+        {
+            preparedStatement.clearParameters();
+            preparedStatement.close();
+        }
+    }
 
-        if (!(statement instanceof PreparedStatement))
+    @Override
+    public Object execute(DbConnection connection, Query query, Iterator<List<QueryParamValue>> paramValues, int batchSize, boolean commitBatches) throws SQLException
+    {
+        if (batchSize <= 0)
         {
-            throw new IllegalArgumentException("Bulk update must be executed on a prepared statement");
+            throw new IllegalArgumentException("Batch size must be positive but was " + batchSize);
         }
 
-        PreparedStatement preparedStatement = (PreparedStatement) statement;
-        PreparedBulkQueryLogger queryLogger = queryLoggerFactory.createBulkQueryLogger(logger, query.getQueryTemplate(), paramValues.size());
+        PreparedStatement preparedStatement = createPreparedStatement(connection, query);
+        // a connection that is not in auto-commit mode belongs to a transaction that must not be committed here
+        boolean commit = commitBatches && connection.getAutoCommit();
         try
         {
-            for (List<QueryParamValue> params : paramValues)
+            if (commit)
             {
-                doProcessParameters(preparedStatement, query.getQueryTemplate(), params, queryLogger);
-                preparedStatement.addBatch();
-                queryLogger.addParameterSet();
+                connection.setAutoCommit(false);
             }
 
-            queryLogger.logQuery();
+            List<Integer> updateCounts = new ArrayList<Integer>();
+            List<List<QueryParamValue>> batch = new ArrayList<List<QueryParamValue>>(batchSize);
+            while (paramValues.hasNext())
+            {
+                batch.add(paramValues.next());
+
+                if (batch.size() == batchSize || !paramValues.hasNext())
+                {
+                    updateCounts.add(getBatchUpdateCount(executeBatch(preparedStatement, query, batch)));
+                    batch.clear();
+
+                    if (commit)
+                    {
+                        connection.commit();
+                    }
+                }
+            }
 
-            return preparedStatement.executeBatch();
+            int[] result = new int[updateCounts.size()];
+            for (int i = 0; i < result.length; i++)
+            {
+                result[i] = updateCounts.get(i);
+            }
+            return result;
+        }
+        catch (Throwable e)
+        {
+            if (commit)
+            {
+                // restoring auto-commit mode would otherwise commit the failed batch
+                rollback(connection, e);
+            }
+            throw e;
         }
         finally
         {
-            preparedStatement.clearParameters();
-            statement.close();
+            try
+            {
+                preparedStatement.clearParameters();
+                preparedStatement.close();
+            }
+            finally
+            {
+                if (commit)
+                {
+                    connection.setAutoCommit(true);
+                }
+            }
+        }
+    }
+
+    /**
+     * Rolls back the current batch, keeping the failure that caused it as the one thrown.
+     */
+    private void rollback(DbConnection connection, Throwable cause)
+    {
+        try
+        {
+            connection.rollback();
+        }
+        catch (SQLException e)
+        {
+            cause.addSuppressed(e);
+        }
+    }
+
+    private PreparedStatement createPreparedStatement(DbConnection connection, Query query) throws SQLException
+    {
+        Statement statement = statementFactory.create(connection, query.getQueryTemplate());
+
+        if (!(statement instanceof PreparedStatement))
+        {
+            throw new IllegalArgumentException("Bulk update must be executed on a prepared statement");
+        }
+
+        return (PreparedStatement) statement;
+    }
+
+    private int[] executeBatch(PreparedStatement preparedStatement, Query query, List<List<QueryParamValue>> paramValues) throws SQLException
+    {
+        PreparedBulkQueryLogger queryLogger = queryLoggerFactory.createBulkQueryLogger(logger, query.getQueryTemplate(), paramValues.size());
+
+        for (List<QueryParamValue> params : paramValues)
+        {
+            doProcessParameters(preparedStatement, query.getQueryTemplate(), params, queryLogger);
+            preparedStatement.addBatch();
+            queryLogger.addParameterSet();
+        }
+
+        queryLogger.logQuery();
+
+        return preparedStatement.executeBatch();
+    }
+
+    /**
+     * Adds up the update counts of the statements of a batch, which is unknown if the driver did
+     * not report the count of any of them.
+     */
+    private int getBatchUpdateCount(int[] updateCounts)
+    {
+        int total = 0;
+        for (int updateCount : updateCounts)
+        {
+            if (updateCount == Statement.SUCCESS_NO_INFO)
+            {
+                return Statement.SUCCESS_NO_INFO;
+            }
+            total += updateCount;
         }
+        return total;
     }
 }
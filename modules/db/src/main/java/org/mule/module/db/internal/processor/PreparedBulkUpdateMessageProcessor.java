@@ -25,17 +25,25 @@ import org.mule.module.db.internal.resolver.param.DynamicParamValueResolver;
 import org.mule.module.db.internal.resolver.param.ParamValueResolver;
 import org.mule.module.db.internal.resolver.query.QueryResolver;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.sql.SQLException;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 
+import org.apache.commons.io.IOUtils;
+
 /**
  * Executes an update query in bulk mode on a database
  * * <p/>
  * An update query can be parametrized update, insert or delete query or a stored procedure
  * taking input parameters only and returning an update count.
  * <p/>
+ * When a batch size is configured, the items of the payload are read and executed in
+ * consecutive batches of that size, optionally committing each of them, so large loads do not
+ * need all the items in memory. The payload can also be an {@link InputStream}, each line being an item.
+ * <p/>
  * Both database and queries are resolved, if required, using the {@link org.mule.api.MuleEvent}
  * being processed.
  */
@@ -47,6 +55,8 @@ public class PreparedBulkUpdateMessageProcessor extends AbstractDbMessageProcess
     private final List<QueryType> validQueryTypes;
     private String source;
     private AutoGeneratedKeyStrategy autoGeneratedKeyStrategy;
+    private int batchSize;
+    private boolean commitBatches;
 
     public PreparedBulkUpdateMessageProcessor(DbConfigResolver dbConfigResolver, QueryResolver queryResolver, BulkQueryExecutorFactory bulkUpdateExecutorFactory, TransactionalAction transactionalAction, List<QueryType> validQueryTypes)
     {
@@ -64,56 +74,83 @@ public class PreparedBulkUpdateMessageProcessor extends AbstractDbMessageProcess
 
         validateQueryType(query.getQueryTemplate());
 
-        List<List<QueryParamValue>> paramValues = resolveParamSets(muleEvent, query);
+        Object payload = resolvePayload(muleEvent);
+        try
+        {
+            Iterator<?> paramsIterator = getIterator(payload, muleEvent.getMessage().getEncoding());
+
+            BulkExecutor bulkUpdateExecutor = bulkUpdateExecutorFactory.create();
+
+            if (batchSize > 0)
+            {
+                Iterator<List<QueryParamValue>> paramSets = new ParamSetIterator(paramsIterator, muleEvent, query);
+                return bulkUpdateExecutor.execute(connection, query, paramSets, batchSize, commitBatches);
+            }
 
-        BulkExecutor bulkUpdateExecutor = bulkUpdateExecutorFactory.create();
-        return bulkUpdateExecutor.execute(connection, query, paramValues);
+            List<List<QueryParamValue>> paramValues = resolveParamSets(paramsIterator, muleEvent, query);
+            return bulkUpdateExecutor.execute(connection, query, paramValues);
+        }
+        finally
+        {
+            if (payload instanceof InputStream)
+            {
+                IOUtils.closeQuietly((InputStream) payload);
+            }
+        }
     }
 
-    private List<List<QueryParamValue>> resolveParamSets(MuleEvent muleEvent, Query query)
+    private Object resolvePayload(MuleEvent muleEvent)
     {
-        Object payload;
-
         if (source == null || source.equals(""))
         {
-            payload = muleEvent.getMessage().getPayload();
+            return muleEvent.getMessage().getPayload();
         }
         else
         {
-            payload = muleContext.getExpressionManager().evaluate(source, muleEvent);
+            return muleContext.getExpressionManager().evaluate(source, muleEvent);
         }
+    }
 
-        final Iterator<Object> paramsIterator = getIterator(payload);
-
-        ParamValueResolver paramValueResolver = new DynamicParamValueResolver(muleContext.getExpressionManager());
+    private List<List<QueryParamValue>> resolveParamSets(Iterator<?> paramsIterator, MuleEvent muleEvent, Query query)
+    {
+        Iterator<List<QueryParamValue>> paramSets = new ParamSetIterator(paramsIterator, muleEvent, query);
 
         List<List<QueryParamValue>> result = new LinkedList<List<QueryParamValue>>();
 
-        while (paramsIterator.hasNext())
+        while (paramSets.hasNext())
         {
-            MuleMessage itemMessage = new DefaultMuleMessage(paramsIterator.next(), muleContext);
-            MuleEvent itemEvent = new DefaultMuleEvent(itemMessage, muleEvent);
-            List<QueryParamValue> queryParamValues = paramValueResolver.resolveParams(itemEvent, query.getParamValues());
-            result.add(queryParamValues);
+            result.add(paramSets.next());
         }
 
         return result;
     }
 
-    private Iterator<Object> getIterator(Object payload)
+    private Iterator<?> getIterator(Object payload, String encoding)
     {
         if (payload instanceof Iterable)
         {
-            return ((Iterable<Object>) payload).iterator();
+            return ((Iterable<?>) payload).iterator();
         }
         else if (payload instanceof Iterator)
         {
-            return (Iterator<Object>) payload;
+            return (Iterator<?>) payload;
+        }
+        else if (payload instanceof InputStream)
+        {
+            // each line of the stream is an item, read only when its batch is executed
+            try
+            {
+                return IOUtils.lineIterator((InputStream) payload, encoding);
+            }
+            catch (IOException e)
+            {
+                throw new IllegalArgumentException("Unable to read bulk mode payload", e);
+            }
         }
         else
         {
             throw new IllegalArgumentException(
-                    String.format("Bulk mode operations require a Iterable/Iterator as payload. Got %s instead",
+                    String.format("Bulk mode operations require a Iterable/Iterator/InputStream as payload. Got %s instead",
                                   payload != null ? payload.getClass().getCanonicalName() : "null")
             );
         }
@@ -141,4 +178,67 @@ public class PreparedBulkUpdateMessageProcessor extends AbstractDbMessageProcess
     {
         this.autoGeneratedKeyStrategy = autoGeneratedKeyStrategy;
     }
+
+    public int getBatchSize()
+    {
+        return batchSize;
+    }
+
+    /**
+     * @param batchSize maximum number of items executed in a single batch. When not positive, all
+     *                  the items are executed in one batch
+     */
+    public void setBatchSize(int batchSize)
+    {
+        this.batchSize = batchSize;
+    }
+
+    public boolean isCommitBatches()
+    {
+        return commitBatches;
+    }
+
+    public void setCommitBatches(boolean commitBatches)
+    {
+        this.commitBatches = commitBatches;
+    }
+
+    /**
+     * Resolves the query parameters for each item of the payload as it is iterated
+     */
+    private class ParamSetIterator implements Iterator<List<QueryParamValue>>
+    {
+
+        private final Iterator<?> items;
+        private final MuleEvent muleEvent;
+        private final Query query;
+        private final ParamValueResolver paramValueResolver = new DynamicParamValueResolver(muleContext.getExpressionManager());
+
+        public ParamSetIterator(Iterator<?> items, MuleEvent muleEvent, Query query)
+        {
+            this.items = items;
+            this.muleEvent = muleEvent;
+            this.query = query;
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            return items.hasNext();
+        }
+
+        @Override
+        public List<QueryParamValue> next()
+        {
+            MuleMessage itemMessage = new DefaultMuleMessage(items.next(), muleContext);
+            MuleEvent itemEvent = new DefaultMuleEvent(itemMessage, muleEvent);
+            return paramValueResolver.resolveParams(itemEvent, query.getParamValues());
+        }
+
+        @Override
+        public void remove()
+        {
+            throw new UnsupportedOperationException();
+        }
+    }
 }
@@ -23,6 +23,12 @@ import org.apache.commons.logging.LogFactory;
 
 /**
  * Iterates a {@link ResultSet} to provide rows streaming
+ * <p/>
+ * Only the current row is kept in memory, so the result can be processed in pages of any size,
+ * e.g. by a foreach with a batch size, regardless of the size of the result. The resultSet, and
+ * the connection once all its resultSets are closed, are released as soon as the last row is
+ * read or reading a row fails. Components that stop iterating early must {@link #close()} the
+ * iterator, which can be called any number of times.
  */
 public class ResultSetIterator implements Iterator<Map<String, Object>>, Closeable
 {
@@ -34,6 +40,7 @@ public class ResultSetIterator implements Iterator<Map<String, Object>>, Closeab
     private final StreamingResultSetCloser streamingResultSetCloser;
     private DbConnection connection;
     private Boolean cachedNext = null;
+    private boolean closed;
 
     public ResultSetIterator(DbConnection connection, ResultSet resultSet, RowHandler rowHandler, StreamingResultSetCloser streamingResultSetCloser)
     {
@@ -51,6 +58,10 @@ public class ResultSetIterator implements Iterator<Map<String, Object>>, Closeab
     public boolean hasNext()
     {
         boolean result = false;
+        if (closed)
+        {
+            return false;
+        }
         if (cachedNext == null)
         {
             try
@@ -68,17 +79,7 @@ public class ResultSetIterator implements Iterator<Map<String, Object>>, Closeab
 
             if (!result)
             {
-                try
-                {
-                    close();
-                }
-                catch (MuleException e)
-                {
-                    if (logger.isDebugEnabled())
-                    {
-                        logger.debug("Error closing resultset", e);
-                    }
-                }
+                closeQuietly();
             }
         }
         else
@@ -109,6 +110,7 @@ public class ResultSetIterator implements Iterator<Map<String, Object>>, Closeab
         catch (SQLException e)
         {
             logger.warn("Unable to obtain next row", e);
+            closeQuietly();
 
             throw new NoSuchElementException();
         }
@@ -123,6 +125,12 @@ public class ResultSetIterator implements Iterator<Map<String, Object>>, Closeab
     @Override
     public void close() throws MuleException
     {
+        if (closed)
+        {
+            return;
+        }
+        closed = true;
+
         if (logger.isDebugEnabled())
         {
             logger.debug("Closing resultSet");
@@ -130,4 +138,24 @@ public class ResultSetIterator implements Iterator<Map<String, Object>>, Closeab
 
         streamingResultSetCloser.close(connection, resultSet);
     }
+
+    public boolean isClosed()
+    {
+        return closed;
+    }
+
+    private void closeQuietly()
+    {
+        try
+        {
+            close();
+        }
+        catch (MuleException e)
+        {
+            if (logger.isDebugEnabled())
+            {
+                logger.debug("Error closing resultset", e);
+            }
+        }
+    }
 }
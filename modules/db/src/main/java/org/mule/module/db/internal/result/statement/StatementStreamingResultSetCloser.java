@@ -89,7 +89,7 @@ public class StatementStreamingResultSetCloser extends AbstractStreamingResultSe
     {
         connectionResultSets.remove(connection);
 
-        connectionLocks.remove(connectionLock);
+        connectionLocks.remove(connection);
 
         connection.release();
     }
@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+
+package org.mule.module.db.internal.domain.executor;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mule.module.db.internal.domain.connection.DbConnection;
+import org.mule.module.db.internal.domain.param.QueryParam;
+import org.mule.module.db.internal.domain.query.Query;
+import org.mule.module.db.internal.domain.query.QueryParamValue;
+import org.mule.module.db.internal.domain.query.QueryTemplate;
+import org.mule.module.db.internal.domain.query.QueryType;
+import org.mule.module.db.internal.domain.statement.StatementFactory;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+
+@SmallTest
+public class BulkUpdateExecutorTestCase extends AbstractMuleTestCase
+{
+
+    private final DbConnection connection = mock(DbConnection.class);
+    private final PreparedStatement statement = mock(PreparedStatement.class);
+    private final StatementFactory statementFactory = mock(StatementFactory.class);
+    private final Query query = new Query(new QueryTemplate("update PLANET set NAME='Mercury'", QueryType.UPDATE, Collections.<QueryParam>emptyList()));
+    private final BulkUpdateExecutor executor = new BulkUpdateExecutor(statementFactory);
+
+    @Before
+    public void setUp() throws Exception
+    {
+        when(statementFactory.create(connection, query.getQueryTemplate())).thenReturn(statement);
+        when(connection.getAutoCommit()).thenReturn(true);
+    }
+
+    @Test
+    public void executesParamSetsInBatches() throws Exception
+    {
+        when(statement.executeBatch()).thenReturn(new int[] {1, 1}, new int[] {1, 0}, new int[] {1});
+
+        Object result = executor.execute(connection, query, paramSets(5), 2, false);
+
+        assertThat((int[]) result, equalTo(new int[] {2, 1, 1}));
+        verify(statement, times(5)).addBatch();
+        verify(statement, times(3)).executeBatch();
+        verify(statement).close();
+        verify(connection, never()).setAutoCommit(false);
+        verify(connection, never()).commit();
+    }
+
+    @Test
+    public void reportsUnknownUpdateCountOfBatch() throws Exception
+    {
+        when(statement.executeBatch()).thenReturn(new int[] {1, Statement.SUCCESS_NO_INFO});
+
+        Object result = executor.execute(connection, query, paramSets(2), 2, false);
+
+        assertThat((int[]) result, equalTo(new int[] {Statement.SUCCESS_NO_INFO}));
+    }
+
+    @Test
+    public void commitsEachBatch() throws Exception
+    {
+        when(statement.executeBatch()).thenReturn(new int[] {1, 1}, new int[] {1});
+
+        executor.execute(connection, query, paramSets(3), 2, true);
+
+        InOrder inOrder = inOrder(connection, statement);
+        inOrder.verify(connection).setAutoCommit(false);
+        inOrder.verify(statement).executeBatch();
+        inOrder.verify(connection).commit();
+        inOrder.verify(statement).executeBatch();
+        inOrder.verify(connection).commit();
+        inOrder.verify(connection).setAutoCommit(true);
+        verify(connection, never()).rollback();
+    }
+
+    @Test
+    public void rollsBackFailedBatch() throws Exception
+    {
+        when(statement.executeBatch()).thenReturn(new int[] {1, 1}).thenThrow(new SQLException());
+
+        try
+        {
+            executor.execute(connection, query, paramSets(3), 2, true);
+            fail("Expected batch execution to fail");
+        }
+        catch (SQLException expected)
+        {
+        }
+
+        InOrder inOrder = inOrder(connection, statement);
+        inOrder.verify(connection).commit();
+        inOrder.verify(connection).rollback();
+        inOrder.verify(statement).close();
+        inOrder.verify(connection).setAutoCommit(true);
+    }
+
+    @Test
+    public void keepsBatchFailureWhenRollbackFails() throws Exception
+    {
+        SQLException batchFailure = new SQLException("batch");
+        SQLException rollbackFailure = new SQLException("rollback");
+        when(statement.executeBatch()).thenThrow(batchFailure);
+        doThrow(rollbackFailure).when(connection).rollback();
+
+        try
+        {
+            executor.execute(connection, query, paramSets(2), 2, true);
+            fail("Expected batch execution to fail");
+        }
+        catch (SQLException e)
+        {
+            assertThat(e, sameInstance(batchFailure));
+            assertThat(e.getSuppressed(), equalTo(new Throwable[] {rollbackFailure}));
+        }
+
+        verify(connection).setAutoCommit(true);
+    }
+
+    @Test
+    public void doesNotCommitTransactedConnection() throws Exception
+    {
+        when(connection.getAutoCommit()).thenReturn(false);
+        when(statement.executeBatch()).thenReturn(new int[] {1, 1}, new int[] {1});
+
+        executor.execute(connection, query, paramSets(3), 2, true);
+
+        verify(connection, never()).setAutoCommit(false);
+        verify(connection, never()).commit();
+    }
+
+    private Iterator<List<QueryParamValue>> paramSets(int count)
+    {
+        List<List<QueryParamValue>> paramSets = new ArrayList<List<QueryParamValue>>();
+        for (int i = 0; i < count; i++)
+        {
+            paramSets.add(Collections.<QueryParamValue>emptyList());
+        }
+        return paramSets.iterator();
+    }
+}
@@ -9,6 +9,7 @@ package org.mule.module.db.internal.result;
 
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -21,6 +22,8 @@ import org.mule.tck.junit4.AbstractMuleTestCase;
 import org.mule.tck.size.SmallTest;
 
 import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.NoSuchElementException;
 
 import org.junit.Test;
 
@@ -85,4 +88,37 @@ public class ResultSetIteratorTestCase extends AbstractMuleTestCase
         verify(resultSet, times(2)).next();
         verify(rowHandler, times(2)).process(resultSet);
     }
+
+    @Test
+    public void closesResultSetOnceWhenNoMoreRecords() throws Exception
+    {
+        when(resultSet.next()).thenReturn(false);
+
+        resultSetIterator.hasNext();
+        resultSetIterator.hasNext();
+        resultSetIterator.close();
+
+        assertThat(resultSetIterator.isClosed(), equalTo(true));
+        verify(resultSet, times(1)).next();
+        verify(streamingResultSetCloser, times(1)).close(connection, resultSet);
+    }
+
+    @Test
+    public void closesResultSetWhenRowCannotBeRead() throws Exception
+    {
+        when(resultSet.next()).thenReturn(true);
+        doThrow(new SQLException()).when(rowHandler).process(resultSet);
+
+        try
+        {
+            resultSetIterator.next();
+        }
+        catch (NoSuchElementException e)
+        {
+            // expected
+        }
+
+        assertThat(resultSetIterator.hasNext(), equalTo(false));
+        verify(streamingResultSetCloser, times(1)).close(connection, resultSet);
+    }
 }
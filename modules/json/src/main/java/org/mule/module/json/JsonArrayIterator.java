@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.json;
+
+import org.mule.api.Closeable;
+import org.mule.api.DefaultMuleException;
+import org.mule.api.MuleException;
+import org.mule.api.MuleRuntimeException;
+import org.mule.config.i18n.CoreMessages;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.URL;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.codehaus.jackson.JsonParseException;
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.JsonToken;
+import org.codehaus.jackson.map.ObjectMapper;
+
+/**
+ * Iterates over the elements of a JSON array while it is being parsed, so that only the current
+ * element is held in memory. Each element is bound to the element class, or returned as
+ * {@link JsonData} when the element class is {@link JsonData}.
+ * <p/>
+ * The parser, and the stream it reads, is closed once the last element has been read, when an
+ * element cannot be read, or when the iterator is closed.
+ */
+public class JsonArrayIterator implements Iterator<Object>, Closeable
+{
+
+    private final JsonParser parser;
+    private final Class<?> elementClass;
+    private Boolean found;
+    private boolean closed;
+
+    /**
+     * @param parser a parser positioned before the start of the array
+     * @throws JsonParseException if the JSON value is not an array
+     */
+    public JsonArrayIterator(JsonParser parser, Class<?> elementClass) throws IOException
+    {
+        this.parser = parser;
+        this.elementClass = elementClass;
+
+        JsonToken token;
+        try
+        {
+            token = parser.nextToken();
+        }
+        catch (IOException e)
+        {
+            parser.close();
+            throw e;
+        }
+        if (token != JsonToken.START_ARRAY)
+        {
+            parser.close();
+            throw new JsonParseException("Expected a JSON array but found " + token, parser.getCurrentLocation());
+        }
+    }
+
+    /**
+     * Creates an iterator over a JSON array read from a String, byte[], InputStream, Reader, File
+     * or URL.
+     *
+     * @param encoding the encoding used to read binary sources
+     */
+    public static JsonArrayIterator create(ObjectMapper mapper, Object json, String encoding, Class<?> elementClass) throws IOException
+    {
+        Reader reader;
+        if (json instanceof String)
+        {
+            return new JsonArrayIterator(mapper.getJsonFactory().createJsonParser((String) json), elementClass);
+        }
+        else if (json instanceof Reader)
+        {
+            reader = (Reader) json;
+        }
+        else if (json instanceof InputStream)
+        {
+            reader = new InputStreamReader((InputStream) json, encoding);
+        }
+        else if (json instanceof byte[])
+        {
+            reader = new InputStreamReader(new ByteArrayInputStream((byte[]) json), encoding);
+        }
+        else if (json instanceof File)
+        {
+            reader = new InputStreamReader(new FileInputStream((File) json), encoding);
+        }
+        else if (json instanceof URL)
+        {
+            reader = new InputStreamReader(((URL) json).openStream(), encoding);
+        }
+        else
+        {
+            throw new IllegalArgumentException(CoreMessages.objectNotOfCorrectType(json.getClass(),
+                new Class<?>[] {String.class, byte[].class, InputStream.class, Reader.class, File.class, URL.class}).getMessage());
+        }
+        return new JsonArrayIterator(mapper.getJsonFactory().createJsonParser(reader), elementClass);
+    }
+
+    @Override
+    public boolean hasNext()
+    {
+        if (closed)
+        {
+            return false;
+        }
+        if (found == null)
+        {
+            try
+            {
+                JsonToken token = parser.nextToken();
+                found = token != null && token != JsonToken.END_ARRAY;
+            }
+            catch (IOException e)
+            {
+                closeQuietly();
+                throw new MuleRuntimeException(CoreMessages.failedToReadPayload(), e);
+            }
+            if (!found)
+            {
+                closeQuietly();
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public Object next()
+    {
+        if (!hasNext())
+        {
+            throw new NoSuchElementException();
+        }
+        found = null;
+
+        try
+        {
+            if (JsonData.class.equals(elementClass))
+            {
+                return new JsonData(parser.readValueAsTree());
+            }
+            return parser.readValueAs(elementClass);
+        }
+        catch (IOException e)
+        {
+            closeQuietly();
+            throw new MuleRuntimeException(CoreMessages.failedToReadPayload(), e);
+        }
+    }
+
+    @Override
+    public void remove()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void close() throws MuleException
+    {
+        if (closed)
+        {
+            return;
+        }
+        closed = true;
+        try
+        {
+            parser.close();
+        }
+        catch (IOException e)
+        {
+            throw new DefaultMuleException(e);
+        }
+    }
+
+    public boolean isClosed()
+    {
+        return closed;
+    }
+
+    private void closeQuietly()
+    {
+        try
+        {
+            close();
+        }
+        catch (MuleException e)
+        {
+            // the failure being reported matters more
+        }
+    }
+}
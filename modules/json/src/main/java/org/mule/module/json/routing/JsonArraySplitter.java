@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.json.routing;
+
+import org.mule.api.MuleEvent;
+import org.mule.api.MuleException;
+import org.mule.api.lifecycle.Initialisable;
+import org.mule.api.lifecycle.InitialisationException;
+import org.mule.api.routing.RoutingException;
+import org.mule.config.i18n.CoreMessages;
+import org.mule.module.json.JsonArrayIterator;
+import org.mule.module.json.JsonData;
+import org.mule.routing.MessageSequence;
+import org.mule.routing.outbound.AbstractMessageSequenceSplitter;
+import org.mule.routing.outbound.IteratorMessageSequence;
+
+import java.io.IOException;
+
+import org.codehaus.jackson.map.ObjectMapper;
+
+/**
+ * Splits a JSON array into one message per element, parsing the array as the parts are processed
+ * instead of parsing the whole payload first, so memory is proportional to the size of an element.
+ * Each part is the element bound to the element class, or {@link JsonData} if none is set.
+ */
+public class JsonArraySplitter extends AbstractMessageSequenceSplitter implements Initialisable
+{
+
+    private ObjectMapper mapper;
+    private Class<?> elementClass = JsonData.class;
+
+    @Override
+    public void initialise() throws InitialisationException
+    {
+        if (mapper == null)
+        {
+            mapper = new ObjectMapper();
+        }
+    }
+
+    @Override
+    protected MessageSequence<?> splitMessageIntoSequence(MuleEvent event) throws MuleException
+    {
+        try
+        {
+            return new IteratorMessageSequence<Object>(JsonArrayIterator.create(mapper,
+                event.getMessage().getPayload(), event.getEncoding(), elementClass));
+        }
+        catch (IOException e)
+        {
+            throw new RoutingException(CoreMessages.failedToReadPayload(), event, next, e);
+        }
+    }
+
+    public ObjectMapper getMapper()
+    {
+        return mapper;
+    }
+
+    public void setMapper(ObjectMapper mapper)
+    {
+        this.mapper = mapper;
+    }
+
+    public Class<?> getElementClass()
+    {
+        return elementClass;
+    }
+
+    /**
+     * @param elementClass the class the elements of the array are bound to
+     */
+    public void setElementClass(Class<?> elementClass)
+    {
+        this.elementClass = elementClass;
+    }
+}
@@ -11,6 +11,7 @@ import org.mule.api.lifecycle.InitialisationException;
 import org.mule.api.transformer.DataType;
 import org.mule.api.transformer.TransformerException;
 import org.mule.config.i18n.CoreMessages;
+import org.mule.module.json.JsonArrayIterator;
 import org.mule.module.json.JsonData;
 import org.mule.transformer.types.DataTypeFactory;
 import org.mule.util.IOUtils;
@@ -23,6 +24,7 @@ import java.io.InputStreamReader;
 import java.io.Reader;
 import java.net.URL;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
 
 /**
@@ -30,6 +32,11 @@ import java.util.Map;
  * object type is determined by the 'returnType' attribute. Note that this
  * transformers supports Arrays and Lists. For example, to convert a JSON string to
  * an array of org.foo.Person, set the the returnClass=[Lorg.foo.Person;.
+ * <p/>
+ * In streaming mode the payload must be a JSON array and the transformer returns a
+ * {@link JsonArrayIterator} that parses its elements as they are iterated, e.g. by a foreach or a
+ * collection splitter. The elements are bound to the returnClass, or to its component type when it
+ * is an array type.
  */
 public class JsonToObject extends AbstractJsonTransformer
 {
@@ -37,6 +44,10 @@ public class JsonToObject extends AbstractJsonTransformer
 
     private Map<Class<?>, Class<?>> deserializationMixins = new HashMap<Class<?>, Class<?>>();
 
+    private boolean streaming = false;
+
+    private Class<?> elementClass;
+
     public JsonToObject()
     {
         this.registerSourceType(DataTypeFactory.create(Reader.class));
@@ -62,12 +73,32 @@ public class JsonToObject extends AbstractJsonTransformer
         {
             getMapper().getDeserializationConfig().addMixInAnnotations(entry.getKey(), entry.getValue());
         }
+
+        if (streaming)
+        {
+            Class<?> returnClass = getReturnDataType().getType();
+            elementClass = returnClass.isArray() ? returnClass.getComponentType() : returnClass;
+            setReturnDataType(DataTypeFactory.create(Iterator.class));
+        }
     }
 
     @Override
     public Object transformMessage(MuleMessage message, String outputEncoding) throws TransformerException
     {
         Object src = message.getPayload();
+        if (streaming)
+        {
+            try
+            {
+                // the iterator owns the payload stream from now on
+                return JsonArrayIterator.create(getMapper(), src, outputEncoding, elementClass);
+            }
+            catch (Exception e)
+            {
+                throw new TransformerException(CoreMessages.transformFailed("json", Iterator.class.getName()), this, e);
+            }
+        }
+
         Object returnValue;
         InputStream is = null;
         Reader reader = null;
@@ -139,6 +170,20 @@ public class JsonToObject extends AbstractJsonTransformer
         }
     }
 
+    public boolean isStreaming()
+    {
+        return streaming;
+    }
+
+    /**
+     * Whether to return an iterator that parses the elements of a JSON array as they are
+     * iterated, instead of parsing the whole payload
+     */
+    public void setStreaming(boolean streaming)
+    {
+        this.streaming = streaming;
+    }
+
     public Map<Class<?>, Class<?>> getDeserializationMixins()
     {
         return deserializationMixins;
@@ -6,18 +6,25 @@
  */
 package org.mule.module.json.transformers;
 
+import org.mule.api.MuleEvent;
 import org.mule.api.MuleMessage;
 import org.mule.api.lifecycle.InitialisationException;
 import org.mule.api.transformer.TransformerException;
+import org.mule.api.transport.OutputHandler;
 import org.mule.module.json.filters.IsJsonFilter;
 import org.mule.transformer.types.DataTypeFactory;
+import org.mule.transformer.types.MimeTypes;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.codehaus.jackson.JsonEncoding;
+import org.codehaus.jackson.JsonGenerator;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.StringWriter;
-import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -28,6 +35,9 @@ import java.util.Map;
  * Javascript or Ruby.
  * <p/>
  * The returnClass for this transformer is always java.lang.String, there is no need to set this.
+ * <p/>
+ * In streaming mode the transformer returns an {@link OutputHandler} that serializes the object
+ * straight to the stream it is written to, instead of building the whole JSON document in memory.
  */
 public class ObjectToJson extends AbstractJsonTransformer
 {
@@ -42,6 +52,8 @@ public class ObjectToJson extends AbstractJsonTransformer
 
     private boolean handleException = false;
 
+    private boolean streaming = false;
+
     private IsJsonFilter isJsonFilter = new IsJsonFilter();
 
     public ObjectToJson()
@@ -71,13 +83,18 @@ public class ObjectToJson extends AbstractJsonTransformer
         {
             getMapper().getSerializationConfig().addMixInAnnotations(entry.getKey(), entry.getValue());
         }
+
+        if (streaming)
+        {
+            setReturnDataType(DataTypeFactory.create(OutputHandler.class, MimeTypes.JSON));
+        }
     }
 
     @Override
     public Object transformMessage(MuleMessage message, String outputEncoding) throws TransformerException
     {
         Object src = message.getPayload();
-        if (src instanceof String && isJsonFilter.accept(src))
+        if (src instanceof String && isJsonFilter.accept(src) && !streaming)
         {
             //Nothing to transform
             return src;
@@ -93,30 +110,74 @@ public class ObjectToJson extends AbstractJsonTransformer
             src = this.getException(message.getExceptionPayload().getException());
         }
 
-        StringWriter writer = new StringWriter();
         try
         {
-            getMapper().writeValue(writer, src);
+            if (streaming)
+            {
+                return createOutputHandler(src, outputEncoding);
+            }
+            else if (returnType.getType().equals(byte[].class))
+            {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                writeJson(src, out, outputEncoding);
+                return out.toByteArray();
+            }
+            else
+            {
+                StringWriter writer = new StringWriter();
+                getMapper().writeValue(writer, src);
+                return writer.toString();
+            }
         }
         catch (IOException e)
         {
             throw new TransformerException(this, e);
         }
-        
-        if (returnType.getType().equals(byte[].class))
+    }
+
+    private OutputHandler createOutputHandler(final Object src, final String encoding)
+    {
+        return new OutputHandler()
         {
-            try
-            {
-                return writer.toString().getBytes(outputEncoding);
-            }
-            catch (UnsupportedEncodingException uee)
+            @Override
+            public void write(MuleEvent event, OutputStream out) throws IOException
             {
-                throw new TransformerException(this, uee);
+                if (src instanceof String && isJsonFilter.accept(src))
+                {
+                    out.write(((String) src).getBytes(encoding));
+                }
+                else
+                {
+                    writeJson(src, out, encoding);
+                }
             }
+        };
+    }
+
+    /**
+     * Serializes an object to a stream without closing it. Jackson encodes UTF-8 itself, any other
+     * encoding goes through a writer.
+     */
+    private void writeJson(Object src, OutputStream out, String encoding) throws IOException
+    {
+        JsonGenerator generator;
+        if (JsonEncoding.UTF8.getJavaName().equalsIgnoreCase(encoding))
+        {
+            generator = getMapper().getJsonFactory().createJsonGenerator(out, JsonEncoding.UTF8);
         }
         else
         {
-            return writer.toString();
+            generator = getMapper().getJsonFactory().createJsonGenerator(new OutputStreamWriter(out, encoding));
+        }
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        try
+        {
+            getMapper().writeValue(generator, src);
+        }
+        finally
+        {
+            // flushes what is buffered, the stream stays open
+            generator.close();
         }
     }
 
@@ -164,6 +225,20 @@ public class ObjectToJson extends AbstractJsonTransformer
         this.handleException = handleException;
     }
 
+    public boolean isStreaming()
+    {
+        return streaming;
+    }
+
+    /**
+     * Whether to return an {@link OutputHandler} that writes the JSON document to the output
+     * stream instead of returning it as a String or byte[]
+     */
+    public void setStreaming(boolean streaming)
+    {
+        this.streaming = streaming;
+    }
+
     public Class<?> getSourceClass()
     {
         return sourceClass;
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.json;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import org.codehaus.jackson.JsonParseException;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.junit.Test;
+
+@SmallTest
+public class JsonArrayIteratorTestCase extends AbstractMuleTestCase
+{
+
+    private static final String BEANS = "[{\"name\":\"one\",\"id\":1}, {\"name\":\"two\",\"id\":2}]";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    public void iteratesElementsAsJsonData() throws Exception
+    {
+        JsonArrayIterator iterator = JsonArrayIterator.create(mapper, BEANS, "UTF-8", JsonData.class);
+
+        assertThat(iterator.hasNext(), is(true));
+        assertThat(((JsonData) iterator.next()).getAsString("name"), is("one"));
+        assertThat(((JsonData) iterator.next()).getAsString("name"), is("two"));
+        assertThat(iterator.hasNext(), is(false));
+        assertThat(iterator.isClosed(), is(true));
+    }
+
+    @Test
+    public void bindsElementsToElementClass() throws Exception
+    {
+        JsonArrayIterator iterator = JsonArrayIterator.create(mapper, BEANS.getBytes("UTF-8"), "UTF-8", TestBean.class);
+
+        TestBean first = (TestBean) iterator.next();
+        TestBean second = (TestBean) iterator.next();
+
+        assertThat(first.getName(), is("one"));
+        assertThat(second.getId(), is(2));
+        assertThat(iterator.hasNext(), is(false));
+    }
+
+    @Test
+    public void closesStreamAfterLastElement() throws Exception
+    {
+        TrackingInputStream stream = new TrackingInputStream("[1]".getBytes("UTF-8"));
+        JsonArrayIterator iterator = JsonArrayIterator.create(mapper, stream, "UTF-8", Integer.class);
+
+        assertThat(iterator.next(), is((Object) 1));
+        assertThat(stream.closed, is(false));
+        assertThat(iterator.hasNext(), is(false));
+        assertThat(stream.closed, is(true));
+    }
+
+    @Test
+    public void closesStreamWhenClosedEarly() throws Exception
+    {
+        TrackingInputStream stream = new TrackingInputStream(BEANS.getBytes("UTF-8"));
+        JsonArrayIterator iterator = JsonArrayIterator.create(mapper, stream, "UTF-8", JsonData.class);
+
+        iterator.next();
+        iterator.close();
+        iterator.close();
+
+        assertThat(stream.closed, is(true));
+        assertThat(iterator.hasNext(), is(false));
+    }
+
+    @Test
+    public void iteratesEmptyArray() throws Exception
+    {
+        assertThat(JsonArrayIterator.create(mapper, "[]", "UTF-8", JsonData.class).hasNext(), is(false));
+    }
+
+    @Test
+    public void rejectsValuesOtherThanArrays() throws Exception
+    {
+        TrackingInputStream stream = new TrackingInputStream("{\"name\":\"one\"}".getBytes("UTF-8"));
+        try
+        {
+            JsonArrayIterator.create(mapper, stream, "UTF-8", JsonData.class);
+            fail("Expected a JSON object to be rejected");
+        }
+        catch (JsonParseException expected)
+        {
+        }
+        assertThat(stream.closed, is(true));
+    }
+
+    private static class TrackingInputStream extends ByteArrayInputStream
+    {
+
+        private boolean closed;
+
+        TrackingInputStream(byte[] bytes)
+        {
+            super(bytes);
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            closed = true;
+            super.close();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.json.transformers;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsInstanceOf.instanceOf;
+import static org.junit.Assert.assertThat;
+import org.mule.api.transport.OutputHandler;
+import org.mule.module.json.JsonArrayIterator;
+import org.mule.module.json.TestBean;
+import org.mule.tck.junit4.AbstractMuleContextTestCase;
+import org.mule.transformer.types.DataTypeFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+
+import org.junit.Test;
+
+public class JsonStreamingTransformersTestCase extends AbstractMuleContextTestCase
+{
+
+    private static final String BEANS = "[{\"name\":\"one\",\"id\":1},{\"name\":\"two\",\"id\":2}]";
+
+    @Test
+    public void jsonToObjectReturnsIteratorOverArrayElements() throws Exception
+    {
+        JsonToObject transformer = new JsonToObject();
+        transformer.setReturnDataType(DataTypeFactory.create(TestBean[].class));
+        transformer.setStreaming(true);
+        transformer.setMuleContext(muleContext);
+        transformer.initialise();
+
+        Object result = transformer.transform(new ByteArrayInputStream(BEANS.getBytes("UTF-8")));
+
+        assertThat(result, instanceOf(JsonArrayIterator.class));
+        Iterator<?> iterator = (Iterator<?>) result;
+        assertThat(((TestBean) iterator.next()).getName(), is("one"));
+        assertThat(((TestBean) iterator.next()).getName(), is("two"));
+        assertThat(iterator.hasNext(), is(false));
+    }
+
+    @Test
+    public void objectToJsonWritesToOutputStream() throws Exception
+    {
+        ObjectToJson transformer = createObjectToJson();
+        transformer.setStreaming(true);
+        transformer.initialise();
+
+        Object result = transformer.transform(new TestBean("one", 1, 0, null));
+
+        assertThat(result, instanceOf(OutputHandler.class));
+        CloseTrackingOutputStream out = new CloseTrackingOutputStream();
+        ((OutputHandler) result).write(getTestEvent(""), out);
+        ObjectToJson stringTransformer = createObjectToJson();
+        stringTransformer.initialise();
+        assertThat(out.toString("UTF-8"), is(stringTransformer.transform(new TestBean("one", 1, 0, null))));
+        assertThat(out.closed, is(false));
+    }
+
+    @Test
+    public void objectToJsonWritesBytesInOutputEncoding() throws Exception
+    {
+        ObjectToJson transformer = createObjectToJson();
+        transformer.setReturnDataType(DataTypeFactory.BYTE_ARRAY);
+        transformer.initialise();
+
+        byte[] result = (byte[]) transformer.transform(new String[] {"\u00e9t\u00e9"}, "UTF-16");
+
+        assertThat(new String(result, "UTF-16"), is("[\"\u00e9t\u00e9\"]"));
+    }
+
+    private ObjectToJson createObjectToJson() throws Exception
+    {
+        ObjectToJson transformer = new ObjectToJson();
+        transformer.setMuleContext(muleContext);
+        return transformer;
+    }
+
+    private static class CloseTrackingOutputStream extends ByteArrayOutputStream
+    {
+
+        private boolean closed;
+
+        @Override
+        public void close() throws IOException
+        {
+            closed = true;
+            super.close();
+        }
+    }
+}
@@ -6,12 +6,15 @@
  */
 package org.mule.module.launcher;
 
+import org.mule.api.MuleContext;
+
 import java.util.Collections;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * Keeps track of the deployment status of the artifact listening to the deployment notifications
+ * Keeps track of the deployment status of the artifact listening to the deployment notifications,
+ * and of how long each phase of the deployment took.
  */
 public class ArtifactDeploymentStatusTracker  extends AbstractDeploymentListener
 {
@@ -27,25 +30,111 @@ public class ArtifactDeploymentStatusTracker  extends AbstractDeploymentListener
     }
 
     protected Map<String, DeploymentState> deploymentStates = new ConcurrentHashMap<String, DeploymentState>();
+    protected Map<String, DeploymentTimes> deploymentTimes = new ConcurrentHashMap<String, DeploymentTimes>();
 
     public Map<String, DeploymentState> getDeploymentStates()
     {
         return Collections.unmodifiableMap(deploymentStates);
     }
 
+    public Map<String, DeploymentTimes> getDeploymentTimes()
+    {
+        return Collections.unmodifiableMap(deploymentTimes);
+    }
+
     public void onDeploymentStart(String artifactName)
     {
         deploymentStates.put(artifactName, DeploymentState.DEPLOYING);
+        deploymentTimes.put(artifactName, new DeploymentTimes());
     }
 
     public void onDeploymentSuccess(String artifactName)
     {
         deploymentStates.put(artifactName, DeploymentState.DEPLOYED);
+        finishDeploymentTimes(artifactName);
     }
 
     public void onDeploymentFailure(String artifactName, Throwable failureCause)
     {
         deploymentStates.put(artifactName, DeploymentState.FAILED);
+        finishDeploymentTimes(artifactName);
+    }
+
+    @Override
+    public void onMuleContextCreated(String artifactName, MuleContext context)
+    {
+        DeploymentTimes times = deploymentTimes.get(artifactName);
+        if (times != null)
+        {
+            times.contextCreated = System.currentTimeMillis();
+        }
+    }
+
+    @Override
+    public void onMuleContextConfigured(String artifactName, MuleContext context)
+    {
+        DeploymentTimes times = deploymentTimes.get(artifactName);
+        if (times != null)
+        {
+            times.contextConfigured = System.currentTimeMillis();
+        }
+    }
+
+    private void finishDeploymentTimes(String artifactName)
+    {
+        DeploymentTimes times = deploymentTimes.get(artifactName);
+        if (times != null)
+        {
+            times.finished = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Times of the phases of an artifact deployment, in milliseconds. Phases the deployment did
+     * not get through, or that were not notified, are -1.
+     */
+    public static class DeploymentTimes
+    {
+
+        private final long started = System.currentTimeMillis();
+        private volatile long contextCreated;
+        private volatile long contextConfigured;
+        private volatile long finished;
+
+        /**
+         * @return the time spent creating the class loader of the artifact, up to the creation of
+         *         its Mule context
+         */
+        public long getClassLoadingTime()
+        {
+            return elapsed(started, contextCreated);
+        }
+
+        /**
+         * @return the time spent parsing the configuration and initialising the Mule context
+         */
+        public long getConfigurationTime()
+        {
+            return elapsed(contextCreated, contextConfigured);
+        }
+
+        /**
+         * @return the time spent starting the Mule context
+         */
+        public long getStartTime()
+        {
+            return elapsed(contextConfigured, finished);
+        }
+
+        public long getTotalTime()
+        {
+            return elapsed(started, finished);
+        }
+
+        private long elapsed(long from, long to)
+        {
+            return from == 0 || to == 0 ? -1 : to - from;
+        }
     }
 
 }
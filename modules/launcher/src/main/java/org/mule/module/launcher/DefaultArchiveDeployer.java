@@ -23,6 +23,7 @@ import java.net.URL;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -36,6 +37,9 @@ import org.apache.commons.logging.LogFactory;
  * - Keeps track of deployed artifacts
  * - Avoid already deployed artifacts to be redeployed
  * - Deploys, undeploys, redeploys packaged and exploded artifacts
+ * <p/>
+ * Artifacts may be deployed concurrently by a {@link ParallelDeploymentExecutor}, so the deployed
+ * artifacts list is accessed synchronizing on it.
  */
 public class DefaultArchiveDeployer<T extends Artifact> implements ArchiveDeployer<T>
 {
@@ -49,7 +53,7 @@ public class DefaultArchiveDeployer<T extends Artifact> implements ArchiveDeploy
     private final ArtifactDeployer<T> deployer;
     private final ArtifactArchiveInstaller artifactArchiveInstaller;
     private final ReentrantLock deploymentLock;
-    private final Map<String, ZombieFile> artifactZombieMap = new HashMap<String, ZombieFile>();
+    private final Map<String, ZombieFile> artifactZombieMap = new ConcurrentHashMap<String, ZombieFile>();
     private final File artifactDir;
     private final ObservableList<T> artifacts;
     private ArtifactFactory<T> artifactFactory;
@@ -90,8 +94,11 @@ public class DefaultArchiveDeployer<T extends Artifact> implements ArchiveDeploy
     public T deployExplodedArtifact(String artifactDir) throws DeploymentException
     {
         String artifactName = artifactDir;
-        @SuppressWarnings("rawtypes")
-        Collection<String> deployedAppNames = CollectionUtils.collect(artifacts, new BeanToPropertyValueTransformer(ARTIFACT_NAME_PROPERTY));
+        Collection<String> deployedAppNames;
+        synchronized (artifacts)
+        {
+            deployedAppNames = CollectionUtils.collect(artifacts, new BeanToPropertyValueTransformer(ARTIFACT_NAME_PROPERTY));
+        }
 
         if (deployedAppNames.contains(artifactName) && (!artifactZombieMap.containsKey(artifactName)))
         {
@@ -116,8 +123,7 @@ public class DefaultArchiveDeployer<T extends Artifact> implements ArchiveDeploy
             return;
         }
 
-        T artifact = (T) CollectionUtils.find(artifacts, new BeanPropertyValueEqualsPredicate(ARTIFACT_NAME_PROPERTY, artifactId));
-        undeploy(artifact);
+        undeploy(findArtifact(artifactId));
     }
 
     @Override
@@ -178,9 +184,8 @@ public class DefaultArchiveDeployer<T extends Artifact> implements ArchiveDeploy
     {
         Map<URL, Long> result = new HashMap<URL, Long>();
 
-        for (String artifact : artifactZombieMap.keySet())
+        for (ZombieFile file : artifactZombieMap.values())
         {
-            ZombieFile file = artifactZombieMap.get(artifact);
             result.put(file.url, file.originalTimestamp);
         }
         return result;
@@ -197,7 +202,7 @@ public class DefaultArchiveDeployer<T extends Artifact> implements ArchiveDeploy
         logRequestToUndeployArtifact(artifact);
         try
         {
-            if (!deploymentLock.tryLock(0, TimeUnit.SECONDS))
+            if (!tryLockDeployment())
             {
                 return;
             }
@@ -247,7 +252,7 @@ public class DefaultArchiveDeployer<T extends Artifact> implements ArchiveDeploy
         }
 
         // check if this artifact is running first, undeployArtifact it then
-        T artifact = (T) CollectionUtils.find(artifacts, new BeanPropertyValueEqualsPredicate(ARTIFACT_NAME_PROPERTY, artifactName));
+        T artifact = findArtifact(artifactName);
         if (artifact != null)
         {
             undeployArtifact(artifactName);
@@ -303,7 +308,7 @@ public class DefaultArchiveDeployer<T extends Artifact> implements ArchiveDeploy
     {
         try
         {
-            if (!deploymentLock.tryLock(0, TimeUnit.SECONDS))
+            if (!tryLockDeployment())
             {
                 return;
             }
@@ -372,7 +377,6 @@ public class DefaultArchiveDeployer<T extends Artifact> implements ArchiveDeploy
 
     private void addZombieFile(String artifactName, File marker)
     {
-        // no sync required as deploy operations are single-threaded
         if (marker == null)
         {
             return;
@@ -395,15 +399,21 @@ public class DefaultArchiveDeployer<T extends Artifact> implements ArchiveDeploy
 
     private T findArtifact(String artifactName)
     {
-        return (T) CollectionUtils.find(artifacts, new BeanPropertyValueEqualsPredicate(ARTIFACT_NAME_PROPERTY, artifactName));
+        synchronized (artifacts)
+        {
+            return (T) CollectionUtils.find(artifacts, new BeanPropertyValueEqualsPredicate(ARTIFACT_NAME_PROPERTY, artifactName));
+        }
     }
 
     private void trackArtifact(T artifact)
     {
-        T previousArtifact = findArtifact(artifact.getArtifactName());
-        artifacts.remove(previousArtifact);
+        synchronized (artifacts)
+        {
+            T previousArtifact = findArtifact(artifact.getArtifactName());
+            artifacts.remove(previousArtifact);
 
-        artifacts.add(artifact);
+            artifacts.add(artifact);
+        }
     }
 
     private void undeploy(T artifact)
@@ -413,7 +423,10 @@ public class DefaultArchiveDeployer<T extends Artifact> implements ArchiveDeploy
         {
             deploymentListener.onUndeploymentStart(artifact.getArtifactName());
 
-            artifacts.remove(artifact);
+            synchronized (artifacts)
+            {
+                artifacts.remove(artifact);
+            }
             guardedUndeploy(artifact);
 
             deploymentListener.onUndeploymentSuccess(artifact.getArtifactName());
@@ -437,7 +450,7 @@ public class DefaultArchiveDeployer<T extends Artifact> implements ArchiveDeploy
     {
         try
         {
-            if (!deploymentLock.tryLock(0, TimeUnit.SECONDS))
+            if (!tryLockDeployment())
             {
                 throw new IOException(ANOTHER_DEPLOYMENT_OPERATION_IS_IN_PROGRESS);
             }
@@ -463,11 +476,19 @@ public class DefaultArchiveDeployer<T extends Artifact> implements ArchiveDeploy
         return artifactFactory.createArtifact(artifactName);
     }
 
+    /**
+     * Acquires the deployment lock, unless the current thread is deploying on behalf of its owner.
+     */
+    private boolean tryLockDeployment() throws InterruptedException
+    {
+        return ParallelDeploymentExecutor.isDeployingForLockOwner(deploymentLock) || deploymentLock.tryLock(0, TimeUnit.SECONDS);
+    }
+
     private void guardedUndeploy(T artifact)
     {
         try
         {
-            if (!deploymentLock.tryLock(0, TimeUnit.SECONDS))
+            if (!tryLockDeployment())
             {
                 return;
             }
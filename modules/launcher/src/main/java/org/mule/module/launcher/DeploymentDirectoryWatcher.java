@@ -25,13 +25,16 @@ import org.mule.util.StringUtils;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -54,12 +57,18 @@ import org.apache.commons.logging.LogFactory;
  * It will periodically scan the artifact directories in order to process new deployments,
  * remove artifacts that were previously deployed but the anchor file was removed and redeploy
  * those applications which configuration has changed.
+ * <p/>
+ * When {@link #PARALLEL_DEPLOYMENT_PROPERTY} is set, the artifacts found at startup are deployed
+ * concurrently: first all the domains, then all the applications, each on a bounded pool of
+ * {@link #PARALLEL_DEPLOYMENT_THREADS_PROPERTY} deployer threads.
  */
 public class DeploymentDirectoryWatcher implements Runnable
 {
 
     public static final String ARTIFACT_ANCHOR_SUFFIX = "-anchor.txt";
     public static final String CHANGE_CHECK_INTERVAL_PROPERTY = "mule.launcher.changeCheckInterval";
+    public static final String PARALLEL_DEPLOYMENT_PROPERTY = "mule.launcher.parallelDeployment";
+    public static final String PARALLEL_DEPLOYMENT_THREADS_PROPERTY = "mule.launcher.parallelDeployment.threads";
     public static final IOFileFilter ZIP_ARTIFACT_FILTER = new AndFileFilter(new SuffixFileFilter(ZIP_FILE_SUFFIX), FileFileFilter.FILE);
     protected static final int DEFAULT_CHANGES_CHECK_INTERVAL_MS = 5000;
 
@@ -139,40 +148,28 @@ public class DeploymentDirectoryWatcher implements Runnable
             String[] explodedDomains = domainsDir.list(DirectoryFileFilter.DIRECTORY);
             String[] packagedDomains = domainsDir.list(ZIP_ARTIFACT_FILTER);
 
-            deployPackedDomains(packagedDomains);
-            deployExplodedDomains(explodedDomains);
-
-            if (appString == null)
+            if (isParallelDeployment())
             {
-                String[] explodedApps = appsDir.list(DirectoryFileFilter.DIRECTORY);
-                String[] packagedApps = appsDir.list(ZIP_ARTIFACT_FILTER);
-
-                deployPackedApps(packagedApps);
-                deployExplodedApps(explodedApps);
+                deployInParallel(packagedDomains, explodedDomains, appString);
             }
             else
             {
-                String[] apps = appString.split(":");
-                apps = removeDuplicateAppNames(apps);
+                deployPackedDomains(packagedDomains);
+                deployExplodedDomains(explodedDomains);
 
-                for (String app : apps)
+                if (appString == null)
                 {
-                    try
-                    {
-                        File applicationFile = new File(appsDir, app + ZIP_FILE_SUFFIX);
-
-                        if (applicationFile.exists() && applicationFile.isFile())
-                        {
-                            applicationArchiveDeployer.deployPackagedArtifact(app + ZIP_FILE_SUFFIX);
-                        }
-                        else
-                        {
-                            applicationArchiveDeployer.deployExplodedArtifact(app);
-                        }
-                    }
-                    catch (Exception e)
+                    String[] explodedApps = appsDir.list(DirectoryFileFilter.DIRECTORY);
+                    String[] packagedApps = appsDir.list(ZIP_ARTIFACT_FILTER);
+
+                    deployPackedApps(packagedApps);
+                    deployExplodedApps(explodedApps);
+                }
+                else
+                {
+                    for (String app : removeDuplicateAppNames(appString.split(":")))
                     {
-                        // Ignore and continue
+                        createFixedAppDeployment(app).run();
                     }
                 }
             }
@@ -237,6 +234,141 @@ public class DeploymentDirectoryWatcher implements Runnable
         }
     }
 
+    /**
+     * Deploys the domains, and after them the applications, concurrently. An artifact with both a
+     * zip and a folder is only deployed from the zip, as it would be when deploying sequentially.
+     */
+    private void deployInParallel(String[] packagedDomains, String[] explodedDomains, String appString)
+    {
+        ParallelDeploymentExecutor executor = new ParallelDeploymentExecutor(deploymentLock, getParallelDeploymentThreads());
+
+        long startTime = System.currentTimeMillis();
+        List<Runnable> domainDeployments = createDeployments(domainArchiveDeployer, packagedDomains, explodedDomains);
+        executor.execute(domainDeployments);
+        long domainsTime = System.currentTimeMillis() - startTime;
+
+        // lists the apps after deploying the domains, as domain bundles add them
+        startTime = System.currentTimeMillis();
+        List<Runnable> appDeployments;
+        if (appString == null)
+        {
+            appDeployments = createDeployments(applicationArchiveDeployer, appsDir.list(ZIP_ARTIFACT_FILTER), appsDir.list(DirectoryFileFilter.DIRECTORY));
+        }
+        else
+        {
+            appDeployments = new ArrayList<Runnable>();
+            for (String app : removeDuplicateAppNames(appString.split(":")))
+            {
+                appDeployments.add(createFixedAppDeployment(app));
+            }
+        }
+        executor.execute(appDeployments);
+        long appsTime = System.currentTimeMillis() - startTime;
+
+        if (logger.isInfoEnabled())
+        {
+            logger.info(String.format("Deployed %d domains in %d ms and %d applications in %d ms using up to %d deployer threads",
+                                      domainDeployments.size(), domainsTime, appDeployments.size(), appsTime, getParallelDeploymentThreads()));
+        }
+    }
+
+    private List<Runnable> createDeployments(final ArchiveDeployer<?> archiveDeployer, String[] zips, String[] explodedArtifacts)
+    {
+        List<Runnable> deployments = new ArrayList<Runnable>();
+        Set<String> packagedArtifacts = new HashSet<String>();
+        for (final String zip : zips)
+        {
+            packagedArtifacts.add(StringUtils.removeEnd(zip, ZIP_FILE_SUFFIX));
+            deployments.add(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        archiveDeployer.deployPackagedArtifact(zip);
+                    }
+                    catch (Exception e)
+                    {
+                        // Ignore and continue
+                    }
+                }
+            });
+        }
+        for (final String artifact : explodedArtifacts)
+        {
+            if (packagedArtifacts.contains(artifact))
+            {
+                continue;
+            }
+            deployments.add(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        archiveDeployer.deployExplodedArtifact(artifact);
+                    }
+                    catch (DeploymentException e)
+                    {
+                        // Ignore and continue
+                    }
+                }
+            });
+        }
+        return deployments;
+    }
+
+    /**
+     * Deploys an application given in the <code>-app</code> startup option, from its zip if there is one.
+     */
+    private Runnable createFixedAppDeployment(final String app)
+    {
+        return new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    File applicationFile = new File(appsDir, app + ZIP_FILE_SUFFIX);
+
+                    if (applicationFile.exists() && applicationFile.isFile())
+                    {
+                        applicationArchiveDeployer.deployPackagedArtifact(app + ZIP_FILE_SUFFIX);
+                    }
+                    else
+                    {
+                        applicationArchiveDeployer.deployExplodedArtifact(app);
+                    }
+                }
+                catch (Exception e)
+                {
+                    // Ignore and continue
+                }
+            }
+        };
+    }
+
+    private static boolean isParallelDeployment()
+    {
+        return Boolean.getBoolean(PARALLEL_DEPLOYMENT_PROPERTY);
+    }
+
+    private static int getParallelDeploymentThreads()
+    {
+        try
+        {
+            String value = System.getProperty(PARALLEL_DEPLOYMENT_THREADS_PROPERTY);
+            return Math.max(1, Integer.parseInt(value));
+        }
+        catch (NumberFormatException e)
+        {
+            return Runtime.getRuntime().availableProcessors();
+        }
+    }
+
     private static int getChangesCheckIntervalMs()
     {
         try
@@ -379,7 +511,10 @@ public class DeploymentDirectoryWatcher implements Runnable
 
     public <T extends Artifact> T findArtifact(String artifactName, ObservableList<T> artifacts)
     {
-        return (T) CollectionUtils.find(artifacts, new BeanPropertyValueEqualsPredicate(ARTIFACT_NAME_PROPERTY, artifactName));
+        synchronized (artifacts)
+        {
+            return (T) CollectionUtils.find(artifacts, new BeanPropertyValueEqualsPredicate(ARTIFACT_NAME_PROPERTY, artifactName));
+        }
     }
 
     private void undeployRemovedDomains()
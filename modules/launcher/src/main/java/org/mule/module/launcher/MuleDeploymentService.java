@@ -132,14 +132,17 @@ public class MuleDeploymentService implements DeploymentService
     public Collection<Application> findDomainApplications(final String domain)
     {
         Preconditions.checkArgument(domain != null, "Domain name cannot be null");
-        return (Collection<Application>) CollectionUtils.select(applications, new Predicate()
+        synchronized (applications)
         {
-            @Override
-            public boolean evaluate(Object object)
+            return (Collection<Application>) CollectionUtils.select(applications, new Predicate()
             {
-                return ((Application) object).getDomain().getArtifactName().equals(domain);
-            }
-        });
+                @Override
+                public boolean evaluate(Object object)
+                {
+                    return ((Application) object).getDomain().getArtifactName().equals(domain);
+                }
+            });
+        }
     }
 
 
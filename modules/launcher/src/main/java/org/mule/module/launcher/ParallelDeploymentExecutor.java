@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.launcher;
+
+import org.mule.util.concurrent.NamedThreadFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Runs the deployment of independent artifacts concurrently on a bounded pool of deployer threads
+ * and waits for all of them to finish.
+ * <p/>
+ * The thread running the deployments must hold the deployment lock, and keeps it while they are in
+ * progress, so no other deployment operation can start meanwhile. The deployer threads work on
+ * behalf of that thread: the operations guarded by the deployment lock check
+ * {@link #isDeployingForLockOwner(ReentrantLock)} to run on them.
+ */
+public class ParallelDeploymentExecutor
+{
+
+    public static final String DEPLOYER_THREAD_NAME = "Mule.app.deployer";
+
+    private static final ThreadLocal<ReentrantLock> ownerLock = new ThreadLocal<ReentrantLock>();
+
+    private static final Log logger = LogFactory.getLog(ParallelDeploymentExecutor.class);
+
+    private final ReentrantLock deploymentLock;
+    private final int maxThreads;
+
+    public ParallelDeploymentExecutor(ReentrantLock deploymentLock, int maxThreads)
+    {
+        if (maxThreads < 1)
+        {
+            throw new IllegalArgumentException("Deployer threads must be at least 1, but was " + maxThreads);
+        }
+        this.deploymentLock = deploymentLock;
+        this.maxThreads = maxThreads;
+    }
+
+    /**
+     * Runs the given deployments and waits for them to finish. Deployments are expected to handle
+     * their own failures, anything they throw is logged.
+     *
+     * @throws IllegalStateException if the current thread does not hold the deployment lock
+     */
+    public void execute(List<Runnable> deployments)
+    {
+        if (!deploymentLock.isHeldByCurrentThread())
+        {
+            throw new IllegalStateException("Parallel deployments can only be started holding the deployment lock");
+        }
+
+        int threads = Math.min(maxThreads, deployments.size());
+        if (threads <= 1)
+        {
+            for (Runnable deployment : deployments)
+            {
+                deployment.run();
+            }
+            return;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new NamedThreadFactory(DEPLOYER_THREAD_NAME));
+        try
+        {
+            List<Future<?>> results = new ArrayList<Future<?>>(deployments.size());
+            for (Runnable deployment : deployments)
+            {
+                results.add(executor.submit(new LockOwnerDeployment(deployment)));
+            }
+
+            for (Future<?> result : results)
+            {
+                try
+                {
+                    result.get();
+                }
+                catch (ExecutionException e)
+                {
+                    logger.error("Unexpected error deploying artifact", e.getCause());
+                }
+            }
+        }
+        catch (InterruptedException e)
+        {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * @return true if the current thread is a deployer thread working on behalf of the thread that
+     *         holds the given lock
+     */
+    public static boolean isDeployingForLockOwner(ReentrantLock lock)
+    {
+        return ownerLock.get() == lock && lock.isLocked();
+    }
+
+    private class LockOwnerDeployment implements Runnable
+    {
+
+        private final Runnable deployment;
+
+        LockOwnerDeployment(Runnable deployment)
+        {
+            this.deployment = deployment;
+        }
+
+        @Override
+        public void run()
+        {
+            ownerLock.set(deploymentLock);
+            try
+            {
+                deployment.run();
+            }
+            finally
+            {
+                ownerLock.remove();
+            }
+        }
+    }
+}
@@ -6,6 +6,7 @@
  */
 package org.mule.module.launcher;
 
+import org.mule.module.launcher.ArtifactDeploymentStatusTracker.DeploymentTimes;
 import org.mule.module.launcher.application.Application;
 import org.mule.util.SimpleLoggingTable;
 
@@ -18,7 +19,8 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 /**
- * Prints application status summary table on Mule startup.
+ * Prints application status summary table on Mule startup, followed by the time each artifact
+ * took to go through each deployment phase.
  */
 public class StartupSummaryDeploymentListener implements StartupListener
 {
@@ -31,6 +33,13 @@ public class StartupSummaryDeploymentListener implements StartupListener
     private static final int ARTIFACT_NAME_LABEL_LENGTH = 45;
     private static final int STATUS_LABEL_LENGTH = 18;
     private static final int DOMAIN_OWNER_LABEL_LENGTH = 30;
+    private static final String ARTIFACT_LABEL = "ARTIFACT";
+    private static final String CLASS_LOADING_LABEL = "CLASS LOADING (ms)";
+    private static final String CONFIGURATION_LABEL = "CONFIGURATION (ms)";
+    private static final String START_LABEL = "START (ms)";
+    private static final String TOTAL_LABEL = "TOTAL (ms)";
+    private static final int TIME_LABEL_LENGTH = 20;
+    private static final String NO_TIME = "-";
 
     private final DeploymentService deploymentService;
 
@@ -97,5 +106,37 @@ public class StartupSummaryDeploymentListener implements StartupListener
         }
 
         logger.info(message);
+        logger.info(String.format("%n%s", createTimesTable()));
+    }
+
+    private SimpleLoggingTable createTimesTable()
+    {
+        SimpleLoggingTable timesTable = new SimpleLoggingTable();
+        timesTable.addColumn(ARTIFACT_LABEL, ARTIFACT_NAME_LABEL_LENGTH);
+        timesTable.addColumn(CLASS_LOADING_LABEL, TIME_LABEL_LENGTH);
+        timesTable.addColumn(CONFIGURATION_LABEL, TIME_LABEL_LENGTH);
+        timesTable.addColumn(START_LABEL, TIME_LABEL_LENGTH);
+        timesTable.addColumn(TOTAL_LABEL, TIME_LABEL_LENGTH);
+
+        addTimesRows(timesTable, tracker.getDomainDeploymentStatusTracker().getDeploymentTimes());
+        addTimesRows(timesTable, tracker.getApplicationDeploymentStatusTracker().getDeploymentTimes());
+
+        return timesTable;
+    }
+
+    private void addTimesRows(SimpleLoggingTable timesTable, Map<String, DeploymentTimes> deploymentTimes)
+    {
+        for (String artifact : deploymentTimes.keySet())
+        {
+            DeploymentTimes times = deploymentTimes.get(artifact);
+            String[] data = new String[] {artifact, formatTime(times.getClassLoadingTime()),
+                formatTime(times.getConfigurationTime()), formatTime(times.getStartTime()), formatTime(times.getTotalTime())};
+            timesTable.addDataRow(data);
+        }
+    }
+
+    private String formatTime(long time)
+    {
+        return time < 0 ? NO_TIME : String.valueOf(time);
     }
 }
@@ -39,7 +39,7 @@ public class DefaultDomainFactory implements DomainFactory
     }
 
     @Override
-    public Domain createArtifact(String artifactName) throws IOException
+    public synchronized Domain createArtifact(String artifactName) throws IOException
     {
         if (domains.containsKey(artifactName))
         {
@@ -62,7 +62,7 @@ public class DefaultDomainFactory implements DomainFactory
         return MuleContainerBootstrapUtils.getMuleDomainsDir();
     }
 
-    public void dispose(Domain domain)
+    public synchronized void dispose(Domain domain)
     {
         domains.remove(domain);
     }
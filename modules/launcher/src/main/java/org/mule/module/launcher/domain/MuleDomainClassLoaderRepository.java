@@ -45,7 +45,7 @@ public class MuleDomainClassLoaderRepository implements DomainClassLoaderReposit
     }
 
     @Override
-    public ArtifactClassLoader getDefaultDomainClassLoader()
+    public synchronized ArtifactClassLoader getDefaultDomainClassLoader()
     {
         if (defaultDomainArtifactClassLoader != null)
         {
@@ -96,7 +96,10 @@ public class MuleDomainClassLoaderRepository implements DomainClassLoaderReposit
             @Override
             public void dispose()
             {
-                domainArtifactClassLoaders.remove(classLoader.getArtifactName());
+                synchronized (MuleDomainClassLoaderRepository.this)
+                {
+                    domainArtifactClassLoaders.remove(classLoader.getArtifactName());
+                }
                 classLoader.dispose();
             }
 
@@ -1214,6 +1214,36 @@ public class DeploymentServiceTestCase extends AbstractMuleContextTestCase
         assertDomainAnchorFileExists(dummyDomainDescriptor.id);
     }
 
+    @Test
+    public void deploysDomainsAndAppsInParallelOnStartup() throws Exception
+    {
+        addPackedDomainFromResource(dummyDomainDescriptor.zipPath);
+        addPackedAppFromResource(dummyDomainApp1Descriptor.zipPath);
+        addPackedAppFromResource(dummyDomainApp2Descriptor.zipPath);
+        addPackedAppFromResource(emptyAppDescriptor.zipPath);
+        addPackedAppFromResource(brokenAppDescriptor.zipPath, brokenAppDescriptor.targetPath);
+
+        System.setProperty(DeploymentDirectoryWatcher.PARALLEL_DEPLOYMENT_PROPERTY, "true");
+        try
+        {
+            deploymentService.start();
+        }
+        finally
+        {
+            System.clearProperty(DeploymentDirectoryWatcher.PARALLEL_DEPLOYMENT_PROPERTY);
+        }
+
+        assertDeploymentSuccess(domainDeploymentListener, dummyDomainDescriptor.id);
+        assertDeploymentSuccess(applicationDeploymentListener, dummyDomainApp1Descriptor.id);
+        assertDeploymentSuccess(applicationDeploymentListener, dummyDomainApp2Descriptor.id);
+        assertDeploymentSuccess(applicationDeploymentListener, emptyAppDescriptor.id);
+        assertDeploymentFailure(applicationDeploymentListener, "brokenApp");
+        assertEquals(1, deploymentService.getZombieApplications().size());
+
+        assertThat(deploymentService.findApplication(dummyDomainApp1Descriptor.id).getDomain().getArtifactName(), is(dummyDomainDescriptor.id));
+        assertThat(deploymentService.findApplication(dummyDomainApp2Descriptor.id).getDomain().getArtifactName(), is(dummyDomainDescriptor.id));
+    }
+
     @Test
     public void deploysPackagedDomainAndVerifyAnchorFileIsCreatedAfterDeploymentEnds() throws Exception
     {
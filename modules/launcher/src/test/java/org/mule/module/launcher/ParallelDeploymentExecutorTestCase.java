@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.launcher;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import org.mule.module.launcher.util.DebuggableReentrantLock;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+@SmallTest
+public class ParallelDeploymentExecutorTestCase extends AbstractMuleTestCase
+{
+
+    private static final int THREADS = 3;
+    private static final long TIMEOUT = 5000;
+
+    private final ReentrantLock deploymentLock = new DebuggableReentrantLock(true);
+    private final ParallelDeploymentExecutor executor = new ParallelDeploymentExecutor(deploymentLock, THREADS);
+
+    @Before
+    public void lock()
+    {
+        deploymentLock.lock();
+    }
+
+    @After
+    public void unlock()
+    {
+        if (deploymentLock.isHeldByCurrentThread())
+        {
+            deploymentLock.unlock();
+        }
+    }
+
+    @Test
+    public void runsDeploymentsConcurrently() throws Exception
+    {
+        final CountDownLatch allStarted = new CountDownLatch(THREADS);
+        final AtomicInteger finished = new AtomicInteger();
+        List<Runnable> deployments = new ArrayList<Runnable>();
+        for (int i = 0; i < THREADS; i++)
+        {
+            deployments.add(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    allStarted.countDown();
+                    try
+                    {
+                        // only completes if all the deployments are running at the same time
+                        if (allStarted.await(TIMEOUT, TimeUnit.MILLISECONDS))
+                        {
+                            finished.incrementAndGet();
+                        }
+                    }
+                    catch (InterruptedException e)
+                    {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+        }
+
+        executor.execute(deployments);
+
+        assertThat(finished.get(), is(THREADS));
+    }
+
+    @Test
+    public void limitsDeployerThreads() throws Exception
+    {
+        final Set<String> threadNames = Collections.synchronizedSet(new HashSet<String>());
+        List<Runnable> deployments = new ArrayList<Runnable>();
+        for (int i = 0; i < THREADS * 4; i++)
+        {
+            deployments.add(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    threadNames.add(Thread.currentThread().getName());
+                }
+            });
+        }
+
+        executor.execute(deployments);
+
+        assertThat(threadNames.size() <= THREADS, is(true));
+    }
+
+    @Test
+    public void deployerThreadsWorkForTheLockOwner() throws Exception
+    {
+        final AtomicInteger deployingForOwner = new AtomicInteger();
+        Runnable deployment = new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                if (ParallelDeploymentExecutor.isDeployingForLockOwner(deploymentLock) && !deploymentLock.tryLock())
+                {
+                    deployingForOwner.incrementAndGet();
+                }
+            }
+        };
+
+        executor.execute(new ArrayList<Runnable>(Collections.nCopies(THREADS, deployment)));
+
+        assertThat(deployingForOwner.get(), is(THREADS));
+        assertThat(ParallelDeploymentExecutor.isDeployingForLockOwner(deploymentLock), is(false));
+    }
+
+    @Test
+    public void continuesAfterAFailedDeployment() throws Exception
+    {
+        final AtomicInteger deployed = new AtomicInteger();
+        List<Runnable> deployments = new ArrayList<Runnable>();
+        deployments.add(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                throw new IllegalStateException("Expected failure");
+            }
+        });
+        deployments.add(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                deployed.incrementAndGet();
+            }
+        });
+
+        executor.execute(deployments);
+
+        assertThat(deployed.get(), is(1));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void requiresTheDeploymentLock() throws Exception
+    {
+        deploymentLock.unlock();
+
+        executor.execute(Collections.<Runnable>emptyList());
+    }
+}
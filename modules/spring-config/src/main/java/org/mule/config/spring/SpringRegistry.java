@@ -17,7 +17,9 @@ import org.mule.util.StringUtils;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.springframework.beans.FatalBeanException;
@@ -42,6 +44,9 @@ public class SpringRegistry extends AbstractRegistry
     //lifecycle phase from the application context
     protected AtomicBoolean springContextInitialised = new AtomicBoolean(false);
 
+    // the beans of each type looked up once the context was initialised, when all of them are singletons
+    private final Map<Class<?>, Map<String, ?>> singletonsByType = new ConcurrentHashMap<Class<?>, Map<String, ?>>();
+
     public SpringRegistry(MuleContext muleContext)
     {
         super(REGISTRY_ID, muleContext);
@@ -109,6 +114,7 @@ public class SpringRegistry extends AbstractRegistry
         applicationContext = null;
 
         this.springContextInitialised.set(false);
+        singletonsByType.clear();
     }
 
     @Override
@@ -168,10 +174,45 @@ public class SpringRegistry extends AbstractRegistry
         return internalLookupByTypeWithoutAncestors(type, false, false).values();
     }
 
+    /**
+     * Once the application context is initialised no beans are added to it, so when all the beans
+     * of the given type are singletons they are kept to answer the following lookups of the type
+     * without going through the bean definitions again.
+     */
     @Override
+    @SuppressWarnings("unchecked")
     public <T> Map<String, T> lookupByType(Class<T> type)
     {
-        return internalLookupByType(type, true, true);
+        Map<String, T> beans = (Map<String, T>) singletonsByType.get(type);
+        if (beans == null)
+        {
+            beans = internalLookupByType(type, true, true);
+            if (springContextInitialised.get() && areSingletons(beans.keySet()))
+            {
+                singletonsByType.put(type, new LinkedHashMap<String, T>(beans));
+            }
+            return beans;
+        }
+        return new LinkedHashMap<String, T>(beans);
+    }
+
+    private boolean areSingletons(Collection<String> beanNames)
+    {
+        try
+        {
+            for (String beanName : beanNames)
+            {
+                if (!applicationContext.isSingleton(beanName))
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+        catch (NoSuchBeanDefinitionException e)
+        {
+            return false;
+        }
     }
 
     protected <T> Map<String, T> internalLookupByType(Class<T> type, boolean nonSingletons, boolean eagerInit)
@@ -7,6 +7,8 @@
 package org.mule.config.spring;
 
 import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNot.not;
+import static org.hamcrest.core.IsSame.sameInstance;
 import static org.junit.Assert.assertThat;
 
 import org.mule.api.registry.Registry;
@@ -71,6 +73,33 @@ public class SpringRegistryTestCase extends AbstractRegistryTestCase
         assertThat(springRegistry.lookupObjectsForLifecycle(String.class).size(), is(1));
     }
 
+    @Test
+    public void lookupByTypeKeepsSingletonsOnceInitialised() throws Exception
+    {
+        createSpringRegistryWithParentContext();
+        applicationContext.registerSingleton(BEAN_KEY, StringBuilder.class);
+        parentApplicationContext.registerSingleton(ANOTHER_BEAN_KEY, StringBuilder.class);
+        parentApplicationContext.refresh();
+        springRegistry.initialise();
+
+        StringBuilder bean = springRegistry.lookupByType(StringBuilder.class).get(BEAN_KEY);
+        assertThat(springRegistry.lookupByType(StringBuilder.class).size(), is(2));
+        assertThat(springRegistry.lookupByType(StringBuilder.class).get(BEAN_KEY), is(sameInstance(bean)));
+        assertThat(springRegistry.lookupObjects(StringBuilder.class).size(), is(2));
+    }
+
+    @Test
+    public void lookupByTypeCreatesPrototypesEachTime() throws Exception
+    {
+        createSpringRegistryWithParentContext();
+        applicationContext.registerPrototype(BEAN_KEY, StringBuilder.class);
+        parentApplicationContext.refresh();
+        springRegistry.initialise();
+
+        StringBuilder bean = springRegistry.lookupByType(StringBuilder.class).get(BEAN_KEY);
+        assertThat(springRegistry.lookupByType(StringBuilder.class).get(BEAN_KEY), is(not(sameInstance(bean))));
+    }
+
     private void createSpringRegistryWithParentContext()
     {
         applicationContext = new StaticApplicationContext();
@@ -22,13 +22,15 @@ import org.mule.config.i18n.CoreMessages;
 import org.mule.context.notification.MuleContextNotification;
 import org.mule.module.xml.i18n.XmlMessages;
 import org.mule.module.xml.util.NamespaceManager;
+import org.mule.module.xml.util.XPathExpressionCache;
 import org.mule.transformer.types.DataTypeFactory;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.WeakHashMap;
 
+import org.apache.commons.collections.map.LRUMap;
 import org.dom4j.Document;
 import org.jaxen.JaxenException;
 import org.jaxen.XPath;
@@ -40,7 +42,7 @@ import org.w3c.dom.Node;
  */
 public abstract class AbstractXPathExpressionEvaluator implements ExpressionEvaluator, Initialisable, Disposable, MuleContextAware
 {
-    private Map<String, XPath> cache = new WeakHashMap<String, XPath>(8);
+    private Map<String, XPath> cache = Collections.synchronizedMap(new LRUMap(XPathExpressionCache.DEFAULT_MAX_SIZE));
 
     private MuleContext muleContext;
     private NamespaceManager namespaceManager;
@@ -169,9 +171,8 @@ public abstract class AbstractXPathExpressionEvaluator implements ExpressionEval
     }
 
     /*
-        The cache is not thread safe, more than one instance of the same xpath can be created, it wouldn't be an
-        issue in this case since one will eventually be selected for GC
-        A ReadWriteLock could be used to guard the cache but it would add unnecessary complexity
+        More than one instance of the same xpath can be created when it is first evaluated concurrently, it wouldn't
+        be an issue in this case since one will eventually be selected for GC
      */
     protected XPath getXPath(String expression, Object object) throws JaxenException
     {
@@ -18,19 +18,13 @@ import org.mule.api.lifecycle.InitialisationException;
 import org.mule.api.registry.RegistrationException;
 import org.mule.context.notification.MuleContextNotification;
 import org.mule.module.xml.i18n.XmlMessages;
-import org.mule.module.xml.stax.MapNamespaceContext;
 import org.mule.module.xml.util.NamespaceManager;
+import org.mule.module.xml.util.XPathExpressionCache;
 import org.mule.transformer.types.DataTypeFactory;
 
-import java.util.Map;
-import java.util.WeakHashMap;
-
+import javax.xml.namespace.NamespaceContext;
 import javax.xml.namespace.QName;
-import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathExpression;
-import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
 
 import org.w3c.dom.Node;
 
@@ -48,10 +42,9 @@ import org.w3c.dom.Node;
  */
 public class JaxpXPathExpressionEvaluator implements ExpressionEvaluator, Initialisable, Disposable, MuleContextAware
 {
-    private Map<String, XPathExpression> cache = new WeakHashMap<String, XPathExpression>(8);
-
     private MuleContext muleContext;
-    private NamespaceManager namespaceManager;
+    private volatile NamespaceManager namespaceManager;
+    private volatile XPathExpressionCache expressionCache;
     private QName returnType = XPathConstants.STRING;
 
     public JaxpXPathExpressionEvaluator()
@@ -97,7 +90,7 @@ public class JaxpXPathExpressionEvaluator implements ExpressionEvaluator, Initia
                     {
                         try
                         {
-                            namespaceManager = muleContext.getRegistry().lookupObject(NamespaceManager.class);
+                            setNamespaceManager(muleContext.getRegistry().lookupObject(NamespaceManager.class));
                         }
                         catch (RegistrationException e)
                         {
@@ -157,10 +150,10 @@ public class JaxpXPathExpressionEvaluator implements ExpressionEvaluator, Initia
         try
         {
             Node payload = message.getPayload(DataTypeFactory.create(Node.class));
+            NamespaceManager manager = namespaceManager;
+            NamespaceContext namespaceContext = manager == null ? null : manager.getNamespaceContext();
 
-            XPathExpression xpath = getXPath(expression);
-
-            return xpath.evaluate(payload, retType);
+            return getExpressionCache().evaluate(expression, namespaceContext, payload, retType);
         }
         catch (Exception e)
         {
@@ -168,26 +161,13 @@ public class JaxpXPathExpressionEvaluator implements ExpressionEvaluator, Initia
         }
     }
 
-    protected XPathExpression getXPath(String expression) throws XPathExpressionException
-    {
-        String key = expression + getClass().getName();
-        XPathExpression xpath = cache.get(key);
-        if (xpath == null)
-        {
-            xpath = createXPath(expression);
-            cache.put(key, xpath);
-        }
-        return xpath;
-    }
-
-    protected XPathExpression createXPath(String expression) throws XPathExpressionException
+    private XPathExpressionCache getExpressionCache()
     {
-        XPath xp = XPathFactory.newInstance().newXPath();
-        if (getNamespaceManager() != null)
+        if (expressionCache == null)
         {
-            xp.setNamespaceContext(new MapNamespaceContext(getNamespaceManager().getNamespaces()));
+            expressionCache = XPathExpressionCache.lookup(muleContext);
         }
-        return xp.compile(expression);
+        return expressionCache;
     }
 
     /**
@@ -198,7 +178,6 @@ public class JaxpXPathExpressionEvaluator implements ExpressionEvaluator, Initia
     @Override
     public void dispose()
     {
-        cache.clear();
     }
 
     public NamespaceManager getNamespaceManager()
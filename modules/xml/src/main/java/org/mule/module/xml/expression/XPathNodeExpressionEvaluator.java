@@ -8,8 +8,8 @@ package org.mule.module.xml.expression;
 
 import org.mule.api.expression.ExpressionRuntimeException;
 import org.mule.module.xml.i18n.XmlMessages;
+import org.mule.module.xml.util.DocumentBuilderPool;
 
-import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 
@@ -24,19 +24,7 @@ public class XPathNodeExpressionEvaluator extends XPathExpressionEvaluator
 {
     public static final String NAME = "xpath-node";
 
-    private DocumentBuilder builder;
-
-    public XPathNodeExpressionEvaluator()
-    {
-        try
-        {
-            builder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
-        }
-        catch (ParserConfigurationException e)
-        {
-            throw new ExpressionRuntimeException(XmlMessages.failedToCreateDocumentBuilder(), e);
-        }
-    }
+    private final DocumentBuilderPool builderPool = new DocumentBuilderPool(DocumentBuilderFactory.newInstance());
 
     @Override
     protected Object extractResultFromNode(Object result)
@@ -60,7 +48,15 @@ public class XPathNodeExpressionEvaluator extends XPathExpressionEvaluator
     {
         org.w3c.dom.Element element = (org.w3c.dom.Element) result;
 
-        Document doc = builder.newDocument();
+        Document doc;
+        try
+        {
+            doc = builderPool.newDocument();
+        }
+        catch (ParserConfigurationException e)
+        {
+            throw new ExpressionRuntimeException(XmlMessages.failedToCreateDocumentBuilder(), e);
+        }
         doc.appendChild(doc.importNode(element, true));
         return doc;
     }
@@ -11,6 +11,7 @@ import org.mule.api.lifecycle.InitialisationException;
 import org.mule.api.transport.OutputHandler;
 import org.mule.module.xml.transformer.DelayedResult;
 import org.mule.module.xml.transformer.XmlToDomDocument;
+import org.mule.module.xml.util.DocumentBuilderPool;
 import org.mule.transformer.types.DataTypeFactory;
 
 import java.io.ByteArrayInputStream;
@@ -37,6 +38,8 @@ public abstract class AbstractJaxpFilter
     private XmlToDomDocument xmlToDom = new XmlToDomDocument();
 
     private DocumentBuilderFactory documentBuilderFactory;
+
+    private DocumentBuilderPool documentBuilderPool;
     
     public AbstractJaxpFilter()
     {
@@ -72,21 +75,20 @@ public abstract class AbstractJaxpFilter
             ByteArrayOutputStream output = new ByteArrayOutputStream();
             handler.write(RequestContext.getEvent(), output);
             InputStream stream = new ByteArrayInputStream(output.toByteArray());
-            return getDocumentBuilderFactory().newDocumentBuilder().parse(stream);
+            return getDocumentBuilderPool().parse(new InputSource(stream));
         }
         else if (src instanceof byte[])
         {
             ByteArrayInputStream stream = new ByteArrayInputStream((byte[]) src);
-            return getDocumentBuilderFactory().newDocumentBuilder().parse(stream);
+            return getDocumentBuilderPool().parse(new InputSource(stream));
         }
         else if (src instanceof InputStream)
         {
-            return getDocumentBuilderFactory().newDocumentBuilder().parse((InputStream) src);
+            return getDocumentBuilderPool().parse(new InputSource((InputStream) src));
         }
         else if (src instanceof String)
         {
-            return getDocumentBuilderFactory().newDocumentBuilder().parse(
-                new InputSource(new StringReader((String) src)));
+            return getDocumentBuilderPool().parse(new InputSource(new StringReader((String) src)));
         }
         else if (src instanceof XMLStreamReader)
         {
@@ -98,7 +100,7 @@ public abstract class AbstractJaxpFilter
                 xsr.nextTag();
             }
     
-            return getDocumentBuilderFactory().newDocumentBuilder().parse(new InputSource());
+            return getDocumentBuilderPool().parse(new InputSource());
         }
         else if (src instanceof DelayedResult)
         {
@@ -132,5 +134,14 @@ public abstract class AbstractJaxpFilter
     public void setDocumentBuilderFactory(DocumentBuilderFactory documentBuilderFactory)
     {
         this.documentBuilderFactory = documentBuilderFactory;
+        this.documentBuilderPool = documentBuilderFactory == null ? null : new DocumentBuilderPool(documentBuilderFactory);
+    }
+
+    /**
+     * @return the pool of the document builders created by the document builder factory
+     */
+    protected DocumentBuilderPool getDocumentBuilderPool()
+    {
+        return documentBuilderPool;
     }
 }
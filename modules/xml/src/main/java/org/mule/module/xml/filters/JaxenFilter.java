@@ -53,6 +53,11 @@ public class JaxenFilter implements Filter, MuleContextAware
     private MuleContext muleContext;
     private NamespaceManager namespaceManager;
 
+    // compiled lazily for each kind of payload, evaluating them is thread safe once their namespaces are set
+    private volatile DOMXPath domXPath;
+    private volatile Dom4jXPath dom4jXPath;
+    private volatile JavaBeanXPath javaBeanXPath;
+
     public JaxenFilter()
     {
         super();
@@ -92,6 +97,7 @@ public class JaxenFilter implements Filter, MuleContextAware
             {
                 namespaces.putAll(namespaceManager.getNamespaces());
             }
+            resetXPaths();
         }
     }
 
@@ -152,6 +158,7 @@ public class JaxenFilter implements Filter, MuleContextAware
             {
                 expectedValue = "null";
                 pattern = pattern.substring(0, pattern.lastIndexOf("="));
+                resetXPaths();
             }
             else
             {
@@ -235,25 +242,51 @@ public class JaxenFilter implements Filter, MuleContextAware
 
     protected DOMXPath getDOMXPath() throws JaxenException
     {
-        DOMXPath xpath = new DOMXPath(pattern);
-        setupNamespaces(xpath);
+        DOMXPath xpath = domXPath;
+        if (xpath == null)
+        {
+            xpath = new DOMXPath(pattern);
+            setupNamespaces(xpath);
+            domXPath = xpath;
+        }
         return xpath;
     }
 
     protected Dom4jXPath getDom4jXPath() throws JaxenException
     {
-        Dom4jXPath xpath = new Dom4jXPath(pattern);
-        setupNamespaces(xpath);
+        Dom4jXPath xpath = dom4jXPath;
+        if (xpath == null)
+        {
+            xpath = new Dom4jXPath(pattern);
+            setupNamespaces(xpath);
+            dom4jXPath = xpath;
+        }
         return xpath;
     }
 
     protected JavaBeanXPath getJavaBeanXPath() throws JaxenException
     {
-        JavaBeanXPath xpath = new JavaBeanXPath(pattern);
-        setupNamespaces(xpath);
+        JavaBeanXPath xpath = javaBeanXPath;
+        if (xpath == null)
+        {
+            xpath = new JavaBeanXPath(pattern);
+            setupNamespaces(xpath);
+            javaBeanXPath = xpath;
+        }
         return xpath;
     }
 
+    /**
+     * Discards the compiled expressions, which must be compiled again after the pattern or the
+     * namespaces change.
+     */
+    private void resetXPaths()
+    {
+        domXPath = null;
+        dom4jXPath = null;
+        javaBeanXPath = null;
+    }
+
     private void setupNamespaces(BaseXPath xpath) throws JaxenException
     {
         if (namespaces != null)
@@ -275,6 +308,7 @@ public class JaxenFilter implements Filter, MuleContextAware
     public void setPattern(String pattern)
     {
         this.pattern = pattern;
+        resetXPaths();
     }
 
     /** @return The expected result value of the XPath expression */
@@ -297,6 +331,7 @@ public class JaxenFilter implements Filter, MuleContextAware
     public void setNamespaces(Map<String, String> namespaces)
     {
         this.namespaces = namespaces;
+        resetXPaths();
     }
 
     public Map getContextProperties()
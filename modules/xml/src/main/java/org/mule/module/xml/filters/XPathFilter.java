@@ -16,21 +16,33 @@ import org.mule.api.registry.RegistrationException;
 import org.mule.api.routing.filter.Filter;
 import org.mule.config.i18n.CoreMessages;
 import org.mule.config.i18n.MessageFactory;
+import org.mule.module.xml.stax.MapNamespaceContext;
+import org.mule.module.xml.stax.StreamingXPath;
 import org.mule.module.xml.util.NamespaceManager;
+import org.mule.module.xml.util.XMLUtils;
+import org.mule.module.xml.util.XPathExpressionCache;
 import org.mule.util.ClassUtils;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
 import java.text.MessageFormat;
-import java.util.Arrays;
-import java.util.Collections;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.Map;
 
 import javax.xml.namespace.NamespaceContext;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamReader;
 import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpressionException;
 import javax.xml.xpath.XPathFactory;
 
+import org.apache.commons.io.input.TeeInputStream;
+import org.apache.commons.io.output.DeferredFileOutputStream;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.w3c.dom.Node;
@@ -42,12 +54,24 @@ import static org.mule.util.ClassUtils.hash;
  */
 public class XPathFilter extends AbstractJaxpFilter  implements Filter, Initialisable, MuleContextAware
 {
+    public static final int DEFAULT_SPOOL_THRESHOLD = 64 * 1024;
+
+    private static final String SPOOL_FILE_PREFIX = "mule-xpath-filter";
+
     protected transient Log logger = LogFactory.getLog(getClass());
 
     private String pattern;
     private String expectedValue;
-    private XPath xpath;
+    private volatile XPath xpath;
+    private volatile boolean customXpath;
     private Map<String, String> prefixToNamespaceMap = null;
+    private NamespaceContext namespaceContext;
+    private volatile XPathExpressionCache expressionCache;
+    private boolean streaming;
+    private volatile StreamingXPath streamingXPath;
+    private volatile boolean streamingUnsupported;
+    private int spoolThreshold = DEFAULT_SPOOL_THRESHOLD;
+    private final XMLInputFactory xmlInputFactory = XMLInputFactory.newInstance();
 
     private NamespaceManager namespaceManager;
 
@@ -80,12 +104,6 @@ public class XPathFilter extends AbstractJaxpFilter  implements Filter, Initiali
     {
         super.initialise();
 
-        if (getXpath() == null)
-        {
-            setXpath(XPathFactory.newInstance().newXPath());
-        }
-
-
         if (pattern == null)
         {
             throw new InitialisationException(
@@ -118,51 +136,18 @@ public class XPathFilter extends AbstractJaxpFilter  implements Filter, Initiali
             }
         }
 
-        final Map<String, String> prefixToNamespaceMap = this.prefixToNamespaceMap;
         if (prefixToNamespaceMap != null)
         {
-            getXpath().setNamespaceContext(new NamespaceContext()
+            namespaceContext = new MapNamespaceContext(prefixToNamespaceMap);
+            if (xpath != null)
             {
-                @Override
-                public String getNamespaceURI(String prefix)
-                {
-                    return prefixToNamespaceMap.get(prefix);
-                }
-
-                @Override
-                public String getPrefix(String namespaceURI)
-                {
-
-                    for (Map.Entry<String, String> entry : prefixToNamespaceMap.entrySet())
-                    {
-                        if (namespaceURI.equals(entry.getValue()))
-                        {
-                            return entry.getKey();
-                        }
-                    }
-
-                    return null;
-                }
-
-                @Override
-                public Iterator<String> getPrefixes(String namespaceURI)
-                {
-                    String prefix = getPrefix(namespaceURI);
-                    if (prefix == null)
-                    {
-                        return Collections.<String>emptyList().iterator();
-                    }
-                    else
-                    {
-                        return Arrays.asList(prefix).iterator();
-                    }
-                }
-            });
+                xpath.setNamespaceContext(namespaceContext);
+            }
         }
 
         if (logger.isInfoEnabled())
         {
-            logger.info("XPath implementation: " + getXpath());
+            logger.info("XPath implementation: " + (customXpath ? xpath : getExpressionCache()));
             logger.info("DocumentBuilderFactory implementation: " + getDocumentBuilderFactory());
         }
     }
@@ -206,6 +191,15 @@ public class XPathFilter extends AbstractJaxpFilter  implements Filter, Initiali
             }
         }
 
+        if (streaming && !(payload instanceof Node))
+        {
+            StreamingXPath compiled = getStreamingXPath();
+            if (compiled != null)
+            {
+                return acceptStreaming(message, compiled);
+            }
+        }
+
         Node node;
         try
         {
@@ -226,14 +220,148 @@ public class XPathFilter extends AbstractJaxpFilter  implements Filter, Initiali
         return accept(node);
     }
 
+    /**
+     * Evaluates the expression while reading the payload, instead of parsing it into a DOM first.
+     * Reading stops at the first selected node and no DOM is built.
+     */
+    protected boolean acceptStreaming(MuleMessage message, StreamingXPath compiled)
+    {
+        Object payload = message.getPayload();
+        if (payload instanceof InputStream)
+        {
+            return acceptStreaming(message, (InputStream) payload, compiled);
+        }
+
+        String xpathResult;
+        try
+        {
+            XMLStreamReader reader = XMLUtils.toXMLStreamReader(xmlInputFactory, payload);
+            if (reader == null)
+            {
+                // not an XML representation the reader understands, e.g. a DOM from another library
+                Node node = toDOMNode(payload);
+                message.setPayload(node);
+                return accept(node);
+            }
+            try
+            {
+                xpathResult = compiled.evaluate(reader);
+            }
+            finally
+            {
+                reader.close();
+            }
+        }
+        catch (Exception e)
+        {
+            if (logger.isWarnEnabled())
+            {
+                logger.warn(ClassUtils.getSimpleName(getClass()) + " filter rejected message because of an error while streaming XML: "
+                            + e.getMessage(), e);
+            }
+            return false;
+        }
+
+        return matchesExpectedValue(xpathResult);
+    }
+
+    /**
+     * Reads a stream payload directly. The bytes consumed by the parser are kept and put back in
+     * front of the unread part of the stream, so the message can still be read after the filter.
+     * They are kept in memory up to the spool threshold and in a temporary file past it, so a
+     * payload without a match is never held in memory.
+     */
+    private boolean acceptStreaming(MuleMessage message, InputStream stream, StreamingXPath compiled)
+    {
+        DeferredFileOutputStream consumed = new DeferredFileOutputStream(spoolThreshold, SPOOL_FILE_PREFIX, null, null);
+        String xpathResult;
+        try
+        {
+            try
+            {
+                // closing the reader does not close the underlying stream
+                XMLStreamReader reader = xmlInputFactory.createXMLStreamReader(new TeeInputStream(stream, consumed));
+                try
+                {
+                    xpathResult = compiled.evaluate(reader);
+                }
+                finally
+                {
+                    reader.close();
+                }
+            }
+            finally
+            {
+                consumed.close();
+                message.setPayload(new SequenceInputStream(readConsumed(consumed), stream));
+            }
+        }
+        catch (Exception e)
+        {
+            if (logger.isWarnEnabled())
+            {
+                logger.warn(ClassUtils.getSimpleName(getClass()) + " filter rejected message because of an error while streaming XML: "
+                            + e.getMessage(), e);
+            }
+            return false;
+        }
+
+        return matchesExpectedValue(xpathResult);
+    }
+
+    private static InputStream readConsumed(DeferredFileOutputStream consumed) throws IOException
+    {
+        if (consumed.isInMemory())
+        {
+            return new ByteArrayInputStream(consumed.getData());
+        }
+
+        final File file = consumed.getFile();
+        InputStream spooled = new FileInputStream(file)
+        {
+            @Override
+            public void close() throws IOException
+            {
+                try
+                {
+                    super.close();
+                }
+                finally
+                {
+                    file.delete();
+                }
+            }
+        };
+        // open files can be deleted on most file systems, so the file does not outlive the
+        // payload even if it is never closed. Otherwise it is deleted on close.
+        file.delete();
+        return spooled;
+    }
+
+    private XPathExpressionCache getExpressionCache()
+    {
+        if (expressionCache == null)
+        {
+            expressionCache = XPathExpressionCache.lookup(muleContext);
+        }
+        return expressionCache;
+    }
+
     protected boolean accept(Node node)
     {
         Object xpathResult;
-        boolean accept = false;
 
         try
         {
-            xpathResult = getXpath().evaluate(pattern, node, XPathConstants.STRING);
+            if (customXpath)
+            {
+                // an XPath set explicitly is used as is
+                xpathResult = xpath.evaluate(pattern, node, XPathConstants.STRING);
+            }
+            else
+            {
+                xpathResult = getExpressionCache().evaluate(pattern, namespaceContext, node, XPathConstants.STRING);
+            }
         }
         catch (Exception e)
         {
@@ -246,6 +374,13 @@ public class XPathFilter extends AbstractJaxpFilter  implements Filter, Initiali
             return false;
         }
 
+        return matchesExpectedValue(xpathResult);
+    }
+
+    private boolean matchesExpectedValue(Object xpathResult)
+    {
+        boolean accept = false;
+
         if (logger.isDebugEnabled())
         {
             logger.debug(MessageFormat.format("{0} Expression result = ''{1}'' -  Expected value = ''{2}''",
@@ -283,6 +418,26 @@ public class XPathFilter extends AbstractJaxpFilter  implements Filter, Initiali
         return accept;
     }
 
+    private StreamingXPath getStreamingXPath()
+    {
+        if (streamingXPath == null && !streamingUnsupported)
+        {
+            try
+            {
+                streamingXPath = StreamingXPath.compile(pattern, namespaceContext);
+            }
+            catch (XPathExpressionException e)
+            {
+                if (logger.isWarnEnabled())
+                {
+                    logger.warn(e.getMessage() + ". " + ClassUtils.getSimpleName(getClass()) + " will parse messages into a DOM");
+                }
+                streamingUnsupported = true;
+            }
+        }
+        return streamingXPath;
+    }
+
     /**
      * @return XPath expression
      */
@@ -297,6 +452,8 @@ public class XPathFilter extends AbstractJaxpFilter  implements Filter, Initiali
     public void setPattern(String pattern)
     {
         this.pattern = pattern;
+        streamingXPath = null;
+        streamingUnsupported = false;
     }
 
     /**
@@ -318,12 +475,23 @@ public class XPathFilter extends AbstractJaxpFilter  implements Filter, Initiali
     }
 
     /**
-     * The xpath object to use to evaluate the expression.
+     * The xpath object to use to evaluate the expression. Unless one is set explicitly, a default
+     * one with the namespace context of the filter is created, but the expression is evaluated
+     * through the {@link XPathExpressionCache} of the context.
      *
      * @return The xpath object to use to evaluate the expression.
      */
     public XPath getXpath()
     {
+        if (xpath == null)
+        {
+            XPath created = XPathFactory.newInstance().newXPath();
+            if (namespaceContext != null)
+            {
+                created.setNamespaceContext(namespaceContext);
+            }
+            xpath = created;
+        }
         return xpath;
     }
 
@@ -335,8 +503,38 @@ public class XPathFilter extends AbstractJaxpFilter  implements Filter, Initiali
     public void setXpath(XPath xpath)
     {
         this.xpath = xpath;
+        this.customXpath = true;
+    }
+
+
+    public boolean isStreaming()
+    {
+        return streaming;
     }
 
+    public int getSpoolThreshold()
+    {
+        return spoolThreshold;
+    }
+
+    /**
+     * @param spoolThreshold the number of bytes of a stream payload read while streaming that are
+     *            kept in memory. Past it, the bytes read are written to a temporary file.
+     */
+    public void setSpoolThreshold(int spoolThreshold)
+    {
+        this.spoolThreshold = spoolThreshold;
+    }
+
+    /**
+     * Whether to evaluate the expression while reading the payload instead of parsing it into a
+     * DOM. Only the expressions supported by {@link StreamingXPath} are streamed, any other is
+     * evaluated against a DOM as usual.
+     */
+    public void setStreaming(boolean streaming)
+    {
+        this.streaming = streaming;
+    }
 
     /**
      * The prefix-to-namespace map for the namespace context to be applied to the
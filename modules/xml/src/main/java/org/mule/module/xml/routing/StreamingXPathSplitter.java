@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.xml.routing;
+
+import org.mule.api.MuleEvent;
+import org.mule.api.MuleException;
+import org.mule.api.lifecycle.Initialisable;
+import org.mule.api.lifecycle.InitialisationException;
+import org.mule.api.registry.RegistrationException;
+import org.mule.api.routing.RoutingException;
+import org.mule.config.i18n.CoreMessages;
+import org.mule.config.i18n.MessageFactory;
+import org.mule.module.xml.stax.MapNamespaceContext;
+import org.mule.module.xml.stax.StreamingXPath;
+import org.mule.module.xml.util.NamespaceManager;
+import org.mule.module.xml.util.XMLUtils;
+import org.mule.routing.MessageSequence;
+import org.mule.routing.outbound.AbstractMessageSequenceSplitter;
+
+import java.io.Closeable;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.transform.Source;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.xpath.XPathExpressionException;
+
+import org.xml.sax.InputSource;
+
+/**
+ * Splits an XML payload into one message per element selected by an expression, without
+ * building a DOM of the whole document. The payload is read as the parts are processed and each
+ * part is the selected element serialized as a standalone XML string, so memory is proportional
+ * to the size of an element rather than to the size of the document.
+ * <p/>
+ * The expression must belong to the subset of XPath supported by {@link StreamingXPath} and
+ * select elements, e.g. <code>/catalog/book</code> or <code>//order[@status='open']</code>.
+ */
+public class StreamingXPathSplitter extends AbstractMessageSequenceSplitter implements Initialisable
+{
+
+    private final XMLInputFactory xmlInputFactory = XMLInputFactory.newInstance();
+    private final XMLOutputFactory xmlOutputFactory = XMLOutputFactory.newInstance();
+
+    private String expression;
+    private Map<String, String> namespaces;
+    private StreamingXPath xpath;
+
+    @Override
+    public void initialise() throws InitialisationException
+    {
+        if (expression == null)
+        {
+            throw new InitialisationException(CoreMessages.objectIsNull("expression"), this);
+        }
+
+        Map<String, String> prefixToNamespaceMap = new HashMap<String, String>();
+        try
+        {
+            NamespaceManager namespaceManager = muleContext.getRegistry().lookupObject(NamespaceManager.class);
+            if (namespaceManager != null)
+            {
+                prefixToNamespaceMap.putAll(namespaceManager.getNamespaces());
+            }
+        }
+        catch (RegistrationException e)
+        {
+            throw new InitialisationException(CoreMessages.failedToLoad("NamespaceManager"), e, this);
+        }
+        if (namespaces != null)
+        {
+            prefixToNamespaceMap.putAll(namespaces);
+        }
+
+        try
+        {
+            xpath = StreamingXPath.compile(expression, new MapNamespaceContext(prefixToNamespaceMap));
+        }
+        catch (XPathExpressionException e)
+        {
+            throw new InitialisationException(MessageFactory.createStaticMessage(e.getMessage()), e, this);
+        }
+        if (!xpath.selectsElements())
+        {
+            throw new InitialisationException(MessageFactory.createStaticMessage(
+                "Expression " + expression + " must select elements to split a message"), this);
+        }
+    }
+
+    @Override
+    protected MessageSequence<?> splitMessageIntoSequence(MuleEvent event) throws MuleException
+    {
+        Object payload = event.getMessage().getPayload();
+        XMLStreamReader reader;
+        try
+        {
+            reader = XMLUtils.toXMLStreamReader(xmlInputFactory, payload);
+        }
+        catch (Exception e)
+        {
+            throw new RoutingException(CoreMessages.failedToReadPayload(), event, next, e);
+        }
+        if (reader == null)
+        {
+            throw new IllegalArgumentException(CoreMessages.objectNotOfCorrectType(payload.getClass(),
+                new Class<?>[] {String.class, byte[].class, InputStream.class, Source.class}).getMessage());
+        }
+        return new XmlElementMessageSequence(reader, getSourceStream(payload), xpath, xmlOutputFactory);
+    }
+
+    /**
+     * @return the stream the payload is read from, which is not closed with its reader
+     */
+    private Closeable getSourceStream(Object payload)
+    {
+        if (payload instanceof Closeable)
+        {
+            return (Closeable) payload;
+        }
+        else if (payload instanceof StreamSource)
+        {
+            StreamSource source = (StreamSource) payload;
+            return source.getInputStream() != null ? source.getInputStream() : source.getReader();
+        }
+        else if (payload instanceof InputSource)
+        {
+            InputSource source = (InputSource) payload;
+            return source.getByteStream() != null ? source.getByteStream() : source.getCharacterStream();
+        }
+        return null;
+    }
+
+    public String getExpression()
+    {
+        return expression;
+    }
+
+    /**
+     * @param expression selects the elements that become the parts of the split message
+     */
+    public void setExpression(String expression)
+    {
+        this.expression = expression;
+    }
+
+    public Map<String, String> getNamespaces()
+    {
+        return namespaces;
+    }
+
+    /**
+     * @param namespaces the prefix-to-namespace map used to resolve the prefixes of the
+     *            expression, in addition to the ones of the namespace manager
+     */
+    public void setNamespaces(Map<String, String> namespaces)
+    {
+        this.namespaces = namespaces;
+    }
+}
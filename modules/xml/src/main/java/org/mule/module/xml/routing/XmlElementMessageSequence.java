@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.xml.routing;
+
+import org.mule.api.Closeable;
+import org.mule.api.DefaultMuleException;
+import org.mule.api.MuleException;
+import org.mule.api.MuleRuntimeException;
+import org.mule.module.xml.i18n.XmlMessages;
+import org.mule.module.xml.stax.StreamingXPath;
+import org.mule.routing.AbstractMessageSequence;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.NoSuchElementException;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * A sequence of the elements selected by a {@link StreamingXPath} in a document, each of them
+ * serialized as a standalone XML string. The document is read as the sequence is consumed, so only
+ * the element being serialized is held in memory. The reader, and the stream it reads from, are
+ * closed once the last element has been read, or when the sequence is closed.
+ */
+public class XmlElementMessageSequence extends AbstractMessageSequence<String> implements Closeable
+{
+
+    private final XMLStreamReader reader;
+    private final java.io.Closeable source;
+    private final StreamingXPath.Matcher matcher;
+    private final XMLOutputFactory xmlOutputFactory;
+    private final String expression;
+    private Boolean found;
+    private boolean closed;
+
+    public XmlElementMessageSequence(XMLStreamReader reader, StreamingXPath xpath, XMLOutputFactory xmlOutputFactory)
+    {
+        this(reader, null, xpath, xmlOutputFactory);
+    }
+
+    /**
+     * @param source the stream the reader reads from, as closing a reader does not close it.
+     *            Null if there is none.
+     */
+    public XmlElementMessageSequence(XMLStreamReader reader, java.io.Closeable source, StreamingXPath xpath,
+                                     XMLOutputFactory xmlOutputFactory)
+    {
+        this.reader = reader;
+        this.source = source;
+        this.matcher = xpath.matcher(reader);
+        this.xmlOutputFactory = xmlOutputFactory;
+        this.expression = xpath.getExpression();
+    }
+
+    @Override
+    public boolean hasNext()
+    {
+        if (closed)
+        {
+            return false;
+        }
+        if (found == null)
+        {
+            try
+            {
+                found = matcher.find();
+            }
+            catch (XMLStreamException e)
+            {
+                closeQuietly();
+                throw new MuleRuntimeException(XmlMessages.failedToProcessXPath(expression), e);
+            }
+            if (!found)
+            {
+                closeQuietly();
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public String next()
+    {
+        if (!hasNext())
+        {
+            throw new NoSuchElementException();
+        }
+        found = null;
+
+        StringWriter element = new StringWriter();
+        try
+        {
+            XMLStreamWriter writer = xmlOutputFactory.createXMLStreamWriter(element);
+            matcher.writeElement(writer);
+            writer.close();
+        }
+        catch (XMLStreamException e)
+        {
+            closeQuietly();
+            throw new MuleRuntimeException(XmlMessages.failedToProcessXPath(expression), e);
+        }
+        return element.toString();
+    }
+
+    @Override
+    public int size()
+    {
+        return UNKNOWN_SIZE;
+    }
+
+    @Override
+    public void close() throws MuleException
+    {
+        if (closed)
+        {
+            return;
+        }
+        closed = true;
+        try
+        {
+            try
+            {
+                reader.close();
+            }
+            finally
+            {
+                if (source != null)
+                {
+                    source.close();
+                }
+            }
+        }
+        catch (XMLStreamException e)
+        {
+            throw new DefaultMuleException(e);
+        }
+        catch (IOException e)
+        {
+            throw new DefaultMuleException(e);
+        }
+    }
+
+    public boolean isClosed()
+    {
+        return closed;
+    }
+
+    private void closeQuietly()
+    {
+        try
+        {
+            close();
+        }
+        catch (MuleException e)
+        {
+            // the failure being reported matters more
+        }
+    }
+}
@@ -6,6 +6,7 @@
  */
 package org.mule.module.xml.stax;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
@@ -59,7 +60,15 @@ public final class MapNamespaceContext implements NamespaceContext
     @Override
     public Iterator<String> getPrefixes(String namespaceURI)
     {
-        return null;
+        String prefix = getPrefix(namespaceURI);
+        if (prefix == null)
+        {
+            return Collections.<String>emptyList().iterator();
+        }
+        else
+        {
+            return Collections.singletonList(prefix).iterator();
+        }
     }
 
     public Map<String, String> getUsedNamespaces()
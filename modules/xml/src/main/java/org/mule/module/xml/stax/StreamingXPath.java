@@ -0,0 +1,680 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.xml.stax;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import javax.xml.xpath.XPathExpressionException;
+
+/**
+ * Evaluates a forward-only subset of XPath against an {@link XMLStreamReader}, so that a
+ * document is matched while it is read instead of being parsed into a DOM first. Only the open
+ * elements are kept in memory, plus the selected element while it is being read.
+ * <p/>
+ * The supported expressions are absolute location paths made of:
+ * <ul>
+ * <li>child (<code>/</code>) and descendant (<code>//</code>) element steps</li>
+ * <li>element names, optionally prefixed, <code>*</code> and <code>prefix:*</code></li>
+ * <li>attribute equality predicates, such as <code>[@type='book']</code></li>
+ * <li>an optional last <code>@attribute</code> or <code>text()</code> step</li>
+ * </ul>
+ * {@link #compile(String, NamespaceContext)} rejects any other expression, so callers can fall
+ * back to a DOM based evaluation. Compiled expressions are immutable and thread safe, each
+ * {@link Matcher} is used by one thread.
+ */
+public class StreamingXPath
+{
+
+    private final String expression;
+    private final Step[] steps;
+    private final QName attribute;
+    private final boolean text;
+
+    private StreamingXPath(String expression, Step[] steps, QName attribute, boolean text)
+    {
+        this.expression = expression;
+        this.steps = steps;
+        this.attribute = attribute;
+        this.text = text;
+    }
+
+    /**
+     * @param namespaceContext resolves the prefixes used by the expression, may be null if it
+     *            uses none
+     * @throws XPathExpressionException if the expression is not part of the supported subset
+     */
+    public static StreamingXPath compile(String expression, NamespaceContext namespaceContext) throws XPathExpressionException
+    {
+        return new Parser(expression, namespaceContext).parse();
+    }
+
+    /**
+     * Reads the document until the first selected node and returns its string value.
+     *
+     * @return the string value of the first selected node, or null if there is none
+     */
+    public String evaluate(XMLStreamReader reader) throws XMLStreamException
+    {
+        Matcher matcher = matcher(reader);
+        while (matcher.find())
+        {
+            String value;
+            if (attribute != null)
+            {
+                value = matcher.getAttributeValue(attribute);
+            }
+            else if (text)
+            {
+                value = matcher.readText();
+            }
+            else
+            {
+                value = matcher.readStringValue();
+            }
+            if (value != null)
+            {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    public Matcher matcher(XMLStreamReader reader)
+    {
+        return new Matcher(reader);
+    }
+
+    /**
+     * @return whether the expression selects elements rather than attributes or text
+     */
+    public boolean selectsElements()
+    {
+        return attribute == null && !text;
+    }
+
+    public String getExpression()
+    {
+        return expression;
+    }
+
+    @Override
+    public String toString()
+    {
+        return expression;
+    }
+
+    /**
+     * Finds the elements selected by the location path of the expression, in document order.
+     */
+    public class Matcher
+    {
+
+        private final XMLStreamReader reader;
+        private final List<Frame> openElements = new ArrayList<Frame>();
+        private boolean started;
+
+        private Matcher(XMLStreamReader reader)
+        {
+            this.reader = reader;
+        }
+
+        /**
+         * Advances the reader to the start of the next selected element. Unless the element is
+         * read with {@link #writeElement(XMLStreamWriter)} or {@link #readStringValue()}, the next
+         * call looks for selected elements inside of it.
+         *
+         * @return false if the document has no more selected elements
+         */
+        public boolean find() throws XMLStreamException
+        {
+            int event = started ? next() : reader.getEventType();
+            started = true;
+            while (event != XMLStreamConstants.END_DOCUMENT)
+            {
+                if (event == XMLStreamConstants.START_ELEMENT)
+                {
+                    if (push())
+                    {
+                        return true;
+                    }
+                }
+                else if (event == XMLStreamConstants.END_ELEMENT)
+                {
+                    openElements.remove(openElements.size() - 1);
+                }
+                event = next();
+            }
+            return false;
+        }
+
+        /**
+         * @return the value of an attribute of the selected element, or null if it does not have it
+         */
+        public String getAttributeValue(QName name)
+        {
+            return StreamingXPath.getAttributeValue(reader, name);
+        }
+
+        /**
+         * Copies the selected element to a writer as a standalone fragment, declaring on it the
+         * namespaces declared by its ancestors. Leaves the reader at the end of the element.
+         */
+        public void writeElement(XMLStreamWriter writer) throws XMLStreamException
+        {
+            int depth = 0;
+            int event = reader.getEventType();
+            while (true)
+            {
+                switch (event)
+                {
+                    case XMLStreamConstants.START_ELEMENT:
+                        writeStartElement(writer, depth == 0 ? getNamespacesInScope() : readDeclaredNamespaces());
+                        depth++;
+                        break;
+                    case XMLStreamConstants.END_ELEMENT:
+                        writer.writeEndElement();
+                        depth--;
+                        if (depth == 0)
+                        {
+                            openElements.remove(openElements.size() - 1);
+                            return;
+                        }
+                        break;
+                    case XMLStreamConstants.CHARACTERS:
+                    case XMLStreamConstants.SPACE:
+                        writer.writeCharacters(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                        break;
+                    case XMLStreamConstants.CDATA:
+                        writer.writeCData(reader.getText());
+                        break;
+                    case XMLStreamConstants.COMMENT:
+                        writer.writeComment(reader.getText());
+                        break;
+                    case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                        writer.writeProcessingInstruction(reader.getPITarget(), reader.getPIData());
+                        break;
+                    case XMLStreamConstants.ENTITY_REFERENCE:
+                        writer.writeEntityRef(reader.getLocalName());
+                        break;
+                    default:
+                        break;
+                }
+                event = reader.next();
+            }
+        }
+
+        /**
+         * Reads the selected element and returns the text it contains, as the XPath
+         * <code>string()</code> function does. Leaves the reader at the end of the element.
+         */
+        public String readStringValue() throws XMLStreamException
+        {
+            StringBuilder value = new StringBuilder();
+            int depth = 0;
+            int event = reader.getEventType();
+            while (true)
+            {
+                switch (event)
+                {
+                    case XMLStreamConstants.START_ELEMENT:
+                        depth++;
+                        break;
+                    case XMLStreamConstants.END_ELEMENT:
+                        depth--;
+                        if (depth == 0)
+                        {
+                            openElements.remove(openElements.size() - 1);
+                            return value.toString();
+                        }
+                        break;
+                    case XMLStreamConstants.CHARACTERS:
+                    case XMLStreamConstants.SPACE:
+                    case XMLStreamConstants.CDATA:
+                        value.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                        break;
+                    default:
+                        break;
+                }
+                event = reader.next();
+            }
+        }
+
+        /**
+         * Reads the selected element and returns its first text child, or null if it has none.
+         * Leaves the reader at the end of the element.
+         */
+        public String readText() throws XMLStreamException
+        {
+            StringBuilder value = null;
+            boolean inFirstText = true;
+            int depth = 0;
+            int event = reader.getEventType();
+            while (true)
+            {
+                switch (event)
+                {
+                    case XMLStreamConstants.START_ELEMENT:
+                        depth++;
+                        inFirstText = value == null && depth == 1;
+                        break;
+                    case XMLStreamConstants.END_ELEMENT:
+                        depth--;
+                        if (depth == 0)
+                        {
+                            openElements.remove(openElements.size() - 1);
+                            return value == null ? null : value.toString();
+                        }
+                        inFirstText = value == null && depth == 1;
+                        break;
+                    case XMLStreamConstants.CHARACTERS:
+                    case XMLStreamConstants.SPACE:
+                    case XMLStreamConstants.CDATA:
+                        if (inFirstText && depth == 1)
+                        {
+                            if (value == null)
+                            {
+                                value = new StringBuilder();
+                            }
+                            value.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                        }
+                        break;
+                    default:
+                        // a comment or processing instruction ends the text node
+                        inFirstText = value == null && depth == 1;
+                        break;
+                }
+                event = reader.next();
+            }
+        }
+
+        private int next() throws XMLStreamException
+        {
+            return reader.hasNext() ? reader.next() : XMLStreamConstants.END_DOCUMENT;
+        }
+
+        /**
+         * Records the element the reader is at, working out which steps of the path match
+         * it given the steps matched by its ancestors.
+         *
+         * @return whether the element is selected by the whole path
+         */
+        private boolean push()
+        {
+            int depth = openElements.size();
+            Frame parent = depth == 0 ? null : openElements.get(depth - 1);
+            BitSet matched = new BitSet(steps.length);
+            for (int i = 0; i < steps.length; i++)
+            {
+                Step step = steps[i];
+                boolean reachable;
+                if (i == 0)
+                {
+                    reachable = step.descendant || depth == 0;
+                }
+                else if (parent == null)
+                {
+                    reachable = false;
+                }
+                else
+                {
+                    reachable = step.descendant ? parent.matchedByAncestors.get(i - 1) : parent.matched.get(i - 1);
+                }
+                if (reachable && step.matches(reader))
+                {
+                    matched.set(i);
+                }
+            }
+
+            BitSet matchedByAncestors = (BitSet) matched.clone();
+            if (parent != null)
+            {
+                matchedByAncestors.or(parent.matchedByAncestors);
+            }
+            openElements.add(new Frame(matched, matchedByAncestors, readDeclaredNamespaces()));
+            return matched.get(steps.length - 1);
+        }
+
+        private Map<String, String> readDeclaredNamespaces()
+        {
+            int count = reader.getNamespaceCount();
+            if (count == 0)
+            {
+                return null;
+            }
+            Map<String, String> namespaces = new LinkedHashMap<String, String>(count);
+            for (int i = 0; i < count; i++)
+            {
+                namespaces.put(nonNull(reader.getNamespacePrefix(i)), nonNull(reader.getNamespaceURI(i)));
+            }
+            return namespaces;
+        }
+
+        private Map<String, String> getNamespacesInScope()
+        {
+            Map<String, String> namespaces = new LinkedHashMap<String, String>();
+            for (Frame frame : openElements)
+            {
+                if (frame.namespaces != null)
+                {
+                    namespaces.putAll(frame.namespaces);
+                }
+            }
+            return namespaces;
+        }
+
+        private void writeStartElement(XMLStreamWriter writer, Map<String, String> namespaces) throws XMLStreamException
+        {
+            String namespace = nonNull(reader.getNamespaceURI());
+            String prefix = nonNull(reader.getPrefix());
+            if (namespace.length() == 0 && prefix.length() == 0)
+            {
+                writer.writeStartElement(reader.getLocalName());
+            }
+            else
+            {
+                writer.writeStartElement(prefix, reader.getLocalName(), namespace);
+            }
+
+            if (namespaces != null)
+            {
+                for (Map.Entry<String, String> declaration : namespaces.entrySet())
+                {
+                    if (declaration.getKey().length() == 0)
+                    {
+                        writer.writeDefaultNamespace(declaration.getValue());
+                    }
+                    else if (declaration.getValue().length() != 0)
+                    {
+                        writer.writeNamespace(declaration.getKey(), declaration.getValue());
+                    }
+                }
+            }
+
+            for (int i = 0; i < reader.getAttributeCount(); i++)
+            {
+                String attributeNamespace = nonNull(reader.getAttributeNamespace(i));
+                if (attributeNamespace.length() == 0)
+                {
+                    writer.writeAttribute(reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+                }
+                else
+                {
+                    writer.writeAttribute(nonNull(reader.getAttributePrefix(i)), attributeNamespace,
+                                          reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+                }
+            }
+        }
+    }
+
+    private static String getAttributeValue(XMLStreamReader reader, QName name)
+    {
+        for (int i = 0; i < reader.getAttributeCount(); i++)
+        {
+            if (name.getLocalPart().equals(reader.getAttributeLocalName(i))
+                && name.getNamespaceURI().equals(nonNull(reader.getAttributeNamespace(i))))
+            {
+                return reader.getAttributeValue(i);
+            }
+        }
+        return null;
+    }
+
+    private static String nonNull(String value)
+    {
+        return value == null ? "" : value;
+    }
+
+    private static class Frame
+    {
+
+        private final BitSet matched;
+        private final BitSet matchedByAncestors;
+        private final Map<String, String> namespaces;
+
+        Frame(BitSet matched, BitSet matchedByAncestors, Map<String, String> namespaces)
+        {
+            this.matched = matched;
+            this.matchedByAncestors = matchedByAncestors;
+            this.namespaces = namespaces;
+        }
+    }
+
+    private static class Step
+    {
+
+        private final boolean descendant;
+        private final String namespace;
+        private final String localName;
+        private final List<QName> predicateAttributes;
+        private final List<String> predicateValues;
+
+        /**
+         * @param namespace null to match any namespace
+         * @param localName null to match any name
+         */
+        Step(boolean descendant, String namespace, String localName, List<QName> predicateAttributes, List<String> predicateValues)
+        {
+            this.descendant = descendant;
+            this.namespace = namespace;
+            this.localName = localName;
+            this.predicateAttributes = predicateAttributes;
+            this.predicateValues = predicateValues;
+        }
+
+        boolean matches(XMLStreamReader reader)
+        {
+            if (localName != null && !localName.equals(reader.getLocalName()))
+            {
+                return false;
+            }
+            if (namespace != null && !namespace.equals(nonNull(reader.getNamespaceURI())))
+            {
+                return false;
+            }
+            for (int i = 0; i < predicateAttributes.size(); i++)
+            {
+                if (!predicateValues.get(i).equals(getAttributeValue(reader, predicateAttributes.get(i))))
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+    }
+
+    private static class Parser
+    {
+
+        private final String expression;
+        private final NamespaceContext namespaceContext;
+        private int position;
+
+        Parser(String expression, NamespaceContext namespaceContext)
+        {
+            this.expression = expression.trim();
+            this.namespaceContext = namespaceContext;
+        }
+
+        StreamingXPath parse() throws XPathExpressionException
+        {
+            List<Step> steps = new ArrayList<Step>();
+            QName attribute = null;
+            boolean text = false;
+
+            if (!expression.startsWith("/"))
+            {
+                throw unsupported("only absolute location paths can be streamed");
+            }
+            while (position < expression.length())
+            {
+                boolean descendant = expression.startsWith("//", position);
+                position += descendant ? 2 : 1;
+
+                if (!descendant && expression.startsWith("@", position))
+                {
+                    position++;
+                    attribute = parseQName();
+                    break;
+                }
+                if (!descendant && expression.startsWith("text()", position))
+                {
+                    position += "text()".length();
+                    text = true;
+                    break;
+                }
+                steps.add(parseStep(descendant));
+                if (position < expression.length() && expression.charAt(position) != '/')
+                {
+                    throw unsupported("unexpected '" + expression.charAt(position) + "'");
+                }
+            }
+
+            if (position < expression.length())
+            {
+                throw unsupported("an attribute or text() step must be the last one");
+            }
+            if (steps.isEmpty())
+            {
+                throw unsupported("at least one element step is required");
+            }
+            return new StreamingXPath(expression, steps.toArray(new Step[steps.size()]), attribute, text);
+        }
+
+        private Step parseStep(boolean descendant) throws XPathExpressionException
+        {
+            String name = parseName();
+            String namespace;
+            String localName;
+            int separator = name.indexOf(':');
+            if (separator == -1)
+            {
+                namespace = name.equals("*") ? null : "";
+                localName = name;
+            }
+            else
+            {
+                namespace = resolve(name.substring(0, separator));
+                localName = name.substring(separator + 1);
+            }
+            if (localName.equals("*"))
+            {
+                localName = null;
+            }
+            else if (localName.length() == 0 || localName.indexOf('*') != -1)
+            {
+                throw unsupported("invalid name test '" + name + "'");
+            }
+
+            List<QName> predicateAttributes = new ArrayList<QName>(1);
+            List<String> predicateValues = new ArrayList<String>(1);
+            while (position < expression.length() && expression.charAt(position) == '[')
+            {
+                position++;
+                skipWhitespace();
+                expect('@');
+                predicateAttributes.add(parseQName());
+                skipWhitespace();
+                expect('=');
+                skipWhitespace();
+                predicateValues.add(parseLiteral());
+                skipWhitespace();
+                expect(']');
+            }
+            return new Step(descendant, namespace, localName, predicateAttributes, predicateValues);
+        }
+
+        private QName parseQName() throws XPathExpressionException
+        {
+            String name = parseName();
+            if (name.indexOf('*') != -1 || name.length() == 0)
+            {
+                throw unsupported("invalid attribute name '" + name + "'");
+            }
+            int separator = name.indexOf(':');
+            if (separator == -1)
+            {
+                return new QName(name);
+            }
+            return new QName(resolve(name.substring(0, separator)), name.substring(separator + 1));
+        }
+
+        private String parseName()
+        {
+            int start = position;
+            while (position < expression.length())
+            {
+                char c = expression.charAt(position);
+                if (!(Character.isLetterOrDigit(c) || c == '_' || c == '-' || c == '.' || c == ':' || c == '*'))
+                {
+                    break;
+                }
+                position++;
+            }
+            return expression.substring(start, position);
+        }
+
+        private String parseLiteral() throws XPathExpressionException
+        {
+            char quote = position < expression.length() ? expression.charAt(position) : 0;
+            if (quote != '\'' && quote != '"')
+            {
+                throw unsupported("predicates can only compare attributes with string literals");
+            }
+            int end = expression.indexOf(quote, position + 1);
+            if (end == -1)
+            {
+                throw unsupported("unterminated string literal");
+            }
+            String literal = expression.substring(position + 1, end);
+            position = end + 1;
+            return literal;
+        }
+
+        private String resolve(String prefix) throws XPathExpressionException
+        {
+            String namespace = namespaceContext == null ? null : namespaceContext.getNamespaceURI(prefix);
+            if (namespace == null || namespace.length() == 0)
+            {
+                throw new XPathExpressionException("Prefix '" + prefix + "' of expression " + expression + " is not bound to a namespace");
+            }
+            return namespace;
+        }
+
+        private void skipWhitespace()
+        {
+            while (position < expression.length() && Character.isWhitespace(expression.charAt(position)))
+            {
+                position++;
+            }
+        }
+
+        private void expect(char c) throws XPathExpressionException
+        {
+            if (position >= expression.length() || expression.charAt(position) != c)
+            {
+                throw unsupported("expected '" + c + "' at position " + position);
+            }
+            position++;
+        }
+
+        private XPathExpressionException unsupported(String reason)
+        {
+            return new XPathExpressionException("Expression " + expression + " cannot be evaluated while streaming: " + reason);
+        }
+    }
+}
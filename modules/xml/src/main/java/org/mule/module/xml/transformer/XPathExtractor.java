@@ -14,14 +14,13 @@ import org.mule.api.registry.RegistrationException;
 import org.mule.api.transformer.TransformerException;
 import org.mule.config.i18n.CoreMessages;
 import org.mule.config.i18n.MessageFactory;
+import org.mule.module.xml.stax.MapNamespaceContext;
 import org.mule.module.xml.util.NamespaceManager;
+import org.mule.module.xml.util.XPathExpressionCache;
 import org.mule.transformer.AbstractTransformer;
 import org.mule.transformer.types.DataTypeFactory;
 
-import java.util.Arrays;
-import java.util.Collections;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.Map;
 
 import javax.xml.namespace.NamespaceContext;
@@ -35,7 +34,8 @@ import org.xml.sax.InputSource;
 
 /**
  * Simple transformer for using the JAXP XPath library to extract an XPath value from
- * an XPath expression.
+ * an XPath expression. The expression is compiled through the
+ * {@link XPathExpressionCache} of the context unless an XPath evaluator is set explicitly.
  *
  * @author Ryan Heaton
  */
@@ -54,10 +54,13 @@ public class XPathExtractor extends AbstractTransformer implements MuleContextAw
     }
 
     private volatile XPath xpath = XPathFactory.newInstance().newXPath();
+    private volatile boolean customXpath;
+    private volatile NamespaceContext namespaceContext;
     private volatile Map<String, String> prefixToNamespaceMap = null;
     private volatile String expression;
     private volatile ResultType resultType = ResultType.STRING;
     private NamespaceManager namespaceManager;
+    private volatile XPathExpressionCache expressionCache;
 
     public XPathExtractor()
     {
@@ -103,43 +106,11 @@ public class XPathExtractor extends AbstractTransformer implements MuleContextAw
             }
         }
 
-        getXpath().setNamespaceContext(new NamespaceContext()
+        if (prefixToNamespaceMap != null)
         {
-        	@Override
-            public String getNamespaceURI(String prefix)
-        	{
-        		return prefixToNamespaceMap.get(prefix);
-        	}
-
-        	@Override
-            public String getPrefix(String namespaceURI)
-        	{
-
-        		for (Map.Entry<String, String> entry : prefixToNamespaceMap.entrySet())
-        		{
-        			if (namespaceURI.equals(entry.getValue()))
-        			{
-        				return entry.getKey();
-        			}
-        		}
-
-        		return null;
-        	}
-
-        	@Override
-            public Iterator<?> getPrefixes(String namespaceURI)
-        	{
-        		String prefix = getPrefix(namespaceURI);
-        		if (prefix == null)
-        		{
-        			return Collections.emptyList().iterator();
-        		}
-        		else
-        		{
-        			return Arrays.asList(prefix).iterator();
-        		}
-        	}
-        });
+            namespaceContext = new MapNamespaceContext(prefixToNamespaceMap);
+            getXpath().setNamespaceContext(namespaceContext);
+        }
     }
 
     @Override
@@ -167,13 +138,25 @@ public class XPathExtractor extends AbstractTransformer implements MuleContextAw
 
         try
         {
-            if (src instanceof InputSource)
+            if (customXpath)
+            {
+                // an XPath set explicitly is used as is
+                if (src instanceof InputSource)
+                {
+                    return xpath.evaluate(expression, (InputSource) src, resultType);
+                }
+                else
+                {
+                    return xpath.evaluate(expression, src, resultType);
+                }
+            }
+            else if (src instanceof InputSource)
             {
-                return xpath.evaluate(expression, (InputSource) src, resultType);
+                return getExpressionCache().evaluate(expression, namespaceContext, (InputSource) src, resultType);
             }
             else
             {
-                return xpath.evaluate(expression, src, resultType);
+                return getExpressionCache().evaluate(expression, namespaceContext, src, resultType);
             }
         }
         catch (XPathExpressionException e)
@@ -182,6 +165,15 @@ public class XPathExtractor extends AbstractTransformer implements MuleContextAw
         }
     }
 
+    private XPathExpressionCache getExpressionCache()
+    {
+        if (expressionCache == null)
+        {
+            expressionCache = XPathExpressionCache.lookup(muleContext);
+        }
+        return expressionCache;
+    }
+
     /**
      * @return Returns the expression.
      */
@@ -219,7 +211,9 @@ public class XPathExtractor extends AbstractTransformer implements MuleContextAw
     }
 
     /**
-     * The XPath evaluator.
+     * The XPath evaluator. Unless one is set explicitly, this is a default one with the namespace
+     * context of the transformer, but the expression is evaluated through the
+     * {@link XPathExpressionCache} of the context.
      *
      * @return The XPath evaluator.
      */
@@ -236,6 +230,7 @@ public class XPathExtractor extends AbstractTransformer implements MuleContextAw
     public void setXpath(XPath xPath)
     {
         this.xpath = xPath;
+        this.customXpath = true;
     }
 
     /**
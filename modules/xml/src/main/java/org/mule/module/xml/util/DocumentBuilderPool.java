@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.xml.util;
+
+import java.io.IOException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.w3c.dom.Document;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+/**
+ * Reuses the {@link DocumentBuilder}s created by a {@link DocumentBuilderFactory}. As builders are
+ * not thread safe, each of them is used by one thread at a time, and the pool keeps as many of them
+ * as threads parsed documents at the same time.
+ */
+public class DocumentBuilderPool
+{
+
+    private final DocumentBuilderFactory factory;
+    private final Queue<DocumentBuilder> idleBuilders = new ConcurrentLinkedQueue<DocumentBuilder>();
+
+    public DocumentBuilderPool(DocumentBuilderFactory factory)
+    {
+        this.factory = factory;
+    }
+
+    public Document parse(InputSource source) throws ParserConfigurationException, SAXException, IOException
+    {
+        DocumentBuilder builder = acquire();
+        try
+        {
+            return builder.parse(source);
+        }
+        finally
+        {
+            release(builder);
+        }
+    }
+
+    public Document newDocument() throws ParserConfigurationException
+    {
+        DocumentBuilder builder = acquire();
+        try
+        {
+            return builder.newDocument();
+        }
+        finally
+        {
+            release(builder);
+        }
+    }
+
+    public DocumentBuilderFactory getFactory()
+    {
+        return factory;
+    }
+
+    private DocumentBuilder acquire() throws ParserConfigurationException
+    {
+        DocumentBuilder builder = idleBuilders.poll();
+        if (builder == null)
+        {
+            // factories are not thread safe
+            synchronized (factory)
+            {
+                builder = factory.newDocumentBuilder();
+            }
+        }
+        return builder;
+    }
+
+    private void release(DocumentBuilder builder)
+    {
+        try
+        {
+            builder.reset();
+        }
+        catch (UnsupportedOperationException e)
+        {
+            // the builder cannot be brought back to its initial state, so it is not reused
+            return;
+        }
+        idleBuilders.offer(builder);
+    }
+}
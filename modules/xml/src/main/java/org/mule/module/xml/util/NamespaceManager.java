@@ -9,9 +9,13 @@ package org.mule.module.xml.util;
 import org.mule.api.lifecycle.Initialisable;
 import org.mule.api.lifecycle.InitialisationException;
 
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
 
+import javax.xml.namespace.NamespaceContext;
+
 /**
  * A simple manager that holds a registry of global namespaces that will be recognised by all xml queries and transforms
  */
@@ -21,7 +25,7 @@ public class NamespaceManager implements Initialisable
     private Map<String, String> configNamespaces = new HashMap<String, String>(8);
 
     private boolean includeConfigNamespaces = false;
-
+    private final NamespaceContext namespaceContext = new ManagerNamespaceContext();
 
     @Override
     public void initialise() throws InitialisationException
@@ -52,6 +56,17 @@ public class NamespaceManager implements Initialisable
         this.namespaces = namespaces;
     }
 
+    /**
+     * Returns a namespace context that resolves prefixes through the namespaces of this manager.
+     * The same instance is returned for the life of the manager, so expressions compiled with it
+     * can be cached. As prefixes are resolved when an expression is compiled, namespaces should
+     * not change once the manager is initialised.
+     */
+    public NamespaceContext getNamespaceContext()
+    {
+        return namespaceContext;
+    }
+
     public Map<String, String> getConfigNamespaces()
     {
         return configNamespaces;
@@ -61,4 +76,38 @@ public class NamespaceManager implements Initialisable
     {
         this.configNamespaces = configNamespaces;
     }
+
+    private class ManagerNamespaceContext implements NamespaceContext
+    {
+
+        @Override
+        public String getNamespaceURI(String prefix)
+        {
+            return getNamespaces().get(prefix);
+        }
+
+        @Override
+        public String getPrefix(String namespaceURI)
+        {
+            for (Map.Entry<String, String> entry : getNamespaces().entrySet())
+            {
+                if (entry.getValue().equals(namespaceURI))
+                {
+                    return entry.getKey();
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public Iterator<String> getPrefixes(String namespaceURI)
+        {
+            String prefix = getPrefix(namespaceURI);
+            if (prefix == null)
+            {
+                return Collections.<String>emptyList().iterator();
+            }
+            return Collections.singletonList(prefix).iterator();
+        }
+    }
 }
@@ -78,6 +78,8 @@ public class XMLUtils extends org.mule.util.XMLUtils
     public static final String JAXP_PROPERTIES_SCHEMA_LANGUAGE = "http://java.sun.com/xml/jaxp/properties/schemaLanguage";
     public static final String JAXP_PROPERTIES_SCHEMA_LANGUAGE_VALUE = "http://www.w3.org/2001/XMLSchema";
 
+    private static final DocumentBuilderPool documentBuilderPool = new DocumentBuilderPool(DocumentBuilderFactory.newInstance());
+
     /**
      * Converts a DOM to an XML string.
      * @param dom the dome object to convert
@@ -261,10 +263,7 @@ public class XMLUtils extends org.mule.util.XMLUtils
 
     private static org.w3c.dom.Document parseXML(InputSource source) throws Exception
     {
-        DocumentBuilderFactory factory =
-                DocumentBuilderFactory.newInstance();
-
-        return factory.newDocumentBuilder().parse(source);
+        return documentBuilderPool.parse(source);
     }
 
     /**
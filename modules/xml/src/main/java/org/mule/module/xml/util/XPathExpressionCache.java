@@ -0,0 +1,295 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.xml.util;
+
+import org.mule.api.MuleContext;
+import org.mule.api.MuleRuntimeException;
+import org.mule.api.lifecycle.Disposable;
+import org.mule.api.registry.RegistrationException;
+import org.mule.config.i18n.CoreMessages;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.namespace.QName;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+
+import org.apache.commons.collections.map.AbstractLinkedMap;
+import org.apache.commons.collections.map.LRUMap;
+import org.xml.sax.InputSource;
+
+/**
+ * Keeps the JAXP XPath expressions compiled by the XML module so they are not compiled again on
+ * every evaluation.
+ * <p/>
+ * Expressions are cached per namespace context, which is compared by identity, so callers must
+ * keep the same {@link NamespaceContext} instance for as long as their namespaces do not change.
+ * As compiled expressions are not thread safe, each entry pools as many of them as threads
+ * evaluated the expression at the same time. The cache holds at most <code>maxSize</code>
+ * entries, discarding the least recently used one when full.
+ * <p/>
+ * The {@link XPath} objects used to compile the expressions are pooled too, so the
+ * {@link XPathFactory} is only looked up once.
+ * <p/>
+ * The XML module registers a cache in each {@link MuleContext}, so the compiled expressions and
+ * the namespace contexts they reference go away with the application that created them. Use
+ * {@link #lookup(MuleContext)} to get it.
+ */
+public class XPathExpressionCache implements Disposable
+{
+
+    public static final int DEFAULT_MAX_SIZE = 1024;
+
+    private final XPathFactory xpathFactory = XPathFactory.newInstance();
+    private final Queue<XPath> idleXPaths = new ConcurrentLinkedQueue<XPath>();
+    private final Statistics statistics = new Statistics();
+    private final Map<Key, Queue<XPathExpression>> entries;
+
+    public XPathExpressionCache()
+    {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    public XPathExpressionCache(int maxSize)
+    {
+        entries = Collections.synchronizedMap(new LRUMap(maxSize)
+        {
+            @Override
+            protected boolean removeLRU(AbstractLinkedMap.LinkEntry entry)
+            {
+                statistics.evictions.incrementAndGet();
+                return true;
+            }
+        });
+    }
+
+    /**
+     * @return the cache registered in the given context, or a new one if there is no context or it
+     *         has no cache registered, as happens with components created outside of a configuration
+     */
+    public static XPathExpressionCache lookup(MuleContext muleContext)
+    {
+        if (muleContext != null)
+        {
+            try
+            {
+                XPathExpressionCache cache = muleContext.getRegistry().lookupObject(XPathExpressionCache.class);
+                if (cache != null)
+                {
+                    return cache;
+                }
+            }
+            catch (RegistrationException e)
+            {
+                throw new MuleRuntimeException(CoreMessages.failedToLoad("XPathExpressionCache"), e);
+            }
+        }
+        return new XPathExpressionCache();
+    }
+
+    /**
+     * Evaluates an expression against a node or document.
+     *
+     * @param namespaceContext the namespaces used by the expression, may be null
+     */
+    public Object evaluate(String expression, NamespaceContext namespaceContext, Object item, QName returnType) throws XPathExpressionException
+    {
+        Key key = new Key(expression, namespaceContext);
+        XPathExpression compiled = acquire(key);
+        try
+        {
+            return compiled.evaluate(item, returnType);
+        }
+        finally
+        {
+            release(key, compiled);
+        }
+    }
+
+    /**
+     * Evaluates an expression against the document read from an input source.
+     *
+     * @param namespaceContext the namespaces used by the expression, may be null
+     */
+    public Object evaluate(String expression, NamespaceContext namespaceContext, InputSource source, QName returnType) throws XPathExpressionException
+    {
+        Key key = new Key(expression, namespaceContext);
+        XPathExpression compiled = acquire(key);
+        try
+        {
+            return compiled.evaluate(source, returnType);
+        }
+        finally
+        {
+            release(key, compiled);
+        }
+    }
+
+    public Statistics getStatistics()
+    {
+        return statistics;
+    }
+
+    public int size()
+    {
+        return entries.size();
+    }
+
+    public void clear()
+    {
+        entries.clear();
+    }
+
+    @Override
+    public void dispose()
+    {
+        clear();
+        idleXPaths.clear();
+    }
+
+    private XPathExpression acquire(Key key) throws XPathExpressionException
+    {
+        Queue<XPathExpression> pool = entries.get(key);
+        XPathExpression compiled = pool == null ? null : pool.poll();
+        if (compiled != null)
+        {
+            statistics.hits.incrementAndGet();
+            return compiled;
+        }
+
+        statistics.misses.incrementAndGet();
+        return compile(key);
+    }
+
+    private void release(Key key, XPathExpression compiled)
+    {
+        Queue<XPathExpression> pool;
+        synchronized (entries)
+        {
+            pool = entries.get(key);
+            if (pool == null)
+            {
+                pool = new ConcurrentLinkedQueue<XPathExpression>();
+                entries.put(key, pool);
+            }
+        }
+        pool.offer(compiled);
+    }
+
+    private XPathExpression compile(Key key) throws XPathExpressionException
+    {
+        XPath xpath = idleXPaths.poll();
+        if (xpath == null)
+        {
+            // factories are not thread safe
+            synchronized (xpathFactory)
+            {
+                xpath = xpathFactory.newXPath();
+            }
+        }
+
+        try
+        {
+            if (key.namespaceContext != null)
+            {
+                xpath.setNamespaceContext(key.namespaceContext);
+            }
+            return xpath.compile(key.expression);
+        }
+        finally
+        {
+            xpath.reset();
+            idleXPaths.offer(xpath);
+        }
+    }
+
+    private static class Key
+    {
+
+        private final String expression;
+        private final NamespaceContext namespaceContext;
+        private final int hash;
+
+        Key(String expression, NamespaceContext namespaceContext)
+        {
+            this.expression = expression;
+            this.namespaceContext = namespaceContext;
+            this.hash = 31 * expression.hashCode() + System.identityHashCode(namespaceContext);
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o)
+            {
+                return true;
+            }
+            if (!(o instanceof Key))
+            {
+                return false;
+            }
+            Key other = (Key) o;
+            return namespaceContext == other.namespaceContext && expression.equals(other.expression);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hash;
+        }
+    }
+
+    /**
+     * Usage counters of a cache.
+     */
+    public static class Statistics
+    {
+
+        private final AtomicLong hits = new AtomicLong();
+        private final AtomicLong misses = new AtomicLong();
+        private final AtomicLong evictions = new AtomicLong();
+
+        public long getHits()
+        {
+            return hits.get();
+        }
+
+        /**
+         * @return the number of evaluations that had to compile their expression
+         */
+        public long getMisses()
+        {
+            return misses.get();
+        }
+
+        /**
+         * @return the number of entries discarded because the cache was full
+         */
+        public long getEvictions()
+        {
+            return evictions.get();
+        }
+
+        /**
+         * @return the fraction of the evaluations that reused a compiled expression, or 0 if there
+         *         were none
+         */
+        public double getHitRate()
+        {
+            long hitCount = hits.get();
+            long total = hitCount + misses.get();
+            return total == 0 ? 0 : (double) hitCount / total;
+        }
+    }
+}
@@ -10,17 +10,21 @@ import org.mule.DefaultMuleMessage;
 import org.mule.api.MuleContext;
 import org.mule.tck.junit4.AbstractMuleTestCase;
 
+import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.util.HashMap;
 
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.xpath.XPathFactory;
 
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.CountingInputStream;
 import org.junit.Test;
 import org.mockito.Mockito;
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
@@ -125,4 +129,80 @@ public class XPathFilterTestCase extends AbstractMuleTestCase
         assertTrue(filter.accept(envDoc));
     }
 
+    @Test
+    public void createsDefaultXPathWithNamespaceContext() throws Exception
+    {
+        XPathFilter filter = new XPathFilter("/mule:echo");
+        HashMap<String, String> prefix2Namespace = new HashMap<String, String>();
+        prefix2Namespace.put("mule", "http://simple.component.mule.org/");
+        filter.setNamespaces(prefix2Namespace);
+        filter.initialise();
+
+        assertNotNull(filter.getXpath());
+        assertEquals("http://simple.component.mule.org/", filter.getXpath().getNamespaceContext().getNamespaceURI("mule"));
+    }
+
+    @Test
+    public void streamingFilterReadsStreamPayloadOnlyUpToMatch() throws Exception
+    {
+        StringBuilder xml = new StringBuilder("<orders><order id=\"1\"/>");
+        for (int i = 0; i < 10000; i++)
+        {
+            xml.append("<item>").append(i).append("</item>");
+        }
+        xml.append("</orders>");
+        byte[] bytes = xml.toString().getBytes("UTF-8");
+        CountingInputStream stream = new CountingInputStream(new ByteArrayInputStream(bytes));
+        DefaultMuleMessage message = new DefaultMuleMessage(stream, Mockito.mock(MuleContext.class));
+        XPathFilter filter = new XPathFilter("/orders/order/@id", "1");
+        filter.setStreaming(true);
+        filter.initialise();
+
+        assertTrue(filter.accept(message));
+        assertTrue(stream.getByteCount() < bytes.length);
+        assertTrue(message.getPayload() instanceof InputStream);
+        assertArrayEquals(bytes, IOUtils.toByteArray((InputStream) message.getPayload()));
+    }
+
+    @Test
+    public void streamingFilterSpoolsStreamPayloadPastThreshold() throws Exception
+    {
+        StringBuilder xml = new StringBuilder("<orders>");
+        for (int i = 0; i < 1000; i++)
+        {
+            xml.append("<item>").append(i).append("</item>");
+        }
+        xml.append("</orders>");
+        byte[] bytes = xml.toString().getBytes("UTF-8");
+        DefaultMuleMessage message = new DefaultMuleMessage(new ByteArrayInputStream(bytes), Mockito.mock(MuleContext.class));
+        XPathFilter filter = new XPathFilter("/orders/order/@id", "1");
+        filter.setStreaming(true);
+        filter.setSpoolThreshold(1024);
+        filter.initialise();
+
+        assertFalse(filter.accept(message));
+        InputStream payload = (InputStream) message.getPayload();
+        try
+        {
+            assertArrayEquals(bytes, IOUtils.toByteArray(payload));
+        }
+        finally
+        {
+            payload.close();
+        }
+    }
+
+    @Test
+    public void streamingFilterKeepsRejectedStreamPayload() throws Exception
+    {
+        byte[] bytes = "<orders><order id=\"2\"/></orders>".getBytes("UTF-8");
+        DefaultMuleMessage message = new DefaultMuleMessage(new ByteArrayInputStream(bytes), Mockito.mock(MuleContext.class));
+        XPathFilter filter = new XPathFilter("/orders/order/@id", "1");
+        filter.setStreaming(true);
+        filter.initialise();
+
+        assertFalse(filter.accept(message));
+        assertArrayEquals(bytes, IOUtils.toByteArray((InputStream) message.getPayload()));
+    }
+
 }
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.xml.routing;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import org.mule.module.xml.stax.StreamingXPath;
+import org.mule.routing.MessageSequence;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import java.io.StringReader;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamReader;
+
+import org.junit.Test;
+
+@SmallTest
+public class XmlElementMessageSequenceTestCase extends AbstractMuleTestCase
+{
+
+    private static final String ORDERS = "<orders><order id=\"1\"/><order id=\"2\"><item>pen</item></order></orders>";
+
+    @Test
+    public void emitsOneStandaloneElementPerSelectedElement() throws Exception
+    {
+        XmlElementMessageSequence sequence = createSequence(ORDERS, "/orders/order");
+
+        assertThat(sequence.size(), is(MessageSequence.UNKNOWN_SIZE));
+        assertThat(sequence.isEmpty(), is(false));
+        assertThat(sequence.next(), is("<order id=\"1\"></order>"));
+        assertThat(sequence.hasNext(), is(true));
+        assertThat(sequence.next(), is("<order id=\"2\"><item>pen</item></order>"));
+        assertThat(sequence.hasNext(), is(false));
+        assertThat(sequence.isClosed(), is(true));
+    }
+
+    @Test
+    public void isEmptyWhenNothingIsSelected() throws Exception
+    {
+        XmlElementMessageSequence sequence = createSequence(ORDERS, "/orders/invoice");
+
+        assertThat(sequence.isEmpty(), is(true));
+        assertThat(sequence.isClosed(), is(true));
+    }
+
+    @Test
+    public void closesReaderOnce() throws Exception
+    {
+        XMLStreamReader reader = spy(XMLInputFactory.newInstance().createXMLStreamReader(new StringReader(ORDERS)));
+        XmlElementMessageSequence sequence = new XmlElementMessageSequence(reader, StreamingXPath.compile("/orders/order", null), XMLOutputFactory.newInstance());
+
+        sequence.next();
+        sequence.close();
+        sequence.close();
+
+        assertThat(sequence.hasNext(), is(false));
+        verify(reader, times(1)).close();
+    }
+
+    @Test
+    public void closesSourceWithReader() throws Exception
+    {
+        StringReader source = spy(new StringReader(ORDERS));
+        XMLStreamReader reader = XMLInputFactory.newInstance().createXMLStreamReader(source);
+        XmlElementMessageSequence sequence = new XmlElementMessageSequence(reader, source, StreamingXPath.compile("/orders/order", null), XMLOutputFactory.newInstance());
+
+        sequence.next();
+        sequence.close();
+
+        verify(source, times(1)).close();
+    }
+
+    @Test
+    public void closesSourceOnceExhausted() throws Exception
+    {
+        StringReader source = spy(new StringReader(ORDERS));
+        XMLStreamReader reader = XMLInputFactory.newInstance().createXMLStreamReader(source);
+        XmlElementMessageSequence sequence = new XmlElementMessageSequence(reader, source, StreamingXPath.compile("/orders/invoice", null), XMLOutputFactory.newInstance());
+
+        assertThat(sequence.hasNext(), is(false));
+        // the parser may also close it once it reads the end of the document
+        verify(source, atLeastOnce()).close();
+    }
+
+    private XmlElementMessageSequence createSequence(String xml, String expression) throws Exception
+    {
+        XMLStreamReader reader = XMLInputFactory.newInstance().createXMLStreamReader(new StringReader(xml));
+        return new XmlElementMessageSequence(reader, StreamingXPath.compile(expression, null), XMLOutputFactory.newInstance());
+    }
+}
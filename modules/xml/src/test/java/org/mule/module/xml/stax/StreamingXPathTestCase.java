@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.xml.stax;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import javax.xml.xpath.XPathExpressionException;
+
+import org.junit.Test;
+
+@SmallTest
+public class StreamingXPathTestCase extends AbstractMuleTestCase
+{
+
+    private static final String CATALOG = "<catalog xmlns:b=\"http://example.com/books\">"
+                                          + "<b:book id=\"1\" type=\"novel\"><title>Emma</title><b:price>10</b:price></b:book>"
+                                          + "<b:book id=\"2\" type=\"poetry\"><title>Odes</title><b:price>20</b:price></b:book>"
+                                          + "<shelf><b:book id=\"3\" type=\"novel\"><title>Ulysses</title></b:book></shelf>"
+                                          + "</catalog>";
+
+    private final MapNamespaceContext namespaceContext = new MapNamespaceContext(Collections.singletonMap("bk", "http://example.com/books"));
+
+    @Test
+    public void evaluatesChildPath() throws Exception
+    {
+        assertThat(evaluate("/catalog/bk:book/title"), is("Emma"));
+    }
+
+    @Test
+    public void evaluatesStringValueOfElement() throws Exception
+    {
+        assertThat(evaluate("/catalog/bk:book"), is("Emma10"));
+    }
+
+    @Test
+    public void evaluatesDescendantPath() throws Exception
+    {
+        assertThat(evaluate("//shelf//title"), is("Ulysses"));
+        assertThat(evaluate("/catalog//bk:book[@id='3']/title"), is("Ulysses"));
+    }
+
+    @Test
+    public void evaluatesWildcardsAndPredicates() throws Exception
+    {
+        assertThat(evaluate("/*/bk:*[@type=\"poetry\"]/title"), is("Odes"));
+        assertThat(evaluate("//bk:book[@type='novel'][@id='3']/title/text()"), is("Ulysses"));
+    }
+
+    @Test
+    public void evaluatesAttribute() throws Exception
+    {
+        assertThat(evaluate("//bk:book[@type='poetry']/@id"), is("2"));
+    }
+
+    @Test
+    public void returnsNullWhenNothingIsSelected() throws Exception
+    {
+        assertThat(evaluate("/catalog/book"), is(nullValue()));
+        assertThat(evaluate("/shelf"), is(nullValue()));
+        assertThat(evaluate("//bk:book/@missing"), is(nullValue()));
+    }
+
+    @Test
+    public void rejectsUnsupportedExpressions() throws Exception
+    {
+        assertUnsupported("count(//book)");
+        assertUnsupported("book/title");
+        assertUnsupported("//book[1]");
+        assertUnsupported("/catalog/book = 'x'");
+        assertUnsupported("/catalog/@id/title");
+        assertUnsupported("/catalog/unbound:book");
+    }
+
+    @Test
+    public void findsSelectedElementsInDocumentOrder() throws Exception
+    {
+        StreamingXPath xpath = StreamingXPath.compile("//bk:book", namespaceContext);
+        StreamingXPath.Matcher matcher = xpath.matcher(createReader(CATALOG));
+
+        List<String> ids = new ArrayList<String>();
+        while (matcher.find())
+        {
+            ids.add(matcher.getAttributeValue(new QName("id")));
+        }
+
+        assertThat(ids.toString(), is("[1, 2, 3]"));
+    }
+
+    @Test
+    public void findsNestedElements() throws Exception
+    {
+        StreamingXPath xpath = StreamingXPath.compile("//item", null);
+        StreamingXPath.Matcher matcher = xpath.matcher(createReader("<item id=\"a\"><item id=\"b\"/></item>"));
+
+        List<String> ids = new ArrayList<String>();
+        while (matcher.find())
+        {
+            ids.add(matcher.getAttributeValue(new QName("id")));
+        }
+
+        assertThat(ids.toString(), is("[a, b]"));
+    }
+
+    @Test
+    public void writesSelectedElementsWithTheirNamespaces() throws Exception
+    {
+        StreamingXPath xpath = StreamingXPath.compile("/catalog/bk:book", namespaceContext);
+        StreamingXPath.Matcher matcher = xpath.matcher(createReader(CATALOG));
+
+        List<String> elements = new ArrayList<String>();
+        while (matcher.find())
+        {
+            StringWriter element = new StringWriter();
+            XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(element);
+            matcher.writeElement(writer);
+            writer.close();
+            elements.add(element.toString());
+        }
+
+        assertThat(elements.size(), is(2));
+        assertThat(elements.get(0), is("<b:book xmlns:b=\"http://example.com/books\" id=\"1\" type=\"novel\"><title>Emma</title><b:price>10</b:price></b:book>"));
+        assertThat(elements.get(1), is("<b:book xmlns:b=\"http://example.com/books\" id=\"2\" type=\"poetry\"><title>Odes</title><b:price>20</b:price></b:book>"));
+    }
+
+    private String evaluate(String expression) throws Exception
+    {
+        return StreamingXPath.compile(expression, namespaceContext).evaluate(createReader(CATALOG));
+    }
+
+    private void assertUnsupported(String expression)
+    {
+        try
+        {
+            StreamingXPath.compile(expression, namespaceContext);
+            fail("Expected " + expression + " to be rejected");
+        }
+        catch (XPathExpressionException expected)
+        {
+        }
+    }
+
+    private XMLStreamReader createReader(String xml) throws Exception
+    {
+        return XMLInputFactory.newInstance().createXMLStreamReader(new StringReader(xml));
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.xml.util;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNot.not;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import org.mule.api.MuleContext;
+import org.mule.module.xml.stax.MapNamespaceContext;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.xpath.XPathConstants;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.xml.sax.InputSource;
+
+@SmallTest
+public class XPathExpressionCacheTestCase extends AbstractMuleTestCase
+{
+
+    private static final String XML = "<f:table xmlns:f=\"http://www.w3schools.com/furniture\"><f:width>80</f:width></f:table>";
+
+    private final XPathExpressionCache cache = new XPathExpressionCache(2);
+
+    @Test
+    public void reusesCompiledExpressions() throws Exception
+    {
+        MapNamespaceContext namespaceContext = namespaceContext();
+        Document document = parse(XML);
+
+        assertThat(cache.evaluate("//f:width", namespaceContext, document, XPathConstants.STRING), is((Object) "80"));
+        assertThat(cache.evaluate("//f:width", namespaceContext, document, XPathConstants.STRING), is((Object) "80"));
+
+        assertThat(cache.getStatistics().getMisses(), is(1L));
+        assertThat(cache.getStatistics().getHits(), is(1L));
+        assertThat(cache.getStatistics().getHitRate(), is(0.5));
+    }
+
+    @Test
+    public void cachesExpressionsPerNamespaceContext() throws Exception
+    {
+        Document document = parse(XML);
+
+        cache.evaluate("//f:width", namespaceContext(), document, XPathConstants.STRING);
+        cache.evaluate("//f:width", namespaceContext(), document, XPathConstants.STRING);
+
+        assertThat(cache.getStatistics().getMisses(), is(2L));
+        assertThat(cache.size(), is(2));
+    }
+
+    @Test
+    public void evaluatesInputSource() throws Exception
+    {
+        Object result = cache.evaluate("count(//f:width)", namespaceContext(), new InputSource(new StringReader(XML)), XPathConstants.NUMBER);
+
+        assertThat(result, is((Object) 1.0));
+    }
+
+    @Test
+    public void discardsLeastRecentlyUsedExpressionWhenFull() throws Exception
+    {
+        Document document = parse(XML);
+
+        cache.evaluate("/a", null, document, XPathConstants.STRING);
+        cache.evaluate("/b", null, document, XPathConstants.STRING);
+        cache.evaluate("/a", null, document, XPathConstants.STRING);
+        cache.evaluate("/c", null, document, XPathConstants.STRING);
+
+        assertThat(cache.size(), is(2));
+        assertThat(cache.getStatistics().getEvictions(), is(1L));
+
+        cache.evaluate("/a", null, document, XPathConstants.STRING);
+        assertThat(cache.getStatistics().getHits(), is(2L));
+    }
+
+    @Test
+    public void evaluatesConcurrently() throws Exception
+    {
+        final MapNamespaceContext namespaceContext = namespaceContext();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try
+        {
+            List<Future<Object>> results = new ArrayList<Future<Object>>();
+            for (int i = 0; i < 200; i++)
+            {
+                final String value = Integer.toString(i);
+                results.add(executor.submit(new Callable<Object>()
+                {
+                    @Override
+                    public Object call() throws Exception
+                    {
+                        Document document = parse("<f:table xmlns:f=\"http://www.w3schools.com/furniture\"><f:width>" + value + "</f:width></f:table>");
+                        return cache.evaluate("//f:width", namespaceContext, document, XPathConstants.STRING);
+                    }
+                }));
+            }
+
+            for (int i = 0; i < results.size(); i++)
+            {
+                assertThat(results.get(i).get(), is((Object) Integer.toString(i)));
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+        assertThat(cache.size(), is(1));
+    }
+
+    @Test
+    public void disposeDiscardsCompiledExpressions() throws Exception
+    {
+        cache.evaluate("//f:width", namespaceContext(), parse(XML), XPathConstants.STRING);
+
+        cache.dispose();
+
+        assertThat(cache.size(), is(0));
+    }
+
+    @Test
+    public void looksUpCacheRegisteredInContext() throws Exception
+    {
+        MuleContext muleContext = mock(MuleContext.class, RETURNS_DEEP_STUBS);
+        when(muleContext.getRegistry().lookupObject(XPathExpressionCache.class)).thenReturn(cache);
+
+        assertThat(XPathExpressionCache.lookup(muleContext), is(sameInstance(cache)));
+    }
+
+    @Test
+    public void createsOwnCacheWithoutContext() throws Exception
+    {
+        XPathExpressionCache created = XPathExpressionCache.lookup(null);
+
+        assertThat(created, is(not(sameInstance(cache))));
+        assertThat(XPathExpressionCache.lookup(null), is(not(sameInstance(created))));
+    }
+
+    private MapNamespaceContext namespaceContext()
+    {
+        return new MapNamespaceContext(Collections.singletonMap("f", "http://www.w3schools.com/furniture"));
+    }
+
+    private Document parse(String xml) throws Exception
+    {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        return factory.newDocumentBuilder().parse(new InputSource(new StringReader(xml)));
+    }
+}
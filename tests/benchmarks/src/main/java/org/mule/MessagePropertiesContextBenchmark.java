@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule;
+
+import org.mule.api.transport.PropertyScope;
+import org.mule.util.CopyOnWriteCaseInsensitiveMap;
+import org.mule.util.PersistentCaseInsensitiveMap;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures copying message properties and then updating and reading a few of them, as done
+ * each time a message is copied between message processors. The map benchmarks compare the
+ * copy-on-write map previously used for the inbound and outbound scopes with the persistent map
+ * used now.
+ * <p/>
+ * Run it with <code>-prof gc</code> to also compare the memory allocated by each copy.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Thread)
+public class MessagePropertiesContextBenchmark
+{
+
+    @Param({"8", "32", "128"})
+    public int properties;
+
+    private String[] keys;
+    private String upperCaseKey;
+    private CopyOnWriteCaseInsensitiveMap<String, Object> copyOnWriteMap;
+    private PersistentCaseInsensitiveMap<Object> persistentMap;
+    private MessagePropertiesContext propertiesContext;
+
+    @Setup(Level.Trial)
+    public void setUp()
+    {
+        keys = new String[properties];
+        copyOnWriteMap = new CopyOnWriteCaseInsensitiveMap<String, Object>();
+        persistentMap = new PersistentCaseInsensitiveMap<Object>();
+        propertiesContext = new MessagePropertiesContext();
+        for (int i = 0; i < properties; i++)
+        {
+            keys[i] = "Property-" + i;
+            copyOnWriteMap.put(keys[i], i);
+            persistentMap.put(keys[i], i);
+            propertiesContext.setProperty(keys[i], i, PropertyScope.INBOUND);
+            propertiesContext.setProperty(keys[i], i, PropertyScope.OUTBOUND);
+        }
+        upperCaseKey = keys[0].toUpperCase();
+    }
+
+    @Benchmark
+    public Object copyOnWriteMap()
+    {
+        return copyUpdateAndRead(copyOnWriteMap.clone());
+    }
+
+    @Benchmark
+    public Object persistentMap()
+    {
+        return copyUpdateAndRead(persistentMap.clone());
+    }
+
+    @Benchmark
+    public Object messagePropertiesContext()
+    {
+        MessagePropertiesContext copy = new MessagePropertiesContext(propertiesContext);
+        copy.setProperty("Updated", Boolean.TRUE, PropertyScope.OUTBOUND);
+        copy.getProperty(upperCaseKey, PropertyScope.INBOUND);
+        return copy.getProperty(keys[properties - 1], PropertyScope.OUTBOUND);
+    }
+
+    private Object copyUpdateAndRead(Map<String, Object> copy)
+    {
+        copy.put("Updated", Boolean.TRUE);
+        copy.get(upperCaseKey);
+        return copy.get(keys[properties - 1]);
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.el.mvel;
+
+import org.mule.api.MuleContext;
+import org.mule.api.MuleEvent;
+import org.mule.api.expression.ExpressionManager;
+import org.mule.api.transport.PropertyScope;
+import org.mule.context.DefaultMuleContextFactory;
+import org.mule.tck.MuleTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the evaluation of MVEL expressions of increasing complexity against an event.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MVELExpressionBenchmark
+{
+
+    @Param({"#[payload]", "#[flowVars.foo]", "#[message.inboundProperties['foo']]", "#[flowVars['foo'] == 'bar' ? payload.length() : 0]"})
+    public String expression;
+
+    private MuleContext muleContext;
+    private ExpressionManager expressionManager;
+    private MuleEvent event;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception
+    {
+        muleContext = new DefaultMuleContextFactory().createMuleContext();
+        muleContext.start();
+        expressionManager = muleContext.getExpressionManager();
+
+        event = MuleTestUtils.getTestEvent("payload", muleContext);
+        event.getMessage().setProperty("foo", "bar", PropertyScope.INBOUND);
+        event.setFlowVariable("foo", "bar");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception
+    {
+        muleContext.dispose();
+    }
+
+    @Benchmark
+    public Object evaluate()
+    {
+        return expressionManager.evaluate(expression, event);
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.module.db;
+
+import org.mule.module.db.internal.domain.connection.DbConnection;
+import org.mule.module.db.internal.domain.connection.DefaultDbConnection;
+import org.mule.module.db.internal.domain.connection.DefaultDbConnectionReleaser;
+import org.mule.module.db.internal.domain.transaction.TransactionalAction;
+import org.mule.module.db.internal.result.resultset.IteratorResultSetHandler;
+import org.mule.module.db.internal.result.resultset.ResultSetIterator;
+import org.mule.module.db.internal.result.row.InsensitiveMapRowHandler;
+import org.mule.routing.outbound.IteratorMessageSequence;
+import org.mule.routing.outbound.PartitionedMessageSequence;
+import org.mule.util.FileUtils;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Streams a million-row table of an embedded on-disk Derby database through the db module's row cursor,
+ * in pages the way a foreach with a batch size consumes it. The forked JVM has a heap far smaller
+ * than the whole result, so the benchmark only completes if memory stays bounded by the page size.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = "-Xmx64m")
+@State(Scope.Benchmark)
+public class StreamingSelectBenchmark
+{
+
+    private static final int ROWS = 1000000;
+    private static final int INSERT_BATCH_SIZE = 1000;
+
+    @Param({"10", "100", "1000"})
+    public int pageSize;
+
+    private File databaseDirectory;
+    private String url;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception
+    {
+        databaseDirectory = File.createTempFile("streaming-select-benchmark", "");
+        databaseDirectory.delete();
+        url = "jdbc:derby:" + databaseDirectory.getAbsolutePath();
+        Class.forName("org.apache.derby.jdbc.EmbeddedDriver");
+        Connection connection = DriverManager.getConnection(url + ";create=true");
+        try
+        {
+            Statement statement = connection.createStatement();
+            statement.execute("CREATE TABLE RECORDS (ID INTEGER PRIMARY KEY, NAME VARCHAR(64), AMOUNT DECIMAL(10, 2))");
+            statement.close();
+
+            connection.setAutoCommit(false);
+            PreparedStatement insert = connection.prepareStatement("INSERT INTO RECORDS VALUES (?, ?, ?)");
+            for (int i = 0; i < ROWS; i++)
+            {
+                insert.setInt(1, i);
+                insert.setString(2, "row-" + i);
+                insert.setDouble(3, i / 100.0);
+                insert.addBatch();
+                if ((i + 1) % INSERT_BATCH_SIZE == 0)
+                {
+                    insert.executeBatch();
+                    connection.commit();
+                }
+            }
+            insert.close();
+        }
+        finally
+        {
+            connection.close();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown()
+    {
+        try
+        {
+            DriverManager.getConnection(url + ";shutdown=true");
+        }
+        catch (SQLException e)
+        {
+            // Derby reports a successful shutdown with an exception
+        }
+        FileUtils.deleteTree(databaseDirectory);
+    }
+
+    @Benchmark
+    public long streamRowsInPages() throws Exception
+    {
+        final Connection jdbcConnection = DriverManager.getConnection(url);
+        DbConnection connection = new DefaultDbConnection(jdbcConnection, TransactionalAction.NOT_SUPPORTED, new DefaultDbConnectionReleaser(null)
+        {
+            @Override
+            public void release(DbConnection connection)
+            {
+                try
+                {
+                    jdbcConnection.close();
+                }
+                catch (SQLException e)
+                {
+                    throw new IllegalStateException(e);
+                }
+            }
+        }, null);
+
+        Statement statement = connection.createStatement();
+        statement.setFetchSize(pageSize);
+        ResultSetIterator rows = (ResultSetIterator) new IteratorResultSetHandler(new InsensitiveMapRowHandler())
+                .processResultSet(connection, statement.executeQuery("SELECT * FROM RECORDS"));
+
+        PartitionedMessageSequence<Map<String, Object>> pages = new PartitionedMessageSequence<Map<String, Object>>(
+                new IteratorMessageSequence<Map<String, Object>>(rows), pageSize);
+        long count = 0;
+        while (pages.hasNext())
+        {
+            Collection<Map<String, Object>> page = pages.next();
+            count += page.size();
+        }
+
+        if (count != ROWS || !rows.isClosed())
+        {
+            throw new IllegalStateException("Read " + count + " rows, cursor closed: " + rows.isClosed());
+        }
+        return count;
+    }
+}
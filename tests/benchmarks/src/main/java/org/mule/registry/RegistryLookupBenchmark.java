@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.registry;
+
+import org.mule.api.MuleContext;
+import org.mule.api.MuleException;
+import org.mule.api.registry.MuleRegistry;
+import org.mule.api.transformer.Transformer;
+import org.mule.api.transport.Connector;
+import org.mule.context.DefaultMuleContextFactory;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the lookups by type done on the registry at runtime, with a number of other objects
+ * registered, and the time to create and start a Mule context, which registers the bootstrap
+ * objects and looks them up by type.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RegistryLookupBenchmark
+{
+
+    @Param({"0", "1000"})
+    public int registeredObjects;
+
+    private MuleContext muleContext;
+    private MuleRegistry registry;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception
+    {
+        muleContext = new DefaultMuleContextFactory().createMuleContext();
+        muleContext.start();
+        registry = muleContext.getRegistry();
+        for (int i = 0; i < registeredObjects; i++)
+        {
+            registry.registerObject("object-" + i, new StringBuilder(), MuleRegistry.LIFECYCLE_BYPASS_FLAG);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception
+    {
+        muleContext.dispose();
+    }
+
+    @Benchmark
+    public Collection<Transformer> lookupTransformers()
+    {
+        return registry.lookupObjects(Transformer.class);
+    }
+
+    @Benchmark
+    public Map<String, Connector> lookupConnectors()
+    {
+        return registry.lookupByType(Connector.class);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public MuleContext startMuleContext() throws MuleException
+    {
+        MuleContext context = new DefaultMuleContextFactory().createMuleContext();
+        context.start();
+        context.dispose();
+        return context;
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.registry;
+
+import org.mule.api.MuleContext;
+import org.mule.api.transformer.DataType;
+import org.mule.api.transformer.Transformer;
+import org.mule.api.transformer.TransformerException;
+import org.mule.context.DefaultMuleContextFactory;
+import org.mule.transformer.types.DataTypeFactory;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures how {@link MuleRegistryHelper} finds the transformer between two data types, both
+ * when the transformer was already cached for the pair of types and when it has to be resolved.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TransformerResolutionBenchmark
+{
+
+    @Param({"[B", "java.io.InputStream", "java.lang.Integer"})
+    public String sourceType;
+
+    private MuleContext muleContext;
+    private MuleRegistryHelper registry;
+    private DataType<?> source;
+    private DataType<?> result;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception
+    {
+        muleContext = new DefaultMuleContextFactory().createMuleContext();
+        muleContext.start();
+        registry = (MuleRegistryHelper) muleContext.getRegistry();
+        source = DataTypeFactory.create(Class.forName(sourceType));
+        result = DataTypeFactory.STRING;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception
+    {
+        muleContext.dispose();
+    }
+
+    @Benchmark
+    public Transformer lookupTransformer() throws TransformerException
+    {
+        return registry.lookupTransformer(source, result);
+    }
+
+    @Benchmark
+    public Transformer resolveTransformer() throws TransformerException
+    {
+        return registry.resolveTransformer(source, result);
+    }
+}
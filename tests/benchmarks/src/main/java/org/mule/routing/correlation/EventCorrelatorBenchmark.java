@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.routing.correlation;
+
+import org.mule.DefaultMuleEvent;
+import org.mule.DefaultMuleMessage;
+import org.mule.api.MuleContext;
+import org.mule.api.MuleEvent;
+import org.mule.api.MuleMessage;
+import org.mule.context.DefaultMuleContextFactory;
+import org.mule.routing.MuleMessageInfoMapping;
+import org.mule.tck.MuleTestUtils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the throughput of {@link EventCorrelator} when many threads correlate events of
+ * different groups. Running it with a single lock stripe reproduces the behaviour of the
+ * correlator before groups were distributed over several locks.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class EventCorrelatorBenchmark
+{
+
+    private static final int GROUP_SIZE = 4;
+
+    @Param({"1", "64"})
+    public int lockStripes;
+
+    private final AtomicLong groupIds = new AtomicLong();
+    private MuleContext muleContext;
+    private EventCorrelator correlator;
+    private MuleEvent templateEvent;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception
+    {
+        muleContext = new DefaultMuleContextFactory().createMuleContext();
+        muleContext.start();
+        correlator = new EventCorrelator(new CollectionCorrelatorCallback(muleContext, false, "benchmark"), null,
+                                         new MuleMessageInfoMapping(), muleContext,
+                                         MuleTestUtils.getTestFlow(muleContext), false, "benchmark", lockStripes);
+        templateEvent = MuleTestUtils.getTestEvent("template", muleContext);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception
+    {
+        correlator.dispose();
+        muleContext.dispose();
+    }
+
+    /**
+     * Correlates a whole group, so the measured operation includes creating the group, adding
+     * its events, checking its completeness after each one and aggregating it.
+     */
+    @Benchmark
+    public MuleEvent correlateGroup() throws Exception
+    {
+        String groupId = "group" + groupIds.incrementAndGet();
+        MuleEvent aggregated = null;
+        for (int sequence = 0; sequence < GROUP_SIZE; sequence++)
+        {
+            aggregated = correlator.process(createEvent(groupId, sequence));
+        }
+        return aggregated;
+    }
+
+    private MuleEvent createEvent(String groupId, int sequence)
+    {
+        MuleMessage message = new DefaultMuleMessage("payload", muleContext);
+        message.setCorrelationId(groupId);
+        message.setCorrelationGroupSize(GROUP_SIZE);
+        message.setCorrelationSequence(sequence);
+        return new DefaultMuleEvent(message, templateEvent);
+    }
+}
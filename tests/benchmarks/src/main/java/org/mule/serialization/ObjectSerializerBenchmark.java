@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.serialization;
+
+import org.mule.DefaultMuleMessage;
+import org.mule.api.MuleContext;
+import org.mule.api.transport.PropertyScope;
+import org.mule.context.DefaultMuleContextFactory;
+import org.mule.session.DefaultMuleSession;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the throughput of the object serializers serializing and deserializing a message and a
+ * session, as done by persistent queues and session handlers. The size of the serialized message
+ * and session is printed for each serializer when the benchmark starts.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ObjectSerializerBenchmark
+{
+
+    @Param({"java", "compact"})
+    public String serializerType;
+
+    @Param({"4", "32"})
+    public int properties;
+
+    private MuleContext muleContext;
+    private AbstractObjectSerializer serializer;
+    private DefaultMuleMessage message;
+    private DefaultMuleSession session;
+    private byte[] serializedMessage;
+    private byte[] serializedSession;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception
+    {
+        muleContext = new DefaultMuleContextFactory().createMuleContext();
+        serializer = "compact".equals(serializerType) ? new CompactObjectSerializer() : new JavaObjectSerializer();
+        serializer.setMuleContext(muleContext);
+
+        message = new DefaultMuleMessage("<order id=\"1\"><item>pen</item></order>", muleContext);
+        session = new DefaultMuleSession();
+        for (int i = 0; i < properties; i++)
+        {
+            message.setProperty("outbound-" + i, i, PropertyScope.OUTBOUND);
+            message.setProperty("invocation-" + i, "value-" + i, PropertyScope.INVOCATION);
+            session.setProperty("session-" + i, "value-" + i);
+        }
+
+        serializedMessage = serializer.serialize(message);
+        serializedSession = serializer.serialize(session);
+        System.out.println(String.format("%n%s serializer: message %d bytes, session %d bytes",
+                                         serializerType, serializedMessage.length, serializedSession.length));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown()
+    {
+        muleContext.dispose();
+    }
+
+    @Benchmark
+    public byte[] serializeMessage()
+    {
+        return serializer.serialize(message);
+    }
+
+    @Benchmark
+    public Object deserializeMessage()
+    {
+        return serializer.deserialize(serializedMessage);
+    }
+
+    @Benchmark
+    public byte[] serializeSession()
+    {
+        return serializer.serialize(session);
+    }
+
+    @Benchmark
+    public Object deserializeSession()
+    {
+        return serializer.deserialize(serializedSession);
+    }
+}
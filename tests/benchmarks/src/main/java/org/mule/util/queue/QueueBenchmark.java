@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.util.queue;
+
+import org.mule.api.MuleContext;
+import org.mule.api.store.ObjectStoreException;
+import org.mule.config.DefaultMuleConfiguration;
+import org.mule.context.DefaultMuleContextBuilder;
+import org.mule.context.DefaultMuleContextFactory;
+import org.mule.util.FileUtils;
+
+import java.io.File;
+import java.io.Serializable;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures putting an item in the queues used by the VM transport and taking it back, for
+ * transient queues, persistent queues and persistent queues stored in memory mapped segments.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QueueBenchmark
+{
+
+    private static final String QUEUE_NAME = "benchmark";
+
+    @Param({"transient", "persistent", "mapped"})
+    public String queueType;
+
+    private File workingDirectory;
+    private MuleContext muleContext;
+    private Queue queue;
+    private Serializable item;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception
+    {
+        workingDirectory = File.createTempFile("queue-benchmark", "");
+        workingDirectory.delete();
+        DefaultMuleConfiguration configuration = new DefaultMuleConfiguration();
+        configuration.setWorkingDirectory(workingDirectory.getAbsolutePath());
+        DefaultMuleContextBuilder contextBuilder = new DefaultMuleContextBuilder();
+        contextBuilder.setMuleConfiguration(configuration);
+        muleContext = new DefaultMuleContextFactory().createMuleContext(contextBuilder);
+        muleContext.start();
+
+        QueueManager queueManager = muleContext.getQueueManager();
+        queueManager.setQueueConfiguration(QUEUE_NAME, createQueueConfiguration());
+        queue = queueManager.getQueueSession().getQueue(QUEUE_NAME);
+        item = new byte[1024];
+    }
+
+    private QueueConfiguration createQueueConfiguration()
+    {
+        if ("mapped".equals(queueType))
+        {
+            return new MappedSegmentQueueConfiguration(0);
+        }
+        return new DefaultQueueConfiguration(0, "persistent".equals(queueType));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception
+    {
+        queue.dispose();
+        muleContext.dispose();
+        FileUtils.deleteTree(workingDirectory);
+    }
+
+    @Benchmark
+    public Serializable putAndTake() throws InterruptedException, ObjectStoreException
+    {
+        queue.put(item);
+        return queue.take();
+    }
+}
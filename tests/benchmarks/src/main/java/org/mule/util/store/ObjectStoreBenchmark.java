@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.util.store;
+
+import org.mule.api.MuleContext;
+import org.mule.api.store.ObjectStore;
+import org.mule.api.store.ObjectStoreException;
+import org.mule.config.DefaultMuleConfiguration;
+import org.mule.context.DefaultMuleContextBuilder;
+import org.mule.context.DefaultMuleContextFactory;
+import org.mule.util.FileUtils;
+
+import java.io.File;
+import java.io.Serializable;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the object stores created by the {@link MuleObjectStoreManager}, both in memory and
+ * persistent ones, reading stored entries and storing and removing new ones.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ObjectStoreBenchmark
+{
+
+    private static final int STORED_ENTRIES = 1000;
+
+    @Param({"false", "true"})
+    public boolean persistent;
+
+    private File workingDirectory;
+    private MuleContext muleContext;
+    private ObjectStore<Serializable> objectStore;
+    private Serializable value;
+    private long nextKey;
+    private int nextRetrievedKey;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception
+    {
+        workingDirectory = File.createTempFile("object-store-benchmark", "");
+        workingDirectory.delete();
+        DefaultMuleConfiguration configuration = new DefaultMuleConfiguration();
+        configuration.setWorkingDirectory(workingDirectory.getAbsolutePath());
+        DefaultMuleContextBuilder contextBuilder = new DefaultMuleContextBuilder();
+        contextBuilder.setMuleConfiguration(configuration);
+        muleContext = new DefaultMuleContextFactory().createMuleContext(contextBuilder);
+        muleContext.start();
+
+        objectStore = muleContext.getObjectStoreManager().getObjectStore("benchmark", persistent);
+        value = new byte[256];
+        for (int i = 0; i < STORED_ENTRIES; i++)
+        {
+            objectStore.store("stored-" + i, value);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception
+    {
+        muleContext.dispose();
+        FileUtils.deleteTree(workingDirectory);
+    }
+
+    @Benchmark
+    public Serializable retrieve() throws ObjectStoreException
+    {
+        nextRetrievedKey = (nextRetrievedKey + 1) % STORED_ENTRIES;
+        return objectStore.retrieve("stored-" + nextRetrievedKey);
+    }
+
+    @Benchmark
+    public Serializable storeAndRemove() throws ObjectStoreException
+    {
+        String key = "new-" + nextKey++;
+        objectStore.store(key, value);
+        return objectStore.remove(key);
+    }
+}
@@ -19,6 +19,9 @@ import org.mule.construct.flow.DefaultFlowProcessingStrategy;
 import org.mule.model.seda.SedaService;
 import org.mule.processor.strategy.QueuedAsynchronousProcessingStrategy;
 import org.mule.tck.junit4.FunctionalTestCase;
+import org.mule.util.queue.MappedSegmentQueueConfiguration;
+import org.mule.util.queue.MappedSegmentQueueStore;
+import org.mule.util.queue.QueueConfiguration;
 import org.mule.util.store.SimpleMemoryObjectStore;
 
 import java.io.Serializable;
@@ -75,6 +78,17 @@ public class QueueStoreConfigurationTestCase extends FunctionalTestCase
         assertTrue(queueProfile.getObjectStore() instanceof TestQueueStore);
     }
 
+    @Test
+    public void testServiceMappedSegmentQueueStoreConfigured()
+    {
+        SedaService service = lookupService("serviceMappedSegmentQueueStore");
+        QueueProfile queueProfile = service.getQueueProfile();
+        assertTrue(queueProfile.getObjectStore() instanceof MappedSegmentQueueStore);
+
+        QueueConfiguration queueConfiguration = queueProfile.toQueueConfiguration(muleContext);
+        assertEquals(new MappedSegmentQueueConfiguration(42, 65536, 10, 500, 4), queueConfiguration);
+    }
+
     @Test
     public void testFlowDefaults()
     {
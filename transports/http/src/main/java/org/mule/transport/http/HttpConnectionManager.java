@@ -10,7 +10,9 @@ import org.mule.api.MuleRuntimeException;
 import org.mule.api.context.WorkManager;
 import org.mule.api.endpoint.EndpointURI;
 
+import java.io.IOException;
 import java.net.ServerSocket;
+import java.nio.channels.ServerSocketChannel;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -58,11 +60,10 @@ class HttpConnectionManager
             }
             else
             {
-                ServerSocket serverSocket = connector.getServerSocket(endpointURI.getUri());
-                HttpRequestDispatcher httpRequestDispatcher = new HttpRequestDispatcher(connector, connector.getRetryPolicyTemplate(), serverSocket, workManager);
+                HttpRequestDispatcher httpRequestDispatcher = createRequestDispatcher(endpointURI);
                 socketDispatchers.put(endpointKey, httpRequestDispatcher);
                 socketDispatcherCount.put(endpointKey, new Integer(1));
-                workManager.scheduleWork(httpRequestDispatcher, WorkManager.INDEFINITE, null, connector);
+                httpRequestDispatcher.start();
             }
         }
         catch (Exception e)
@@ -71,6 +72,17 @@ class HttpConnectionManager
         }
     }
 
+    private HttpRequestDispatcher createRequestDispatcher(EndpointURI endpointURI) throws IOException
+    {
+        if (connector.isNonBlockingReceiver())
+        {
+            ServerSocketChannel serverSocketChannel = connector.getServerSocketChannel(endpointURI.getUri());
+            return new HttpNioRequestDispatcher(connector, connector.getRetryPolicyTemplate(), serverSocketChannel, workManager);
+        }
+        ServerSocket serverSocket = connector.getServerSocket(endpointURI.getUri());
+        return new HttpRequestDispatcher(connector, connector.getRetryPolicyTemplate(), serverSocket, workManager);
+    }
+
     synchronized void removeConnection(final EndpointURI endpointURI)
     {
         String endpointKey = getKeyForEndpointUri(endpointURI);
@@ -213,6 +213,10 @@ public class HttpConnector extends TcpConnector
     
     private boolean singleDispatcherPerEndpoint = false;
 
+    private int maxRequestHeaderSize = HttpRequestParser.DEFAULT_MAX_HEADER_SIZE;
+
+    private int maxRequestBodySize = HttpRequestParser.DEFAULT_MAX_BODY_SIZE;
+
     public HttpConnector(MuleContext context)
     {
         super(context);
@@ -675,6 +679,43 @@ public class HttpConnector extends TcpConnector
         return super.getServerSocket(uri);
     }
 
+    @Override
+    protected boolean isNonBlockingReceiverSupported()
+    {
+        // HttpMessageReceiver reads connections without blocking through the HttpConnectionManager
+        return false;
+    }
+
+    public int getMaxRequestHeaderSize()
+    {
+        return maxRequestHeaderSize;
+    }
+
+    /**
+     * @param maxRequestHeaderSize maximum number of bytes of the request line and headers of the
+     *        requests read by the non blocking receiver. Larger requests are rejected with a 413
+     *        response
+     */
+    public void setMaxRequestHeaderSize(int maxRequestHeaderSize)
+    {
+        this.maxRequestHeaderSize = maxRequestHeaderSize;
+    }
+
+    public int getMaxRequestBodySize()
+    {
+        return maxRequestBodySize;
+    }
+
+    /**
+     * @param maxRequestBodySize maximum number of bytes of the body of the requests read by the
+     *        non blocking receiver, which keeps them in memory until they are complete. Larger
+     *        requests are rejected with a 413 response
+     */
+    public void setMaxRequestBodySize(int maxRequestBodySize)
+    {
+        this.maxRequestBodySize = maxRequestBodySize;
+    }
+
     /**
      * @deprecated Use keepAlive property in the outbound endpoint.
      */
@@ -0,0 +1,526 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.http;
+
+import org.mule.api.context.WorkManager;
+import org.mule.api.retry.RetryPolicyTemplate;
+import org.mule.api.transport.Connector;
+import org.mule.api.transport.NoReceiverForEndpointException;
+import org.mule.transport.http.i18n.HttpMessages;
+import org.mule.util.monitor.Expirable;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.resource.spi.work.Work;
+import javax.resource.spi.work.WorkException;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * {@link HttpRequestDispatcher} that reads the accepted connections using selectors instead of
+ * a thread per connection.
+ * <p/>
+ * Accepted connections are distributed among a fixed number of selector threads, which read
+ * the incoming bytes until a complete request is received, so idle keep-alive connections and
+ * slow clients do not hold a thread. Only complete requests are handed off to the request
+ * threads, and the connection is not read again until its request was processed and its
+ * response written.
+ */
+class HttpNioRequestDispatcher extends HttpRequestDispatcher
+{
+
+    private static final Log logger = LogFactory.getLog(HttpNioRequestDispatcher.class);
+
+    private static final int READ_BUFFER_SIZE = 8 * 1024;
+    private static final byte[] CONTINUE_RESPONSE = "HTTP/1.1 100 Continue\r\n\r\n".getBytes();
+    private static final byte[] TOO_LARGE_RESPONSE = "HTTP/1.1 413 Request Entity Too Large\r\nContent-Length: 0\r\nConnection: close\r\n\r\n".getBytes();
+
+    private final HttpConnector httpConnector;
+    private final WorkManager workManager;
+    private final SelectorLoop[] selectorLoops;
+    private final AtomicInteger nextSelectorLoop = new AtomicInteger();
+    private final String encoding;
+
+    public HttpNioRequestDispatcher(HttpConnector httpConnector, RetryPolicyTemplate retryPolicyTemplate, ServerSocketChannel serverSocketChannel, WorkManager workManager) throws IOException
+    {
+        super(httpConnector, retryPolicyTemplate, serverSocketChannel.socket(), workManager);
+        this.httpConnector = httpConnector;
+        this.workManager = workManager;
+        this.encoding = httpConnector.getMuleContext().getConfiguration().getDefaultEncoding();
+        this.selectorLoops = new SelectorLoop[httpConnector.getSelectorThreads()];
+        try
+        {
+            for (int i = 0; i < selectorLoops.length; i++)
+            {
+                selectorLoops[i] = new SelectorLoop(Selector.open());
+            }
+        }
+        catch (IOException e)
+        {
+            closeSelectors();
+            serverSocketChannel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    void start() throws WorkException
+    {
+        for (SelectorLoop selectorLoop : selectorLoops)
+        {
+            workManager.scheduleWork(selectorLoop, WorkManager.INDEFINITE, null, httpConnector);
+        }
+        super.start();
+    }
+
+    @Override
+    protected void dispatch(Socket socket) throws Exception
+    {
+        SocketChannel channel = socket.getChannel();
+        if (channel == null)
+        {
+            super.dispatch(socket);
+            return;
+        }
+        configure(socket);
+        channel.configureBlocking(false);
+        int index = (nextSelectorLoop.getAndIncrement() & Integer.MAX_VALUE) % selectorLoops.length;
+        selectorLoops[index].register(new ChannelContext(channel, selectorLoops[index]));
+    }
+
+    private void configure(Socket socket) throws IOException
+    {
+        socket.setTcpNoDelay(httpConnector.isSendTcpNoDelay());
+        socket.setKeepAlive(httpConnector.isKeepAlive());
+        if (httpConnector.getReceiveBufferSize() != Connector.INT_VALUE_NOT_SET
+            && socket.getReceiveBufferSize() != httpConnector.getReceiveBufferSize())
+        {
+            socket.setReceiveBufferSize(httpConnector.getReceiveBufferSize());
+        }
+    }
+
+    @Override
+    void disconnect()
+    {
+        super.disconnect();
+        for (SelectorLoop selectorLoop : selectorLoops)
+        {
+            selectorLoop.selector.wakeup();
+        }
+    }
+
+    private void closeSelectors()
+    {
+        for (SelectorLoop selectorLoop : selectorLoops)
+        {
+            if (selectorLoop != null)
+            {
+                selectorLoop.close();
+            }
+        }
+    }
+
+    /**
+     * @return milliseconds a connection can stay idle waiting for a request before it is closed,
+     *         0 to never close it
+     */
+    private long getIdleTimeout()
+    {
+        if (httpConnector.getKeepAliveTimeout() > 0)
+        {
+            return httpConnector.getKeepAliveTimeout();
+        }
+        return Math.max(0, httpConnector.getServerSoTimeout());
+    }
+
+    private int getWriteTimeout()
+    {
+        return Math.max(0, httpConnector.getServerSoTimeout());
+    }
+
+    /**
+     * Selects the connections that have bytes available and reads them.
+     */
+    private class SelectorLoop implements Work
+    {
+
+        private final Selector selector;
+        private final Queue<ChannelContext> pendingRegistrations = new ConcurrentLinkedQueue<ChannelContext>();
+        private final ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+
+        SelectorLoop(Selector selector)
+        {
+            this.selector = selector;
+        }
+
+        /**
+         * Starts or resumes reading requests from a connection.
+         */
+        void register(ChannelContext context)
+        {
+            pendingRegistrations.add(context);
+            selector.wakeup();
+        }
+
+        @Override
+        public void run()
+        {
+            try
+            {
+                while (!isDisconnected())
+                {
+                    selector.select();
+                    processPendingRegistrations();
+                    Iterator<SelectionKey> selectedKeys = selector.selectedKeys().iterator();
+                    while (selectedKeys.hasNext())
+                    {
+                        SelectionKey key = selectedKeys.next();
+                        selectedKeys.remove();
+                        if (key.isValid() && key.isReadable())
+                        {
+                            read((ChannelContext) key.attachment());
+                        }
+                    }
+                }
+            }
+            catch (Exception e)
+            {
+                if (!isDisconnected())
+                {
+                    httpConnector.getMuleContext().getExceptionListener().handleException(e);
+                }
+            }
+            finally
+            {
+                close();
+            }
+        }
+
+        private void processPendingRegistrations()
+        {
+            ChannelContext context;
+            while ((context = pendingRegistrations.poll()) != null)
+            {
+                try
+                {
+                    if (!context.channel.isOpen())
+                    {
+                        continue;
+                    }
+                    if (context.parser.hasBufferedBytes() && handOffNextRequest(context))
+                    {
+                        // a pipelined request was already received
+                        continue;
+                    }
+                    if (context.key == null)
+                    {
+                        context.key = context.channel.register(selector, SelectionKey.OP_READ, context);
+                    }
+                    else
+                    {
+                        context.key.interestOps(SelectionKey.OP_READ);
+                    }
+                    context.startIdleTimeout();
+                }
+                catch (IOException e)
+                {
+                    close(context, e);
+                }
+            }
+        }
+
+        private void read(ChannelContext context)
+        {
+            try
+            {
+                boolean received = false;
+                int count;
+                do
+                {
+                    readBuffer.clear();
+                    count = context.channel.read(readBuffer);
+                    if (count > 0)
+                    {
+                        readBuffer.flip();
+                        context.parser.append(readBuffer);
+                        received = true;
+                    }
+                }
+                while (count == READ_BUFFER_SIZE);
+
+                if (!handOffNextRequest(context))
+                {
+                    if (count < 0)
+                    {
+                        logger.debug("Closing HTTP connection closed by the client");
+                        context.close();
+                        return;
+                    }
+                    if (received)
+                    {
+                        // a slow client is still sending its request
+                        context.resetIdleTimeout();
+                    }
+                    if (context.parser.takeContinueRequest())
+                    {
+                        context.sendContinue();
+                    }
+                }
+            }
+            catch (IOException e)
+            {
+                close(context, e);
+            }
+        }
+
+        private void close(ChannelContext context, IOException e)
+        {
+            if (e instanceof HttpRequestParser.RequestTooLargeException)
+            {
+                logger.warn("Rejecting HTTP request: " + e.getMessage());
+                context.sendTooLarge();
+            }
+            else
+            {
+                logger.debug("Closing HTTP connection: " + e.getMessage());
+            }
+            context.close();
+        }
+
+        /**
+         * @return true if a complete request was received and handed off for processing
+         */
+        private boolean handOffNextRequest(ChannelContext context) throws IOException
+        {
+            boolean continueSent = context.continueSent;
+            byte[] request = context.parser.nextRequest();
+            if (request == null)
+            {
+                return false;
+            }
+            context.continueSent = false;
+            context.stopIdleTimeout();
+            if (context.key != null)
+            {
+                context.key.interestOps(0);
+            }
+            try
+            {
+                requestHandOffExecutor.execute(new HttpNioRequestWork(context, request, continueSent));
+            }
+            catch (RejectedExecutionException e)
+            {
+                logger.warn("Closing HTTP connection as its request could not be processed: " + e.getMessage());
+                context.close();
+            }
+            return true;
+        }
+
+        @Override
+        public void release()
+        {
+        }
+
+        void close()
+        {
+            try
+            {
+                for (SelectionKey key : selector.keys())
+                {
+                    ((ChannelContext) key.attachment()).close();
+                }
+                for (ChannelContext context : pendingRegistrations)
+                {
+                    context.close();
+                }
+                pendingRegistrations.clear();
+                selector.close();
+            }
+            catch (Exception e)
+            {
+                logger.debug("(Ignored) Error closing the selector: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * State of an accepted connection.
+     */
+    private class ChannelContext implements Expirable
+    {
+
+        private final SocketChannel channel;
+        private final SelectorLoop selectorLoop;
+        private final HttpRequestParser parser = new HttpRequestParser(httpConnector.getMaxRequestHeaderSize(), httpConnector.getMaxRequestBodySize());
+        // Only accessed from the selector thread
+        private SelectionKey key;
+        private boolean continueSent;
+
+        ChannelContext(SocketChannel channel, SelectorLoop selectorLoop)
+        {
+            this.channel = channel;
+            this.selectorLoop = selectorLoop;
+        }
+
+        void sendContinue() throws IOException
+        {
+            ByteBuffer response = ByteBuffer.wrap(CONTINUE_RESPONSE);
+            channel.write(response);
+            // the response is tiny and the connection idle, so the send buffer can't be full
+            continueSent = !response.hasRemaining();
+        }
+
+        /**
+         * Tells the client that its request was rejected because of its size, if the response
+         * can be written without blocking, as the connection is closed afterwards.
+         */
+        void sendTooLarge()
+        {
+            try
+            {
+                channel.write(ByteBuffer.wrap(TOO_LARGE_RESPONSE));
+            }
+            catch (IOException e)
+            {
+                logger.debug("(Ignored) Error writing the response: " + e.getMessage());
+            }
+        }
+
+        void startIdleTimeout()
+        {
+            long idleTimeout = getIdleTimeout();
+            if (idleTimeout > 0)
+            {
+                httpConnector.getKeepAliveMonitor().addExpirable(idleTimeout, TimeUnit.MILLISECONDS, this);
+            }
+        }
+
+        void resetIdleTimeout()
+        {
+            httpConnector.getKeepAliveMonitor().resetExpirable(this);
+        }
+
+        void stopIdleTimeout()
+        {
+            httpConnector.getKeepAliveMonitor().removeExpirable(this);
+        }
+
+        @Override
+        public void expired()
+        {
+            logger.debug("Closing idle HTTP connection");
+            close();
+        }
+
+        void close()
+        {
+            stopIdleTimeout();
+            try
+            {
+                channel.close();
+            }
+            catch (IOException e)
+            {
+                logger.debug("(Ignored) Error closing the socket: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Processes a request received on a connection, resuming reading from it afterwards if the
+     * connection is kept alive.
+     */
+    private class HttpNioRequestWork implements Runnable
+    {
+
+        private final ChannelContext context;
+        private final byte[] request;
+        private final boolean continueSent;
+
+        HttpNioRequestWork(ChannelContext context, byte[] request, boolean continueSent)
+        {
+            this.context = context;
+            this.request = request;
+            this.continueSent = continueSent;
+        }
+
+        @Override
+        public void run()
+        {
+            HttpNioServerConnection httpServerConnection = new HttpNioServerConnection(context.channel, request, continueSent, encoding, getWriteTimeout());
+            boolean keepAlive = false;
+            try
+            {
+                try
+                {
+                    httpServerConnection.setKeepAlive(false);
+                    RequestLine requestLine = httpServerConnection.getRequestLine();
+                    if (requestLine != null)
+                    {
+                        try
+                        {
+                            HttpMessageReceiver httpMessageReceiver = httpConnector.lookupReceiver(context.channel.socket(), requestLine);
+                            httpMessageReceiver.processRequest(httpServerConnection);
+                        }
+                        catch (NoReceiverForEndpointException e)
+                        {
+                            httpServerConnection.writeFailureResponse(HttpConstants.SC_NOT_FOUND, HttpMessages.cannotBindToAddress(httpServerConnection.getFullUri()).toString());
+                        }
+                    }
+                }
+                finally
+                {
+                    httpServerConnection.reset();
+                }
+                keepAlive = httpServerConnection.isKeepAlive() && httpServerConnection.isOpen() && !isDisconnected();
+            }
+            catch (HttpMessageReceiver.EmptyRequestException e)
+            {
+                logger.debug("Discarding request since content was empty");
+            }
+            catch (HttpMessageReceiver.FailureProcessingRequestException e)
+            {
+                logger.debug("Closing socket due to failure during request processing");
+            }
+            catch (Exception e)
+            {
+                httpConnector.getMuleContext().getExceptionListener().handleException(e);
+            }
+            finally
+            {
+                // releases the selector used to wait while the response could not be written
+                httpServerConnection.release();
+                if (keepAlive)
+                {
+                    context.selectorLoop.register(context);
+                }
+                else
+                {
+                    logger.debug("Closing HTTP connection.");
+                    if (httpServerConnection.isOpen())
+                    {
+                        httpServerConnection.close();
+                    }
+                    context.close();
+                }
+            }
+        }
+    }
+}
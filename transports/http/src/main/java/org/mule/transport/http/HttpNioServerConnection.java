@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.http;
+
+import org.mule.transport.tcp.ChannelOutputStream;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.SocketChannel;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * {@link HttpServerConnection} for a request already read by a {@link HttpNioRequestDispatcher}.
+ * <p/>
+ * The request is read from memory and the response is written to the non blocking channel of
+ * the connection, waiting for it to be writable whenever its send buffer is full.
+ */
+class HttpNioServerConnection extends HttpServerConnection
+{
+
+    private static final Log logger = LogFactory.getLog(HttpNioServerConnection.class);
+
+    private static final int OUTPUT_BUFFER_SIZE = 8 * 1024;
+
+    private final boolean continueSent;
+    private final ChannelOutputStream channelOutputStream;
+
+    /**
+     * @param channel channel of the connection, in non blocking mode
+     * @param request bytes of the request line, headers and body of the request
+     * @param continueSent true if a 100-continue response was already sent for this request
+     * @param writeTimeout milliseconds to wait for the channel to be writable, 0 to wait indefinitely
+     */
+    public HttpNioServerConnection(SocketChannel channel, byte[] request, boolean continueSent, String encoding, int writeTimeout)
+    {
+        this(channel, request, continueSent, encoding, new ChannelOutputStream(channel, writeTimeout));
+    }
+
+    private HttpNioServerConnection(SocketChannel channel, byte[] request, boolean continueSent, String encoding, ChannelOutputStream channelOutputStream)
+    {
+        super(channel.socket(), new ByteArrayInputStream(request),
+              new BufferedOutputStream(channelOutputStream, OUTPUT_BUFFER_SIZE), encoding);
+        this.continueSent = continueSent;
+        this.channelOutputStream = channelOutputStream;
+    }
+
+    /**
+     * Releases the resources used to write the response, without closing the connection, so it
+     * can be read again by the selector if it is kept alive.
+     */
+    public void release()
+    {
+        try
+        {
+            channelOutputStream.close();
+        }
+        catch (IOException e)
+        {
+            logger.debug("(Ignored) Error releasing the connection output: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void writeResponse(HttpResponse response, Map<String, String> headers) throws IOException
+    {
+        if (continueSent && response != null && response.getStatusCode() == HttpConstants.SC_CONTINUE)
+        {
+            // the client was already told to send the body, which was read before processing the request
+            return;
+        }
+        super.writeResponse(response, headers);
+    }
+}
@@ -23,6 +23,7 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.resource.spi.work.Work;
+import javax.resource.spi.work.WorkException;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -108,9 +109,7 @@ class HttpRequestDispatcher implements Work
 
                             if (socket != null)
                             {
-                                final Runnable httpRequestDispatcherWork = new HttpRequestDispatcherWork(httpConnector, socket);
-                                // Process each connection in a different thread so we can continue accepting connection right away.
-                                requestHandOffExecutor.execute(httpRequestDispatcherWork);
+                                dispatch(socket);
                             }
                         }
 
@@ -130,6 +129,29 @@ class HttpRequestDispatcher implements Work
         }
     }
 
+    /**
+     * Hands off an accepted connection so requests are read and processed from it.
+     */
+    protected void dispatch(Socket socket) throws Exception
+    {
+        final Runnable httpRequestDispatcherWork = new HttpRequestDispatcherWork(httpConnector, socket);
+        // Process each connection in a different thread so we can continue accepting connection right away.
+        requestHandOffExecutor.execute(httpRequestDispatcherWork);
+    }
+
+    /**
+     * Schedules this dispatcher so it starts accepting connections.
+     */
+    void start() throws WorkException
+    {
+        workManager.scheduleWork(this, WorkManager.INDEFINITE, null, httpConnector);
+    }
+
+    protected boolean isDisconnected()
+    {
+        return disconnect.get();
+    }
+
     @Override
     public void release()
     {
@@ -0,0 +1,399 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.http;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Incremental parser that finds the boundaries of the HTTP requests received on a connection.
+ * <p/>
+ * Bytes are appended as they are read from the connection and {@link #nextRequest()} returns
+ * the raw bytes of the next request once its request line, headers and body (delimited either
+ * by its content length or by chunked transfer encoding, including trailers) were received.
+ * Bytes received after the end of a request are kept for the following one, so pipelined
+ * requests are supported. The request itself is parsed afterwards by {@link HttpServerConnection}.
+ * <p/>
+ * As requests are kept in memory until they are complete, their headers and body are limited
+ * in size, and a {@link RequestTooLargeException} is thrown as soon as a request exceeds them.
+ * <p/>
+ * Instances are not thread safe.
+ */
+class HttpRequestParser
+{
+
+    public static final int DEFAULT_MAX_HEADER_SIZE = 64 * 1024;
+    public static final int DEFAULT_MAX_BODY_SIZE = 64 * 1024 * 1024;
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int UNKNOWN = -1;
+
+    private final int maxHeaderSize;
+    private final int maxBodySize;
+    private final int maxBufferedSize;
+    private byte[] buffer = new byte[INITIAL_CAPACITY];
+    private int length;
+
+    // State of the request being parsed
+    private int headerScanPosition;
+    private int headerEnd = UNKNOWN;
+    private long contentLength;
+    private boolean chunked;
+    private int chunkPosition;
+    private boolean lastChunk;
+    private boolean continueExpected;
+    private boolean continueRequested;
+
+    public HttpRequestParser()
+    {
+        this(DEFAULT_MAX_HEADER_SIZE, DEFAULT_MAX_BODY_SIZE);
+    }
+
+    /**
+     * @param maxHeaderSize maximum number of bytes of the request line plus the headers of a request
+     * @param maxBodySize maximum number of bytes of the body of a request, including the chunk
+     *        headers of a chunked body
+     */
+    public HttpRequestParser(int maxHeaderSize, int maxBodySize)
+    {
+        this.maxHeaderSize = maxHeaderSize;
+        this.maxBodySize = maxBodySize;
+        // room for a complete request plus the trailers or the headers of a pipelined request
+        this.maxBufferedSize = (int) Math.min(Integer.MAX_VALUE - 8, 2L * maxHeaderSize + maxBodySize);
+    }
+
+    /**
+     * Appends the remaining bytes of the buffer to the received ones.
+     */
+    public void append(ByteBuffer bytes) throws RequestTooLargeException
+    {
+        int count = bytes.remaining();
+        ensureCapacity(count);
+        bytes.get(buffer, length, count);
+        length += count;
+    }
+
+    /**
+     * Appends the given bytes to the received ones.
+     */
+    public void append(byte[] bytes, int offset, int count) throws RequestTooLargeException
+    {
+        ensureCapacity(count);
+        System.arraycopy(bytes, offset, buffer, length, count);
+        length += count;
+    }
+
+    /**
+     * @return the bytes of the next complete request, or null if it was not fully received yet
+     * @throws RequestTooLargeException if the headers or the body of the request are too large
+     * @throws IOException if the request is malformed
+     */
+    public byte[] nextRequest() throws IOException
+    {
+        if (headerEnd == UNKNOWN)
+        {
+            skipLeadingLineBreaks();
+            if (!parseHeaders())
+            {
+                return null;
+            }
+        }
+
+        int requestEnd;
+        if (chunked)
+        {
+            requestEnd = findChunkedBodyEnd();
+        }
+        else
+        {
+            long end = headerEnd + contentLength;
+            requestEnd = end <= length ? (int) end : UNKNOWN;
+        }
+        if (requestEnd == UNKNOWN)
+        {
+            return null;
+        }
+
+        byte[] request = Arrays.copyOf(buffer, requestEnd);
+        length -= requestEnd;
+        System.arraycopy(buffer, requestEnd, buffer, 0, length);
+        reset();
+        return request;
+    }
+
+    /**
+     * @return true once per request if its headers ask the server to confirm with a
+     *         100-continue response before the client sends the body, and the client did not
+     *         start sending it yet
+     */
+    public boolean takeContinueRequest()
+    {
+        if (continueExpected && !continueRequested)
+        {
+            continueRequested = true;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return true if some bytes of a following request were already received
+     */
+    public boolean hasBufferedBytes()
+    {
+        return length > 0;
+    }
+
+    private void reset()
+    {
+        headerScanPosition = 0;
+        headerEnd = UNKNOWN;
+        contentLength = 0;
+        chunked = false;
+        chunkPosition = 0;
+        lastChunk = false;
+        continueExpected = false;
+        continueRequested = false;
+    }
+
+    private void skipLeadingLineBreaks()
+    {
+        int skip = 0;
+        while (skip < length && (buffer[skip] == '\r' || buffer[skip] == '\n'))
+        {
+            skip++;
+        }
+        if (skip > 0)
+        {
+            length -= skip;
+            System.arraycopy(buffer, skip, buffer, 0, length);
+        }
+    }
+
+    private boolean parseHeaders() throws IOException
+    {
+        int end = findEmptyLine(headerScanPosition);
+        if (end == UNKNOWN)
+        {
+            if (length > maxHeaderSize)
+            {
+                throw new RequestTooLargeException("HTTP request headers exceed the maximum size of " + maxHeaderSize + " bytes");
+            }
+            // the line break before the empty line may have already been received
+            headerScanPosition = Math.max(0, length - 3);
+            return false;
+        }
+        if (end > maxHeaderSize)
+        {
+            // the whole header block was received at once
+            throw new RequestTooLargeException("HTTP request headers exceed the maximum size of " + maxHeaderSize + " bytes");
+        }
+
+        String[] lines = new String(buffer, 0, end, "ISO-8859-1").split("\r?\n");
+        String[] requestLine = lines[0].trim().split(" ");
+        if (requestLine.length < 2)
+        {
+            throw new IOException("Invalid HTTP request line: " + lines[0]);
+        }
+        boolean http11 = requestLine.length > 2 && HttpConstants.HTTP11.equalsIgnoreCase(requestLine[2]);
+        String expect = null;
+        for (int i = 1; i < lines.length; i++)
+        {
+            int separator = lines[i].indexOf(':');
+            if (separator <= 0)
+            {
+                continue;
+            }
+            String name = lines[i].substring(0, separator).trim();
+            String value = lines[i].substring(separator + 1).trim();
+            if (HttpConstants.HEADER_TRANSFER_ENCODING.equalsIgnoreCase(name))
+            {
+                chunked = value.toLowerCase().contains(HttpConstants.TRANSFER_ENCODING_CHUNKED);
+            }
+            else if (HttpConstants.HEADER_CONTENT_LENGTH.equalsIgnoreCase(name))
+            {
+                try
+                {
+                    contentLength = Long.parseLong(value);
+                }
+                catch (NumberFormatException e)
+                {
+                    throw new IOException("Invalid content length: " + value);
+                }
+                if (contentLength < 0)
+                {
+                    throw new IOException("Invalid content length: " + value);
+                }
+            }
+            else if (HttpConstants.HEADER_EXPECT.equalsIgnoreCase(name))
+            {
+                expect = value;
+            }
+        }
+        if (chunked)
+        {
+            contentLength = 0;
+        }
+        else if (contentLength > maxBodySize)
+        {
+            throw new RequestTooLargeException("HTTP request body of " + contentLength + " bytes exceeds the maximum size of " + maxBodySize + " bytes");
+        }
+
+        headerEnd = end;
+        chunkPosition = end;
+        continueExpected = http11 && HttpConstants.HEADER_EXPECT_CONTINUE_REQUEST_VALUE.equalsIgnoreCase(expect)
+                           && (chunked || contentLength > 0) && length == headerEnd;
+        return true;
+    }
+
+    /**
+     * @return the position after the trailers of the chunked body, or {@link #UNKNOWN} if it was
+     *         not fully received yet
+     */
+    private int findChunkedBodyEnd() throws IOException
+    {
+        while (!lastChunk)
+        {
+            int lineEnd = findLineEnd(chunkPosition);
+            if (lineEnd == UNKNOWN)
+            {
+                return UNKNOWN;
+            }
+            long chunkSize = parseChunkSize(chunkPosition, lineEnd);
+            if (chunkSize == 0)
+            {
+                lastChunk = true;
+                chunkPosition = lineEnd;
+            }
+            else
+            {
+                // chunk data followed by its line break
+                long nextChunk = lineEnd + chunkSize + 2;
+                if (nextChunk - headerEnd > maxBodySize)
+                {
+                    throw new RequestTooLargeException("HTTP request chunked body exceeds the maximum size of " + maxBodySize + " bytes");
+                }
+                if (nextChunk > length)
+                {
+                    return UNKNOWN;
+                }
+                chunkPosition = (int) nextChunk;
+            }
+        }
+
+        // trailers, ended by an empty line
+        while (true)
+        {
+            int lineEnd = findLineEnd(chunkPosition);
+            if (lineEnd == UNKNOWN)
+            {
+                return UNKNOWN;
+            }
+            boolean emptyLine = lineEnd - chunkPosition <= 2;
+            chunkPosition = lineEnd;
+            if (emptyLine)
+            {
+                return lineEnd;
+            }
+        }
+    }
+
+    private long parseChunkSize(int start, int end) throws IOException
+    {
+        long size = 0;
+        int digits = 0;
+        for (int i = start; i < end; i++)
+        {
+            char c = (char) buffer[i];
+            if (c == ';' || c == '\r' || c == '\n')
+            {
+                break;
+            }
+            if (c == ' ' || c == '\t')
+            {
+                continue;
+            }
+            int digit = Character.digit(c, 16);
+            if (digit < 0 || ++digits > 15)
+            {
+                throw new IOException("Invalid chunk size: " + new String(buffer, start, end - start, "ISO-8859-1").trim());
+            }
+            size = (size << 4) + digit;
+        }
+        if (digits == 0)
+        {
+            throw new IOException("Missing chunk size");
+        }
+        return size;
+    }
+
+    /**
+     * @return the position after the line break ending the line that starts at the given
+     *         position, or {@link #UNKNOWN} if it was not fully received yet
+     */
+    private int findLineEnd(int start)
+    {
+        for (int i = start; i < length; i++)
+        {
+            if (buffer[i] == '\n')
+            {
+                return i + 1;
+            }
+        }
+        return UNKNOWN;
+    }
+
+    /**
+     * @return the position after the first empty line found from the given position, or
+     *         {@link #UNKNOWN} if none was received yet
+     */
+    private int findEmptyLine(int start)
+    {
+        for (int i = start; i < length; i++)
+        {
+            if (buffer[i] == '\n')
+            {
+                if (i + 1 < length && buffer[i + 1] == '\n')
+                {
+                    return i + 2;
+                }
+                if (i + 2 < length && buffer[i + 1] == '\r' && buffer[i + 2] == '\n')
+                {
+                    return i + 3;
+                }
+            }
+        }
+        return UNKNOWN;
+    }
+
+    private void ensureCapacity(int count) throws RequestTooLargeException
+    {
+        if (count > maxBufferedSize - length)
+        {
+            throw new RequestTooLargeException("HTTP request exceeds the maximum size of " + maxBufferedSize + " bytes");
+        }
+        int capacity = length + count;
+        if (capacity > buffer.length)
+        {
+            buffer = Arrays.copyOf(buffer, (int) Math.min(maxBufferedSize, Math.max(capacity, buffer.length * 2L)));
+        }
+    }
+
+    /**
+     * Thrown when a request is larger than the parser accepts. The connection can't be read
+     * anymore, but the client can still be told that its request was rejected.
+     */
+    static class RequestTooLargeException extends IOException
+    {
+
+        RequestTooLargeException(String message)
+        {
+            super(message);
+        }
+    }
+}
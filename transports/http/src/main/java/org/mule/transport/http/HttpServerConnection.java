@@ -95,6 +95,22 @@ public class HttpServerConnection implements HandshakeCompletedListener
         this.encoding = encoding;
     }
 
+    /**
+     * Creates a connection that reads and writes using the given streams instead of the ones of
+     * the socket, which is only used to access its addresses and options and to close it.
+     */
+    protected HttpServerConnection(final Socket socket, InputStream in, OutputStream out, String encoding)
+    {
+        if (socket == null)
+        {
+            throw new IllegalArgumentException("Socket may not be null");
+        }
+        this.socket = socket;
+        this.in = in;
+        this.out = out;
+        this.encoding = encoding;
+    }
+
     private void setSocketTcpNoDelay(boolean tcpNoDelay) throws IOException
     {
         try
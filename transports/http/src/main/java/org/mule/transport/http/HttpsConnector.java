@@ -12,6 +12,7 @@ import org.mule.api.lifecycle.InitialisationException;
 import org.mule.api.security.TlsDirectKeyStore;
 import org.mule.api.security.TlsDirectTrustStore;
 import org.mule.api.security.TlsIndirectKeyStore;
+import org.mule.transport.tcp.i18n.TcpMessages;
 import org.mule.api.security.tls.TlsConfiguration;
 import org.mule.transport.ssl.SslServerSocketFactory;
 import org.mule.transport.ssl.SslSocketFactory;
@@ -66,6 +67,10 @@ public class HttpsConnector extends HttpConnector implements TlsDirectKeyStore,
     @Override
     protected void doInitialise() throws InitialisationException
     {
+        if (isNonBlockingReceiver())
+        {
+            throw new InitialisationException(TcpMessages.nonBlockingReceiverNotSupported(getProtocol()), this);
+        }
         // if a keystore is not provided, the connector will only be used for
         // client connections, and can work in anon mode.
         try
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.http;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import java.io.IOException;
+
+import org.apache.commons.lang.StringUtils;
+import org.junit.Test;
+
+@SmallTest
+public class HttpRequestParserTestCase extends AbstractMuleTestCase
+{
+
+    private static final String GET_REQUEST = "GET /path HTTP/1.1\r\nHost: localhost\r\n\r\n";
+    private static final String POST_REQUEST = "POST /path HTTP/1.1\r\nHost: localhost\r\nContent-Length: 5\r\n\r\nhello";
+    private static final String CHUNKED_REQUEST = "POST /path HTTP/1.1\r\nTransfer-Encoding: chunked\r\n\r\n5\r\nhello\r\n6;ext=1\r\n world\r\n0\r\nTrailer: value\r\n\r\n";
+    private static final String CONTINUE_HEADERS = "POST /path HTTP/1.1\r\nExpect: 100-continue\r\nContent-Length: 5\r\n\r\n";
+
+    private final HttpRequestParser parser = new HttpRequestParser(256, 1024);
+
+    @Test
+    public void parsesRequestWithoutBody() throws Exception
+    {
+        append(GET_REQUEST);
+        assertThat(nextRequest(), is(GET_REQUEST));
+        assertThat(parser.nextRequest(), nullValue());
+        assertThat(parser.hasBufferedBytes(), is(false));
+    }
+
+    @Test
+    public void waitsForContentLengthBody() throws Exception
+    {
+        append(POST_REQUEST.substring(0, POST_REQUEST.length() - 2));
+        assertThat(parser.nextRequest(), nullValue());
+        append(POST_REQUEST.substring(POST_REQUEST.length() - 2));
+        assertThat(nextRequest(), is(POST_REQUEST));
+    }
+
+    @Test
+    public void parsesRequestReceivedByteByByte() throws Exception
+    {
+        for (int i = 0; i < CHUNKED_REQUEST.length() - 1; i++)
+        {
+            append(CHUNKED_REQUEST.substring(i, i + 1));
+            assertThat(parser.nextRequest(), nullValue());
+        }
+        append(CHUNKED_REQUEST.substring(CHUNKED_REQUEST.length() - 1));
+        assertThat(nextRequest(), is(CHUNKED_REQUEST));
+    }
+
+    @Test
+    public void parsesPipelinedRequests() throws Exception
+    {
+        append(POST_REQUEST + "\r\n" + CHUNKED_REQUEST + GET_REQUEST.substring(0, 10));
+        assertThat(nextRequest(), is(POST_REQUEST));
+        assertThat(nextRequest(), is(CHUNKED_REQUEST));
+        assertThat(parser.nextRequest(), nullValue());
+        assertThat(parser.hasBufferedBytes(), is(true));
+        append(GET_REQUEST.substring(10));
+        assertThat(nextRequest(), is(GET_REQUEST));
+    }
+
+    @Test
+    public void requestsContinueOnceBeforeBody() throws Exception
+    {
+        append(CONTINUE_HEADERS);
+        assertThat(parser.nextRequest(), nullValue());
+        assertThat(parser.takeContinueRequest(), is(true));
+        assertThat(parser.takeContinueRequest(), is(false));
+        append("hello");
+        assertThat(nextRequest(), is(CONTINUE_HEADERS + "hello"));
+    }
+
+    @Test
+    public void doesNotRequestContinueWhenBodyWasReceived() throws Exception
+    {
+        append(CONTINUE_HEADERS + "hel");
+        assertThat(parser.nextRequest(), nullValue());
+        assertThat(parser.takeContinueRequest(), is(false));
+    }
+
+    @Test(expected = HttpRequestParser.RequestTooLargeException.class)
+    public void failsWhenHeadersAreTooLarge() throws Exception
+    {
+        StringBuilder request = new StringBuilder("GET /path HTTP/1.1\r\n");
+        while (request.length() <= 256)
+        {
+            request.append("Header: value\r\n");
+        }
+        append(request.toString());
+        parser.nextRequest();
+    }
+
+    @Test(expected = HttpRequestParser.RequestTooLargeException.class)
+    public void failsWhenCompleteHeadersAreTooLarge() throws Exception
+    {
+        append("GET /path HTTP/1.1\r\nHeader: " + StringUtils.repeat("a", 256) + "\r\n\r\n");
+        parser.nextRequest();
+    }
+
+    @Test(expected = HttpRequestParser.RequestTooLargeException.class)
+    public void failsWhenContentLengthIsTooLarge() throws Exception
+    {
+        append("POST /path HTTP/1.1\r\nContent-Length: 1025\r\n\r\n");
+        parser.nextRequest();
+    }
+
+    @Test(expected = HttpRequestParser.RequestTooLargeException.class)
+    public void failsWhenChunkedBodyIsTooLarge() throws Exception
+    {
+        append("POST /path HTTP/1.1\r\nTransfer-Encoding: chunked\r\n\r\n200\r\n");
+        assertThat(parser.nextRequest(), nullValue());
+        append(StringUtils.repeat("a", 512) + "\r\n200\r\n");
+        parser.nextRequest();
+    }
+
+    @Test(expected = HttpRequestParser.RequestTooLargeException.class)
+    public void failsWhenReceivingMoreThanAllowedForARequest() throws Exception
+    {
+        append("POST /path HTTP/1.1\r\nContent-Length: 1024\r\n\r\n");
+        assertThat(parser.nextRequest(), nullValue());
+        append(StringUtils.repeat("a", 2048));
+    }
+
+    @Test(expected = IOException.class)
+    public void failsWithInvalidChunkSize() throws Exception
+    {
+        append("POST /path HTTP/1.1\r\nTransfer-Encoding: chunked\r\n\r\nzz\r\n");
+        parser.nextRequest();
+    }
+
+    private void append(String bytes) throws Exception
+    {
+        byte[] content = bytes.getBytes("ISO-8859-1");
+        parser.append(content, 0, content.length);
+    }
+
+    private String nextRequest() throws Exception
+    {
+        return new String(parser.nextRequest(), "ISO-8859-1");
+    }
+}
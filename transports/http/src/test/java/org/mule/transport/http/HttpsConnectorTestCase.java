@@ -52,6 +52,14 @@ public class HttpsConnectorTestCase extends AbstractConnectorTestCase
         return cnn;
     }
 
+    @Test(expected = InitialisationException.class)
+    public void nonBlockingReceiverIsNotSupported() throws Exception
+    {
+        HttpsConnector cnn = createConnector(muleContext, false);
+        cnn.setNonBlockingReceiver(true);
+        cnn.initialise();
+    }
+
     public String getTestEndpointURI()
     {
         return "https://localhost:60127";
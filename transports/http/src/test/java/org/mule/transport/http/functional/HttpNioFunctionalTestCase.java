@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.http.functional;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import org.mule.tck.junit4.FunctionalTestCase;
+import org.mule.tck.junit4.rule.DynamicPort;
+import org.mule.util.StringUtils;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+/**
+ * Sends raw requests to an HTTP connector with nonBlockingReceiver set, so they are read by a
+ * {@link org.mule.transport.http.HttpNioRequestDispatcher}.
+ */
+public class HttpNioFunctionalTestCase extends FunctionalTestCase
+{
+
+    private static final int MAX_REQUEST_SIZE = 1024;
+
+    @Rule
+    public DynamicPort dynamicPort = new DynamicPort("port1");
+
+    private Socket socket;
+    private InputStream in;
+    private OutputStream out;
+
+    @Override
+    protected String getConfigFile()
+    {
+        return "http-nio-functional-test-config.xml";
+    }
+
+    @Before
+    public void connect() throws IOException
+    {
+        socket = new Socket("localhost", dynamicPort.getNumber());
+        socket.setSoTimeout(RECEIVE_TIMEOUT);
+        in = new BufferedInputStream(socket.getInputStream());
+        out = socket.getOutputStream();
+    }
+
+    @After
+    public void close() throws IOException
+    {
+        if (socket != null)
+        {
+            socket.close();
+        }
+    }
+
+    @Test
+    public void keepAliveConnectionServesSeveralRequests() throws Exception
+    {
+        for (int i = 0; i < 3; i++)
+        {
+            write(request(TEST_MESSAGE + i, ""));
+            Response response = readResponse();
+            assertThat(response.status, is(200));
+            assertThat(response.body, is(TEST_MESSAGE + i + " Received"));
+        }
+    }
+
+    @Test
+    public void pipelinedRequestsAreAnsweredInOrder() throws Exception
+    {
+        write(request(TEST_MESSAGE + 1, "") + request(TEST_MESSAGE + 2, "") + request(TEST_MESSAGE + 3, ""));
+
+        for (int i = 1; i <= 3; i++)
+        {
+            Response response = readResponse();
+            assertThat(response.status, is(200));
+            assertThat(response.body, is(TEST_MESSAGE + i + " Received"));
+        }
+    }
+
+    @Test
+    public void continueIsSentBeforeReadingBody() throws Exception
+    {
+        String request = request(TEST_MESSAGE, "Expect: 100-continue\r\n");
+        int bodyStart = request.length() - TEST_MESSAGE.length();
+        write(request.substring(0, bodyStart));
+
+        assertThat(readResponseHead().status, is(100));
+
+        write(request.substring(bodyStart));
+        Response response = readResponse();
+        assertThat(response.status, is(200));
+        assertThat(response.body, is(TEST_MESSAGE + " Received"));
+    }
+
+    @Test
+    public void bodyLargerThanLimitIsRejected() throws Exception
+    {
+        String body = StringUtils.repeat("a", MAX_REQUEST_SIZE + 1);
+        write(request(body, ""));
+
+        Response response = readResponse();
+        assertThat(response.status, is(413));
+        assertConnectionClosed();
+    }
+
+    @Test
+    public void headersLargerThanLimitAreRejected() throws Exception
+    {
+        String header = "X-Large: " + StringUtils.repeat("a", MAX_REQUEST_SIZE) + "\r\n";
+        write(request(TEST_MESSAGE, header));
+
+        Response response = readResponse();
+        assertThat(response.status, is(413));
+        assertConnectionClosed();
+    }
+
+    private String request(String body, String headers)
+    {
+        return "POST / HTTP/1.1\r\n"
+               + "Host: localhost\r\n"
+               + "Content-Type: text/plain\r\n"
+               + "Content-Length: " + body.length() + "\r\n"
+               + headers
+               + "\r\n"
+               + body;
+    }
+
+    private void write(String data) throws IOException
+    {
+        out.write(data.getBytes());
+        out.flush();
+    }
+
+    private void assertConnectionClosed() throws IOException
+    {
+        assertThat(in.read(), is(-1));
+    }
+
+    private Response readResponse() throws IOException
+    {
+        Response response = readResponseHead();
+        String contentLength = response.headers.get("content-length");
+        if ("chunked".equalsIgnoreCase(response.headers.get("transfer-encoding")))
+        {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            int chunkSize;
+            while ((chunkSize = Integer.parseInt(readLine().trim(), 16)) > 0)
+            {
+                body.write(readBytes(chunkSize));
+                readLine();
+            }
+            readLine();
+            response.body = body.toString();
+        }
+        else if (contentLength != null)
+        {
+            response.body = new String(readBytes(Integer.parseInt(contentLength)));
+        }
+        return response;
+    }
+
+    private Response readResponseHead() throws IOException
+    {
+        Response response = new Response();
+        response.status = Integer.parseInt(readLine().split(" ")[1]);
+        String line;
+        while ((line = readLine()).length() > 0)
+        {
+            int separator = line.indexOf(':');
+            response.headers.put(line.substring(0, separator).trim().toLowerCase(), line.substring(separator + 1).trim());
+        }
+        return response;
+    }
+
+    private String readLine() throws IOException
+    {
+        StringBuilder line = new StringBuilder();
+        int c;
+        while ((c = in.read()) != '\n')
+        {
+            if (c == -1)
+            {
+                throw new EOFException("Connection closed while reading a response");
+            }
+            if (c != '\r')
+            {
+                line.append((char) c);
+            }
+        }
+        return line.toString();
+    }
+
+    private byte[] readBytes(int length) throws IOException
+    {
+        byte[] data = new byte[length];
+        int read = 0;
+        while (read < length)
+        {
+            int count = in.read(data, read, length - read);
+            if (count == -1)
+            {
+                throw new EOFException("Connection closed while reading a response");
+            }
+            read += count;
+        }
+        return data;
+    }
+
+    private static class Response
+    {
+
+        private int status;
+        private Map<String, String> headers = new HashMap<String, String>();
+        private String body;
+    }
+}
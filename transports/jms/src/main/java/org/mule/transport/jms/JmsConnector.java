@@ -42,6 +42,7 @@ import org.mule.util.BeanUtils;
 
 import java.text.MessageFormat;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.jms.Connection;
@@ -75,6 +76,11 @@ public class JmsConnector extends AbstractConnector implements ExceptionListener
 
     public static final int REDELIVERY_IGNORE = -1;
 
+    /**
+     * Minimum milliseconds between two checks for idle cached producers.
+     */
+    private static final long MIN_PRODUCER_EVICTION_INTERVAL = 1000;
+
     private AtomicInteger receiverReportedExceptionCount = new AtomicInteger();
 
     ////////////////////////////////////////////////////////////////////////
@@ -98,6 +104,35 @@ public class JmsConnector extends AbstractConnector implements ExceptionListener
     @Deprecated
     private boolean cacheJmsSessions = false;
 
+    /**
+     * Whether dispatchers keep the sessions and producers of non-transacted sends open for reuse.
+     */
+    private boolean cacheProducers = false;
+
+    /**
+     * The maximum number of producers kept open by the dispatchers of this connector.
+     */
+    private int maxCachedProducers = 16;
+
+    /**
+     * Milliseconds after which an unused cached producer is closed.
+     */
+    private long cachedProducerIdleTimeout = 60000;
+
+    private final JmsProducerCache.Statistics producerCacheStatistics = new JmsProducerCache.Statistics();
+
+    private volatile JmsProducerCache producerCache;
+
+    /**
+     * The maximum number of messages a consumer receives and processes in a single transaction.
+     */
+    private int receiveBatchSize = 1;
+
+    /**
+     * Milliseconds a consumer waits for more messages to complete a batch.
+     */
+    private long receiveBatchTimeout = 100;
+
     /**
      * Whether to create a consumer on connect.
      */
@@ -244,6 +279,11 @@ public class JmsConnector extends AbstractConnector implements ExceptionListener
         {
             jmsSupport = createJmsSupport();
         }
+
+        if (cacheProducers)
+        {
+            producerCache = new JmsProducerCache(this, maxCachedProducers, cachedProducerIdleTimeout, producerCacheStatistics);
+        }
     }
 
     /**
@@ -349,6 +389,11 @@ public class JmsConnector extends AbstractConnector implements ExceptionListener
     @Override
     protected void doDispose()
     {
+        if (producerCache != null)
+        {
+            producerCache.dispose();
+        }
+
         if (connection != null)
         {
             try
@@ -523,6 +568,12 @@ public class JmsConnector extends AbstractConnector implements ExceptionListener
     @Override
     protected void doDisconnect() throws Exception
     {
+        // cached sessions belong to the connection being closed
+        if (producerCache != null)
+        {
+            producerCache.clear();
+        }
+
         try
         {
             if (connection != null)
@@ -646,6 +697,20 @@ public class JmsConnector extends AbstractConnector implements ExceptionListener
         {
             jndiNameResolver.start();
         }
+
+        if (producerCache != null)
+        {
+            // the scheduler is shut down when the connector is stopped
+            long interval = Math.max(cachedProducerIdleTimeout / 2, MIN_PRODUCER_EVICTION_INTERVAL);
+            getScheduler().scheduleWithFixedDelay(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    producerCache.evictIdleEntries();
+                }
+            }, interval, interval, TimeUnit.MILLISECONDS);
+        }
     }
 
 
@@ -1166,6 +1231,73 @@ public class JmsConnector extends AbstractConnector implements ExceptionListener
         this.cacheJmsSessions = cacheJmsSessions;
     }
 
+    public boolean isCacheProducers()
+    {
+        return cacheProducers;
+    }
+
+    public void setCacheProducers(boolean cacheProducers)
+    {
+        this.cacheProducers = cacheProducers;
+    }
+
+    public int getMaxCachedProducers()
+    {
+        return maxCachedProducers;
+    }
+
+    public void setMaxCachedProducers(int maxCachedProducers)
+    {
+        this.maxCachedProducers = maxCachedProducers;
+    }
+
+    public long getCachedProducerIdleTimeout()
+    {
+        return cachedProducerIdleTimeout;
+    }
+
+    public void setCachedProducerIdleTimeout(long cachedProducerIdleTimeout)
+    {
+        this.cachedProducerIdleTimeout = cachedProducerIdleTimeout;
+    }
+
+    /**
+     * @return the hit and miss counters of the producer cache of this connector
+     */
+    public JmsProducerCache.Statistics getProducerCacheStatistics()
+    {
+        return producerCacheStatistics;
+    }
+
+    /**
+     * @return the cache of sessions and producers shared by the dispatchers of this connector, or
+     *         null if producers are not cached
+     */
+    public JmsProducerCache getProducerCache()
+    {
+        return producerCache;
+    }
+
+    public int getReceiveBatchSize()
+    {
+        return receiveBatchSize;
+    }
+
+    public void setReceiveBatchSize(int receiveBatchSize)
+    {
+        this.receiveBatchSize = receiveBatchSize;
+    }
+
+    public long getReceiveBatchTimeout()
+    {
+        return receiveBatchTimeout;
+    }
+
+    public void setReceiveBatchTimeout(long receiveBatchTimeout)
+    {
+        this.receiveBatchTimeout = receiveBatchTimeout;
+    }
+
     public ConnectionFactory getConnectionFactory()
     {
         return connectionFactory;
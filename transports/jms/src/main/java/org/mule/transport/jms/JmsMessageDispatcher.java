@@ -101,7 +101,10 @@ public class JmsMessageDispatcher extends AbstractMessageDispatcher
         MessageConsumer consumer = null;
         Destination replyTo = null;
         boolean transacted = false;
-        boolean cached = false;
+        JmsProducerCache producerCache = connector.getProducerCache();
+        JmsProducerCache.CachedProducer cached = null;
+        String cacheKey = null;
+        boolean failed = false;
         boolean useReplyToDestination;
 
         final Transaction muleTx = TransactionCoordination.getInstance().getTransaction();
@@ -115,7 +118,26 @@ public class JmsMessageDispatcher extends AbstractMessageDispatcher
 
         try
         {
-            session = connector.getTransactionalResource(endpoint);
+            boolean topic = connector.getTopicResolver().isTopic(endpoint, true);
+
+            // Transacted sessions belong to the transaction and request-response sends
+            // consume from the session, so only one-way non-transacted sends are cached
+            if (producerCache != null && muleTx == null && !endpoint.getTransactionConfig().isTransacted()
+                && !returnResponse(event, doSend))
+            {
+                cacheKey = (topic ? JmsConstants.TOPIC_PROPERTY : "queue") + ":" + endpoint.getEndpointURI().getAddress();
+                cached = producerCache.acquire(cacheKey);
+            }
+
+            if (cached != null)
+            {
+                session = cached.getSession();
+                producer = cached.getProducer();
+            }
+            else
+            {
+                session = connector.getTransactionalResource(endpoint);
+            }
 
             transacted = (muleTx != null && muleTx.hasResource(connector.getConnection()) || endpoint.getTransactionConfig().isTransacted());
 
@@ -123,10 +145,15 @@ public class JmsMessageDispatcher extends AbstractMessageDispatcher
             // in the same transaction using a replyTo destination
             useReplyToDestination = returnResponse(event, doSend) && !transacted;
 
-            boolean topic = connector.getTopicResolver().isTopic(endpoint, true);
-
-            Destination dest = connector.getJmsSupport().createDestination(session, endpoint);
-            producer = connector.getJmsSupport().createProducer(session, dest, topic);
+            if (producer == null)
+            {
+                Destination dest = connector.getJmsSupport().createDestination(session, endpoint);
+                producer = connector.getJmsSupport().createProducer(session, dest, topic);
+                if (cacheKey != null)
+                {
+                    cached = new JmsProducerCache.CachedProducer(connector.getConnection(), session, producer);
+                }
+            }
 
             Object message = event.getMessage().getPayload();
             if (!(message instanceof Message))
@@ -247,8 +274,26 @@ public class JmsMessageDispatcher extends AbstractMessageDispatcher
                 return returnOriginalMessageAsReply ? createMuleMessage(msg) : null;
             }
         }
+        catch (Exception e)
+        {
+            failed = true;
+            throw e;
+        }
         finally
         {
+            if (cached != null)
+            {
+                if (failed)
+                {
+                    producerCache.invalidate(cached);
+                }
+                else
+                {
+                    producerCache.release(cacheKey, cached);
+                }
+                producer = null;
+                session = null;
+            }
             connector.closeQuietly(producer);
             connector.closeQuietly(consumer);
 
@@ -269,7 +314,7 @@ public class JmsMessageDispatcher extends AbstractMessageDispatcher
 
             // If the session is from the current transaction, it is up to the
             // transaction to close it.
-            if (session != null && !cached && !transacted)
+            if (session != null && !transacted)
             {
                 connector.closeQuietly(session);
             }
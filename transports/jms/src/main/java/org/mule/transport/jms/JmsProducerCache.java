@@ -0,0 +1,329 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.jms;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.jms.Connection;
+import javax.jms.MessageProducer;
+import javax.jms.Session;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Keeps the non-transacted sessions and producers used by the {@link JmsMessageDispatcher}s of a
+ * connector so they are not created and closed on every message sent.
+ * <p/>
+ * Entries are checked out while a message is being sent and returned afterwards, so a session is
+ * never used by two threads at the same time, and concurrent sends to the same destination each
+ * keep their own entry. The cache holds at most <code>maxSize</code> entries, closing the least
+ * recently used one when full. Entries that have not been used for <code>idleTimeout</code>
+ * milliseconds are closed by {@link #evictIdleEntries()}, which the connector runs periodically.
+ * Entries created on a connection other than the connector's current one are discarded, so they
+ * do not survive a reconnection.
+ */
+public class JmsProducerCache
+{
+
+    private static final Log logger = LogFactory.getLog(JmsProducerCache.class);
+
+    private final JmsConnector connector;
+    private final int maxSize;
+    private final long idleTimeout;
+    private final Statistics statistics;
+    // in the order the entries were returned, so the eldest is the least recently used
+    private final LinkedHashSet<CachedProducer> entries = new LinkedHashSet<CachedProducer>();
+    // also in the order the entries were returned
+    private final Map<String, Deque<CachedProducer>> entriesByKey = new HashMap<String, Deque<CachedProducer>>();
+    private boolean closed;
+
+    public JmsProducerCache(JmsConnector connector, int maxSize, long idleTimeout, Statistics statistics)
+    {
+        this.connector = connector;
+        this.maxSize = maxSize;
+        this.idleTimeout = idleTimeout;
+        this.statistics = statistics;
+    }
+
+    /**
+     * Checks out the entry cached for a key, which must be given back through
+     * {@link #release(String, CachedProducer)} or {@link #invalidate(CachedProducer)} once the
+     * message is sent.
+     *
+     * @return the most recently used entry cached for the key or null if there is no usable one
+     */
+    public CachedProducer acquire(String key)
+    {
+        CachedProducer entry = null;
+        synchronized (entries)
+        {
+            Deque<CachedProducer> keyEntries = entriesByKey.get(key);
+            if (keyEntries != null)
+            {
+                entry = keyEntries.pollLast();
+                if (keyEntries.isEmpty())
+                {
+                    entriesByKey.remove(key);
+                }
+                entries.remove(entry);
+            }
+        }
+
+        if (entry != null && entry.getConnection() != connector.getConnection())
+        {
+            if (logger.isDebugEnabled())
+            {
+                logger.debug("Discarding producer created on a previous connection: " + entry.getProducer());
+            }
+            invalidate(entry);
+            entry = null;
+        }
+
+        if (entry == null)
+        {
+            statistics.misses.incrementAndGet();
+        }
+        else
+        {
+            statistics.hits.incrementAndGet();
+        }
+        return entry;
+    }
+
+    /**
+     * Returns an entry to the cache once a message has been sent through it.
+     */
+    public void release(String key, CachedProducer entry)
+    {
+        entry.key = key;
+        entry.lastUsed = System.currentTimeMillis();
+        CachedProducer eldest = null;
+        synchronized (entries)
+        {
+            if (!closed && entry.getConnection() == connector.getConnection())
+            {
+                Deque<CachedProducer> keyEntries = entriesByKey.get(key);
+                if (keyEntries == null)
+                {
+                    keyEntries = new ArrayDeque<CachedProducer>();
+                    entriesByKey.put(key, keyEntries);
+                }
+                keyEntries.addLast(entry);
+                entries.add(entry);
+                if (entries.size() > maxSize)
+                {
+                    eldest = removeEldest();
+                }
+                entry = null;
+            }
+        }
+
+        if (entry != null)
+        {
+            invalidate(entry);
+        }
+        if (eldest != null)
+        {
+            statistics.evictions.incrementAndGet();
+            close(eldest);
+        }
+    }
+
+    /**
+     * Closes an entry that cannot be used any more, e.g. because sending a message through it
+     * failed.
+     */
+    public void invalidate(CachedProducer entry)
+    {
+        statistics.invalidations.incrementAndGet();
+        close(entry);
+    }
+
+    /**
+     * Closes all the cached entries. Entries checked out at this time are closed when they are
+     * returned if the connection changed in the meantime.
+     */
+    public void clear()
+    {
+        for (CachedProducer entry : removeAll())
+        {
+            invalidate(entry);
+        }
+    }
+
+    /**
+     * Closes all the cached entries, and any entry returned afterwards.
+     */
+    public void dispose()
+    {
+        synchronized (entries)
+        {
+            closed = true;
+        }
+        for (CachedProducer entry : removeAll())
+        {
+            close(entry);
+        }
+    }
+
+    public int size()
+    {
+        synchronized (entries)
+        {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Closes the entries that have not been used for the idle timeout of the cache.
+     */
+    public void evictIdleEntries()
+    {
+        long now = System.currentTimeMillis();
+        while (true)
+        {
+            CachedProducer eldest;
+            synchronized (entries)
+            {
+                if (entries.isEmpty() || now - entries.iterator().next().lastUsed < idleTimeout)
+                {
+                    return;
+                }
+                eldest = removeEldest();
+            }
+            statistics.evictions.incrementAndGet();
+            close(eldest);
+        }
+    }
+
+    /**
+     * Removes the least recently used entry, which is also the eldest of its key. Must be called
+     * holding the lock of the entries.
+     */
+    private CachedProducer removeEldest()
+    {
+        Iterator<CachedProducer> iterator = entries.iterator();
+        CachedProducer eldest = iterator.next();
+        iterator.remove();
+        Deque<CachedProducer> keyEntries = entriesByKey.get(eldest.key);
+        keyEntries.pollFirst();
+        if (keyEntries.isEmpty())
+        {
+            entriesByKey.remove(eldest.key);
+        }
+        return eldest;
+    }
+
+    private CachedProducer[] removeAll()
+    {
+        synchronized (entries)
+        {
+            CachedProducer[] removed = entries.toArray(new CachedProducer[entries.size()]);
+            entries.clear();
+            entriesByKey.clear();
+            return removed;
+        }
+    }
+
+    private void close(CachedProducer entry)
+    {
+        connector.closeQuietly(entry.getProducer());
+        connector.closeQuietly(entry.getSession());
+    }
+
+    /**
+     * A session and a producer created on it, along with the connection they belong to.
+     */
+    public static class CachedProducer
+    {
+
+        private final Connection connection;
+        private final Session session;
+        private final MessageProducer producer;
+        private String key;
+        private long lastUsed;
+
+        public CachedProducer(Connection connection, Session session, MessageProducer producer)
+        {
+            this.connection = connection;
+            this.session = session;
+            this.producer = producer;
+        }
+
+        public Connection getConnection()
+        {
+            return connection;
+        }
+
+        public Session getSession()
+        {
+            return session;
+        }
+
+        public MessageProducer getProducer()
+        {
+            return producer;
+        }
+    }
+
+    /**
+     * Usage counters of the cache of a connector.
+     */
+    public static class Statistics
+    {
+
+        private final AtomicLong hits = new AtomicLong();
+        private final AtomicLong misses = new AtomicLong();
+        private final AtomicLong evictions = new AtomicLong();
+        private final AtomicLong invalidations = new AtomicLong();
+
+        public long getHits()
+        {
+            return hits.get();
+        }
+
+        public long getMisses()
+        {
+            return misses.get();
+        }
+
+        /**
+         * @return the number of entries closed because they were idle for too long or the cache
+         *         was full
+         */
+        public long getEvictions()
+        {
+            return evictions.get();
+        }
+
+        /**
+         * @return the number of entries closed because they failed or belonged to a previous
+         *         connection
+         */
+        public long getInvalidations()
+        {
+            return invalidations.get();
+        }
+
+        /**
+         * @return the fraction of the sends that reused a cached producer, or 0 if there were none
+         */
+        public double getHitRate()
+        {
+            long hitCount = hits.get();
+            long total = hitCount + misses.get();
+            return total == 0 ? 0 : (double) hitCount / total;
+        }
+    }
+}
@@ -19,6 +19,7 @@ import org.mule.api.retry.RetryContext;
 import org.mule.api.transaction.Transaction;
 import org.mule.api.transaction.TransactionException;
 import org.mule.api.transport.Connector;
+import org.mule.config.i18n.CoreMessages;
 import org.mule.transaction.TransactionCollection;
 import org.mule.transport.AbstractMessageReceiver;
 import org.mule.transport.AbstractReceiverWorker;
@@ -32,6 +33,8 @@ import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import javax.jms.Destination;
 import javax.jms.JMSException;
@@ -39,6 +42,8 @@ import javax.jms.Message;
 import javax.jms.MessageConsumer;
 import javax.jms.MessageListener;
 import javax.jms.Session;
+import javax.resource.spi.work.Work;
+import javax.resource.spi.work.WorkException;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -47,9 +52,20 @@ import org.apache.commons.logging.LogFactory;
  * In Mule an endpoint corresponds to a single receiver. It's up to the receiver to do multithreaded consumption and
  * resource allocation, if needed. This class honors the <code>numberOfConcurrentTransactedReceivers</code> strictly
  * and will create exactly this number of consumers.
+ * <p/>
+ * When the connector's <code>receiveBatchSize</code> is greater than 1, each consumer polls the destination for up
+ * to that many messages and processes them within a single transaction, so the whole batch is committed at once.
+ * A batch is committed or rolled back as a whole: when a message fails and the transaction is rolled back, all the
+ * messages of the batch are redelivered. The consumer then receives as many messages as the failed batch had one at
+ * a time, so the failing message is rolled back alone and the other ones are redelivered only once.
  */
 public class MultiConsumerJmsMessageReceiver extends AbstractMessageReceiver
 {
+    /**
+     * Milliseconds a polling consumer waits for the first message of a batch before checking whether it was stopped.
+     */
+    private static final long BATCH_POLL_TIMEOUT = 1000;
+
     protected final List<SubReceiver> consumers;
 
     protected final int receiversCount;
@@ -242,6 +258,7 @@ public class MultiConsumerJmsMessageReceiver extends AbstractMessageReceiver
 
         private volatile Session session;
         private volatile MessageConsumer consumer;
+        private volatile BatchReceiverWork batchWork;
 
         protected volatile boolean connected;
         protected volatile boolean started;
@@ -268,6 +285,10 @@ public class MultiConsumerJmsMessageReceiver extends AbstractMessageReceiver
             {
                 doStop(true);
             }
+            else
+            {
+                stopBatchWork();
+            }
             closeConsumer();
             connected = false;
         }
@@ -305,6 +326,29 @@ public class MultiConsumerJmsMessageReceiver extends AbstractMessageReceiver
                 doConnect();
             }
 
+            if (jmsConnector.getReceiveBatchSize() > 1)
+            {
+                // never let two works poll the same session
+                BatchReceiverWork previousWork = batchWork;
+                if (previousWork != null && !previousWork.awaitFinished(getShutdownTimeout()))
+                {
+                    throw new LifecycleException(CoreMessages.createStaticMessage(
+                            "Previous polling work of " + endpoint.getEndpointURI() + " is still running"), this);
+                }
+                BatchReceiverWork work = new BatchReceiverWork(consumer);
+                try
+                {
+                    getWorkManager().scheduleWork(work);
+                }
+                catch (WorkException e)
+                {
+                    throw new LifecycleException(e, this);
+                }
+                batchWork = work;
+                started = true;
+                return;
+            }
+
             try
             {
                 consumer.setMessageListener(this);
@@ -325,7 +369,12 @@ public class MultiConsumerJmsMessageReceiver extends AbstractMessageReceiver
         {
             subLogger.debug("SUB doStop()");
 
-            if (consumer != null)
+            if (jmsConnector.getReceiveBatchSize() > 1)
+            {
+                started = false;
+                stopBatchWork();
+            }
+            else if (consumer != null)
             {
                 try
                 {
@@ -347,6 +396,33 @@ public class MultiConsumerJmsMessageReceiver extends AbstractMessageReceiver
             }
         }
 
+        /**
+         * Stops the polling work and waits for it to finish its current batch, so the session is not closed
+         * while the batch is processed.
+         */
+        private void stopBatchWork()
+        {
+            BatchReceiverWork work = batchWork;
+            if (work == null)
+            {
+                return;
+            }
+            work.stop();
+            if (work.awaitFinished(getShutdownTimeout()))
+            {
+                batchWork = null;
+            }
+            else
+            {
+                logger.warn("Polling work of " + endpoint.getEndpointURI() + " did not finish its current batch");
+            }
+        }
+
+        private long getShutdownTimeout()
+        {
+            return getEndpoint().getMuleContext().getConfiguration().getShutdownTimeout();
+        }
+
         /**
          * Create a consumer for the jms destination.
          */
@@ -426,13 +502,24 @@ public class MultiConsumerJmsMessageReceiver extends AbstractMessageReceiver
 
         @Override
         public void onMessage(final Message message)
+        {
+            List<Object> messages = new ArrayList<Object>(1);
+            messages.add(message);
+            processMessages(messages);
+        }
+
+        /**
+         * @return false if processing the messages failed
+         */
+        protected boolean processMessages(List<Object> messages)
         {
             try
             {
                 isProcessingMessage = true;
                 // Note: Despite the name "Worker", there is no new thread created here in order to maintain synchronicity for exception handling.
-                JmsWorker worker = new JmsWorker(message, MultiConsumerJmsMessageReceiver.this, this);
+                JmsWorker worker = new JmsWorker(messages, MultiConsumerJmsMessageReceiver.this, this);
                 worker.processMessages();
+                return true;
             }
             catch (Exception e)
             {
@@ -458,12 +545,146 @@ public class MultiConsumerJmsMessageReceiver extends AbstractMessageReceiver
                 {
                     getEndpoint().getMuleContext().getExceptionListener().handleException(e, rollbackMethod);
                 }
+                return false;
             }
             finally
             {
                 isProcessingMessage = false;
             }
         }
+
+        /**
+         * Receives up to <code>batchSize</code> messages, waiting at most <code>receiveBatchTimeout</code>
+         * milliseconds for the messages after the first one.
+         *
+         * @return the received messages, empty if none arrived
+         */
+        protected List<Object> receiveBatch(MessageConsumer batchConsumer, int batchSize) throws JMSException
+        {
+            List<Object> messages = new ArrayList<Object>(batchSize);
+            Message message = batchConsumer.receive(BATCH_POLL_TIMEOUT);
+            if (message == null)
+            {
+                return messages;
+            }
+            messages.add(message);
+
+            long deadline = System.currentTimeMillis() + jmsConnector.getReceiveBatchTimeout();
+            while (messages.size() < batchSize)
+            {
+                long remaining = deadline - System.currentTimeMillis();
+                message = remaining > 0 ? batchConsumer.receive(remaining) : batchConsumer.receiveNoWait();
+                if (message == null)
+                {
+                    break;
+                }
+                messages.add(message);
+            }
+            return messages;
+        }
+
+        /**
+         * Polls the consumer of this sub-receiver until it is stopped. The transaction of each batch is
+         * begun by the {@link JmsWorker} once the messages are received, which works with local JMS
+         * transactions as the messages are received on the transacted session anyway. XA transacted
+         * endpoints use {@link XaTransactedJmsMessageReceiver} instead, which does not receive in batches.
+         * <p/>
+         * Each work has its own running flag, so a work that is still finishing its batch after a stop is
+         * not resumed by the next start of the sub-receiver.
+         */
+        private class BatchReceiverWork implements Work
+        {
+            private final MessageConsumer batchConsumer;
+            private final CountDownLatch finished = new CountDownLatch(1);
+            private volatile boolean running = true;
+            private volatile Thread thread;
+
+            BatchReceiverWork(MessageConsumer batchConsumer)
+            {
+                this.batchConsumer = batchConsumer;
+            }
+
+            @Override
+            public void run()
+            {
+                thread = Thread.currentThread();
+                try
+                {
+                    poll();
+                }
+                finally
+                {
+                    thread = null;
+                    finished.countDown();
+                }
+            }
+
+            private void poll()
+            {
+                // messages of a rolled back batch that are received one at a time
+                int isolatedMessages = 0;
+                while (running && batchConsumer == consumer)
+                {
+                    List<Object> messages;
+                    try
+                    {
+                        messages = receiveBatch(batchConsumer, isolatedMessages > 0 ? 1 : jmsConnector.getReceiveBatchSize());
+                    }
+                    catch (JMSException e)
+                    {
+                        // the consumer was closed or the connection failed, reconnection creates a new sub-receiver
+                        if (running && batchConsumer == consumer)
+                        {
+                            logger.warn("Failed to receive messages from " + endpoint.getEndpointURI() + ": " + e.getMessage());
+                        }
+                        return;
+                    }
+                    if (messages.isEmpty())
+                    {
+                        continue;
+                    }
+                    // the worker clears the list once processed
+                    int received = messages.size();
+                    isolatedMessages = Math.max(0, isolatedMessages - received);
+                    if (!processMessages(messages) && received > 1)
+                    {
+                        isolatedMessages = received;
+                    }
+                }
+            }
+
+            void stop()
+            {
+                running = false;
+            }
+
+            /**
+             * @return true if the work finished within the timeout, false if it is still running or if it is the
+             *         current thread, which cannot wait for itself
+             */
+            boolean awaitFinished(long timeout)
+            {
+                if (Thread.currentThread() == thread)
+                {
+                    return false;
+                }
+                try
+                {
+                    return finished.await(timeout, TimeUnit.MILLISECONDS);
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+
+            @Override
+            public void release()
+            {
+                stop();
+            }
+        }
     }
 
     protected class JmsWorker extends AbstractReceiverWorker
@@ -477,6 +698,12 @@ public class MultiConsumerJmsMessageReceiver extends AbstractMessageReceiver
             messages.add(message);
         }
 
+        public JmsWorker(List<Object> messages, AbstractMessageReceiver receiver, SubReceiver subReceiver)
+        {
+            super(messages, receiver);
+            this.subReceiver = subReceiver;
+        }
+
         @Override
         protected Object preProcessMessage(Object message) throws Exception
         {
@@ -533,7 +760,8 @@ public class MultiConsumerJmsMessageReceiver extends AbstractMessageReceiver
                     //We should still bind the session to the transaction, but we also need the message itself
                     //since that is the object that gets Acknowledged
                     //tx.bindResource(jmsConnector.getConnection(), session);
-                    ((JmsClientAcknowledgeTransaction) tx).setMessage((Message) messages.get(0));
+                    // acknowledging the last message of a batch acknowledges all the previous ones
+                    ((JmsClientAcknowledgeTransaction) tx).setMessage((Message) messages.get(messages.size() - 1));
                 }
             }
         }
@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.jms;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import org.mule.api.MuleEventContext;
+import org.mule.api.context.notification.TransactionNotificationListener;
+import org.mule.api.lifecycle.Callable;
+import org.mule.construct.Flow;
+import org.mule.context.notification.TransactionNotification;
+import org.mule.tck.junit4.FunctionalTestCase;
+import org.mule.tck.probe.PollingProber;
+import org.mule.tck.probe.Probe;
+import org.mule.transaction.TransactionCoordination;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.jms.MessageProducer;
+import javax.jms.Session;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests that messages are received in batches committed once, and that a failing message is rolled back
+ * alone once its batch has been redelivered
+ */
+public class JmsBatchReceiveTestCase extends FunctionalTestCase
+{
+
+    private static final String FAILING_MESSAGE = "fail";
+
+    /**
+     * Deliveries of the failing message that throw an exception.
+     */
+    private static final int FAILED_DELIVERIES = 2;
+
+    private static final List<String> processed = Collections.synchronizedList(new ArrayList<String>());
+    private static final Map<String, List<String>> transactions = Collections.synchronizedMap(new LinkedHashMap<String, List<String>>());
+    private static final AtomicInteger failedDeliveries = new AtomicInteger();
+
+    private final List<String> commits = Collections.synchronizedList(new ArrayList<String>());
+    private final List<String> rollbacks = Collections.synchronizedList(new ArrayList<String>());
+
+    @Override
+    protected String getConfigFile()
+    {
+        return "jms-batch-receive-config.xml";
+    }
+
+    @Before
+    public void setUp() throws Exception
+    {
+        processed.clear();
+        transactions.clear();
+        failedDeliveries.set(0);
+        muleContext.registerListener(new TransactionNotificationListener<TransactionNotification>()
+        {
+            @Override
+            public void onNotification(TransactionNotification notification)
+            {
+                if (notification.getAction() == TransactionNotification.TRANSACTION_COMMITTED)
+                {
+                    commits.add(notification.getTransactionStringId());
+                }
+                else if (notification.getAction() == TransactionNotification.TRANSACTION_ROLLEDBACK)
+                {
+                    rollbacks.add(notification.getTransactionStringId());
+                }
+            }
+        });
+    }
+
+    @Test
+    public void commitsEachBatchOnce() throws Exception
+    {
+        List<String> messages = new ArrayList<String>();
+        for (int i = 0; i < 12; i++)
+        {
+            messages.add("message" + i);
+        }
+        sendAndStart(messages);
+
+        waitUntilCommitted(3);
+
+        assertThat(processed, is(messages));
+        assertThat(batchSizes(), is(Arrays.asList(5, 5, 2)));
+        assertThat(commits, is((List<String>) new ArrayList<String>(transactions.keySet())));
+        assertThat(rollbacks.isEmpty(), is(true));
+    }
+
+    @Test
+    public void rollsBackFailingMessageAlone() throws Exception
+    {
+        sendAndStart(Arrays.asList("message0", FAILING_MESSAGE, "message1", "message2"));
+
+        // the batch stops at the failing message, then the redelivered messages are received one at a time
+        waitUntilCommitted(4);
+
+        assertThat(processed, is(Arrays.asList("message0", FAILING_MESSAGE,
+                                               "message0", FAILING_MESSAGE, FAILING_MESSAGE, "message1", "message2")));
+        assertThat(batchSizes(), is(Arrays.asList(2, 1, 1, 1, 1, 1)));
+        assertThat(rollbacks.size(), is(FAILED_DELIVERIES));
+    }
+
+    private void sendAndStart(List<String> messages) throws Exception
+    {
+        JmsConnector connector = (JmsConnector) muleContext.getRegistry().lookupConnector("JMS");
+        Session session = connector.getSession(false, false);
+        try
+        {
+            MessageProducer producer = session.createProducer(session.createQueue("batchQueue"));
+            for (String message : messages)
+            {
+                producer.send(session.createTextMessage(message));
+            }
+        }
+        finally
+        {
+            connector.closeQuietly(session);
+        }
+        ((Flow) muleContext.getRegistry().lookupFlowConstruct("batchReceiver")).start();
+    }
+
+    private void waitUntilCommitted(final int count)
+    {
+        new PollingProber(RECEIVE_TIMEOUT, 50).check(new Probe()
+        {
+            @Override
+            public boolean isSatisfied()
+            {
+                return commits.size() >= count;
+            }
+
+            @Override
+            public String describeFailure()
+            {
+                return "Expected " + count + " commits but were " + commits.size() + ", processed messages: " + processed;
+            }
+        });
+    }
+
+    private List<Integer> batchSizes()
+    {
+        List<Integer> sizes = new ArrayList<Integer>();
+        synchronized (transactions)
+        {
+            for (List<String> batch : transactions.values())
+            {
+                sizes.add(batch.size());
+            }
+        }
+        return sizes;
+    }
+
+    public static class RecordingComponent implements Callable
+    {
+
+        @Override
+        public Object onCall(MuleEventContext eventContext) throws Exception
+        {
+            String payload = eventContext.getMessage().getPayloadAsString();
+            processed.add(payload);
+            String transactionId = TransactionCoordination.getInstance().getTransaction().getId();
+            synchronized (transactions)
+            {
+                if (!transactions.containsKey(transactionId))
+                {
+                    transactions.put(transactionId, new ArrayList<String>());
+                }
+                transactions.get(transactionId).add(payload);
+            }
+
+            if (FAILING_MESSAGE.equals(payload) && failedDeliveries.incrementAndGet() <= FAILED_DELIVERIES)
+            {
+                throw new IllegalStateException("Failed delivery " + failedDeliveries.get());
+            }
+            return payload;
+        }
+    }
+}
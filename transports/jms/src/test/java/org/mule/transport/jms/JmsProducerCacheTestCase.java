@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.jms;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.hamcrest.core.IsSame.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+import org.mule.transport.jms.JmsProducerCache.CachedProducer;
+
+import javax.jms.Connection;
+import javax.jms.MessageProducer;
+import javax.jms.Session;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+@SmallTest
+@RunWith(MockitoJUnitRunner.class)
+public class JmsProducerCacheTestCase extends AbstractMuleTestCase
+{
+
+    private static final String KEY = "queue:in";
+    private static final String OTHER_KEY = "queue:out";
+
+    @Mock
+    private JmsConnector connector;
+
+    @Mock
+    private Connection connection;
+
+    private JmsProducerCache.Statistics statistics = new JmsProducerCache.Statistics();
+
+    @Before
+    public void setUp()
+    {
+        when(connector.getConnection()).thenReturn(connection);
+    }
+
+    @Test
+    public void reusesReleasedProducer()
+    {
+        JmsProducerCache cache = new JmsProducerCache(connector, 16, 60000, statistics);
+        CachedProducer entry = newEntry();
+
+        assertThat(cache.acquire(KEY), is(nullValue()));
+        cache.release(KEY, entry);
+        assertThat(cache.acquire(KEY), is(sameInstance(entry)));
+        // checked out entries are not handed out twice
+        assertThat(cache.acquire(KEY), is(nullValue()));
+
+        assertThat(statistics.getHits(), is(1L));
+        assertThat(statistics.getMisses(), is(2L));
+        assertThat(statistics.getHitRate(), is(1.0 / 3));
+        verify(connector, never()).closeQuietly(entry.getSession());
+    }
+
+    @Test
+    public void keepsProducersOfConcurrentSendsToSameDestination()
+    {
+        JmsProducerCache cache = new JmsProducerCache(connector, 16, 60000, statistics);
+        CachedProducer first = newEntry();
+        CachedProducer second = newEntry();
+
+        cache.release(KEY, first);
+        cache.release(KEY, second);
+
+        assertThat(cache.size(), is(2));
+        assertThat(cache.acquire(KEY), is(sameInstance(second)));
+        assertThat(cache.acquire(KEY), is(sameInstance(first)));
+        verify(connector, never()).closeQuietly(first.getSession());
+    }
+
+    @Test
+    public void closesLeastRecentlyUsedProducerWhenFull()
+    {
+        JmsProducerCache cache = new JmsProducerCache(connector, 1, 60000, statistics);
+        CachedProducer first = newEntry();
+        CachedProducer second = newEntry();
+
+        cache.release(KEY, first);
+        cache.release(OTHER_KEY, second);
+
+        assertThat(cache.size(), is(1));
+        assertClosed(first);
+        assertThat(cache.acquire(OTHER_KEY), is(sameInstance(second)));
+        assertThat(statistics.getEvictions(), is(1L));
+    }
+
+    @Test
+    public void closesIdleProducers()
+    {
+        JmsProducerCache cache = new JmsProducerCache(connector, 16, 0, statistics);
+        CachedProducer entry = newEntry();
+        cache.release(KEY, entry);
+
+        cache.evictIdleEntries();
+
+        assertThat(cache.size(), is(0));
+        assertClosed(entry);
+        assertThat(statistics.getEvictions(), is(1L));
+        assertThat(cache.acquire(KEY), is(nullValue()));
+    }
+
+    @Test
+    public void keepsRecentlyUsedProducers()
+    {
+        JmsProducerCache cache = new JmsProducerCache(connector, 16, 60000, statistics);
+        CachedProducer entry = newEntry();
+        cache.release(KEY, entry);
+
+        cache.evictIdleEntries();
+
+        assertThat(cache.acquire(KEY), is(sameInstance(entry)));
+        assertThat(statistics.getEvictions(), is(0L));
+    }
+
+    @Test
+    public void discardsProducersOfPreviousConnection()
+    {
+        JmsProducerCache cache = new JmsProducerCache(connector, 16, 60000, statistics);
+        CachedProducer entry = newEntry();
+        cache.release(KEY, entry);
+
+        when(connector.getConnection()).thenReturn(mock(Connection.class));
+
+        assertThat(cache.acquire(KEY), is(nullValue()));
+        assertClosed(entry);
+        assertThat(statistics.getInvalidations(), is(1L));
+    }
+
+    @Test
+    public void closesProducersReturnedAfterDispose()
+    {
+        JmsProducerCache cache = new JmsProducerCache(connector, 16, 60000, statistics);
+        CachedProducer cached = newEntry();
+        CachedProducer checkedOut = newEntry();
+        cache.release(KEY, cached);
+
+        cache.dispose();
+        assertClosed(cached);
+
+        cache.release(OTHER_KEY, checkedOut);
+        assertClosed(checkedOut);
+        assertThat(cache.size(), is(0));
+    }
+
+    private CachedProducer newEntry()
+    {
+        return new CachedProducer(connection, mock(Session.class), mock(MessageProducer.class));
+    }
+
+    private void assertClosed(CachedProducer entry)
+    {
+        verify(connector).closeQuietly(entry.getProducer());
+        verify(connector).closeQuietly(entry.getSession());
+    }
+}
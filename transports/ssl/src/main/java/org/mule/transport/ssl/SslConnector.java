@@ -14,6 +14,7 @@ import org.mule.api.security.TlsDirectTrustStore;
 import org.mule.api.security.TlsIndirectKeyStore;
 import org.mule.api.security.tls.TlsConfiguration;
 import org.mule.transport.tcp.TcpConnector;
+import org.mule.transport.tcp.i18n.TcpMessages;
 import org.mule.transport.tcp.protocols.DirectProtocol;
 
 import java.io.IOException;
@@ -59,6 +60,10 @@ public class SslConnector extends TcpConnector
     @Override
     protected void doInitialise() throws InitialisationException
     {
+        if (isNonBlockingReceiver())
+        {
+            throw new InitialisationException(TcpMessages.nonBlockingReceiverNotSupported(getProtocol()), this);
+        }
         super.doInitialise();
         // the original logic here was slightly different to other uses of the TlsSupport code -
         // it appeared to be equivalent to switching anon by whether or not a keyStore was defined
@@ -73,6 +78,13 @@ public class SslConnector extends TcpConnector
         }
     }
 
+    @Override
+    protected boolean isNonBlockingReceiverSupported()
+    {
+        // socket channels are not wrapped with an SSL engine
+        return false;
+    }
+
     @Override
     protected ServerSocket getServerSocket(URI uri) throws IOException
     {
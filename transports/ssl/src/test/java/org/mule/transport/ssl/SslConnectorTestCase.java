@@ -7,6 +7,7 @@
 package org.mule.transport.ssl;
 
 import org.mule.api.endpoint.InboundEndpoint;
+import org.mule.api.lifecycle.InitialisationException;
 import org.mule.api.service.Service;
 import org.mule.api.transport.Connector;
 import org.mule.tck.testmodels.fruit.Orange;
@@ -44,6 +45,14 @@ public class SslConnectorTestCase extends AbstractConnectorTestCase
         cnn.getDispatcherThreadingProfile().setDoThreading(false);
     }
 
+    @Test(expected = InitialisationException.class)
+    public void nonBlockingReceiverIsNotSupported() throws Exception
+    {
+        SslConnector cnn = (SslConnector) createConnector();
+        cnn.setNonBlockingReceiver(true);
+        cnn.initialise();
+    }
+
     @Override
     public String getTestEndpointURI()
     {
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.tcp;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Bounded pool of direct buffers of a fixed size.
+ * <p/>
+ * Direct buffers are read into by the channels without an intermediate copy, but they are
+ * expensive to allocate and are only reclaimed by the garbage collector, so they are reused
+ * instead. A new buffer is allocated whenever the pool is empty, and released buffers are
+ * discarded once the pool is full.
+ */
+public class ByteBufferPool
+{
+
+    private final int bufferSize;
+    private final BlockingQueue<ByteBuffer> buffers;
+
+    /**
+     * @param bufferSize capacity of the buffers
+     * @param maxPooledBuffers maximum number of released buffers kept for reuse
+     */
+    public ByteBufferPool(int bufferSize, int maxPooledBuffers)
+    {
+        if (bufferSize < 1)
+        {
+            throw new IllegalArgumentException("Buffer size must be positive: " + bufferSize);
+        }
+        this.bufferSize = bufferSize;
+        this.buffers = new ArrayBlockingQueue<ByteBuffer>(maxPooledBuffers);
+    }
+
+    /**
+     * @return an empty buffer of the pool size, ready to be written to
+     */
+    public ByteBuffer acquire()
+    {
+        ByteBuffer buffer = buffers.poll();
+        if (buffer == null)
+        {
+            return ByteBuffer.allocateDirect(bufferSize);
+        }
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * Returns a buffer to the pool. Buffers that were not acquired from a pool of the same size
+     * are ignored, so the buffer must not be used afterwards.
+     */
+    public void release(ByteBuffer buffer)
+    {
+        if (buffer != null && buffer.isDirect() && buffer.capacity() == bufferSize)
+        {
+            buffer.clear();
+            buffers.offer(buffer);
+        }
+    }
+
+    public int getBufferSize()
+    {
+        return bufferSize;
+    }
+
+    /**
+     * @return number of buffers currently available for reuse
+     */
+    public int getPooledBuffers()
+    {
+        return buffers.size();
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.tcp;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Writes to a non blocking channel, blocking the calling thread while the channel is not
+ * writable because its send buffer is full.
+ * <p/>
+ * Closing the stream releases the resources used to wait for the channel, but does not close
+ * the channel itself.
+ */
+public class ChannelOutputStream extends OutputStream
+{
+
+    private final SocketChannel channel;
+    private final int writeTimeout;
+    private Selector writeSelector;
+
+    /**
+     * @param channel channel to write to, in non blocking mode
+     * @param writeTimeout milliseconds to wait for the channel to be writable, 0 to wait indefinitely
+     */
+    public ChannelOutputStream(SocketChannel channel, int writeTimeout)
+    {
+        this.channel = channel;
+        this.writeTimeout = writeTimeout;
+    }
+
+    @Override
+    public void write(int b) throws IOException
+    {
+        write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, offset, length);
+        while (buffer.hasRemaining())
+        {
+            if (channel.write(buffer) == 0)
+            {
+                waitUntilWritable();
+            }
+        }
+    }
+
+    private void waitUntilWritable() throws IOException
+    {
+        if (writeSelector == null)
+        {
+            writeSelector = Selector.open();
+            channel.register(writeSelector, SelectionKey.OP_WRITE);
+        }
+        if (writeSelector.select(writeTimeout) == 0 && writeTimeout > 0)
+        {
+            throw new SocketTimeoutException("Timeout writing to the connection after " + writeTimeout + " ms");
+        }
+        writeSelector.selectedKeys().clear();
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        if (writeSelector != null)
+        {
+            writeSelector.close();
+            writeSelector = null;
+        }
+    }
+}
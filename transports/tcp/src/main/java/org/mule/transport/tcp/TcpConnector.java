@@ -11,10 +11,13 @@ import org.mule.api.MuleContext;
 import org.mule.api.MuleException;
 import org.mule.api.MuleMessage;
 import org.mule.api.config.MuleProperties;
+import org.mule.api.construct.FlowConstruct;
 import org.mule.api.endpoint.ImmutableEndpoint;
+import org.mule.api.endpoint.InboundEndpoint;
 import org.mule.api.lifecycle.InitialisationException;
 import org.mule.api.transport.Connector;
 import org.mule.api.transport.MessageDispatcherFactory;
+import org.mule.api.transport.MessageReceiver;
 import org.mule.config.i18n.CoreMessages;
 import org.mule.model.streaming.CallbackOutputStream;
 import org.mule.transport.AbstractConnector;
@@ -31,6 +34,7 @@ import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.SocketException;
 import java.net.URI;
+import java.nio.channels.ServerSocketChannel;
 
 import org.apache.commons.pool.impl.GenericKeyedObjectPool;
 
@@ -75,6 +79,8 @@ public class TcpConnector extends AbstractConnector
     private int keepAliveTimeout = 0;
     private ExpiryMonitor keepAliveMonitor;
     private Boolean failOnUnresolvedHost = Boolean.TRUE;
+    private boolean nonBlockingReceiver = false;
+    private int selectorThreads = Runtime.getRuntime().availableProcessors();
 
     /** 
      * If set, the socket is not closed after sending a message.  This attribute 
@@ -488,6 +494,49 @@ public class TcpConnector extends AbstractConnector
         return getServerSocketFactory().createServerSocket(uri, getReceiveBacklog(), isReuseAddress());
     }
 
+    /**
+     * @return a plain server socket channel bound to the address of the given URI, for receivers
+     *         that use a selector instead of a thread per connection
+     */
+    public ServerSocketChannel getServerSocketChannel(URI uri) throws IOException
+    {
+        TcpServerSocketFactory factory = getServerSocketFactory() instanceof TcpServerSocketFactory
+                                         ? (TcpServerSocketFactory) getServerSocketFactory()
+                                         : new TcpServerSocketFactory();
+        return factory.createServerSocketChannel(uri, getReceiveBacklog(), isReuseAddress());
+    }
+
+    /**
+     * Uses a {@link TcpNioMessageReceiver} instead of the receiver of the service descriptor when
+     * the non blocking receiver is enabled and supported, and the protocol is able to decode
+     * messages from a buffer.
+     */
+    @Override
+    protected MessageReceiver createReceiver(FlowConstruct flowConstruct, InboundEndpoint endpoint) throws Exception
+    {
+        if (nonBlockingReceiver && isNonBlockingReceiverSupported())
+        {
+            if (getTcpProtocol() instanceof TcpFrameDecoder)
+            {
+                return new TcpNioMessageReceiver(this, flowConstruct, endpoint);
+            }
+            logger.warn("Protocol " + getTcpProtocol().getClass().getName()
+                        + " does not support non blocking reads, using a thread per connection for "
+                        + endpoint.getEndpointURI());
+        }
+        return super.createReceiver(flowConstruct, endpoint);
+    }
+
+    /**
+     * @return true if the inbound endpoints of this connector use {@link TcpMessageReceiver}s, which
+     *         read plain socket channels and can be replaced by a {@link TcpNioMessageReceiver}.
+     *         Connectors with their own receivers, or with an overridden receiver, return false
+     */
+    protected boolean isNonBlockingReceiverSupported()
+    {
+        return serviceOverrides == null || !serviceOverrides.containsKey(MuleProperties.CONNECTOR_MESSAGE_RECEIVER_CLASS);
+    }
+
     private static int valueOrDefault(int value, int threshhold, int deflt)
     {
         if (value < threshhold)
@@ -539,6 +588,39 @@ public class TcpConnector extends AbstractConnector
         this.keepAliveTimeout = keepAliveTimeout;
     }
     
+    public boolean isNonBlockingReceiver()
+    {
+        return nonBlockingReceiver;
+    }
+
+    /**
+     * @param nonBlockingReceiver true to read inbound connections using selectors, handing off
+     *        only complete messages to the receiver threads, instead of using a thread per
+     *        connection
+     */
+    public void setNonBlockingReceiver(boolean nonBlockingReceiver)
+    {
+        this.nonBlockingReceiver = nonBlockingReceiver;
+    }
+
+    public int getSelectorThreads()
+    {
+        return selectorThreads;
+    }
+
+    /**
+     * @param selectorThreads number of selector threads reading inbound connections when the
+     *        non blocking receiver is enabled
+     */
+    public void setSelectorThreads(int selectorThreads)
+    {
+        if (selectorThreads < 1)
+        {
+            throw new IllegalArgumentException("Selector threads must be at least 1: " + selectorThreads);
+        }
+        this.selectorThreads = selectorThreads;
+    }
+
     @Override
     public void setDispatcherFactory(MessageDispatcherFactory dispatcherFactory)
     {
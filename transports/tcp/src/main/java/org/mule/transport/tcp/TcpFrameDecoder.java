@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.tcp;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Implemented by the {@link TcpProtocol}s that can find the messages in the bytes received on
+ * a connection without blocking, so they can be used by a {@link TcpNioMessageReceiver}.
+ * <p/>
+ * The receiver accumulates the received bytes in a buffer and calls {@link #decode(ByteBuffer, boolean)}
+ * every time new bytes arrive, until it returns null. Implementations must not keep state
+ * between calls, as the same protocol instance decodes the messages of every connection.
+ */
+public interface TcpFrameDecoder
+{
+
+    /**
+     * Decodes the next message from the received bytes.
+     *
+     * @param buffer the received bytes that were not decoded yet, between its position and its
+     *        limit. If a message is returned the position is left after the bytes of the message,
+     *        otherwise the buffer is left unchanged
+     * @param endOfStream true if the peer closed the connection, so no more bytes will be received
+     * @return the next message, or null if more bytes are needed to decode it
+     * @throws IOException if the received bytes are not a valid message
+     */
+    Object decode(ByteBuffer buffer, boolean endOfStream) throws IOException;
+
+    /**
+     * @return the maximum number of bytes of a message, or a non positive value if unlimited. The
+     *         receiver closes the connections that send more bytes without completing a message
+     */
+    int getMaxMessageLength();
+
+}
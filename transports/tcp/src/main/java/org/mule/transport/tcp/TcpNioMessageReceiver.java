@@ -0,0 +1,659 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.tcp;
+
+import org.mule.api.MuleException;
+import org.mule.api.MuleMessage;
+import org.mule.api.config.MuleProperties;
+import org.mule.api.construct.FlowConstruct;
+import org.mule.api.endpoint.InboundEndpoint;
+import org.mule.api.lifecycle.CreateException;
+import org.mule.api.lifecycle.DisposeException;
+import org.mule.api.retry.RetryCallback;
+import org.mule.api.retry.RetryContext;
+import org.mule.api.transaction.Transaction;
+import org.mule.api.transaction.TransactionException;
+import org.mule.api.transport.Connector;
+import org.mule.config.i18n.CoreMessages;
+import org.mule.transport.AbstractMessageReceiver;
+import org.mule.transport.AbstractReceiverWorker;
+import org.mule.transport.ConnectException;
+import org.mule.transport.tcp.i18n.TcpMessages;
+import org.mule.util.monitor.Expirable;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.SocketAddress;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.resource.spi.work.Work;
+import javax.resource.spi.work.WorkException;
+import javax.resource.spi.work.WorkManager;
+
+/**
+ * <code>TcpNioMessageReceiver</code> acts like a TCP server that reads the accepted
+ * connections using selectors instead of a thread per connection.
+ * <p/>
+ * Accepted connections are distributed among {@link TcpConnector#getSelectorThreads()}
+ * selector threads, which read the incoming bytes into pooled direct buffers and decode them
+ * with the {@link TcpFrameDecoder} of the connector protocol. Only complete messages are handed
+ * off to the receiver threads, and a connection is not read again until its messages were
+ * processed and their responses written, so messages of a connection are processed in order.
+ * The bytes of an incomplete message are buffered up to the maximum message length of the
+ * protocol, and connections that send more are closed.
+ * <p/>
+ * Messages are decoded from memory, so protocols that stream the connection to the flow
+ * receive the whole stream once the client closes it.
+ */
+public class TcpNioMessageReceiver extends AbstractMessageReceiver implements Work
+{
+
+    private static final int READ_BUFFER_SIZE = 8 * 1024;
+    private static final int MAX_POOLED_BUFFERS = 256;
+    private static final int OUTPUT_BUFFER_SIZE = 8 * 1024;
+    private static final int MAX_BUFFER_SIZE = Integer.MAX_VALUE - 8;
+
+    protected final AtomicBoolean disposing = new AtomicBoolean(false);
+
+    private final TcpConnector tcpConnector;
+    private final ByteBufferPool bufferPool = new ByteBufferPool(READ_BUFFER_SIZE, MAX_POOLED_BUFFERS);
+    private final AtomicInteger nextSelectorLoop = new AtomicInteger();
+    private ServerSocketChannel serverSocketChannel;
+    private SelectorLoop[] selectorLoops;
+
+    public TcpNioMessageReceiver(Connector connector, FlowConstruct flowConstruct, InboundEndpoint endpoint)
+            throws CreateException
+    {
+        super(connector, flowConstruct, endpoint);
+        this.tcpConnector = (TcpConnector) connector;
+    }
+
+    @Override
+    protected void doConnect() throws ConnectException
+    {
+        disposing.set(false);
+
+        URI uri = endpoint.getEndpointURI().getUri();
+
+        try
+        {
+            serverSocketChannel = tcpConnector.getServerSocketChannel(uri);
+            selectorLoops = new SelectorLoop[tcpConnector.getSelectorThreads()];
+            for (int i = 0; i < selectorLoops.length; i++)
+            {
+                selectorLoops[i] = new SelectorLoop(Selector.open());
+            }
+        }
+        catch (Exception e)
+        {
+            closeSelectors();
+            closeServerSocketChannel();
+            throw new ConnectException(TcpMessages.failedToBindToUri(uri), e, this);
+        }
+
+        try
+        {
+            for (SelectorLoop selectorLoop : selectorLoops)
+            {
+                getWorkManager().scheduleWork(selectorLoop, WorkManager.INDEFINITE, null, connector);
+            }
+            getWorkManager().scheduleWork(this, WorkManager.INDEFINITE, null, connector);
+        }
+        catch (WorkException e)
+        {
+            throw new ConnectException(CoreMessages.failedToScheduleWork(), e, this);
+        }
+    }
+
+    @Override
+    protected void doDisconnect() throws ConnectException
+    {
+        // this will cause the server and selector threads to quit
+        disposing.set(true);
+        closeServerSocketChannel();
+        if (selectorLoops != null)
+        {
+            for (SelectorLoop selectorLoop : selectorLoops)
+            {
+                if (selectorLoop != null)
+                {
+                    selectorLoop.selector.wakeup();
+                }
+            }
+        }
+    }
+
+    @Override
+    protected void doStart() throws MuleException
+    {
+        // nothing to do
+    }
+
+    @Override
+    protected void doStop() throws MuleException
+    {
+        // nothing to do
+    }
+
+    public ServerSocketChannel getServerSocketChannel()
+    {
+        return serverSocketChannel;
+    }
+
+    public void run()
+    {
+        while (!disposing.get())
+        {
+            if (connector.isStarted() && !disposing.get())
+            {
+                try
+                {
+                    retryTemplate.execute(new RetryCallback()
+                    {
+                        public void doWork(RetryContext context) throws Exception
+                        {
+                            SocketChannel channel = null;
+                            try
+                            {
+                                channel = serverSocketChannel.accept();
+                            }
+                            catch (Exception e)
+                            {
+                                if (!connector.isDisposed() && !disposing.get())
+                                {
+                                    throw new ConnectException(e, null);
+                                }
+                            }
+
+                            if (channel != null)
+                            {
+                                register(channel);
+                            }
+                        }
+
+                        public String getWorkDescription()
+                        {
+                            return getConnectionDescription();
+                        }
+                    }, getWorkManager());
+                }
+                catch (Exception e)
+                {
+                    getEndpoint().getMuleContext().getExceptionListener().handleException(e);
+                }
+            }
+        }
+    }
+
+    public void release()
+    {
+        // template method
+    }
+
+    @Override
+    protected void doDispose()
+    {
+        try
+        {
+            if (serverSocketChannel != null && serverSocketChannel.isOpen())
+            {
+                if (logger.isDebugEnabled())
+                {
+                    logger.debug("Closing: " + serverSocketChannel);
+                }
+                serverSocketChannel.close();
+            }
+            serverSocketChannel = null;
+        }
+        catch (Exception e)
+        {
+            logger.error(new DisposeException(TcpMessages.failedToCloseSocket(), e, this));
+        }
+        logger.info("Closed Tcp port");
+    }
+
+    protected void register(SocketChannel channel) throws IOException
+    {
+        try
+        {
+            tcpConnector.configureSocket(TcpConnector.SERVER, channel.socket());
+            channel.configureBlocking(false);
+        }
+        catch (IOException e)
+        {
+            channel.close();
+            throw e;
+        }
+        int index = (nextSelectorLoop.getAndIncrement() & Integer.MAX_VALUE) % selectorLoops.length;
+        selectorLoops[index].register(new TcpConnection(channel, selectorLoops[index]));
+    }
+
+    private void closeServerSocketChannel()
+    {
+        try
+        {
+            if (serverSocketChannel != null)
+            {
+                if (logger.isDebugEnabled())
+                {
+                    logger.debug("Closing: " + serverSocketChannel);
+                }
+                serverSocketChannel.close();
+            }
+        }
+        catch (IOException e)
+        {
+            logger.warn("Failed to close server socket: " + e.getMessage(), e);
+        }
+    }
+
+    private void closeSelectors()
+    {
+        if (selectorLoops != null)
+        {
+            for (SelectorLoop selectorLoop : selectorLoops)
+            {
+                if (selectorLoop != null)
+                {
+                    selectorLoop.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return milliseconds a connection can stay idle waiting for a message before it is closed,
+     *         0 to never close it
+     */
+    private long getIdleTimeout()
+    {
+        if (tcpConnector.getKeepAliveTimeout() > 0)
+        {
+            return tcpConnector.getKeepAliveTimeout();
+        }
+        return Math.max(0, tcpConnector.getServerSoTimeout());
+    }
+
+    /**
+     * Selects the connections that have bytes available and reads them.
+     */
+    private class SelectorLoop implements Work
+    {
+
+        private final Selector selector;
+        private final Queue<TcpConnection> pendingRegistrations = new ConcurrentLinkedQueue<TcpConnection>();
+
+        SelectorLoop(Selector selector)
+        {
+            this.selector = selector;
+        }
+
+        /**
+         * Starts or resumes reading messages from a connection.
+         */
+        void register(TcpConnection connection)
+        {
+            pendingRegistrations.add(connection);
+            selector.wakeup();
+        }
+
+        public void run()
+        {
+            try
+            {
+                while (!disposing.get())
+                {
+                    selector.select();
+                    processPendingRegistrations();
+                    Iterator<SelectionKey> selectedKeys = selector.selectedKeys().iterator();
+                    while (selectedKeys.hasNext())
+                    {
+                        SelectionKey key = selectedKeys.next();
+                        selectedKeys.remove();
+                        if (key.isValid() && key.isReadable())
+                        {
+                            read((TcpConnection) key.attachment());
+                        }
+                    }
+                }
+            }
+            catch (Exception e)
+            {
+                if (!disposing.get())
+                {
+                    getEndpoint().getMuleContext().getExceptionListener().handleException(e);
+                }
+            }
+            finally
+            {
+                close();
+            }
+        }
+
+        private void processPendingRegistrations()
+        {
+            TcpConnection connection;
+            while ((connection = pendingRegistrations.poll()) != null)
+            {
+                try
+                {
+                    if (!connection.channel.isOpen())
+                    {
+                        continue;
+                    }
+                    if (connection.key == null)
+                    {
+                        connection.key = connection.channel.register(selector, SelectionKey.OP_READ, connection);
+                    }
+                    else
+                    {
+                        connection.key.interestOps(SelectionKey.OP_READ);
+                    }
+                    connection.startIdleTimeout();
+                }
+                catch (IOException e)
+                {
+                    logger.debug("Closing connection: " + e.getMessage());
+                    connection.close();
+                }
+            }
+        }
+
+        private void read(TcpConnection connection)
+        {
+            try
+            {
+                boolean endOfStream = !connection.read();
+                List<Object> messages = connection.decode(endOfStream);
+                if (!messages.isEmpty())
+                {
+                    connection.stopIdleTimeout();
+                    connection.key.interestOps(0);
+                    getWorkManager().scheduleWork(new TcpNioWorker(messages, connection, endOfStream));
+                }
+                else if (endOfStream)
+                {
+                    logger.debug("Closing connection closed by the client");
+                    connection.close();
+                }
+            }
+            catch (WorkException e)
+            {
+                connection.close();
+                getEndpoint().getMuleContext().getExceptionListener().handleException(e);
+            }
+            catch (IOException e)
+            {
+                logger.debug("Closing connection: " + e.getMessage());
+                connection.close();
+            }
+        }
+
+        public void release()
+        {
+            // nothing to do
+        }
+
+        void close()
+        {
+            try
+            {
+                for (SelectionKey key : selector.keys())
+                {
+                    ((TcpConnection) key.attachment()).close();
+                }
+                for (TcpConnection connection : pendingRegistrations)
+                {
+                    connection.close();
+                }
+                pendingRegistrations.clear();
+                selector.close();
+            }
+            catch (Exception e)
+            {
+                logger.debug("(Ignored) Error closing the selector: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * State of an accepted connection.
+     */
+    private class TcpConnection implements Expirable
+    {
+
+        private final SocketChannel channel;
+        private final SelectorLoop selectorLoop;
+        // Only accessed from the selector thread
+        private SelectionKey key;
+        // Guarded by this connection, as it is released when the connection is closed from any thread
+        private ByteBuffer buffer;
+
+        TcpConnection(SocketChannel channel, SelectorLoop selectorLoop)
+        {
+            this.channel = channel;
+            this.selectorLoop = selectorLoop;
+        }
+
+        /**
+         * Reads the available bytes that fit in the buffer, after the ones that were not decoded yet.
+         * The buffer only grows when the decoder could not find a message in the whole buffer.
+         *
+         * @return false if the client closed the connection
+         */
+        synchronized boolean read() throws IOException
+        {
+            if (buffer == null)
+            {
+                buffer = bufferPool.acquire();
+            }
+            else if (!buffer.hasRemaining())
+            {
+                grow();
+            }
+            int count;
+            do
+            {
+                count = channel.read(buffer);
+            }
+            while (count > 0 && buffer.hasRemaining());
+            return count >= 0;
+        }
+
+        private void grow() throws IOException
+        {
+            int maxBufferSize = getMaxBufferSize();
+            if (buffer.capacity() >= maxBufferSize)
+            {
+                throw new IOException("Received " + buffer.capacity() + " bytes without a complete message");
+            }
+            ByteBuffer grown = ByteBuffer.allocate((int) Math.min(2L * buffer.capacity(), maxBufferSize));
+            buffer.flip();
+            grown.put(buffer);
+            bufferPool.release(buffer);
+            buffer = grown;
+        }
+
+        /**
+         * @return the maximum length of a message of the protocol, plus room for its framing bytes
+         */
+        private int getMaxBufferSize()
+        {
+            int maxMessageLength = ((TcpFrameDecoder) tcpConnector.getTcpProtocol()).getMaxMessageLength();
+            return maxMessageLength > 0 ? (int) Math.min((long) maxMessageLength + READ_BUFFER_SIZE, MAX_BUFFER_SIZE) : MAX_BUFFER_SIZE;
+        }
+
+        /**
+         * Decodes the complete messages read so far, keeping the bytes of an incomplete one
+         * until more are read.
+         */
+        synchronized List<Object> decode(boolean endOfStream) throws IOException
+        {
+            TcpFrameDecoder decoder = (TcpFrameDecoder) tcpConnector.getTcpProtocol();
+            List<Object> messages = new ArrayList<Object>();
+            if (buffer == null)
+            {
+                // closed by another thread
+                return messages;
+            }
+            buffer.flip();
+            try
+            {
+                Object message;
+                while ((message = decoder.decode(buffer, endOfStream)) != null)
+                {
+                    messages.add(message);
+                }
+            }
+            finally
+            {
+                buffer.compact();
+                if (buffer.position() == 0)
+                {
+                    // idle connections do not hold a buffer
+                    bufferPool.release(buffer);
+                    buffer = null;
+                }
+            }
+            return messages;
+        }
+
+        void startIdleTimeout()
+        {
+            long idleTimeout = getIdleTimeout();
+            if (idleTimeout > 0)
+            {
+                tcpConnector.getKeepAliveMonitor().addExpirable(idleTimeout, TimeUnit.MILLISECONDS, this);
+            }
+        }
+
+        void stopIdleTimeout()
+        {
+            tcpConnector.getKeepAliveMonitor().removeExpirable(this);
+        }
+
+        public void expired()
+        {
+            logger.debug("Closing idle connection");
+            close();
+        }
+
+        void close()
+        {
+            stopIdleTimeout();
+            try
+            {
+                channel.close();
+            }
+            catch (IOException e)
+            {
+                logger.debug("(Ignored) Error closing the socket: " + e.getMessage());
+            }
+            synchronized (this)
+            {
+                bufferPool.release(buffer);
+                buffer = null;
+            }
+        }
+    }
+
+    /**
+     * Processes the messages decoded from a connection, resuming reading from it afterwards.
+     */
+    private class TcpNioWorker extends AbstractReceiverWorker
+    {
+
+        private final TcpConnection connection;
+        private final boolean endOfStream;
+        private final OutputStream dataOut;
+
+        TcpNioWorker(List<Object> messages, TcpConnection connection, boolean endOfStream)
+        {
+            super(messages, TcpNioMessageReceiver.this);
+            this.connection = connection;
+            this.endOfStream = endOfStream;
+            this.dataOut = new BufferedOutputStream(new ChannelOutputStream(connection.channel,
+                Math.max(0, tcpConnector.getServerSoTimeout())), OUTPUT_BUFFER_SIZE);
+        }
+
+        @Override
+        protected void bindTransaction(Transaction tx) throws TransactionException
+        {
+            //nothing to do
+        }
+
+        @Override
+        protected void handleResults(List messages) throws Exception
+        {
+            //should send back only if remote synch is set or no outbound endpoints
+            if (endpoint.getExchangePattern().hasResponse())
+            {
+                try
+                {
+                    for (Object message : messages)
+                    {
+                        tcpConnector.getTcpProtocol().write(dataOut, message);
+                        dataOut.flush();
+                    }
+                }
+                catch (IOException e)
+                {
+                    connection.close();
+                    throw e;
+                }
+            }
+        }
+
+        @Override
+        protected void preRouteMuleMessage(final MuleMessage message) throws Exception
+        {
+            super.preRouteMuleMessage(message);
+
+            final SocketAddress clientAddress = connection.channel.socket().getRemoteSocketAddress();
+            if (clientAddress != null)
+            {
+                message.setOutboundProperty(MuleProperties.MULE_REMOTE_CLIENT_ADDRESS, clientAddress.toString());
+            }
+        }
+
+        @Override
+        public void release()
+        {
+            try
+            {
+                dataOut.close();
+            }
+            catch (IOException e)
+            {
+                logger.debug("(Ignored) Error releasing the connection output: " + e.getMessage());
+            }
+
+            if (endOfStream || disposing.get())
+            {
+                connection.close();
+            }
+            else
+            {
+                connection.selectorLoop.register(connection);
+            }
+        }
+    }
+}
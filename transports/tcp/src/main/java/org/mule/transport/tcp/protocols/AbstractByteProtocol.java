@@ -21,6 +21,7 @@ import java.io.Serializable;
 import java.net.Socket;
 import java.net.SocketException;
 import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -221,6 +222,20 @@ public abstract class AbstractByteProtocol implements TcpProtocol
         }
     }
 
+    /**
+     * Removes bytes from a buffer of received bytes
+     *
+     * @param buffer The buffer to remove the bytes from, starting at its position
+     * @param length The amount of bytes to remove
+     * @return The removed bytes
+     */
+    protected byte[] takeBytes(ByteBuffer buffer, int length)
+    {
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return bytes;
+    }
+
     public ResponseOutputStream createResponse(Socket socket) throws IOException
     {
         return new ResponseOutputStream(socket, new ProtocolStream(this, streamOk, socket.getOutputStream()));
@@ -6,8 +6,10 @@
  */
 package org.mule.transport.tcp.protocols;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 
 import org.apache.commons.io.input.ClassLoaderObjectInputStream;
 import org.apache.log4j.Logger;
@@ -54,6 +56,37 @@ public class CustomClassLoadingLengthProtocol extends LengthProtocol
         }
     }
 
+    @Override
+    public Object decode(ByteBuffer buffer, boolean endOfStream) throws IOException
+    {
+        byte[] bytes = (byte[]) super.decode(buffer, endOfStream);
+
+        if (bytes == null)
+        {
+            return null;
+        }
+        else
+        {
+            ClassLoaderObjectInputStream classLoaderIS = new ClassLoaderObjectInputStream(this.getClassLoader(),
+                new ByteArrayInputStream(bytes));
+            try
+            {
+                return classLoaderIS.readObject();
+            }
+            catch (ClassNotFoundException e)
+            {
+                logger.warn(e.getMessage());
+                IOException iox = new IOException();
+                iox.initCause(e);
+                throw iox;
+            }
+            finally
+            {
+                classLoaderIS.close();
+            }
+        }
+    }
+
     public ClassLoader getClassLoader()
     {
         if (this.classLoader == null)
@@ -6,8 +6,11 @@
  */
 package org.mule.transport.tcp.protocols;
 
+import org.mule.transport.tcp.TcpFrameDecoder;
+
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.text.MessageFormat;
 
 import org.apache.commons.io.output.ByteArrayOutputStream;
@@ -23,8 +26,10 @@ import org.apache.commons.logging.LogFactory;
  * {@link org.mule.transport.tcp.protocols.LengthProtocol} may be more reliable.
  *
  * <p>Writing simply writes the data to the socket.</p>
+ *
+ * <p>When decoding, all the bytes received so far are a message.</p>
  */
-public class DirectProtocol extends AbstractByteProtocol
+public class DirectProtocol extends AbstractByteProtocol implements TcpFrameDecoder
 {
 
     protected static final int UNLIMITED = -1;
@@ -33,6 +38,7 @@ public class DirectProtocol extends AbstractByteProtocol
     private static final int DEFAULT_BUFFER_SIZE = 8192;
     
     protected int bufferSize;
+    private int maxMessageLength = UNLIMITED;
 
     public DirectProtocol()
     {
@@ -65,6 +71,7 @@ public class DirectProtocol extends AbstractByteProtocol
             {
 
                 len = copy(is, buffer, baos, remain);
+                checkMessageLength(baos.size());
                 remain = remaining(limit, remain, len);
                 repeat = EOF != len && remain > 0 && isRepeat(len, is.available());
 
@@ -85,6 +92,23 @@ public class DirectProtocol extends AbstractByteProtocol
         return nullEmptyArray(baos.toByteArray());
     }
 
+    public Object decode(ByteBuffer buffer, boolean endOfStream) throws IOException
+    {
+        // bytes are decoded once no more are (momentarily) available, as when reading
+        return nullEmptyArray(takeBytes(buffer, buffer.remaining()));
+    }
+
+    /**
+     * @throws IOException if the given number of bytes exceeds the maximum length of a message
+     */
+    protected void checkMessageLength(int length) throws IOException
+    {
+        if (maxMessageLength > 0 && length > maxMessageLength)
+        {
+            throw new IOException("Length " + length + " exceeds limit: " + maxMessageLength);
+        }
+    }
+
     protected int remaining(int limit, int remain, int len)
     {
         if (UNLIMITED == limit)
@@ -119,4 +143,18 @@ public class DirectProtocol extends AbstractByteProtocol
         return available > 0;
     }
 
+    public int getMaxMessageLength()
+    {
+        return maxMessageLength;
+    }
+
+    /**
+     * @param maxMessageLength maximum number of bytes of a received message, or a non positive
+     *        value if unlimited
+     */
+    public void setMaxMessageLength(int maxMessageLength)
+    {
+        this.maxMessageLength = maxMessageLength;
+    }
+
 }
@@ -6,6 +6,9 @@
  */
 package org.mule.transport.tcp.protocols;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
 /**
  * The EOFProtocol class is an application level tcp protocol that does nothing.
  * Reading is terminated by the stream being closed by the client.
@@ -13,6 +16,15 @@ package org.mule.transport.tcp.protocols;
 public class EOFProtocol extends DirectProtocol
 {
 
+    /**
+     * Decode all the received bytes once the stream is closed by the client
+     */
+    @Override
+    public Object decode(ByteBuffer buffer, boolean endOfStream) throws IOException
+    {
+        return endOfStream ? super.decode(buffer, endOfStream) : null;
+    }
+
     /**
      * Repeat until end of file
      *
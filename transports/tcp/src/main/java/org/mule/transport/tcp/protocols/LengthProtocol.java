@@ -11,6 +11,7 @@ import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -31,7 +32,6 @@ public class LengthProtocol extends DirectProtocol
     // TODO - can we not get this from the API somewhere?
     private static final int SIZE_INT = 4;
     public static final int NO_MAX_LENGTH = -1;
-    private int maxMessageLength;
 
     public LengthProtocol()
     {
@@ -66,10 +66,7 @@ public class LengthProtocol extends DirectProtocol
             logger.debug("length: " + length);
         }
 
-        if (length < 0 || (getMaxMessageLength() > 0 && length > getMaxMessageLength()))
-        {
-            throw new IOException("Length " + length + " exceeds limit: " + getMaxMessageLength());
-        }
+        checkLength(length);
 
         // finally read the rest of the data
         byte[] buffer = new byte[length];
@@ -82,6 +79,31 @@ public class LengthProtocol extends DirectProtocol
         return buffer;
     }
 
+    @Override
+    public Object decode(ByteBuffer buffer, boolean endOfStream) throws IOException
+    {
+        if (buffer.remaining() < SIZE_INT)
+        {
+            return null;
+        }
+        int length = buffer.getInt(buffer.position());
+        checkLength(length);
+        if (buffer.remaining() - SIZE_INT < length)
+        {
+            return null;
+        }
+        buffer.position(buffer.position() + SIZE_INT);
+        return takeBytes(buffer, length);
+    }
+
+    private void checkLength(int length) throws IOException
+    {
+        if (length < 0 || (getMaxMessageLength() > 0 && length > getMaxMessageLength()))
+        {
+            throw new IOException("Length " + length + " exceeds limit: " + getMaxMessageLength());
+        }
+    }
+
     @Override
     protected void writeByteArray(OutputStream os, byte[] data) throws IOException
     {
@@ -111,14 +133,4 @@ public class LengthProtocol extends DirectProtocol
         return true;
     }
 
-    public int getMaxMessageLength()
-    {
-        return maxMessageLength;
-    }
-
-    public void setMaxMessageLength(int maxMessageLength)
-    {
-        this.maxMessageLength = maxMessageLength;
-    }
-    
 }
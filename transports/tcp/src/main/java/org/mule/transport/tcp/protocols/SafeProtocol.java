@@ -7,12 +7,14 @@
 package org.mule.transport.tcp.protocols;
 
 import org.mule.ResponseOutputStream;
+import org.mule.transport.tcp.TcpFrameDecoder;
 import org.mule.transport.tcp.TcpProtocol;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.Socket;
+import java.nio.ByteBuffer;
 
 /**
  * This precedes every message with a cookie.
@@ -21,12 +23,12 @@ import java.net.Socket;
  * You should probably change to LengthProtocol.
  * Remember - both sender and receiver must use the same protocol.
  */
-public class SafeProtocol implements TcpProtocol
+public class SafeProtocol implements TcpProtocol, TcpFrameDecoder
 {
 
     public static final String COOKIE = "You are using SafeProtocol";
-    private TcpProtocol delegate = new LengthProtocol();
-    private TcpProtocol cookieProtocol = new LengthProtocol(COOKIE.length());
+    private LengthProtocol delegate = new LengthProtocol();
+    private LengthProtocol cookieProtocol = new LengthProtocol(COOKIE.length());
 
     public Object read(InputStream is) throws IOException
     {
@@ -46,6 +48,38 @@ public class SafeProtocol implements TcpProtocol
         }
     }
 
+    public Object decode(ByteBuffer buffer, boolean endOfStream) throws IOException
+    {
+        int start = buffer.position();
+        Object cookie = null;
+        try
+        {
+            cookie = cookieProtocol.decode(buffer, endOfStream);
+        }
+        catch (Exception e)
+        {
+            helpUser(e);
+        }
+        if (null == cookie)
+        {
+            return null;
+        }
+        checkCookie(cookie);
+
+        Object result = delegate.decode(buffer, endOfStream);
+        if (null == result)
+        {
+            if (endOfStream)
+            {
+                // EOF after cookie but before data
+                helpUser();
+            }
+            // the cookie is decoded again with the data once they are received
+            buffer.position(start);
+        }
+        return result;
+    }
+
     public void write(OutputStream os, Object data) throws IOException
     {
         assureSibling(os);
@@ -80,20 +114,22 @@ public class SafeProtocol implements TcpProtocol
         }
         if (null != cookie)
         {
-            if (!(cookie instanceof byte[]
-                    && ((byte[]) cookie).length == COOKIE.length()
-                    && COOKIE.equals(new String((byte[]) cookie))))
-            {
-                helpUser();
-            }
-            else
-            {
-                return true;
-            }
+            checkCookie(cookie);
+            return true;
         }
         return false; // eof
     }
 
+    private void checkCookie(Object cookie) throws IOException
+    {
+        if (!(cookie instanceof byte[]
+                && ((byte[]) cookie).length == COOKIE.length()
+                && COOKIE.equals(new String((byte[]) cookie))))
+        {
+            helpUser();
+        }
+    }
+
     private void helpUser() throws IOException
     {
         throw new IOException("You are not using a consistent protocol on your TCP transport. "
@@ -109,6 +145,11 @@ public class SafeProtocol implements TcpProtocol
                 + "paying particular attention to the protocol parameter.").initCause(e);
     }
 
+    public int getMaxMessageLength()
+    {
+        return delegate.getMaxMessageLength();
+    }
+
     public void setMaxMessageLength(int maxMessageLength)
     {
         delegate = new LengthProtocol(maxMessageLength);
@@ -9,9 +9,11 @@ package org.mule.transport.tcp.protocols;
 import org.mule.transport.tcp.TcpInputStream;
 import org.mule.transport.tcp.TcpProtocol;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 public class StreamingProtocol extends EOFProtocol implements TcpProtocol
 {
@@ -31,6 +33,17 @@ public class StreamingProtocol extends EOFProtocol implements TcpProtocol
         return is;
     }
 
+    /**
+     * Non blocking receivers cannot stream the connection to the flow, so the stream
+     * is decoded once the client closes it, from the buffered bytes.
+     */
+    @Override
+    public Object decode(ByteBuffer buffer, boolean endOfStream) throws IOException
+    {
+        byte[] bytes = (byte[]) super.decode(buffer, endOfStream);
+        return bytes == null ? null : new ByteArrayInputStream(bytes);
+    }
+
     /**
      * 
      * @param is
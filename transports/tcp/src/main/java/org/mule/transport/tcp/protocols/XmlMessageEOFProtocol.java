@@ -27,4 +27,16 @@ public class XmlMessageEOFProtocol extends XmlMessageProtocol
         return patternIndex < 0;
     }
 
+    /**
+     * Decode the received bytes til EOF or new document found
+     *
+     * @param endOfStream true if the client closed the stream
+     * @return true if the received bytes are a message
+     */
+    @Override
+    protected boolean isDecodeRemaining(boolean endOfStream)
+    {
+        return endOfStream;
+    }
+
 }
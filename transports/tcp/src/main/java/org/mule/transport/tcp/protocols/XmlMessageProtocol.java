@@ -6,9 +6,12 @@
  */
 package org.mule.transport.tcp.protocols;
 
+import org.mule.transport.tcp.TcpFrameDecoder;
+
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.PushbackInputStream;
+import java.nio.ByteBuffer;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
@@ -44,16 +47,22 @@ import java.util.concurrent.ConcurrentMap;
  * limited to insure that unread characters remain on the stream so that all data may
  * be read later.
  * </p>
+ * <p>
+ * When decoding, the received bytes are split at the declaration of the next document, or
+ * taken as a whole once no more are (momentarily) available.
+ * </p>
  */
-public class XmlMessageProtocol extends AbstractByteProtocol
+public class XmlMessageProtocol extends AbstractByteProtocol implements TcpFrameDecoder
 {
     
     private static final String XML_PATTERN = "<?xml";
+    private static final byte[] XML_PATTERN_BYTES = XML_PATTERN.getBytes();
 
     private static final int READ_BUFFER_SIZE = 4096;
     private static final int PUSHBACK_BUFFER_SIZE = READ_BUFFER_SIZE * 2;
 
     private ConcurrentMap pbMap = new ConcurrentHashMap();
+    private int maxMessageLength = -1;
 
     public XmlMessageProtocol()
     {
@@ -86,6 +95,10 @@ public class XmlMessageProtocol extends AbstractByteProtocol
                 {
                     // TODO take encoding into account, ideally from the incoming XML
                     message.append(new String(buffer, 0, len));
+                    if (maxMessageLength > 0 && message.length() > maxMessageLength)
+                    {
+                        throw new IOException("Length " + message.length() + " exceeds limit: " + maxMessageLength);
+                    }
                     // start search at 2nd character in buffer (index=1) to
                     // indicate whether we have reached a new document.
                     patternIndex = message.toString().indexOf(XML_PATTERN, 1);
@@ -127,6 +140,56 @@ public class XmlMessageProtocol extends AbstractByteProtocol
         }
     }
 
+    public Object decode(ByteBuffer buffer, boolean endOfStream) throws IOException
+    {
+        // start search at 2nd byte to find the beginning of a new document
+        int patternIndex = indexOfPattern(buffer, 1);
+        if (patternIndex > 0)
+        {
+            return takeBytes(buffer, patternIndex);
+        }
+        else if (isDecodeRemaining(endOfStream))
+        {
+            return nullEmptyArray(takeBytes(buffer, buffer.remaining()));
+        }
+        else
+        {
+            return null;
+        }
+    }
+
+    private int indexOfPattern(ByteBuffer buffer, int from)
+    {
+        int start = buffer.position();
+        int last = buffer.limit() - XML_PATTERN_BYTES.length;
+        for (int i = start + from; i <= last; i++)
+        {
+            int j = 0;
+            while (j < XML_PATTERN_BYTES.length && buffer.get(i + j) == XML_PATTERN_BYTES[j])
+            {
+                j++;
+            }
+            if (j == XML_PATTERN_BYTES.length)
+            {
+                return i - start;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Should the received bytes be decoded as a message when no new document is found in them?
+     * This class, following {@link #isRepeat(int, int, int)}, does so once no more bytes are
+     * (momentarily) available.
+     *
+     * @param endOfStream true if the client closed the stream
+     * @return true if the received bytes are a message
+     */
+    protected boolean isDecodeRemaining(boolean endOfStream)
+    {
+        return true;
+    }
+
     /**
      * Show we continue reading?  This class, following previous implementations, only
      * reads while input is saturated.
@@ -141,4 +204,18 @@ public class XmlMessageProtocol extends AbstractByteProtocol
     {
         return patternIndex < 0 && len == READ_BUFFER_SIZE && available > 0;
     }
+
+    public int getMaxMessageLength()
+    {
+        return maxMessageLength;
+    }
+
+    /**
+     * @param maxMessageLength maximum number of bytes of a received message, or a non positive
+     *        value if unlimited
+     */
+    public void setMaxMessageLength(int maxMessageLength)
+    {
+        this.maxMessageLength = maxMessageLength;
+    }
 }
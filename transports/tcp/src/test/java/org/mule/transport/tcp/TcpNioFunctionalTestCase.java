@@ -0,0 +1,281 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.tcp;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsInstanceOf.instanceOf;
+import static org.junit.Assert.assertThat;
+
+import org.mule.api.MuleMessage;
+import org.mule.api.transport.MessageReceiver;
+import org.mule.tck.junit4.FunctionalTestCase;
+import org.mule.tck.junit4.rule.DynamicPort;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+public class TcpNioFunctionalTestCase extends FunctionalTestCase
+{
+
+    private static final int CLIENTS = 20;
+    private static final int MESSAGES_PER_CLIENT = 10;
+
+    @Rule
+    public DynamicPort lengthPort = new DynamicPort("port1");
+
+    @Rule
+    public DynamicPort eofPort = new DynamicPort("port2");
+
+    @Override
+    protected String getConfigFile()
+    {
+        return "tcp-nio-functional-test-config.xml";
+    }
+
+    @Test
+    public void usesNonBlockingReceivers() throws Exception
+    {
+        assertNonBlockingReceiver("nioLengthConnector");
+        assertNonBlockingReceiver("nioEofConnector");
+    }
+
+    @Test
+    public void lengthProtocolRequestResponse() throws Exception
+    {
+        Socket socket = connect(lengthPort);
+        try
+        {
+            writeMessage(socket.getOutputStream(), TEST_MESSAGE);
+            assertThat(readMessage(socket), is(TEST_MESSAGE + " Received"));
+        }
+        finally
+        {
+            socket.close();
+        }
+    }
+
+    @Test
+    public void lengthProtocolMessagesOnOneConnection() throws Exception
+    {
+        Socket socket = connect(lengthPort);
+        try
+        {
+            for (int i = 0; i < MESSAGES_PER_CLIENT; i++)
+            {
+                writeMessage(socket.getOutputStream(), TEST_MESSAGE + i);
+                assertThat(readMessage(socket), is(TEST_MESSAGE + i + " Received"));
+            }
+        }
+        finally
+        {
+            socket.close();
+        }
+    }
+
+    @Test
+    public void lengthProtocolMessagesInOneWrite() throws Exception
+    {
+        Socket socket = connect(lengthPort);
+        try
+        {
+            ByteArrayOutputStream messages = new ByteArrayOutputStream();
+            writeMessage(messages, TEST_MESSAGE + 1);
+            writeMessage(messages, TEST_MESSAGE + 2);
+            writeMessage(messages, TEST_MESSAGE + 3);
+            socket.getOutputStream().write(messages.toByteArray());
+            socket.getOutputStream().flush();
+
+            assertThat(readMessage(socket), is(TEST_MESSAGE + 1 + " Received"));
+            assertThat(readMessage(socket), is(TEST_MESSAGE + 2 + " Received"));
+            assertThat(readMessage(socket), is(TEST_MESSAGE + 3 + " Received"));
+        }
+        finally
+        {
+            socket.close();
+        }
+    }
+
+    @Test
+    public void lengthProtocolMessageSplitAcrossReads() throws Exception
+    {
+        Socket socket = connect(lengthPort);
+        socket.setTcpNoDelay(true);
+        try
+        {
+            ByteArrayOutputStream message = new ByteArrayOutputStream();
+            writeMessage(message, TEST_MESSAGE);
+            writeInChunks(socket.getOutputStream(), message.toByteArray(), 3);
+
+            assertThat(readMessage(socket), is(TEST_MESSAGE + " Received"));
+        }
+        finally
+        {
+            socket.close();
+        }
+    }
+
+    @Test
+    public void lengthProtocolConcurrentClients() throws Exception
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(CLIENTS);
+        try
+        {
+            List<Future<Integer>> results = new ArrayList<Future<Integer>>();
+            for (int i = 0; i < CLIENTS; i++)
+            {
+                final String client = "client" + i + " ";
+                results.add(executor.submit(new Callable<Integer>()
+                {
+                    @Override
+                    public Integer call() throws Exception
+                    {
+                        Socket socket = connect(lengthPort);
+                        try
+                        {
+                            int responses = 0;
+                            for (int j = 0; j < MESSAGES_PER_CLIENT; j++)
+                            {
+                                writeMessage(socket.getOutputStream(), client + j);
+                                if ((client + j + " Received").equals(readMessage(socket)))
+                                {
+                                    responses++;
+                                }
+                            }
+                            return responses;
+                        }
+                        finally
+                        {
+                            socket.close();
+                        }
+                    }
+                }));
+            }
+
+            for (Future<Integer> result : results)
+            {
+                assertThat(result.get(), is(MESSAGES_PER_CLIENT));
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void eofProtocolMessageIsReceivedWhenClientCloses() throws Exception
+    {
+        Socket socket = connect(eofPort);
+        socket.setTcpNoDelay(true);
+        try
+        {
+            writeInChunks(socket.getOutputStream(), TEST_MESSAGE.getBytes(), 4);
+        }
+        finally
+        {
+            socket.close();
+        }
+
+        MuleMessage result = muleContext.getClient().request("vm://eofOut", RECEIVE_TIMEOUT);
+        assertThat(result.getPayloadAsString(), is(TEST_MESSAGE));
+    }
+
+    @Test
+    public void eofProtocolConcurrentClients() throws Exception
+    {
+        // all the connections are open at the same time, each one with a partial message
+        List<Socket> sockets = new ArrayList<Socket>();
+        try
+        {
+            for (int i = 0; i < CLIENTS; i++)
+            {
+                Socket socket = connect(eofPort);
+                sockets.add(socket);
+                socket.getOutputStream().write((TEST_MESSAGE + i).getBytes());
+                socket.getOutputStream().flush();
+            }
+        }
+        finally
+        {
+            for (Socket socket : sockets)
+            {
+                socket.close();
+            }
+        }
+
+        List<String> received = new ArrayList<String>();
+        for (int i = 0; i < CLIENTS; i++)
+        {
+            received.add(muleContext.getClient().request("vm://eofOut", RECEIVE_TIMEOUT).getPayloadAsString());
+        }
+        for (int i = 0; i < CLIENTS; i++)
+        {
+            assertThat(received.contains(TEST_MESSAGE + i), is(true));
+        }
+    }
+
+    private void assertNonBlockingReceiver(String connectorName)
+    {
+        TcpConnector connector = (TcpConnector) muleContext.getRegistry().lookupConnector(connectorName);
+        assertThat(connector.getReceivers().size(), is(1));
+        for (MessageReceiver receiver : connector.getReceivers().values())
+        {
+            assertThat(receiver, instanceOf(TcpNioMessageReceiver.class));
+        }
+    }
+
+    private Socket connect(DynamicPort port) throws IOException
+    {
+        Socket socket = new Socket("localhost", port.getNumber());
+        socket.setSoTimeout(RECEIVE_TIMEOUT);
+        return socket;
+    }
+
+    private void writeMessage(OutputStream out, String message) throws IOException
+    {
+        byte[] data = message.getBytes();
+        DataOutputStream dataOut = new DataOutputStream(out);
+        dataOut.writeInt(data.length);
+        dataOut.write(data);
+        dataOut.flush();
+    }
+
+    private String readMessage(Socket socket) throws IOException
+    {
+        DataInputStream in = new DataInputStream(socket.getInputStream());
+        byte[] data = new byte[in.readInt()];
+        in.readFully(data);
+        return new String(data);
+    }
+
+    /**
+     * Writes the data a few bytes at a time, pausing in between so the receiver reads each chunk
+     * on its own.
+     */
+    private void writeInChunks(OutputStream out, byte[] data, int chunkSize) throws Exception
+    {
+        for (int offset = 0; offset < data.length; offset += chunkSize)
+        {
+            out.write(data, offset, Math.min(chunkSize, data.length - offset));
+            out.flush();
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.transport.tcp.protocols;
+
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+import org.mule.transport.tcp.TcpFrameDecoder;
+import org.mule.transport.tcp.TcpProtocol;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Decodes messages from buffers instead of reading them from a TCP port.
+ */
+@SmallTest
+public class FrameDecoderTestCase extends AbstractMuleTestCase
+{
+
+    @Test
+    public void directProtocolDecodesAllReceivedBytes() throws Exception
+    {
+        ByteBuffer buffer = buffer("hello".getBytes());
+        assertThat(decodeString(new DirectProtocol(), buffer, false), is("hello"));
+        assertThat(new DirectProtocol().decode(buffer, false), nullValue());
+    }
+
+    @Test
+    public void eofProtocolWaitsForEndOfStream() throws Exception
+    {
+        ByteBuffer buffer = buffer("hello".getBytes());
+        assertThat(new EOFProtocol().decode(buffer, false), nullValue());
+        assertThat(buffer.remaining(), is(5));
+        assertThat(decodeString(new EOFProtocol(), buffer, true), is("hello"));
+    }
+
+    @Test
+    public void lengthProtocolDecodesCompleteFrames() throws Exception
+    {
+        LengthProtocol protocol = new LengthProtocol();
+        byte[] frames = concat(encode(protocol, "first"), encode(protocol, "second"));
+        ByteBuffer buffer = buffer(frames, frames.length - 2);
+
+        assertThat(decodeString(protocol, buffer, false), is("first"));
+        assertThat(protocol.decode(buffer, false), nullValue());
+        assertThat(buffer.remaining(), is(4 + "second".length() - 2));
+
+        buffer = append(buffer, frames, frames.length - 2);
+        assertThat(decodeString(protocol, buffer, false), is("second"));
+        assertThat(buffer.hasRemaining(), is(false));
+    }
+
+    @Test
+    public void lengthProtocolWaitsForLength() throws Exception
+    {
+        ByteBuffer buffer = buffer(new byte[] {0, 0});
+        assertThat(new LengthProtocol().decode(buffer, false), nullValue());
+        assertThat(buffer.remaining(), is(2));
+    }
+
+    @Test(expected = IOException.class)
+    public void lengthProtocolFailsWhenLengthExceedsLimit() throws Exception
+    {
+        new LengthProtocol(4).decode(buffer(encode(new LengthProtocol(), "hello")), false);
+    }
+
+    @Test
+    public void safeProtocolExposesMaxMessageLengthOfItsDelegate() throws Exception
+    {
+        SafeProtocol protocol = new SafeProtocol();
+        protocol.setMaxMessageLength(4);
+        assertThat(protocol.getMaxMessageLength(), is(4));
+    }
+
+    @Test(expected = IOException.class)
+    public void eofProtocolFailsWhenReadExceedsLimit() throws Exception
+    {
+        EOFProtocol protocol = new EOFProtocol();
+        protocol.setMaxMessageLength(4);
+        protocol.read(new ByteArrayInputStream("hello".getBytes()));
+    }
+
+    @Test(expected = IOException.class)
+    public void xmlProtocolFailsWhenReadExceedsLimit() throws Exception
+    {
+        XmlMessageProtocol protocol = new XmlMessageProtocol();
+        protocol.setMaxMessageLength(4);
+        protocol.read(new ByteArrayInputStream("<?xml version=\"1.0\"?><a/>".getBytes()));
+    }
+
+    @Test
+    public void safeProtocolDecodesCookieAndDataTogether() throws Exception
+    {
+        SafeProtocol protocol = new SafeProtocol();
+        byte[] frame = encode(protocol, "hello");
+        ByteBuffer buffer = buffer(frame, frame.length - 1);
+
+        assertThat(protocol.decode(buffer, false), nullValue());
+        assertThat(buffer.remaining(), is(frame.length - 1));
+
+        buffer = append(buffer, frame, frame.length - 1);
+        assertThat(decodeString(protocol, buffer, false), is("hello"));
+        assertThat(buffer.hasRemaining(), is(false));
+    }
+
+    @Test(expected = IOException.class)
+    public void safeProtocolFailsWithoutCookie() throws Exception
+    {
+        new SafeProtocol().decode(buffer(encode(new LengthProtocol(), "this is not a cookie, but it is long")), false);
+    }
+
+    @Test
+    public void xmlProtocolSplitsDocuments() throws Exception
+    {
+        ByteBuffer buffer = buffer("<?xml version=\"1.0\"?><a/><?xml version=\"1.0\"?><b/>".getBytes());
+        XmlMessageProtocol protocol = new XmlMessageProtocol();
+        assertThat(decodeString(protocol, buffer, false), is("<?xml version=\"1.0\"?><a/>"));
+        assertThat(decodeString(protocol, buffer, false), is("<?xml version=\"1.0\"?><b/>"));
+        assertThat(protocol.decode(buffer, false), nullValue());
+    }
+
+    @Test
+    public void xmlEofProtocolWaitsForNextDocumentOrEndOfStream() throws Exception
+    {
+        ByteBuffer buffer = buffer("<?xml version=\"1.0\"?><a/><?xml version=\"1.0\"?><b/>".getBytes());
+        XmlMessageEOFProtocol protocol = new XmlMessageEOFProtocol();
+        assertThat(decodeString(protocol, buffer, false), is("<?xml version=\"1.0\"?><a/>"));
+        assertThat(protocol.decode(buffer, false), nullValue());
+        assertThat(decodeString(protocol, buffer, true), is("<?xml version=\"1.0\"?><b/>"));
+    }
+
+    private String decodeString(TcpFrameDecoder decoder, ByteBuffer buffer, boolean endOfStream) throws IOException
+    {
+        return new String((byte[]) decoder.decode(buffer, endOfStream));
+    }
+
+    private byte[] encode(TcpProtocol protocol, String message) throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        protocol.write(out, message);
+        return out.toByteArray();
+    }
+
+    private byte[] concat(byte[] first, byte[] second)
+    {
+        byte[] bytes = new byte[first.length + second.length];
+        System.arraycopy(first, 0, bytes, 0, first.length);
+        System.arraycopy(second, 0, bytes, first.length, second.length);
+        return bytes;
+    }
+
+    private ByteBuffer buffer(byte[] bytes)
+    {
+        return buffer(bytes, bytes.length);
+    }
+
+    private ByteBuffer buffer(byte[] bytes, int length)
+    {
+        return ByteBuffer.wrap(bytes, 0, length).slice();
+    }
+
+    /**
+     * Appends the bytes received after the given offset to the bytes that were not decoded yet.
+     */
+    private ByteBuffer append(ByteBuffer buffer, byte[] bytes, int offset)
+    {
+        ByteBuffer appended = ByteBuffer.allocate(buffer.remaining() + bytes.length - offset);
+        appended.put(buffer);
+        appended.put(bytes, offset, bytes.length - offset);
+        appended.flip();
+        return appended;
+    }
+}